@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.benchmarks;
+
+import com.twelvemonkeys.imageio.plugins.jpeg.JPEGImageReadParam;
+import com.twelvemonkeys.imageio.stream.ByteArrayImageInputStream;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code JPEGImageReader} for CMYK and YCCK encoded JPEGs without ICC profile,
+ * converted to RGB using {@code FastCMYKToRGB}.
+ * The {@code readScaled} benchmark reads the same images at 1/8 scale.
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: JPEGImageReaderBenchmark.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JPEGImageReaderBenchmark {
+    @Param({"CMYK", "YCCK"})
+    public String colorSpace;
+
+    @Param({"1024"})
+    public int size;
+
+    private byte[] data;
+    private ImageReader reader;
+
+    @Setup
+    public void setup() throws IOException {
+        data = SampleImages.createCMYKJPEG(size, size * 3 / 4, "YCCK".equals(colorSpace));
+        reader = SampleImages.createTwelveMonkeysReader("JPEG");
+    }
+
+    @TearDown
+    public void tearDown() {
+        reader.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage read() throws IOException {
+        try (ImageInputStream stream = new ByteArrayImageInputStream(data)) {
+            reader.setInput(stream);
+            return reader.read(0);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage readScaled() throws IOException {
+        try (ImageInputStream stream = new ByteArrayImageInputStream(data)) {
+            reader.setInput(stream);
+
+            JPEGImageReadParam param = (JPEGImageReadParam) reader.getDefaultReadParam();
+            param.setScaleDenominator(8);
+
+            return reader.read(0, param);
+        }
+    }
+}
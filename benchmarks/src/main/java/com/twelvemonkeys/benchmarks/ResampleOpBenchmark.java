@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.benchmarks;
+
+import com.twelvemonkeys.image.ResampleOp;
+import com.twelvemonkeys.image.Resampler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@code ResampleOp}, downscaling a photo-like image to thumbnail size, for each filter type.
+ * The {@code reuse} benchmark uses a {@code Resampler} and a reused destination image instead.
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: ResampleOpBenchmark.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResampleOpBenchmark {
+    @Param({
+            "POINT", "BOX", "TRIANGLE", "HERMITE", "HANNING", "HAMMING", "BLACKMAN", "GAUSSIAN",
+            "QUADRATIC", "CUBIC", "CATROM", "MITCHELL", "LANCZOS", "BLACKMAN_BESSEL", "BLACKMAN_SINC"
+    })
+    public String filter;
+
+    @Param({"TYPE_INT_RGB", "TYPE_INT_ARGB", "TYPE_3BYTE_BGR", "TYPE_BYTE_GRAY"})
+    public String type;
+
+    @Param({"256"})
+    public int width;
+
+    private BufferedImage source;
+    private ResampleOp op;
+    private Resampler resampler;
+    private BufferedImage destination;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        source = SampleImages.createPhoto(2048, 1536, BufferedImage.class.getField(type).getInt(null));
+
+        int filterType = ResampleOp.class.getField("FILTER_" + filter).getInt(null);
+        op = new ResampleOp(width, width * source.getHeight() / source.getWidth(), filterType);
+
+        resampler = new Resampler(filterType);
+        destination = op.createCompatibleDestImage(source, null);
+    }
+
+    @Benchmark
+    public BufferedImage filter() {
+        return op.filter(source, null);
+    }
+
+    @Benchmark
+    public BufferedImage reuse() {
+        return resampler.resample(source, destination);
+    }
+}
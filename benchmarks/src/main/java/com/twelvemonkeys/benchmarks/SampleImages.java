@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.benchmarks;
+
+import com.twelvemonkeys.imageio.color.ColorSpaces;
+import com.twelvemonkeys.io.FastByteArrayOutputStream;
+import com.twelvemonkeys.io.FileUtil;
+import com.twelvemonkeys.io.enc.PackBitsEncoder;
+
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Generates (or loads) the sample images used by the benchmarks.
+ * <p>
+ * All images are generated deterministically, so that results are comparable between runs.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: SampleImages.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+final class SampleImages {
+    private static final String JPEG_NATIVE_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    private SampleImages() {}
+
+    /**
+     * Creates a photo-like image, with smooth gradients and some noise.
+     */
+    static BufferedImage createPhoto(final int width, final int height, final int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setPaint(new GradientPaint(0, 0, new Color(0xff3366cc, true), width, height, new Color(0x80ffcc33, true)));
+            g.fillRect(0, 0, width, height);
+
+            Random random = new Random(42);
+            for (int i = 0; i < 200; i++) {
+                g.setColor(new Color(random.nextInt(), true));
+                int size = random.nextInt(Math.max(1, Math.min(width, height) / 4));
+                g.fillOval(random.nextInt(width), random.nextInt(height), size, size);
+            }
+        }
+        finally {
+            g.dispose();
+        }
+
+        // Add some noise, to make the data less compressible
+        WritableRaster raster = image.getRaster();
+        Random random = new Random(4711);
+        int[] pixel = new int[raster.getNumBands()];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                raster.getPixel(x, y, pixel);
+                for (int b = 0; b < pixel.length; b++) {
+                    pixel[b] = Math.max(0, Math.min(255, pixel[b] + random.nextInt(9) - 4));
+                }
+                raster.setPixel(x, y, pixel);
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Creates a bi-level, document-like image, with lines of "text".
+     */
+    static BufferedImage createDocument(final int width, final int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.SERIF, Font.PLAIN, 36));
+
+            Random random = new Random(42);
+            StringBuilder line = new StringBuilder();
+            for (int y = 200; y < height - 200; y += 48) {
+                line.setLength(0);
+                while (line.length() < 100) {
+                    line.append((char) ('a' + random.nextInt(26)));
+                    if (random.nextInt(6) == 0) {
+                        line.append(' ');
+                    }
+                }
+
+                g.drawString(line.toString(), 150, y);
+            }
+        }
+        finally {
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    static Raster createCMYKRaster(final int width, final int height) {
+        BufferedImage rgb = createPhoto(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        WritableRaster cmyk = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, width, height, 4, null);
+
+        int[] pixel = new int[3];
+        int[] cmykPixel = new int[4];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                rgb.getRaster().getPixel(x, y, pixel);
+                int k = 255 - Math.max(pixel[0], Math.max(pixel[1], pixel[2]));
+                cmykPixel[0] = 255 - pixel[0] - k;
+                cmykPixel[1] = 255 - pixel[1] - k;
+                cmykPixel[2] = 255 - pixel[2] - k;
+                cmykPixel[3] = k;
+                cmyk.setPixel(x, y, cmykPixel);
+            }
+        }
+
+        return cmyk;
+    }
+
+    /**
+     * Creates a 4 channel JPEG, with an Adobe APP14 marker and no ICC profile.
+     *
+     * @param ycck {@code true} for YCCK encoded data, otherwise plain CMYK.
+     */
+    static byte[] createCMYKJPEG(final int width, final int height, final boolean ycck) throws IOException {
+        Raster raster = createCMYKRaster(width, height);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("JPEG").next();
+
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(.9f);
+
+            ImageTypeSpecifier type = ImageTypeSpecifier.createInterleaved(ColorSpaces.getColorSpace(ColorSpaces.CS_GENERIC_CMYK),
+                    new int[] {0, 1, 2, 3}, DataBuffer.TYPE_BYTE, false, false);
+            IIOMetadata metadata = writer.getDefaultImageMetadata(type, param);
+
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_NATIVE_FORMAT);
+            NodeList adobe = root.getElementsByTagName("app14Adobe");
+            if (adobe.getLength() == 0) {
+                throw new IllegalStateException("Expected app14Adobe node in JPEG metadata");
+            }
+            ((IIOMetadataNode) adobe.item(0)).setAttribute("transform", ycck ? "2" : "0");
+
+            metadata.setFromTree(JPEG_NATIVE_FORMAT, root);
+
+            return write(writer, new IIOImage(raster, null, metadata), param);
+        }
+        finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Creates a TIFF, using the given compression type.
+     * Bi-level images are created for the CCITT compression types, otherwise RGB.
+     *
+     * @param compression a compression type, as defined by the TIFF {@code ImageWriteParam}.
+     */
+    static byte[] createTIFF(final int width, final int height, final String compression) throws IOException {
+        BufferedImage image = compression.startsWith("CCITT")
+                              ? createDocument(width, height)
+                              : createPhoto(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        ImageWriter writer = createTwelveMonkeysWriter("TIFF");
+
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType(compression);
+
+            return write(writer, new IIOImage(image, null, null), param);
+        }
+        finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Creates a lossless (VP8L) WebP of a photo-like image with alpha.
+     *
+     * @param quality the compression quality, controlling the encoding effort.
+     */
+    static byte[] createWebP(final int width, final int height, final float quality) throws IOException {
+        BufferedImage image = createPhoto(width, height, BufferedImage.TYPE_INT_ARGB);
+        ImageWriter writer = createTwelveMonkeysWriter("WebP");
+
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+
+            return write(writer, new IIOImage(image, null, null), param);
+        }
+        finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Creates a minimal, flattened RGB PSD, without layers or resources.
+     *
+     * @param rle {@code true} for PackBits (RLE) compressed image data, otherwise uncompressed.
+     */
+    static byte[] createPSD(final int width, final int height, final boolean rle) throws IOException {
+        BufferedImage image = createPhoto(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        FastByteArrayOutputStream bytes = new FastByteArrayOutputStream(width * height * 3 + 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        // Header
+        out.writeInt(0x38425053); // 8BPS
+        out.writeShort(1); // Version
+        out.write(new byte[6]); // Reserved
+        out.writeShort(3); // Channels
+        out.writeInt(height);
+        out.writeInt(width);
+        out.writeShort(8); // Bits per channel
+        out.writeShort(3); // RGB
+
+        out.writeInt(0); // Color mode data
+        out.writeInt(0); // Image resources
+        out.writeInt(0); // Layer and mask info
+
+        // Image data, planar: R, G, B
+        out.writeShort(rle ? 1 : 0);
+
+        byte[][] rows = new byte[3 * height][];
+        byte[] row = new byte[width];
+        PackBitsEncoder encoder = new PackBitsEncoder();
+
+        for (int c = 0; c < 3; c++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = pixels[(y * width + x) * 3 + 2 - c]; // BGR -> R, G, B
+                }
+
+                if (rle) {
+                    FastByteArrayOutputStream encoded = new FastByteArrayOutputStream(width + width / 128 + 1);
+                    encoder.encode(encoded, ByteBuffer.wrap(row));
+                    rows[c * height + y] = encoded.toByteArray();
+                }
+                else {
+                    rows[c * height + y] = row.clone();
+                }
+            }
+        }
+
+        if (rle) {
+            for (byte[] encoded : rows) {
+                out.writeShort(encoded.length);
+            }
+        }
+
+        for (byte[] encoded : rows) {
+            out.write(encoded);
+        }
+
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    static byte[] readResource(final String name) throws IOException {
+        try (InputStream stream = SampleImages.class.getResourceAsStream(name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("No such resource: " + name);
+            }
+
+            return FileUtil.read(stream);
+        }
+    }
+
+    static ImageReader createTwelveMonkeysReader(final String formatName) {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(formatName);
+
+        while (readers.hasNext()) {
+            ImageReader reader = readers.next();
+
+            if (reader.getClass().getName().startsWith("com.twelvemonkeys.")) {
+                return reader;
+            }
+        }
+
+        throw new IllegalStateException("No TwelveMonkeys ImageReader for format: " + formatName);
+    }
+
+    static ImageWriter createTwelveMonkeysWriter(final String formatName) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+
+        while (writers.hasNext()) {
+            ImageWriter writer = writers.next();
+
+            if (writer.getClass().getName().startsWith("com.twelvemonkeys.")) {
+                return writer;
+            }
+        }
+
+        throw new IllegalStateException("No TwelveMonkeys ImageWriter for format: " + formatName);
+    }
+
+    private static byte[] write(final ImageWriter writer, final IIOImage image, final ImageWriteParam param) throws IOException {
+        FastByteArrayOutputStream bytes = new FastByteArrayOutputStream(1024 * 1024);
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            writer.write(null, image, param);
+        }
+
+        return bytes.toByteArray();
+    }
+}
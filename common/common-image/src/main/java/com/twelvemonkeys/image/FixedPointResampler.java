@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.image;
+
+import com.twelvemonkeys.image.ResampleOp.ContributorList;
+
+import java.awt.image.*;
+import java.util.Arrays;
+
+/**
+ * Fixed point integer implementation of the {@link ResampleOp} filter passes,
+ * for rasters with 8 bits per sample.
+ * <p>
+ * Weights are represented with 14 fractional bits, and summed in 32 bit
+ * integer accumulators. Samples are read and written directly from/to the
+ * backing {@code byte} or {@code int} arrays.
+ * Each filter pass works on whole rows of samples, in simple loops that the
+ * JIT compiler is able to vectorize.
+ * </p>
+ * <p>
+ * The horizontally filtered samples are not rounded to integers, but keep 8
+ * extra fractional bits. For filters with negative lobes, like Lanczos, the
+ * rounding differences would otherwise add up.
+ * Only used when the weights sum to one, as they always do when shrinking,
+ * and the weights are small enough for the vertical pass not to overflow.
+ * The result is then within &plusmn;1 of the floating point implementation.
+ * </p>
+ * <p>
+ * The horizontally filtered rows are kept in a ring buffer, only large enough
+ * to hold the source rows contributing to a single destination row.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haku $
+ * @version $Id: FixedPointResampler.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+final class FixedPointResampler {
+    static final int PRECISION = 14;
+    static final int ONE = 1 << PRECISION;
+
+    // Extra fractional bits of the horizontally filtered samples
+    static final int FRACTION = 8;
+    private static final int MAX_INTERMEDIATE = 255 << FRACTION;
+
+    private static final int HALF_HORIZONTAL = 1 << (PRECISION - FRACTION - 1);
+    private static final int HALF_VERTICAL = 1 << (PRECISION + FRACTION - 1);
+
+    // Largest sum of absolute weights, that will not overflow the vertical accumulator
+    static final int MAX_ABSOLUTE_SUM = (Integer.MAX_VALUE - HALF_VERTICAL) / MAX_INTERMEDIATE;
+
+    private FixedPointResampler() {
+    }
+
+    /**
+     * Computes the fixed point weights for the given contributor list.
+     * The integer weights are adjusted, so that they sum to the same value as
+     * the floating point weights, rounded.
+     *
+     * @param contrib the contributor list
+     */
+    static void toFixedPoint(final ContributorList contrib) {
+        int[] pixels = new int[contrib.n];
+        int[] weights = new int[contrib.n];
+
+        double sum = 0;
+        int fixedSum = 0;
+        int largest = 0;
+
+        for (int j = 0; j < contrib.n; j++) {
+            pixels[j] = contrib.p[j].pixel;
+            weights[j] = (int) Math.round(contrib.p[j].weight * ONE);
+
+            sum += contrib.p[j].weight;
+            fixedSum += weights[j];
+
+            if (Math.abs(weights[j]) > Math.abs(weights[largest])) {
+                largest = j;
+            }
+        }
+
+        // Put any rounding error on the largest weight
+        int total = (int) Math.round(sum * ONE);
+        weights[largest] += total - fixedSum;
+
+        contrib.pixels = pixels;
+        contrib.weights = weights;
+        contrib.start = isContiguous(pixels) ? pixels[0] : -1;
+        contrib.exact = total == ONE;
+        contrib.absoluteSum = absoluteSum(weights);
+    }
+
+    private static long absoluteSum(final int[] weights) {
+        long sum = 0;
+
+        for (int weight : weights) {
+            sum += Math.abs(weight);
+        }
+
+        return sum;
+    }
+
+    private static boolean isContiguous(final int[] pixels) {
+        for (int j = 1; j < pixels.length; j++) {
+            if (pixels[j] != pixels[0] + j) {
+                return false;
+            }
+        }
+
+        return pixels.length > 0;
+    }
+
+    /**
+     * Tests if the fixed point implementation can be used for the given rasters.
+     *
+     * @param source the source raster
+     * @param dest the destination raster
+     * @param cm the source color model
+     * @return {@code true} if both source and destination stores 8 bits samples, in a supported layout.
+     */
+    static boolean isSupported(final Raster source, final WritableRaster dest, final ColorModel cm) {
+        if (cm instanceof IndexColorModel || source.getNumBands() != dest.getNumBands()) {
+            return false;
+        }
+
+        for (int b = 0; b < source.getNumBands(); b++) {
+            if (cm.getComponentSize(b) != 8) {
+                return false;
+            }
+        }
+
+        return isSupported(source) && isSupported(dest);
+    }
+
+    private static boolean isSupported(final Raster raster) {
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+
+        if (dataBuffer instanceof DataBufferByte && dataBuffer.getNumBanks() == 1) {
+            return sampleModel instanceof PixelInterleavedSampleModel;
+        }
+        else if (dataBuffer instanceof DataBufferInt && dataBuffer.getNumBanks() == 1 && sampleModel instanceof SinglePixelPackedSampleModel) {
+            for (int size : sampleModel.getSampleSize()) {
+                if (size != 8) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Tests if the fixed point implementation can be used for the given contributor lists,
+     * that is, if all weights sum to exactly one, and the absolute weights sum to at most
+     * {@link #MAX_ABSOLUTE_SUM}.
+     * <p>
+     * The floating point implementation keeps the sample value when all contributing
+     * samples are equal, regardless of the filter weights. If the weights do not sum to one,
+     * a rounding difference of the intermediate value may thus cause a large difference in
+     * the result.
+     * </p>
+     *
+     * @param contribs the contributor lists
+     * @return {@code true} if the fixed point implementation can be used.
+     */
+    static boolean isSupported(final ContributorList[] contribs) {
+        for (ContributorList contrib : contribs) {
+            if (!contrib.exact || contrib.absoluteSum > MAX_ABSOLUTE_SUM) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of rows in the intermediate ring buffer, that is, the largest span of
+     * source rows contributing to a single destination row.
+     *
+     * @param contribY vertical contributors, for each destination row
+     * @param dest the destination raster
+     * @return the number of rows, or {@code 0} if the ring buffer for the entire destination width is not addressable.
+     */
+    static int getRingRows(final ContributorList[] contribY, final Raster dest) {
+        int rows = 0;
+
+        for (ContributorList contrib : contribY) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+
+            for (int pixel : contrib.pixels) {
+                min = Math.min(min, pixel);
+                max = Math.max(max, pixel);
+            }
+
+            rows = Math.max(rows, max - min + 1);
+        }
+
+        return (long) rows * dest.getWidth() * dest.getNumBands() > Integer.MAX_VALUE - 8 ? 0 : rows;
+    }
+
+    /**
+     * Returns the length of the scratch buffer needed for each band, including the ring buffer.
+     */
+    static int getScratchLength(final Raster source, final int bandWidth, final int ringRows) {
+        int numBands = source.getNumBands();
+        return source.getWidth() * numBands + bandWidth * numBands + ringRows + ringRows * bandWidth * numBands;
+    }
+
+    /**
+     * Resamples the destination columns {@code [fromX, toX)}.
+     * For each destination row, the contributing source rows not already in the ring buffer
+     * are filtered horizontally into it, then the destination row is filtered vertically from it.
+     * As the contributing rows move down with each destination row, each source row is
+     * normally filtered horizontally only once.
+     *
+     * @param source the source raster
+     * @param dest the destination raster
+     * @param contribX horizontal contributors, for each destination column
+     * @param contribY vertical contributors, for each destination row
+     * @param ringRows number of rows in the ring buffer, see {@link #getRingRows(ContributorList[], Raster)}
+     * @param scratch per band scratch buffer, at least {@link #getScratchLength(Raster, int, int)} long
+     * @param fromX first destination column, inclusive
+     * @param toX last destination column, exclusive
+     */
+    static void resampleColumns(final Raster source, final WritableRaster dest,
+                                final ContributorList[] contribX, final ContributorList[] contribY,
+                                final int ringRows, final int[] scratch, final int fromX, final int toX) {
+        final int numBands = source.getNumBands();
+        final int srcWidth = source.getWidth();
+        final int dstHeight = dest.getHeight();
+
+        final int rowLength = srcWidth * numBands;
+        final int bandLength = (toX - fromX) * numBands;
+
+        // Scratch layout: source row, destination row accumulators, source row stored in each ring slot, ring slots
+        final int accOffset = rowLength;
+        final int slotsOffset = accOffset + bandLength;
+        final int ringOffset = slotsOffset + ringRows;
+
+        // NOTE: Band offsets/bit offsets are cloned for each invocation, so we get them once
+        final int[] srcOffsets = getOffsets(source.getSampleModel());
+        final int[] dstOffsets = getOffsets(dest.getSampleModel());
+
+        Arrays.fill(scratch, slotsOffset, ringOffset, -1);
+
+        for (int y = 0; y < dstHeight; y++) {
+            ContributorList contrib = contribY[y];
+            int[] pixels = contrib.pixels;
+            int[] weights = contrib.weights;
+
+            /* Apply horizontal filter to the contributing source rows missing from the ring buffer. */
+            for (int pixel : pixels) {
+                int slot = pixel % ringRows;
+
+                if (scratch[slotsOffset + slot] != pixel) {
+                    filterRow(source, srcOffsets, contribX, pixel, scratch, fromX, toX, ringOffset + slot * bandLength);
+                    scratch[slotsOffset + slot] = pixel;
+                }
+            }
+
+            /* Apply vertical filter to the ring buffer, into the destination row. */
+            for (int i = 0; i < bandLength; i++) {
+                scratch[accOffset + i] = HALF_VERTICAL;
+            }
+
+            for (int j = 0; j < pixels.length; j++) {
+                int offset = ringOffset + (pixels[j] % ringRows) * bandLength;
+                int weight = weights[j];
+
+                for (int i = 0; i < bandLength; i++) {
+                    scratch[accOffset + i] += weight * scratch[offset + i];
+                }
+            }
+
+            for (int i = 0; i < bandLength; i++) {
+                scratch[accOffset + i] = clamp(scratch[accOffset + i] >> (PRECISION + FRACTION), 255);
+            }
+
+            writeRow(dest, dstOffsets, y, fromX, toX, scratch, accOffset);
+        }
+    }
+
+    // Filters columns [fromX, toX) of source row y horizontally, into interleaved samples in scratch, starting at ringOffset
+    private static void filterRow(final Raster source, final int[] srcOffsets, final ContributorList[] contribX, final int y,
+                                  final int[] scratch, final int fromX, final int toX, final int ringOffset) {
+        final int numBands = source.getNumBands();
+        final int srcWidth = source.getWidth();
+
+        // Source row is stored as planes, one for each band
+        readRow(source, srcOffsets, y, scratch);
+
+        for (int b = 0; b < numBands; b++) {
+            int planeOffset = b * srcWidth;
+            int ringIndex = ringOffset + b;
+
+            for (int x = fromX; x < toX; x++) {
+                ContributorList contrib = contribX[x];
+                int[] weights = contrib.weights;
+                int acc = HALF_HORIZONTAL;
+
+                if (contrib.start >= 0) {
+                    // Contiguous pixels, a plain dot product
+                    int offset = planeOffset + contrib.start;
+
+                    for (int j = 0; j < weights.length; j++) {
+                        acc += weights[j] * scratch[offset + j];
+                    }
+                }
+                else {
+                    // Mirrored pixels at the edges
+                    int[] pixels = contrib.pixels;
+
+                    for (int j = 0; j < weights.length; j++) {
+                        acc += weights[j] * scratch[planeOffset + pixels[j]];
+                    }
+                }
+
+                scratch[ringIndex] = clamp(acc >> (PRECISION - FRACTION), MAX_INTERMEDIATE);
+                ringIndex += numBands;
+            }
+        }
+    }
+
+    private static int clamp(final int value, final int max) {
+        return value < 0 ? 0 : value > max ? max : value;
+    }
+
+    private static int[] getOffsets(final SampleModel sampleModel) {
+        return sampleModel instanceof PixelInterleavedSampleModel
+               ? ((PixelInterleavedSampleModel) sampleModel).getBandOffsets()
+               : ((SinglePixelPackedSampleModel) sampleModel).getBitOffsets();
+    }
+
+    // Reads all samples of the given row, as planar samples into row, starting at index 0
+    private static void readRow(final Raster raster, final int[] offsets, final int y, final int[] row) {
+        int width = raster.getWidth();
+        int numBands = raster.getNumBands();
+        int rasterY = raster.getMinY() + y - raster.getSampleModelTranslateY();
+        int rasterX = raster.getMinX() - raster.getSampleModelTranslateX();
+
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+
+        if (dataBuffer instanceof DataBufferByte) {
+            PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sampleModel;
+            byte[] data = ((DataBufferByte) dataBuffer).getData();
+
+            int pixelStride = interleaved.getPixelStride();
+            int rowOffset = dataBuffer.getOffset() + rasterY * interleaved.getScanlineStride() + rasterX * pixelStride;
+
+            for (int b = 0; b < numBands; b++) {
+                int offset = rowOffset + offsets[b];
+                int planeOffset = b * width;
+
+                for (int x = 0; x < width; x++) {
+                    row[planeOffset + x] = data[offset + x * pixelStride] & 0xff;
+                }
+            }
+        }
+        else {
+            SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) sampleModel;
+            int[] data = ((DataBufferInt) dataBuffer).getData();
+
+            int rowOffset = dataBuffer.getOffset() + rasterY * packed.getScanlineStride() + rasterX;
+
+            for (int b = 0; b < numBands; b++) {
+                int shift = offsets[b];
+                int planeOffset = b * width;
+
+                for (int x = 0; x < width; x++) {
+                    row[planeOffset + x] = (data[rowOffset + x] >>> shift) & 0xff;
+                }
+            }
+        }
+    }
+
+    // Writes the samples for columns [fromX, toX) of the given row, from interleaved samples in row, starting at offset
+    private static void writeRow(final WritableRaster raster, final int[] offsets, final int y, final int fromX, final int toX, final int[] row, final int offset) {
+        int numBands = raster.getNumBands();
+        int rasterY = raster.getMinY() + y - raster.getSampleModelTranslateY();
+        int rasterX = raster.getMinX() + fromX - raster.getSampleModelTranslateX();
+        int width = toX - fromX;
+
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+
+        if (dataBuffer instanceof DataBufferByte) {
+            PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sampleModel;
+            byte[] data = ((DataBufferByte) dataBuffer).getData();
+
+            int pixelStride = interleaved.getPixelStride();
+            int rowOffset = dataBuffer.getOffset() + rasterY * interleaved.getScanlineStride() + rasterX * pixelStride;
+
+            for (int b = 0; b < numBands; b++) {
+                int dataOffset = rowOffset + offsets[b];
+
+                for (int x = 0; x < width; x++) {
+                    data[dataOffset + x * pixelStride] = (byte) row[offset + x * numBands + b];
+                }
+            }
+        }
+        else {
+            SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) sampleModel;
+            int[] data = ((DataBufferInt) dataBuffer).getData();
+
+            int rowOffset = dataBuffer.getOffset() + rasterY * packed.getScanlineStride() + rasterX;
+
+            // Keep bits not used by any band
+            int unused = ~0;
+            for (int b = 0; b < numBands; b++) {
+                unused &= ~(0xff << offsets[b]);
+            }
+
+            for (int x = 0; x < width; x++) {
+                int pixel = data[rowOffset + x] & unused;
+
+                for (int b = 0; b < numBands; b++) {
+                    pixel |= row[offset + x * numBands + b] << offsets[b];
+                }
+
+                data[rowOffset + x] = pixel;
+            }
+        }
+    }
+}
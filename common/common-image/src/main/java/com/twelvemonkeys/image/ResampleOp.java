@@ -57,6 +57,11 @@ package com.twelvemonkeys.image;
 import java.awt.*;
 import java.awt.geom.*;
 import java.awt.image.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Resamples (scales) a {@code BufferedImage} to a new width and height, using
@@ -101,6 +106,21 @@ import java.awt.image.*;
  * BufferedImage scaled = new ResampleOp(w, h).filter(temp, null);
  * </pre></blockquote>
  * <p>
+ * For very large input images, the filter passes may be split into bands of
+ * destination columns, and run concurrently, by passing an {@code Executor}
+ * to the constructor:
+ * </p>
+ * <blockquote><pre>
+ * BufferedImage scaled = new ResampleOp(w, h, FILTER_LANCZOS, ForkJoinPool.commonPool()).filter(veryLarge, null);
+ * </pre></blockquote>
+ * <p>
+ * Images with 8 bits per sample, like {@code TYPE_INT_RGB}, {@code TYPE_INT_ARGB},
+ * {@code TYPE_3BYTE_BGR} or {@code TYPE_BYTE_GRAY}, are resampled using fixed point
+ * integer arithmetic, for all filters, whenever the filter weights sum to one
+ * (always the case when shrinking). The result may differ by &plusmn;1 from the
+ * floating point implementation used for other images.
+ * </p>
+ * <p>
  * This {@code BufferedImageOp} is based on C example code found in
  * <a href="http://www.acm.org/tog/GraphicsGems/">Graphics Gems III</a>,
  * Filtered Image Rescaling, by Dale Schumacher (with additional improvments by
@@ -121,6 +141,8 @@ import java.awt.image.*;
  * @version $Id: //depot/branches/personal/haraldk/twelvemonkeys/release-2/twelvemonkeys-core/src/main/java/com/twelvemonkeys/image/ResampleOp.java#1 $
  * @see #ResampleOp(int,int,int)
  * @see #ResampleOp(int,int,java.awt.RenderingHints)
+ * @see #ResampleOp(int,int,int,java.util.concurrent.Executor)
+ * @see Resampler
  * @see BufferedImage
  * @see RenderingHints
  * @see AffineTransformOp
@@ -280,12 +302,17 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
     public final static Object VALUE_INTERPOLATION_BLACKMAN_SINC =
             new Value(KEY_RESAMPLE_INTERPOLATION, "Blackman-Sinc", FILTER_BLACKMAN_SINC);
 
+    // Minimum number of destination columns in each band, when resampling concurrently
+    private static final int MIN_BAND_WIDTH = 16;
+
     // Member variables
     private final int width;
     private final int height;
 
     private final int filterType;
 
+    private final Executor executor;
+
     /**
      * RendereingHints.Key implementation, works only with Value values.
      */
@@ -405,6 +432,32 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
      * @see <a href="#field_summary">filter type constants</a>
      */
     public ResampleOp(int width, int height, int filterType) {
+        this(width, height, filterType, null);
+    }
+
+    /**
+     * Creates a {@code ResampleOp} that will resample input images to the
+     * given width and height, using the given interpolation filter.
+     * The filter passes are split into bands of destination columns, that are
+     * resampled concurrently using the given executor.
+     * The calling thread resamples one of the bands, and waits for the others
+     * to complete before returning.
+     * <p>
+     * The result is identical to that of the sequential filter.
+     * Images with multiple pixels per data element (ie. {@code MultiPixelPackedSampleModel}),
+     * and the special cases handled by {@code AffineTransformOp}, are always
+     * resampled sequentially.
+     * </p>
+     *
+     * @param width      width of the re-sampled image
+     * @param height     height of the re-sampled image
+     * @param filterType interpolation filter algorithm
+     * @param executor   the executor used to resample bands concurrently,
+     *                   typically {@link ForkJoinPool#commonPool()},
+     *                   or {@code null} to resample sequentially.
+     * @see <a href="#field_summary">filter type constants</a>
+     */
+    public ResampleOp(int width, int height, int filterType, Executor executor) {
         if (width <= 0 || height <= 0) {
             // NOTE: w/h == 0 makes the Magick DLL crash and the JVM dies.. :-P
             throw new IllegalArgumentException("width and height must be positive");
@@ -414,9 +467,10 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
         this.height = height;
 
         this.filterType = validateFilterType(filterType);
+        this.executor = executor;
     }
 
-    private static int validateFilterType(int pFilterType) {
+    static int validateFilterType(int pFilterType) {
         switch (pFilterType) {
             case FILTER_UNDEFINED:
             case FILTER_POINT:
@@ -496,6 +550,17 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
      * @see #ResampleOp(int,int,int)
      */
     public final BufferedImage filter(final BufferedImage input, final BufferedImage output) {
+        return filter(input, output, width, height, filterType, executor, null);
+    }
+
+    /*
+        Re-samples the image to the given size, using the given filter. If
+        resampler is non-null, its contributor tables and scratch buffers are
+        reused.
+    */
+    static BufferedImage filter(final BufferedImage input, final BufferedImage output,
+                                final int width, final int height, final int filterType,
+                                final Executor executor, final Resampler resampler) {
         if (input == null) {
             throw new NullPointerException("Input == null");
         }
@@ -546,9 +611,9 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
 
         // Create or convert output to a suitable image
         // TODO: OPTIMIZE: Don't really need to convert all types to same as input
-        BufferedImage result = output != null && temp.getType() != BufferedImage.TYPE_CUSTOM ? /*output*/ ImageUtil.toBuffered(output, temp.getType()) : createCompatibleDestImage(temp, null);
+        BufferedImage result = output != null && temp.getType() != BufferedImage.TYPE_CUSTOM ? /*output*/ ImageUtil.toBuffered(output, temp.getType()) : createCompatibleDestImage(temp, null, width, height);
 
-        resample(temp, result, filter);
+        resample(temp, result, filter, executor, resampler);
 
         // If output != null and needed to be converted, draw it back
         if (output != null && output != result) {
@@ -739,7 +804,7 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
         return filterType;
     }
 
-    private static InterpolationFilter createFilter(int pFilterType) {
+    static InterpolationFilter createFilter(int pFilterType) {
         // TODO: Select correct filter based on scale up or down, if undefined!
         if (pFilterType == FILTER_UNDEFINED) {
             pFilterType = FILTER_LANCZOS;
@@ -782,6 +847,10 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
     }
 
     public final BufferedImage createCompatibleDestImage(final BufferedImage pInput, final ColorModel pModel) {
+        return createCompatibleDestImage(pInput, pModel, width, height);
+    }
+
+    private static BufferedImage createCompatibleDestImage(final BufferedImage pInput, final ColorModel pModel, final int width, final int height) {
         if (pInput == null) {
             throw new NullPointerException("pInput == null");
         }
@@ -1263,6 +1332,13 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
     static class ContributorList {
         int n;/* number of contributors (may be < p.length) */
         Contributor[] p;/* pointer to list of contributions */
+
+        /* fixed point representation, see FixedPointResampler */
+        int[] pixels;
+        int[] weights;
+        int start;/* first pixel, if pixels are contiguous, otherwise -1 */
+        boolean exact;/* weights sum to exactly one */
+        long absoluteSum;/* sum of absolute weights */
     }
 
     /*
@@ -1292,27 +1368,24 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
     }/* round */
 
     /*
-        calcXContrib()
-
-        Calculates the filter weights for a single target column.
-        contribX->p must be freed afterwards.
+        calcContrib()
 
-        Returns -1 if error, 0 otherwise.
+        Calculates the filter weights for a single target column (or row).
     */
-    private ContributorList calcXContrib(double xscale, double fwidth, int srcwidth, InterpolationFilter pFilter, int i) {
-        // TODO: What to do when fwidth > srcwidyj or dstwidth
+    private static ContributorList calcContrib(double scale, double fwidth, int srcSize, InterpolationFilter pFilter, int i) {
+        // TODO: What to do when fwidth > srcSize or dstSize
 
         double width;
         double fscale;
         double center;
         double weight;
 
-        ContributorList contribX = new ContributorList();
+        ContributorList contrib = new ContributorList();
 
-        if (xscale < 1.0) {
+        if (scale < 1.0) {
             /* Shrinking image */
-            width = fwidth / xscale;
-            fscale = 1.0 / xscale;
+            width = fwidth / scale;
+            fscale = 1.0 / scale;
 
             if (width <= .5) {
                 // Reduce to point sampling.
@@ -1320,10 +1393,10 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
                 fscale = 1.0;
             }
 
-            //contribX.n = 0;
-            contribX.p = new Contributor[(int) (width * 2.0 + 1.0 + 0.5)];
+            //contrib.n = 0;
+            contrib.p = new Contributor[(int) (width * 2.0 + 1.0 + 0.5)];
 
-            center = (double) i / xscale;
+            center = (double) i / scale;
             int left = (int) Math.ceil(center - width);// Note: Assumes width <= .5
             int right = (int) Math.floor(center + width);
 
@@ -1336,26 +1409,26 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
                 if (j < 0) {
                     n = -j;
                 }
-                else if (j >= srcwidth) {
-                    n = (srcwidth - j) + srcwidth - 1;
+                else if (j >= srcSize) {
+                    n = (srcSize - j) + srcSize - 1;
                 }
                 else {
                     n = j;
                 }
 
                 /**/
-                if (n >= srcwidth) {
-                    n = n % srcwidth;
+                if (n >= srcSize) {
+                    n = n % srcSize;
                 }
                 else if (n < 0) {
-                    n = srcwidth - 1;
+                    n = srcSize - 1;
                 }
                 /**/
 
-                int k = contribX.n++;
-                contribX.p[k] = new Contributor();
-                contribX.p[k].pixel = n;
-                contribX.p[k].weight = weight;
+                int k = contrib.n++;
+                contrib.p[k] = new Contributor();
+                contrib.p[k].pixel = n;
+                contrib.p[k].weight = weight;
 
                 density += weight;
 
@@ -1364,17 +1437,17 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
             if ((density != 0.0) && (density != 1.0)) {
                 //Normalize.
                 density = 1.0 / density;
-                for (int k = 0; k < contribX.n; k++) {
-                    contribX.p[k].weight *= density;
+                for (int k = 0; k < contrib.n; k++) {
+                    contrib.p[k].weight *= density;
                 }
             }
         }
         else {
             /* Expanding image */
-            //contribX.n = 0;
-            contribX.p = new Contributor[(int) (fwidth * 2.0 + 1.0 + 0.5)];
+            //contrib.n = 0;
+            contrib.p = new Contributor[(int) (fwidth * 2.0 + 1.0 + 0.5)];
 
-            center = (double) i / xscale;
+            center = (double) i / scale;
             int left = (int) Math.ceil(center - fwidth);
             int right = (int) Math.floor(center + fwidth);
 
@@ -1386,170 +1459,243 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
                 if (j < 0) {
                     n = -j;
                 }
-                else if (j >= srcwidth) {
-                    n = (srcwidth - j) + srcwidth - 1;
+                else if (j >= srcSize) {
+                    n = (srcSize - j) + srcSize - 1;
                 }
                 else {
                     n = j;
                 }
 
                 /**/
-                if (n >= srcwidth) {
-                    n = n % srcwidth;
+                if (n >= srcSize) {
+                    n = n % srcSize;
                 }
                 else if (n < 0) {
-                    n = srcwidth - 1;
+                    n = srcSize - 1;
                 }
                 /**/
 
-                int k = contribX.n++;
-                contribX.p[k] = new Contributor();
-                contribX.p[k].pixel = n;
-                contribX.p[k].weight = weight;
+                int k = contrib.n++;
+                contrib.p[k] = new Contributor();
+                contrib.p[k].pixel = n;
+                contrib.p[k].weight = weight;
             }
         }
-        return contribX;
-    }/* calcXContrib */
+        return contrib;
+    }/* calcContrib */
+
+    /*
+        calcContribs()
+
+        Calculates the filter weights for all target columns (or rows).
+    */
+    static ContributorList[] calcContribs(int srcSize, int dstSize, InterpolationFilter pFilter) {
+        double scale = (double) dstSize / (double) srcSize;
+        double fwidth = pFilter.support();
+
+        ContributorList[] contribs = new ContributorList[dstSize];
+        for (int i = 0; i < dstSize; i++) {
+            contribs[i] = calcContrib(scale, fwidth, srcSize, pFilter, i);
+            FixedPointResampler.toFixedPoint(contribs[i]);
+        }
+
+        return contribs;
+    }/* calcContribs */
 
     /*
         resample()
 
         Resizes bitmaps while resampling them.
     */
-    private BufferedImage resample(BufferedImage pSource, BufferedImage pDest, InterpolationFilter pFilter) {
+    private static BufferedImage resample(BufferedImage pSource, BufferedImage pDest, InterpolationFilter pFilter,
+                                          Executor executor, Resampler resampler) {
         final int dstWidth = pDest.getWidth();
         final int dstHeight = pDest.getHeight();
 
         final int srcWidth = pSource.getWidth();
         final int srcHeight = pSource.getHeight();
 
-        /* create intermediate column to hold horizontal dst column zoom */
-        final ColorModel cm = pSource.getColorModel();
-//        final WritableRaster work = cm.createCompatibleWritableRaster(1, srcHeight);
-        final WritableRaster work = ImageUtil.createCompatibleWritableRaster(pSource, cm, 1, srcHeight);
+        ContributorList[] contribX;
+        ContributorList[] contribY;
 
-        double xscale = (double) dstWidth / (double) srcWidth;
-        double yscale = (double) dstHeight / (double) srcHeight;
+        if (resampler != null) {
+            contribX = resampler.getContribs(srcWidth, dstWidth, pFilter);
+            contribY = resampler.getContribs(srcHeight, dstHeight, pFilter);
+        }
+        else {
+            contribX = calcContribs(srcWidth, dstWidth, pFilter);
+            contribY = calcContribs(srcHeight, dstHeight, pFilter);
+        }
 
-        ContributorList[] contribY = new ContributorList[dstHeight];
-        for (int i = 0; i < contribY.length; i++) {
-            contribY[i] = new ContributorList();
+        final WritableRaster out = pDest.getRaster();
+
+        // TODO: This is not optimal for non-byte-packed rasters...
+        // (What? Maybe I implemented the fix, but forgot to remove the TODO?)
+        final int numChannels = pSource.getRaster().getNumBands();
+        final int[] channelMax = new int[numChannels];
+        for (int k = 0; k < numChannels; k++) {
+            channelMax[k] = (1 << pSource.getColorModel().getComponentSize(k)) - 1;
         }
 
-        // TODO: What to do when fwidth > srcHeight or dstHeight
-        double fwidth = pFilter.support();
-        if (yscale < 1.0) {
-            double width = fwidth / yscale;
-            double fscale = 1.0 / yscale;
+        // Use fixed point integer arithmetic for 8 bit samples
+        final int ringRows = FixedPointResampler.isSupported(pSource.getRaster(), out, pSource.getColorModel())
+                                     && FixedPointResampler.isSupported(contribX) && FixedPointResampler.isSupported(contribY)
+                             ? FixedPointResampler.getRingRows(contribY, out)
+                             : 0;
 
-            if (width <= .5) {
-                // Reduce to point sampling.
-                width = .5 + 1.0e-6;
-                fscale = 1.0;
-            }
+        int bands = getBandCount(out, executor);
 
-            for (int i = 0; i < dstHeight; i++) {
-                //contribY[i].n = 0;
-                contribY[i].p = new Contributor[(int) (width * 2.0 + 1 + 0.5)];
+        if (bands > 1) {
+            resampleConcurrently(pSource, out, contribX, contribY, channelMax, ringRows, bands, executor, resampler);
+        }
+        else {
+            createBand(pSource, out, contribX, contribY, channelMax, ringRows, resampler, 0, 0, dstWidth).run();
+        }
+
+        return pDest;
+    }/* resample */
 
-                double center = (double) i / yscale;
-                int left = (int) Math.ceil(center - width);
-                int right = (int) Math.floor(center + width);
+    private static int[] getWorkBuffer(final Resampler resampler, final int band, final int length) {
+        return resampler != null ? resampler.getWorkBuffer(band, length) : new int[length];
+    }
 
-                double density = 0.0;
+    /*
+        createBand()
 
-                for (int j = left; j <= right; j++) {
-                    double weight = center - (double) j;
-                    weight = pFilter.filter(weight / fscale) / fscale;
-                    int n;
-                    if (j < 0) {
-                        n = -j;
-                    }
-                    else if (j >= srcHeight) {
-                        n = (srcHeight - j) + srcHeight - 1;
-                    }
-                    else {
-                        n = j;
-                    }
+        Creates a task resampling the destination columns [fromX, toX).
+        Scratch buffers are obtained up front, in the calling thread.
+        If ringRows is positive, the fixed point implementation is used, with
+        an intermediate buffer of ringRows rows for each band.
+    */
+    private static Runnable createBand(final BufferedImage pSource, final WritableRaster out,
+                                       final ContributorList[] contribX, final ContributorList[] contribY,
+                                       final int[] channelMax, final int ringRows, final Resampler resampler,
+                                       final int band, final int fromX, final int toX) {
+        final Raster raster = pSource.getRaster();
 
-                    /**/
-                    if (n >= srcHeight) {
-                        n = n % srcHeight;
-                    }
-                    else if (n < 0) {
-                        n = srcHeight - 1;
-                    }
-                    /**/
+        if (ringRows > 0) {
+            final int[] scratch = getWorkBuffer(resampler, band, FixedPointResampler.getScratchLength(raster, toX - fromX, ringRows));
+            return () -> FixedPointResampler.resampleColumns(raster, out, contribX, contribY, ringRows, scratch, fromX, toX);
+        }
 
-                    int k = contribY[i].n++;
-                    contribY[i].p[k] = new Contributor();
-                    contribY[i].p[k].pixel = n;
-                    contribY[i].p[k].weight = weight;
+        final int[] work = getWorkBuffer(resampler, band, raster.getHeight() * raster.getNumBands());
+        return () -> resampleColumns(pSource, out, contribX, contribY, channelMax, work, fromX, toX);
+    }
 
-                    density += weight;
-                }
+    private static int getBandCount(final WritableRaster out, final Executor executor) {
+        if (executor == null) {
+            return 1;
+        }
 
-                if ((density != 0.0) && (density != 1.0)) {
-                    //Normalize.
-                    density = 1.0 / density;
-                    for (int k = 0; k < contribY[i].n; k++) {
-                        contribY[i].p[k].weight *= density;
-                    }
+        // Multiple pixels share the same data element, concurrent writes to adjacent columns are not safe
+        SampleModel sampleModel = out.getSampleModel();
+        if (!(sampleModel instanceof ComponentSampleModel || sampleModel instanceof SinglePixelPackedSampleModel)) {
+            return 1;
+        }
+
+        int parallelism = executor instanceof ForkJoinPool
+                          ? ((ForkJoinPool) executor).getParallelism()
+                          : Runtime.getRuntime().availableProcessors();
+
+        return Math.max(1, Math.min(parallelism, out.getWidth() / MIN_BAND_WIDTH));
+    }
+
+    /*
+        resampleConcurrently()
+
+        Splits the destination columns into bands, and resamples each band
+        as a separate task. The first band is resampled in the calling thread.
+    */
+    private static void resampleConcurrently(final BufferedImage pSource, final WritableRaster out,
+                                             final ContributorList[] contribX, final ContributorList[] contribY,
+                                             final int[] channelMax, final int ringRows, final int bands,
+                                             final Executor executor, final Resampler resampler) {
+        final int dstWidth = out.getWidth();
+
+        @SuppressWarnings("unchecked")
+        FutureTask<Void>[] tasks = new FutureTask[bands - 1];
+
+        try {
+            for (int band = 1; band < bands; band++) {
+                int fromX = (int) ((long) dstWidth * band / bands);
+                int toX = (int) ((long) dstWidth * (band + 1) / bands);
+
+                tasks[band - 1] = new FutureTask<>(createBand(pSource, out, contribX, contribY, channelMax, ringRows, resampler, band, fromX, toX), null);
+
+                try {
+                    executor.execute(tasks[band - 1]);
+                }
+                catch (RejectedExecutionException e) {
+                    // Executor is saturated or shut down, just do the work ourselves
+                    tasks[band - 1].run();
                 }
             }
+
+            createBand(pSource, out, contribX, contribY, channelMax, ringRows, resampler, 0, 0, dstWidth / bands).run();
+
+            for (FutureTask<Void> task : tasks) {
+                awaitBand(task);
+            }
         }
-        else {
-            for (int i = 0; i < dstHeight; ++i) {
-                //contribY[i].n = 0;
-                contribY[i].p = new Contributor[(int) (fwidth * 2 + 1 + 0.5)];
-
-                double center = (double) i / yscale;
-                double left = Math.ceil(center - fwidth);
-                double right = Math.floor(center + fwidth);
-                for (int j = (int) left; j <= right; ++j) {
-                    double weight = center - (double) j;
-                    weight = pFilter.filter(weight);
-                    int n;
-                    if (j < 0) {
-                        n = -j;
+        finally {
+            // In case of errors, make sure no task is still writing to the destination when we return
+            for (FutureTask<Void> task : tasks) {
+                if (task != null) {
+                    try {
+                        task.get();
                     }
-                    else if (j >= srcHeight) {
-                        n = (srcHeight - j) + srcHeight - 1;
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
                     }
-                    else {
-                        n = j;
+                    catch (ExecutionException ignore) {
+                        // The first exception is already propagating
                     }
+                }
+            }
+        }
+    }
 
-                    /**/
-                    if (n >= srcHeight) {
-                        n = n % srcHeight;
-                    }
-                    else if (n < 0) {
-                        n = srcHeight - 1;
-                    }
-                    /**/
+    private static void awaitBand(final FutureTask<Void> task) {
+        try {
+            task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImagingOpException("Interrupted while resampling");
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
 
-                    int k = contribY[i].n++;
-                    contribY[i].p[k] = new Contributor();
-                    contribY[i].p[k].pixel = n;
-                    contribY[i].p[k].weight = weight;
-                }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
             }
+
+            ImagingOpException exception = new ImagingOpException(String.valueOf(cause));
+            exception.initCause(cause);
+            throw exception;
         }
+    }
 
-        final Raster raster = pSource.getRaster();
-        final WritableRaster out = pDest.getRaster();
+    /*
+        resampleColumns()
 
-        // TODO: This is not optimal for non-byte-packed rasters...
-        // (What? Maybe I implemented the fix, but forgot to remove the TODO?)
+        Resamples the destination columns [fromX, toX), first horizontally
+        into an intermediate column, then vertically into the destination.
+        The intermediate column is stored in work, as interleaved samples.
+    */
+    private static void resampleColumns(final BufferedImage pSource, final WritableRaster out,
+                                        final ContributorList[] contribX, final ContributorList[] contribY,
+                                        final int[] channelMax, final int[] work, final int fromX, final int toX) {
+        final Raster raster = pSource.getRaster();
+        final int srcHeight = raster.getHeight();
+        final int dstHeight = out.getHeight();
         final int numChannels = raster.getNumBands();
-        final int[] channelMax = new int[numChannels];
-        for (int k = 0; k < numChannels; k++) {
-            channelMax[k] = (1 << pSource.getColorModel().getComponentSize(k)) - 1;
-        }
 
-        for (int xx = 0; xx < dstWidth; xx++) {
-            ContributorList contribX = calcXContrib(xscale, fwidth, srcWidth, pFilter, xx);
+        for (int xx = fromX; xx < toX; xx++) {
+            ContributorList contribXX = contribX[xx];
             /* Apply horiz filter to make dst column in tmp. */
             for (int k = 0; k < srcHeight; k++) {
                 for (int channel = 0; channel < numChannels; channel++) {
@@ -1558,13 +1704,13 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
                     boolean bPelDelta = false;
                     // TODO: This line throws index out of bounds, if the image
                     // is smaller than filter.support()
-                    double pel = raster.getSample(contribX.p[0].pixel, k, channel);
-                    for (int j = 0; j < contribX.n; j++) {
-                        double pel2 = j == 0 ? pel : raster.getSample(contribX.p[j].pixel, k, channel);
+                    double pel = raster.getSample(contribXX.p[0].pixel, k, channel);
+                    for (int j = 0; j < contribXX.n; j++) {
+                        double pel2 = j == 0 ? pel : raster.getSample(contribXX.p[j].pixel, k, channel);
                         if (pel2 != pel) {
                             bPelDelta = true;
                         }
-                        weight += pel2 * contribX.p[j].weight;
+                        weight += pel2 * contribXX.p[j].weight;
                     }
                     weight = bPelDelta ? round(weight) : pel;
 
@@ -1575,7 +1721,7 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
                         weight = channelMax[channel];
                     }
 
-                    work.setSample(0, k, channel, weight);
+                    work[k * numChannels + channel] = (int) weight;
 
                 }
             }/* next row in temp column */
@@ -1586,12 +1732,12 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
 
                     double weight = 0.0;
                     boolean bPelDelta = false;
-                    double pel = work.getSample(0, contribY[i].p[0].pixel, channel);
+                    double pel = work[contribY[i].p[0].pixel * numChannels + channel];
 
                     for (int j = 0; j < contribY[i].n; j++) {
                         // TODO: This line throws index out of bounds, if the image
                         // is smaller than filter.support()
-                        double pel2 = j == 0 ? pel : work.getSample(0, contribY[i].p[j].pixel, channel);
+                        double pel2 = j == 0 ? pel : work[contribY[i].p[j].pixel * numChannels + channel];
                         if (pel2 != pel) {
                             bPelDelta = true;
                         }
@@ -1609,6 +1755,5 @@ public class ResampleOp implements BufferedImageOp/* TODO: RasterOp */ {
                 }
             }/* next dst row */
         }/* next dst column */
-        return pDest;
-    }/* resample */
+    }/* resampleColumns */
 }
\ No newline at end of file
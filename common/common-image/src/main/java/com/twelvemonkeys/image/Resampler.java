@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.image;
+
+import com.twelvemonkeys.image.ResampleOp.ContributorList;
+import com.twelvemonkeys.image.ResampleOp.InterpolationFilter;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Executor;
+
+/**
+ * A reusable resampler, that resamples images like {@link ResampleOp}, but
+ * caches the filter contributor tables and the intermediate scratch buffers
+ * between invocations.
+ * <p>
+ * When resampling many images to the same few target sizes, using the same
+ * {@code Resampler} instance avoids recomputing the filter weights and
+ * re-allocating the work buffers for each image.
+ * The output is identical to that of {@code ResampleOp} using the same
+ * filter type.
+ * </p>
+ * <p>
+ * Instances of this class are <em>not</em> thread safe, but may safely be
+ * kept in a {@code ThreadLocal}, or in a pool, as long as each instance is
+ * used by one thread at a time.
+ * </p>
+ * <blockquote><pre>
+ * private static final ThreadLocal&lt;Resampler&gt; RESAMPLER =
+ *         ThreadLocal.withInitial(() -&gt; new Resampler(ResampleOp.FILTER_LANCZOS));
+ *
+ * //...
+ *
+ * BufferedImage thumbnail = RESAMPLER.get().resample(image, 200, 150);
+ * </pre></blockquote>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haku $
+ * @version $Id: Resampler.java,v 1.0 16.10.2026 haraldk Exp$
+ * @see ResampleOp
+ */
+public final class Resampler {
+    // Number of (source size, destination size) pairs to keep contributor tables for
+    private static final int CACHE_SIZE = 8;
+
+    private final int filterType;
+    private final Executor executor;
+
+    private final int[] srcSizes = new int[CACHE_SIZE];
+    private final int[] dstSizes = new int[CACHE_SIZE];
+    private final ContributorList[][] contribs = new ContributorList[CACHE_SIZE][];
+    private int next;
+
+    private int[][] workBuffers = new int[1][];
+
+    /**
+     * Creates a {@code Resampler} using the given interpolation filter.
+     *
+     * @param filterType interpolation filter algorithm
+     * @see <a href="ResampleOp.html#field_summary">filter type constants</a>
+     */
+    public Resampler(final int filterType) {
+        this(filterType, null);
+    }
+
+    /**
+     * Creates a {@code Resampler} using the given interpolation filter, that
+     * resamples bands of destination columns concurrently using the given executor.
+     *
+     * @param filterType interpolation filter algorithm
+     * @param executor   the executor used to resample bands concurrently,
+     *                   or {@code null} to resample sequentially.
+     * @see <a href="ResampleOp.html#field_summary">filter type constants</a>
+     * @see ResampleOp#ResampleOp(int, int, int, Executor)
+     */
+    public Resampler(final int filterType, final Executor executor) {
+        this.filterType = ResampleOp.validateFilterType(filterType);
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the filter type constant.
+     *
+     * @return the filter type constant.
+     * @see <a href="ResampleOp.html#field_summary">filter type constants</a>
+     */
+    public int getFilterType() {
+        return filterType;
+    }
+
+    /**
+     * Re-samples (scales) the image to the given width and height.
+     *
+     * @param input  the {@code BufferedImage} to be resampled
+     * @param width  width of the re-sampled image
+     * @param height height of the re-sampled image
+     * @return a new, re-sampled {@code BufferedImage}.
+     * @throws NullPointerException     if {@code input} is {@code null}
+     * @throws IllegalArgumentException if {@code width} or {@code height} is not positive
+     */
+    public BufferedImage resample(final BufferedImage input, final int width, final int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+
+        return ResampleOp.filter(input, null, width, height, filterType, executor, this);
+    }
+
+    /**
+     * Re-samples (scales) the image to the size of the given output image,
+     * and stores the result in {@code output}.
+     * Reusing the output image makes resampling of same-sized images
+     * allocation free for most image types.
+     *
+     * @param input  the {@code BufferedImage} to be resampled
+     * @param output the {@code BufferedImage} in which to store the resampled image
+     * @return {@code output}
+     * @throws NullPointerException     if {@code input} or {@code output} is {@code null}
+     * @throws IllegalArgumentException if {@code input == output}.
+     */
+    public BufferedImage resample(final BufferedImage input, final BufferedImage output) {
+        if (output == null) {
+            throw new NullPointerException("output == null");
+        }
+
+        return ResampleOp.filter(input, output, output.getWidth(), output.getHeight(), filterType, executor, this);
+    }
+
+    ContributorList[] getContribs(final int srcSize, final int dstSize, final InterpolationFilter filter) {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            if (contribs[i] != null && srcSizes[i] == srcSize && dstSizes[i] == dstSize) {
+                return contribs[i];
+            }
+        }
+
+        // Replace the oldest entry
+        int index = next;
+        next = (next + 1) % CACHE_SIZE;
+
+        srcSizes[index] = srcSize;
+        dstSizes[index] = dstSize;
+        contribs[index] = ResampleOp.calcContribs(srcSize, dstSize, filter);
+
+        return contribs[index];
+    }
+
+    int[] getWorkBuffer(final int band, final int length) {
+        if (band >= workBuffers.length) {
+            int[][] buffers = new int[band + 1][];
+            System.arraycopy(workBuffers, 0, buffers, 0, workBuffers.length);
+            workBuffers = buffers;
+        }
+
+        if (workBuffers[band] == null || workBuffers[band].length < length) {
+            workBuffers[band] = new int[length];
+        }
+
+        return workBuffers[band];
+    }
+}
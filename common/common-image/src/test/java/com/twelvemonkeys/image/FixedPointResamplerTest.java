@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.image;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.twelvemonkeys.image.ImageUtilTest.createImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FixedPointResamplerTest
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haku $
+ * @version $Id: FixedPointResamplerTest.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+public class FixedPointResamplerTest {
+
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY
+    };
+
+    private static final int[] FILTERS = {
+            ResampleOp.FILTER_BOX, ResampleOp.FILTER_HERMITE, ResampleOp.FILTER_HAMMING, ResampleOp.FILTER_CATROM, ResampleOp.FILTER_MITCHELL, ResampleOp.FILTER_LANCZOS, ResampleOp.FILTER_BLACKMAN_SINC
+    };
+
+    // Same content as image, but stored in unsigned shorts, that is always resampled using floating point
+    private static BufferedImage toUShort(final BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        int numBands = colorModel.getNumComponents();
+        int[] bits = new int[numBands];
+        Arrays.fill(bits, 8);
+
+        ComponentColorModel cm = new ComponentColorModel(colorModel.getColorSpace(), bits, colorModel.hasAlpha(), colorModel.isAlphaPremultiplied(), colorModel.getTransparency(), DataBuffer.TYPE_USHORT);
+        BufferedImage copy = new BufferedImage(cm, cm.createCompatibleWritableRaster(image.getWidth(), image.getHeight()), cm.isAlphaPremultiplied(), null);
+
+        copy.setData(toComponents(image.getRaster(), image.getColorModel()));
+
+        return copy;
+    }
+
+    // Rearranges the samples of raster to component order (ie. RGBA)
+    private static Raster toComponents(final Raster raster, final ColorModel colorModel) {
+        WritableRaster components = Raster.createBandedRaster(DataBuffer.TYPE_BYTE, raster.getWidth(), raster.getHeight(), colorModel.getNumComponents(), null);
+        Object pixel = null;
+        int[] samples = null;
+
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int x = 0; x < raster.getWidth(); x++) {
+                pixel = raster.getDataElements(x, y, pixel);
+                samples = colorModel.getComponents(pixel, samples, 0);
+                components.setPixel(x, y, samples);
+            }
+        }
+
+        return components;
+    }
+
+    // Fails if any sample differs by more than one
+    private static void assertWithinOne(final BufferedImage expected, final BufferedImage actual, final String message) {
+        Raster expectedRaster = toComponents(expected.getRaster(), expected.getColorModel());
+        Raster actualRaster = toComponents(actual.getRaster(), actual.getColorModel());
+
+        int[] expectedPixel = null;
+        int[] actualPixel = null;
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                expectedPixel = expectedRaster.getPixel(x, y, expectedPixel);
+                actualPixel = actualRaster.getPixel(x, y, actualPixel);
+
+                for (int b = 0; b < expectedPixel.length; b++) {
+                    int diff = Math.abs(expectedPixel[b] - actualPixel[b]);
+
+                    if (diff > 1) {
+                        fail(String.format("%s: sample differs @%d,%d, band %d: expected %d, actual %d", message, x, y, b, expectedPixel[b], actualPixel[b]));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertRasterEquals(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertArrayEquals(expected.getRaster().getPixel(x, y, (int[]) null), actual.getRaster().getPixel(x, y, (int[]) null), "Pixel differs @" + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void testIsSupported() {
+        for (int type : TYPES) {
+            BufferedImage image = new BufferedImage(10, 10, type);
+            assertTrue(FixedPointResampler.isSupported(image.getRaster(), image.getRaster(), image.getColorModel()), "type: " + type);
+        }
+
+        int[] unsupported = {
+                BufferedImage.TYPE_USHORT_GRAY, BufferedImage.TYPE_USHORT_565_RGB, BufferedImage.TYPE_USHORT_555_RGB,
+                BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_BYTE_INDEXED
+        };
+
+        for (int type : unsupported) {
+            BufferedImage image = new BufferedImage(10, 10, type);
+            assertFalse(FixedPointResampler.isSupported(image.getRaster(), image.getRaster(), image.getColorModel()), "type: " + type);
+        }
+
+        BufferedImage ushort = toUShort(new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR));
+        assertFalse(FixedPointResampler.isSupported(ushort.getRaster(), ushort.getRaster(), ushort.getColorModel()));
+    }
+
+    @Test
+    void testWeightsSumToOneWhenShrinking() {
+        for (int filter : FILTERS) {
+            ResampleOp.InterpolationFilter interpolationFilter = ResampleOp.createFilter(filter);
+
+            assertTrue(FixedPointResampler.isSupported(ResampleOp.calcContribs(1000, 99, interpolationFilter)), "filter: " + filter);
+            assertTrue(FixedPointResampler.isSupported(ResampleOp.calcContribs(256, 255, interpolationFilter)), "filter: " + filter);
+        }
+    }
+
+    @Test
+    void testNegativeWeightsSupported() {
+        int[] negative = {ResampleOp.FILTER_CATROM, ResampleOp.FILTER_MITCHELL, ResampleOp.FILTER_LANCZOS, ResampleOp.FILTER_BLACKMAN_SINC};
+
+        for (int filter : negative) {
+            assertTrue(FixedPointResampler.isSupported(ResampleOp.calcContribs(1000, 99, ResampleOp.createFilter(filter))), "filter: " + filter);
+            assertTrue(FixedPointResampler.isSupported(ResampleOp.calcContribs(4000, 1000, ResampleOp.createFilter(filter))), "filter: " + filter);
+        }
+    }
+
+    @Test
+    void testLargeWeightsNotSupported() {
+        ResampleOp.ContributorList contrib = new ResampleOp.ContributorList();
+        contrib.n = 3;
+        contrib.p = new ResampleOp.Contributor[3];
+
+        double[] weights = {-1.5, 4, -1.5};
+        for (int i = 0; i < contrib.n; i++) {
+            contrib.p[i] = new ResampleOp.Contributor();
+            contrib.p[i].pixel = i;
+            contrib.p[i].weight = weights[i];
+        }
+
+        FixedPointResampler.toFixedPoint(contrib);
+
+        // Weights sum to one, but the vertical pass could overflow
+        assertTrue(contrib.exact);
+        assertFalse(FixedPointResampler.isSupported(new ResampleOp.ContributorList[] {contrib}));
+    }
+
+    @Test
+    void testRingRowsIndependentOfSourceHeight() {
+        WritableRaster dest = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 10000, 10000, 3, null);
+        ResampleOp.InterpolationFilter filter = ResampleOp.createFilter(ResampleOp.FILTER_TRIANGLE);
+
+        // Halving the size, each destination row has contributions from only a few source rows
+        int rows = FixedPointResampler.getRingRows(ResampleOp.calcContribs(20000, 10000, filter), dest);
+        assertTrue(rows > 0 && rows <= 8, "rows: " + rows);
+
+        assertEquals(rows, FixedPointResampler.getRingRows(ResampleOp.calcContribs(200, 100, filter), dest));
+    }
+
+    @Test
+    void testResampleCloseToFloatingPoint() {
+        for (int type : TYPES) {
+            BufferedImage image = createImage(211, 157, type);
+
+            // Add some detail, to make sure not all contributing samples are equal
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setColor(new Color(0x80ffffff, true));
+                g.fillOval(30, 20, 120, 100);
+                g.setColor(Color.BLACK);
+                g.drawString("TwelveMonkeys", 40, 80);
+            }
+            finally {
+                g.dispose();
+            }
+
+            BufferedImage reference = toUShort(image);
+
+            for (int filter : FILTERS) {
+                for (Dimension size : new Dimension[] {new Dimension(67, 45), new Dimension(200, 150), new Dimension(300, 200)}) {
+                    BufferedImage expected = new ResampleOp(size.width, size.height, filter).filter(reference, null);
+                    BufferedImage actual = new ResampleOp(size.width, size.height, filter).filter(image, null);
+
+                    assertWithinOne(expected, actual, String.format("type: %d, filter: %d, size: %dx%d", type, filter, size.width, size.height));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testResampleUniform() {
+        for (int type : TYPES) {
+            BufferedImage image = new BufferedImage(97, 83, type);
+
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setColor(new Color(0x7f3c8d0f, true));
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            }
+            finally {
+                g.dispose();
+            }
+
+            BufferedImage result = new ResampleOp(31, 27, ResampleOp.FILTER_LANCZOS).filter(image, null);
+
+            for (int y = 0; y < result.getHeight(); y++) {
+                for (int x = 0; x < result.getWidth(); x++) {
+                    assertArrayEquals(image.getRaster().getPixel(0, 0, (int[]) null), result.getRaster().getPixel(x, y, (int[]) null));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testResampleSubimage() {
+        for (int type : TYPES) {
+            BufferedImage image = createImage(200, 150, type);
+            BufferedImage subimage = image.getSubimage(33, 21, 120, 100);
+            BufferedImage copy = new BufferedImage(subimage.getWidth(), subimage.getHeight(), type);
+            copy.setData(subimage.getData());
+
+            // Resample into a subimage of a larger image as well
+            BufferedImage output = new BufferedImage(80, 60, type);
+            BufferedImage outputSubimage = output.getSubimage(10, 10, 50, 40);
+
+            BufferedImage expected = new ResampleOp(50, 40, ResampleOp.FILTER_HERMITE).filter(copy, null);
+            BufferedImage actual = new ResampleOp(50, 40, ResampleOp.FILTER_HERMITE).filter(subimage, outputSubimage);
+
+            assertSame(outputSubimage, actual);
+            assertRasterEquals(expected, actual);
+
+            // Pixels outside the subimage untouched
+            assertEquals(0, output.getRGB(9, 9) & 0xffffff);
+            assertEquals(0, output.getRGB(60, 50) & 0xffffff);
+        }
+    }
+
+    @Test
+    void testResampleConcurrentEqualsSequential() {
+        for (int type : TYPES) {
+            BufferedImage image = createImage(640, 480, type);
+
+            BufferedImage expected = new ResampleOp(213, 160, ResampleOp.FILTER_HAMMING).filter(image, null);
+            BufferedImage actual = new ResampleOp(213, 160, ResampleOp.FILTER_HAMMING, ForkJoinPool.commonPool()).filter(image, null);
+
+            assertRasterEquals(expected, actual);
+        }
+    }
+}
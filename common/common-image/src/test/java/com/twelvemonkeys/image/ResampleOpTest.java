@@ -36,9 +36,16 @@ import org.junit.jupiter.api.Test;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImagingOpException;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.twelvemonkeys.image.ImageUtilTest.createImage;
 import static org.junit.jupiter.api.Assertions.*;
@@ -341,6 +348,104 @@ public class ResampleOpTest {
         }
     }
 
+    private void assertResampleConcurrentEqualsSequential(final BufferedImage image, final int width, final int height, final int filterType, final Executor executor) {
+        BufferedImage expected = new ResampleOp(width, height, filterType).filter(image, null);
+        BufferedImage actual = new ResampleOp(width, height, filterType, executor).filter(image, null);
+
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(width, actual.getWidth());
+        assertEquals(height, actual.getHeight());
+
+        Raster expectedRaster = expected.getRaster();
+        Raster actualRaster = actual.getRaster();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertArrayEquals(expectedRaster.getPixel(x, y, (int[]) null), actualRaster.getPixel(x, y, (int[]) null), "Pixel differs @" + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void testResampleConcurrentEqualsSequential() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_GRAY};
+            int[] filters = {ResampleOp.FILTER_BOX, ResampleOp.FILTER_MITCHELL, ResampleOp.FILTER_LANCZOS};
+
+            for (int type : types) {
+                BufferedImage image = createImage(317, 211, type);
+
+                for (int filter : filters) {
+                    assertResampleConcurrentEqualsSequential(image, 113, 71, filter, executor);
+                    assertResampleConcurrentEqualsSequential(image, 499, 301, filter, executor);
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testResampleConcurrentCommonPool() {
+        assertResampleConcurrentEqualsSequential(createImage(640, 480, BufferedImage.TYPE_INT_ARGB), 160, 120, ResampleOp.FILTER_LANCZOS, ForkJoinPool.commonPool());
+    }
+
+    @Test
+    void testResampleConcurrentBinary() {
+        // Packed binary images are always resampled sequentially
+        assertResampleConcurrentEqualsSequential(createImage(320, 200, BufferedImage.TYPE_BYTE_BINARY), 100, 60, ResampleOp.FILTER_BOX, ForkJoinPool.commonPool());
+    }
+
+    @Test
+    void testResampleConcurrentRejected() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        // Rejected bands are resampled in the calling thread
+        assertResampleConcurrentEqualsSequential(createImage(320, 200, BufferedImage.TYPE_3BYTE_BGR), 200, 100, ResampleOp.FILTER_MITCHELL, executor);
+    }
+
+    @Test
+    void testResampleConcurrentFailureWaitsForBands() throws InterruptedException {
+        ForkJoinPool executor = new ForkJoinPool(3);
+
+        try {
+            BufferedImage gray = createImage(320, 200, BufferedImage.TYPE_USHORT_GRAY);
+            WritableRaster compatible = gray.getRaster();
+            AtomicInteger reads = new AtomicInteger();
+
+            WritableRaster raster = new WritableRaster(compatible.getSampleModel(), compatible.getDataBuffer(), new Point()) {
+                @Override
+                public int getSample(int x, int y, int b) {
+                    if (x == 0) {
+                        // The first band is resampled in the calling thread
+                        throw new IllegalStateException("Expected");
+                    }
+
+                    if (reads.incrementAndGet() % 100 == 0) {
+                        Thread.yield();
+                    }
+
+                    return super.getSample(x, y, b);
+                }
+            };
+            BufferedImage image = new BufferedImage(gray.getColorModel(), raster, false, null);
+
+            assertThrows(IllegalStateException.class, () -> new ResampleOp(160, 100, ResampleOp.FILTER_LANCZOS, executor).filter(image, null));
+
+            // No band is still reading from the source, or writing to the destination
+            int count = reads.get();
+            Thread.sleep(50);
+            assertEquals(count, reads.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
     @Disabled("Not for general unit testing")
     @Test
     void testTime() {
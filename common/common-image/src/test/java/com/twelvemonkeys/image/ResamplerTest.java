@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.image;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.twelvemonkeys.image.ImageUtilTest.createImage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResamplerTest
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haku $
+ * @version $Id: ResamplerTest.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+public class ResamplerTest {
+
+    private static void assertRasterEquals(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        Raster expectedRaster = expected.getRaster();
+        Raster actualRaster = actual.getRaster();
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertArrayEquals(expectedRaster.getPixel(x, y, (int[]) null), actualRaster.getPixel(x, y, (int[]) null), "Pixel differs @" + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void testCreateInvalidFilterType() {
+        assertThrows(IllegalArgumentException.class, () -> new Resampler(-1));
+    }
+
+    @Test
+    void testResampleInvalidSize() {
+        Resampler resampler = new Resampler(ResampleOp.FILTER_LANCZOS);
+        BufferedImage image = createImage(10, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> resampler.resample(image, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> resampler.resample(image, 10, -1));
+    }
+
+    @Test
+    void testResampleNull() {
+        Resampler resampler = new Resampler(ResampleOp.FILTER_LANCZOS);
+
+        assertThrows(NullPointerException.class, () -> resampler.resample(null, 10, 10));
+        assertThrows(NullPointerException.class, () -> resampler.resample(createImage(10, 10), null));
+    }
+
+    @Test
+    void testResampleEqualsResampleOp() {
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_565_RGB};
+        int[] filters = {ResampleOp.FILTER_BOX, ResampleOp.FILTER_HERMITE, ResampleOp.FILTER_MITCHELL, ResampleOp.FILTER_LANCZOS, ResampleOp.FILTER_BLACKMAN_SINC};
+
+        for (int filter : filters) {
+            Resampler resampler = new Resampler(filter);
+
+            for (int type : types) {
+                BufferedImage image = createImage(123, 97, type);
+
+                // Same resampler reused for all types and sizes
+                assertRasterEquals(new ResampleOp(41, 33, filter).filter(image, null), resampler.resample(image, 41, 33));
+                assertRasterEquals(new ResampleOp(200, 150, filter).filter(image, null), resampler.resample(image, 200, 150));
+                assertRasterEquals(new ResampleOp(41, 33, filter).filter(image, null), resampler.resample(image, 41, 33));
+            }
+        }
+    }
+
+    @Test
+    void testResampleReuseOutput() {
+        Resampler resampler = new Resampler(ResampleOp.FILTER_MITCHELL);
+        BufferedImage output = new BufferedImage(64, 48, BufferedImage.TYPE_INT_ARGB);
+
+        for (int i = 0; i < 3; i++) {
+            BufferedImage image = createImage(320 + i, 240 - i);
+
+            assertSame(output, resampler.resample(image, output));
+            assertRasterEquals(new ResampleOp(64, 48, ResampleOp.FILTER_MITCHELL).filter(image, null), output);
+        }
+    }
+
+    @Test
+    void testResampleManySizes() {
+        // More sizes than fit in the contributor cache
+        Resampler resampler = new Resampler(ResampleOp.FILTER_LANCZOS);
+        BufferedImage image = createImage(100, 80, BufferedImage.TYPE_3BYTE_BGR);
+
+        for (int round = 0; round < 2; round++) {
+            for (int size = 10; size < 30; size++) {
+                assertRasterEquals(new ResampleOp(size, size + 3, ResampleOp.FILTER_LANCZOS).filter(image, null), resampler.resample(image, size, size + 3));
+            }
+        }
+    }
+
+    @Test
+    void testResampleConcurrent() {
+        Resampler resampler = new Resampler(ResampleOp.FILTER_LANCZOS, ForkJoinPool.commonPool());
+        BufferedImage image = createImage(640, 480, BufferedImage.TYPE_INT_RGB);
+
+        for (int i = 0; i < 2; i++) {
+            assertRasterEquals(new ResampleOp(160, 120, ResampleOp.FILTER_LANCZOS).filter(image, null), resampler.resample(image, 160, 120));
+            assertRasterEquals(new ResampleOp(700, 500, ResampleOp.FILTER_LANCZOS).filter(image, null), resampler.resample(image, 700, 500));
+        }
+    }
+}
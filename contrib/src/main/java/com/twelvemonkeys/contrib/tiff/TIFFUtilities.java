@@ -37,19 +37,34 @@ import com.twelvemonkeys.imageio.metadata.Directory;
 import com.twelvemonkeys.imageio.metadata.Entry;
 import com.twelvemonkeys.imageio.metadata.jpeg.JPEG;
 import com.twelvemonkeys.imageio.metadata.tiff.*;
+import com.twelvemonkeys.imageio.stream.ByteArrayImageInputStream;
+import com.twelvemonkeys.imageio.stream.SharedFileSource;
 import com.twelvemonkeys.lang.Validate;
 
 import javax.imageio.IIOException;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageOutputStream;
 import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.ImageOutputStream;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * TIFFUtilities for manipulation TIFF Images and Metadata
@@ -59,33 +74,46 @@ import java.util.List;
  * @version $Id$
  */
 public final class TIFFUtilities {
+    // Largest stream copied to memory by readPages, larger streams are copied to a temporary file
+    private static final long MAX_IN_MEMORY_LENGTH = Integer.MAX_VALUE - 8;
+
     private TIFFUtilities() {
     }
 
     /**
      * Merges all pages from the input TIFF files into one TIFF file at the
      * output location.
+     * <p>
+     * The strip and tile data is transferred directly between the files,
+     * without copying it through the Java heap.
+     * </p>
      *
      * @param inputFiles
      * @param outputFile
      * @throws IOException
      */
     public static void merge(List<File> inputFiles, File outputFile) throws IOException {
-        ImageOutputStream output = null;
+        FileImageOutputStream output = null;
         try {
-            output = ImageIO.createImageOutputStream(outputFile);
+            RandomAccessFile outputRAF = new RandomAccessFile(outputFile, "rw");
+            output = new FileImageOutputStream(outputRAF);
 
             for (File file : inputFiles) {
                 ImageInputStream input = null;
+                FileChannel inputChannel = null;
                 try {
                     input = ImageIO.createImageInputStream(file);
-                    List<TIFFPage> pages = getPages(input);
-                    writePages(output, pages);
+                    inputChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                    List<TIFFPage> pages = getPages(input, inputChannel);
+                    writePages(output, outputRAF.getChannel(), pages);
                 }
                 finally {
                     if (input != null) {
                         input.close();
                     }
+                    if (inputChannel != null) {
+                        inputChannel.close();
+                    }
                 }
             }
         }
@@ -100,6 +128,10 @@ public final class TIFFUtilities {
     /**
      * Splits all pages from the input TIFF file to one file per page in the
      * output directory.
+     * <p>
+     * The strip and tile data is transferred directly between the files,
+     * without copying it through the Java heap.
+     * </p>
      *
      * @param inputFile
      * @param outputDirectory
@@ -108,20 +140,23 @@ public final class TIFFUtilities {
      */
     public static List<File> split(File inputFile, File outputDirectory) throws IOException {
         ImageInputStream input = null;
+        FileChannel inputChannel = null;
         List<File> outputFiles = new ArrayList<>();
         try {
             input = ImageIO.createImageInputStream(inputFile);
-            List<TIFFPage> pages = getPages(input);
+            inputChannel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+            List<TIFFPage> pages = getPages(input, inputChannel);
             int pageNo = 1;
             for (TIFFPage tiffPage : pages) {
                 ArrayList<TIFFPage> outputPages = new ArrayList<TIFFPage>(1);
                 ImageOutputStream outputStream = null;
                 try {
                     File outputFile = new File(outputDirectory, String.format("%04d", pageNo) + ".tif");
-                    outputStream = ImageIO.createImageOutputStream(outputFile);
+                    RandomAccessFile outputRAF = new RandomAccessFile(outputFile, "rw");
+                    outputStream = new FileImageOutputStream(outputRAF);
                     outputPages.clear();
                     outputPages.add(tiffPage);
-                    writePages(outputStream, outputPages);
+                    writePages(outputStream, outputRAF.getChannel(), outputPages);
                     outputFiles.add(outputFile);
                 }
                 finally {
@@ -137,10 +172,49 @@ public final class TIFFUtilities {
             if (input != null) {
                 input.close();
             }
+            if (inputChannel != null) {
+                inputChannel.close();
+            }
         }
         return outputFiles;
     }
 
+    /**
+     * Rotates all pages of a TIFF file by changing TIFF.TAG_ORIENTATION,
+     * writing the result to the output file.
+     * <p>
+     * The strip and tile data is transferred directly between the files,
+     * without copying it through the Java heap.
+     * </p>
+     *
+     * @param inputFile
+     * @param outputFile  must not be the same file as {@code inputFile}.
+     * @param degree      Rotation amount, supports 90�, 180� and 270�.
+     * @param pageIndex   page which should be rotated or -1 for all pages.
+     * @throws IOException
+     * @see #rotatePage(ImageInputStream, ImageOutputStream, int, int)
+     */
+    public static void rotatePage(File inputFile, File outputFile, int degree, int pageIndex) throws IOException {
+        Validate.isTrue(!inputFile.getCanonicalFile().equals(outputFile.getCanonicalFile()), outputFile, "outputFile must be different from inputFile: %s");
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(inputFile);
+             FileChannel inputChannel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+             RandomAccessFile outputRAF = new RandomAccessFile(outputFile, "rw")) {
+            ImageOutputStream output = new FileImageOutputStream(outputRAF);
+
+            List<TIFFPage> pages = getPages(input, inputChannel);
+            if (pageIndex != -1) {
+                pages.get(pageIndex).rotate(degree);
+            }
+            else {
+                for (TIFFPage tiffPage : pages) {
+                    tiffPage.rotate(degree);
+                }
+            }
+            writePages(output, outputRAF.getChannel(), pages);
+        }
+    }
+
     /**
      * Rotates all pages of a TIFF file by changing TIFF.TAG_ORIENTATION.
      * <p>
@@ -200,18 +274,26 @@ public final class TIFFUtilities {
     }
 
     public static List<TIFFPage> getPages(ImageInputStream imageInput) throws IOException {
+        return getPages(imageInput, null);
+    }
+
+    private static List<TIFFPage> getPages(ImageInputStream imageInput, FileChannel imageInputChannel) throws IOException {
         CompoundDirectory IFDs = (CompoundDirectory) new TIFFReader().read(imageInput);
 
         final int pageCount = IFDs.directoryCount();
         List<TIFFPage> pages = new ArrayList<>(pageCount);
         for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
-            pages.add(new TIFFPage(IFDs.getDirectory(pageIndex), imageInput));
+            pages.add(new TIFFPage(IFDs.getDirectory(pageIndex), imageInput, imageInputChannel));
         }
 
         return pages;
     }
 
     public static void writePages(ImageOutputStream imageOutput, List<TIFFPage> pages) throws IOException {
+        writePages(imageOutput, null, pages);
+    }
+
+    private static void writePages(ImageOutputStream imageOutput, FileChannel imageOutputChannel, List<TIFFPage> pages) throws IOException {
         TIFFWriter exif = new TIFFWriter();
         long nextPagePos = imageOutput.getStreamPosition();
         if (nextPagePos == 0) {
@@ -226,7 +308,7 @@ public final class TIFFUtilities {
         }
 
         for (TIFFPage tiffPage : pages) {
-            long ifdOffset = tiffPage.write(imageOutput, exif);
+            long ifdOffset = tiffPage.write(imageOutput, imageOutputChannel, exif);
 
             long tmp = imageOutput.getStreamPosition();
             imageOutput.seek(nextPagePos);
@@ -237,6 +319,175 @@ public final class TIFFUtilities {
         }
     }
 
+    /**
+     * Decodes all pages of the input TIFF file in parallel, and passes them to the handler in page order.
+     * <p>
+     * The IFD structure is parsed once up front. Each worker thread uses its own {@code ImageReader}, over its own
+     * read-only stream of the file, so pages are decoded concurrently without contention on a shared stream.
+     * At most {@code maxPagesInFlight} pages are decoded or waiting to be handled at any time, so a slow handler
+     * will hold back decoding, rather than have decoded pages pile up in memory.
+     * </p>
+     * <p>
+     * The handler is invoked on the calling thread. If decoding a page or the handler fails, no more pages are
+     * submitted for decoding, and the exception is rethrown once the pages already submitted are done.
+     * Pages rejected by the executor are decoded on the calling thread.
+     * </p>
+     *
+     * @param inputFile        the TIFF file.
+     * @param executor         the executor used for decoding pages, typically a fixed size thread pool.
+     * @param maxPagesInFlight the maximum number of pages decoded ahead of the handler, must be greater than 0.
+     * @param handler          the handler, receiving each page in order.
+     * @throws IOException if the file can not be read, or a page can not be decoded.
+     */
+    public static void readPages(File inputFile, Executor executor, int maxPagesInFlight, PageHandler handler)
+            throws IOException {
+        Validate.notNull(inputFile, "inputFile");
+
+        readPages(() -> {
+            ImageInputStream stream = ImageIO.createImageInputStream(inputFile);
+
+            if (stream == null) {
+                throw new IIOException("Could not create ImageInputStream for: " + inputFile);
+            }
+
+            return stream;
+        }, executor, maxPagesInFlight, handler);
+    }
+
+    /**
+     * Decodes all pages of the input TIFF stream in parallel, and passes them to the handler in page order.
+     * <p>
+     * As an {@code ImageInputStream} can not be shared between threads, the contents of the stream is read into
+     * memory once, and each worker thread reads from its own view of this in-memory copy.
+     * If the stream length is unknown, or too large for an in-memory copy, the contents is copied to a
+     * temporary file instead, which is deleted before this method returns.
+     * Otherwise, this method works the same as {@link #readPages(File, Executor, int, PageHandler)}.
+     * </p>
+     *
+     * @param imageInput       the TIFF stream, the TIFF header is expected at stream position 0.
+     * @param executor         the executor used for decoding pages, typically a fixed size thread pool.
+     * @param maxPagesInFlight the maximum number of pages decoded ahead of the handler, must be greater than 0.
+     * @param handler          the handler, receiving each page in order.
+     * @throws IOException if the stream can not be read, or a page can not be decoded.
+     * @see #readPages(File, Executor, int, PageHandler)
+     */
+    public static void readPages(ImageInputStream imageInput, Executor executor, int maxPagesInFlight, PageHandler handler)
+            throws IOException {
+        Validate.notNull(imageInput, "imageInput");
+
+        imageInput.seek(0);
+
+        long length = imageInput.length();
+
+        if (length >= 0 && length <= MAX_IN_MEMORY_LENGTH) {
+            byte[] data = new byte[(int) length];
+            imageInput.readFully(data);
+
+            readPages(() -> new ByteArrayImageInputStream(data), executor, maxPagesInFlight, handler);
+        }
+        else {
+            File tempFile = File.createTempFile("imageio-tiff-", ".tif");
+
+            try {
+                try (OutputStream output = new FileOutputStream(tempFile)) {
+                    byte[] buffer = new byte[8192];
+                    int count;
+
+                    while ((count = imageInput.read(buffer)) >= 0) {
+                        output.write(buffer, 0, count);
+                    }
+                }
+
+                try (SharedFileSource source = new SharedFileSource(tempFile)) {
+                    readPages(source::createInputStream, executor, maxPagesInFlight, handler);
+                }
+            }
+            finally {
+                if (!tempFile.delete()) {
+                    tempFile.deleteOnExit();
+                }
+            }
+        }
+    }
+
+    private static void readPages(final StreamSource source, final Executor executor, final int maxPagesInFlight,
+                                  final PageHandler handler) throws IOException {
+        Validate.notNull(executor, "executor");
+        Validate.isTrue(maxPagesInFlight > 0, maxPagesInFlight, "maxPagesInFlight must be greater than 0: %s");
+        Validate.notNull(handler, "handler");
+
+        int pageCount;
+
+        try (ImageInputStream input = source.open()) {
+            pageCount = ((CompoundDirectory) new TIFFReader().read(input)).directoryCount();
+        }
+
+        ParallelPageReader pageReader = new ParallelPageReader(source);
+        Deque<FutureTask<BufferedImage>> pending = new ArrayDeque<>(maxPagesInFlight);
+        int nextPage = 0;
+
+        try {
+            for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+                while (nextPage < pageCount && pending.size() < maxPagesInFlight) {
+                    final int page = nextPage++;
+                    FutureTask<BufferedImage> task = new FutureTask<>(() -> pageReader.read(page));
+                    pending.add(task);
+
+                    try {
+                        executor.execute(task);
+                    }
+                    catch (RejectedExecutionException e) {
+                        // Executor is saturated or shut down, just do the work ourselves
+                        task.run();
+                    }
+                }
+
+                handler.handle(pageIndex, await(pending.remove()));
+            }
+        }
+        finally {
+            // In case of errors, make sure no page is still being decoded when we return
+            for (FutureTask<BufferedImage> task : pending) {
+                try {
+                    task.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException ignore) {
+                    // The first exception is already propagating
+                }
+            }
+
+            pageReader.close();
+        }
+    }
+
+    private static BufferedImage await(final Future<BufferedImage> task) throws IOException {
+        try {
+            return task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding TIFF pages");
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IIOException(cause.getMessage(), cause);
+        }
+    }
+
     public static BufferedImage applyOrientation(BufferedImage input, int orientation) {
         boolean flipExtends = false;
         int w = input.getWidth();
@@ -310,24 +561,27 @@ public final class TIFFUtilities {
     public static class TIFFPage {
         private Directory IFD;
         private ImageInputStream stream;
+        // Channel for the same file as stream, if any, used for transferring strip/tile data
+        private FileChannel channel;
 
-        private TIFFPage(Directory IFD, ImageInputStream stream) {
+        private TIFFPage(Directory IFD, ImageInputStream stream, FileChannel channel) {
             this.IFD = IFD;
             this.stream = stream;
+            this.channel = channel;
         }
 
-        private long write(ImageOutputStream outputStream, TIFFWriter tiffWriter) throws IOException {
-            List<Entry> newIFD = writeDirectoryData(IFD, outputStream);
+        private long write(ImageOutputStream outputStream, FileChannel outputChannel, TIFFWriter tiffWriter) throws IOException {
+            List<Entry> newIFD = writeDirectoryData(IFD, outputStream, outputChannel);
             return tiffWriter.writeIFD(newIFD, outputStream);
         }
 
-        private List<Entry> writeDirectoryData(Directory IFD, ImageOutputStream outputStream) throws IOException {
+        private List<Entry> writeDirectoryData(Directory IFD, ImageOutputStream outputStream, FileChannel outputChannel) throws IOException {
             ArrayList<Entry> newIFD = new ArrayList<Entry>();
             Iterator<Entry> it = IFD.iterator();
             while (it.hasNext()) {
                 Entry e = it.next();
                 if (e.getValue() instanceof Directory) {
-                    List<Entry> subIFD = writeDirectoryData((Directory) e.getValue(), outputStream);
+                    List<Entry> subIFD = writeDirectoryData((Directory) e.getValue(), outputStream, outputChannel);
                     new TIFFEntry((Integer) e.getIdentifier(), TIFF.TYPE_IFD, new AbstractDirectory(subIFD) {
                     });
                 }
@@ -381,8 +635,8 @@ public final class TIFFUtilities {
                 }
                 else if (offsets.length == 1 && oldJpegDataLength != null && offsets[0] == (jpegOffsets[0] + jpegByteCounts[0])) {
                     // prepend JPEGInterchangeFormat to stripdata
-                    newOffsets = writeData(jpegOffsets, jpegByteCounts, outputStream);
-                    writeData(offsets, byteCounts, outputStream);
+                    newOffsets = writeData(jpegOffsets, jpegByteCounts, outputStream, outputChannel);
+                    writeData(offsets, byteCounts, outputStream, outputChannel);
 
                     newIFD.remove(stripOffsetsEntry);
                     newIFD.add(new TIFFEntry(useTiles ? TIFF.TAG_TILE_OFFSETS : TIFF.TAG_STRIP_OFFSETS, newOffsets));
@@ -396,7 +650,7 @@ public final class TIFFUtilities {
                 else if (offsets.length == 1 && oldJpegDataLength != null && (jpegOffsets[0] < offsets[0]) && (jpegOffsets[0] + jpegByteCounts[0]) > (offsets[0] + byteCounts[0])) {
 
                     // ByteStrip contains only a part of JPEGInterchangeFormat
-                    newOffsets = writeData(jpegOffsets, jpegByteCounts, outputStream);
+                    newOffsets = writeData(jpegOffsets, jpegByteCounts, outputStream, outputChannel);
 
                     newIFD.remove(stripOffsetsEntry);
                     newIFD.add(new TIFFEntry(useTiles ? TIFF.TAG_TILE_OFFSETS : TIFF.TAG_STRIP_OFFSETS, newOffsets));
@@ -513,7 +767,7 @@ public final class TIFFUtilities {
             }
 
             if (!rearrangedByteStrips && stripOffsetsEntry != null && stripByteCountsEntry != null) {
-                newOffsets = writeData(offsets, byteCounts, outputStream);
+                newOffsets = writeData(offsets, byteCounts, outputStream, outputChannel);
 
                 newIFD.remove(stripOffsetsEntry);
                 newIFD.add(new TIFFEntry(useTiles ? TIFF.TAG_TILE_OFFSETS : TIFF.TAG_STRIP_OFFSETS, newOffsets));
@@ -700,7 +954,11 @@ public final class TIFFUtilities {
             return table;
         }
 
-        private int[] writeData(long[] offsets, long[] byteCounts, ImageOutputStream outputStream) throws IOException {
+        private int[] writeData(long[] offsets, long[] byteCounts, ImageOutputStream outputStream, FileChannel outputChannel) throws IOException {
+            if (channel != null && outputChannel != null) {
+                return transferData(offsets, byteCounts, outputStream, outputChannel);
+            }
+
             int[] newOffsets = new int[offsets.length];
             for (int i = 0; i < offsets.length; i++) {
                 newOffsets[i] = (int) outputStream.getStreamPosition();
@@ -717,6 +975,42 @@ public final class TIFFUtilities {
             return newOffsets;
         }
 
+        private int[] transferData(long[] offsets, long[] byteCounts, ImageOutputStream outputStream, FileChannel outputChannel) throws IOException {
+            // Transfers the data between the channels, only the offsets are written through the stream
+            int[] newOffsets = new int[offsets.length];
+            long position = outputStream.getStreamPosition();
+            long inputLength = channel.size();
+
+            for (int i = 0; i < offsets.length; i++) {
+                newOffsets[i] = (int) position;
+
+                long length = Math.max(0, Math.min(byteCounts[i], inputLength - offsets[i]));
+                long transferred = 0;
+
+                outputChannel.position(position);
+                while (transferred < length) {
+                    long count = channel.transferTo(offsets[i] + transferred, length - transferred, outputChannel);
+
+                    if (count <= 0) {
+                        break;
+                    }
+
+                    transferred += count;
+                }
+
+                outputStream.seek(position + transferred);
+
+                if (transferred < byteCounts[i]) {
+                    // invalid strip length, pad with zeros like the stream based copy
+                    outputStream.write(new byte[(int) (byteCounts[i] - transferred)]);
+                }
+
+                position += byteCounts[i];
+            }
+
+            return newOffsets;
+        }
+
         private long[] getValueAsLongArray(Entry entry) throws IIOException {
             //TODO: code duplication from TIFFReader, should be extracted to metadata api
             long[] value;
@@ -816,6 +1110,84 @@ public final class TIFFUtilities {
         }
     }
 
+    /**
+     * Receives the pages decoded by {@link TIFFUtilities#readPages(File, Executor, int, PageHandler)}.
+     */
+    public interface PageHandler {
+        /**
+         * Handles a decoded page. Pages are handled in order, starting at page index 0.
+         *
+         * @param pageIndex the index of the page.
+         * @param image     the decoded page.
+         * @throws IOException if the page can not be handled, aborting further decoding.
+         */
+        void handle(int pageIndex, BufferedImage image) throws IOException;
+    }
+
+    private interface StreamSource {
+        ImageInputStream open() throws IOException;
+    }
+
+    /**
+     * Pool of readers, each reading from its own stream, to be used by one thread at a time.
+     */
+    private static final class ParallelPageReader {
+        private final StreamSource source;
+        private final Queue<ImageReader> idleReaders = new ConcurrentLinkedQueue<>();
+        private volatile boolean closed;
+
+        ParallelPageReader(final StreamSource source) {
+            this.source = source;
+        }
+
+        BufferedImage read(final int pageIndex) throws IOException {
+            ImageReader reader = idleReaders.poll();
+
+            if (reader == null) {
+                reader = createReader();
+            }
+
+            try {
+                return reader.read(pageIndex);
+            }
+            finally {
+                idleReaders.add(reader);
+
+                if (closed) {
+                    disposeIdleReaders();
+                }
+            }
+        }
+
+        private ImageReader createReader() throws IOException {
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("TIFF");
+
+            if (!readers.hasNext()) {
+                throw new IIOException("No TIFF ImageReader available");
+            }
+
+            ImageReader reader = readers.next();
+            reader.setInput(source.open(), true, true);
+
+            return reader;
+        }
+
+        void close() throws IOException {
+            closed = true;
+            disposeIdleReaders();
+        }
+
+        private void disposeIdleReaders() throws IOException {
+            ImageReader reader;
+
+            while ((reader = idleReaders.poll()) != null) {
+                ImageInputStream input = (ImageInputStream) reader.getInput();
+                reader.dispose();
+                input.close();
+            }
+        }
+    }
+
     public interface TIFFExtension {
         int ORIENTATION_TOPRIGHT = 2;
         int ORIENTATION_BOTRIGHT = 3;
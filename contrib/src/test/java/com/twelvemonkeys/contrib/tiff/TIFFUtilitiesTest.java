@@ -50,7 +50,10 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -268,6 +271,176 @@ public class TIFFUtilitiesTest {
         outputStream.close();
     }
 
+    @Test
+    public void testFileOperationsSameAsStreamCopy() throws IOException {
+        File inputFile = File.createTempFile("imageiotest", ".tif");
+        File streamOutput = File.createTempFile("imageiotest", ".tif");
+        File fileOutput = File.createTempFile("imageiotest", ".tif");
+        File outputDirectory = Files.createTempDirectory("imageio").toFile();
+
+        try {
+            try (InputStream inputStream = getClassLoaderResource("/contrib/tiff/multipage.tif").openStream()) {
+                FileUtil.write(inputFile, FileUtil.read(inputStream));
+            }
+
+            // Merge, data transferred between files vs. copied through streams
+            try (ImageInputStream input = ImageIO.createImageInputStream(inputFile);
+                 ImageOutputStream output = ImageIO.createImageOutputStream(streamOutput)) {
+                TIFFUtilities.writePages(output, TIFFUtilities.getPages(input));
+            }
+
+            TIFFUtilities.merge(Collections.singletonList(inputFile), fileOutput);
+            assertArrayEquals(Files.readAllBytes(streamOutput.toPath()), Files.readAllBytes(fileOutput.toPath()));
+
+            // Rotate
+            assertTrue(streamOutput.delete());
+            assertTrue(fileOutput.delete());
+
+            try (ImageInputStream input = ImageIO.createImageInputStream(inputFile);
+                 ImageOutputStream output = ImageIO.createImageOutputStream(streamOutput)) {
+                TIFFUtilities.rotatePages(input, output, 90);
+            }
+
+            TIFFUtilities.rotatePage(inputFile, fileOutput, 90, -1);
+            assertArrayEquals(Files.readAllBytes(streamOutput.toPath()), Files.readAllBytes(fileOutput.toPath()));
+
+            // Split
+            List<File> pages = TIFFUtilities.split(inputFile, outputDirectory);
+            assertEquals(3, pages.size());
+
+            try (ImageInputStream input = ImageIO.createImageInputStream(inputFile)) {
+                List<TIFFUtilities.TIFFPage> expectedPages = TIFFUtilities.getPages(input);
+
+                for (int i = 0; i < pages.size(); i++) {
+                    assertTrue(streamOutput.delete());
+
+                    try (ImageOutputStream output = ImageIO.createImageOutputStream(streamOutput)) {
+                        TIFFUtilities.writePages(output, Collections.singletonList(expectedPages.get(i)));
+                    }
+
+                    assertArrayEquals(Files.readAllBytes(streamOutput.toPath()), Files.readAllBytes(pages.get(i).toPath()));
+                    pages.get(i).delete();
+                }
+            }
+        }
+        finally {
+            inputFile.delete();
+            streamOutput.delete();
+            fileOutput.delete();
+            outputDirectory.delete();
+        }
+    }
+
+    @Test
+    public void testReadPages() throws IOException {
+        File inputFile = File.createTempFile("imageiotest", ".tif");
+        try (InputStream inputStream = getClassLoaderResource("/contrib/tiff/multipage.tif").openStream()) {
+            FileUtil.write(inputFile, FileUtil.read(inputStream));
+        }
+
+        List<BufferedImage> expected = new ArrayList<>();
+        try (ImageInputStream iis = ImageIO.createImageInputStream(inputFile)) {
+            ImageReader reader = ImageIO.getImageReaders(iis).next();
+            reader.setInput(iis);
+
+            for (int i = 0; i < reader.getNumImages(true); i++) {
+                expected.add(reader.read(i));
+            }
+
+            reader.dispose();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Page order is kept, also when decoding ahead is limited to a single page
+            for (int maxPagesInFlight : new int[] {1, 2, 8}) {
+                List<Integer> indexes = new ArrayList<>();
+                List<BufferedImage> actual = new ArrayList<>();
+
+                TIFFUtilities.readPages(inputFile, executor, maxPagesInFlight, (pageIndex, image) -> {
+                    indexes.add(pageIndex);
+                    actual.add(image);
+                });
+
+                assertEquals(Arrays.asList(0, 1, 2), indexes);
+                assertImagesEqual(expected, actual);
+            }
+
+            // From stream, with unknown length (copied to a temporary file)
+            List<BufferedImage> actual = new ArrayList<>();
+            try (ImageInputStream iis = ImageIO.createImageInputStream(getClassLoaderResource("/contrib/tiff/multipage.tif").openStream())) {
+                assertEquals(-1, iis.length());
+                TIFFUtilities.readPages(iis, executor, 2, (pageIndex, image) -> actual.add(image));
+            }
+
+            assertImagesEqual(expected, actual);
+
+            // From stream, with known length (copied to memory)
+            List<BufferedImage> actualKnownLength = new ArrayList<>();
+            try (ImageInputStream iis = ImageIO.createImageInputStream(inputFile)) {
+                assertEquals(inputFile.length(), iis.length());
+                TIFFUtilities.readPages(iis, executor, 2, (pageIndex, image) -> actualKnownLength.add(image));
+            }
+
+            assertImagesEqual(expected, actualKnownLength);
+        }
+        finally {
+            executor.shutdown();
+            inputFile.delete();
+        }
+    }
+
+    @Test
+    public void testReadPagesRejected() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        try (ImageInputStream iis = ImageIO.createImageInputStream(getClassLoaderResource("/contrib/tiff/multipage.tif").openStream())) {
+            List<Integer> indexes = new ArrayList<>();
+
+            // Rejected pages are decoded in the calling thread
+            TIFFUtilities.readPages(iis, executor, 2, (pageIndex, image) -> indexes.add(pageIndex));
+
+            assertEquals(Arrays.asList(0, 1, 2), indexes);
+        }
+    }
+
+    @Test
+    public void testReadPagesHandlerExceptionStopsReading() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try (ImageInputStream iis = ImageIO.createImageInputStream(getClassLoaderResource("/contrib/tiff/multipage.tif").openStream())) {
+            List<Integer> indexes = new ArrayList<>();
+
+            IOException expected = new IOException("Stop");
+            IOException thrown = assertThrows(IOException.class, () -> TIFFUtilities.readPages(iis, executor, 1, (pageIndex, image) -> {
+                indexes.add(pageIndex);
+                throw expected;
+            }));
+
+            assertSame(expected, thrown);
+            assertEquals(Collections.singletonList(0), indexes);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertImagesEqual(List<BufferedImage> expected, List<BufferedImage> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            BufferedImage expectedImage = expected.get(i);
+            BufferedImage actualImage = actual.get(i);
+
+            assertEquals(expectedImage.getWidth(), actualImage.getWidth());
+            assertEquals(expectedImage.getHeight(), actualImage.getHeight());
+            assertArrayEquals(expectedImage.getRGB(0, 0, expectedImage.getWidth(), expectedImage.getHeight(), null, 0, expectedImage.getWidth()),
+                              actualImage.getRGB(0, 0, actualImage.getWidth(), actualImage.getHeight(), null, 0, actualImage.getWidth()));
+        }
+    }
+
     protected URL getClassLoaderResource(final String pName) {
         return getClass().getResource(pName);
     }
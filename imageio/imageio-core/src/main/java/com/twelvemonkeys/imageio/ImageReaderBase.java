@@ -80,6 +80,9 @@ public abstract class ImageReaderBase extends ImageReader {
      */
     protected ImageInputStream imageInput;
 
+    // Set when image data is discarded while reading, see flushConsumedInput
+    private boolean imageDataDiscarded;
+
     /**
      * Constructs an {@code ImageReader} and sets its
      * {@code originatingProvider} field to the supplied value.
@@ -118,6 +121,7 @@ public abstract class ImageReaderBase extends ImageReader {
     @Override
     public void setInput(final Object input, final boolean seekForwardOnly, final boolean ignoreMetadata) {
         resetMembers();
+        imageDataDiscarded = false;
         super.setInput(input, seekForwardOnly, ignoreMetadata);
 
         if (input instanceof ImageInputStream) {
@@ -131,12 +135,14 @@ public abstract class ImageReaderBase extends ImageReader {
     @Override
     public void dispose() {
         resetMembers();
+        imageDataDiscarded = false;
         super.dispose();
     }
 
     @Override
     public void reset() {
         resetMembers();
+        imageDataDiscarded = false;
         super.reset();
     }
 
@@ -184,6 +190,45 @@ public abstract class ImageReaderBase extends ImageReader {
         return 1;
     }
 
+    /**
+     * Discards the input before the current stream position, if the reader is in seek forward only mode,
+     * and discarding consumed input is explicitly requested using a {@link StreamingImageReadParam}.
+     * <p>
+     * Readers that only ever move forward while decoding the image data, may invoke this method as data is consumed.
+     * This allows caching streams to release the consumed data, so large images may be streamed
+     * using a constant amount of memory.
+     * Once any data is discarded, the image data can only be read once, and
+     * {@link #assertImageDataAvailable()} will throw an exception.
+     * </p>
+     *
+     * @param param the param passed to {@code read}, may be {@code null}.
+     * @throws IOException if an I/O error occurs while flushing the stream.
+     *
+     * @see #isSeekForwardOnly()
+     * @see StreamingImageReadParam#setDiscardConsumedInput(boolean)
+     * @see ImageInputStream#flushBefore(long)
+     */
+    protected void flushConsumedInput(final ImageReadParam param) throws IOException {
+        if (seekForwardOnly && imageInput != null
+                && param instanceof StreamingImageReadParam && ((StreamingImageReadParam) param).isDiscardConsumedInput()) {
+            imageInput.flushBefore(imageInput.getStreamPosition());
+            imageDataDiscarded = true;
+        }
+    }
+
+    /**
+     * Makes sure the image data is still available, that is, not discarded while reading the image.
+     * Readers invoking {@link #flushConsumedInput(ImageReadParam)} should invoke this method,
+     * before reading the image data.
+     *
+     * @throws IIOException if the image data was discarded by a previous read.
+     */
+    protected void assertImageDataAvailable() throws IIOException {
+        if (imageDataDiscarded) {
+            throw new IIOException("Image data already discarded, the image may only be read once when discarding consumed input");
+        }
+    }
+
     /**
      * Convenience method to make sure image index is within bounds.
      *
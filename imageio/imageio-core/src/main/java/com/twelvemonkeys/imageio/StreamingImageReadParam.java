@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * StreamingImageReadParam.
+ * <p>
+ * Allows readers that decode the image data strictly in order to discard the consumed input while
+ * reading, when the reader is in seek forward only mode. Caching streams may then release the
+ * consumed data, so large images may be streamed from an {@code InputStream} using a
+ * constant amount of memory.
+ * </p>
+ * <p>
+ * Note that this is a violation of the {@code ImageReader} contract, which allows the image at
+ * {@code minIndex} to be read again. When input is discarded, the image may only be read once,
+ * and any further attempt to read the image data will fail with an {@code IIOException}.
+ * Readers that do not support discarding the input will just ignore the setting.
+ * </p>
+ *
+ * @see ImageReaderBase#flushConsumedInput(ImageReadParam)
+ * @see javax.imageio.ImageReader#isSeekForwardOnly()
+ * @see ImageInputStream#flushBefore(long)
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: StreamingImageReadParam.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class StreamingImageReadParam extends ImageReadParam {
+    private boolean discardConsumedInput;
+
+    /**
+     * Returns whether the consumed input may be discarded while reading.
+     *
+     * @return {@code true} if the consumed input may be discarded.
+     */
+    public boolean isDiscardConsumedInput() {
+        return discardConsumedInput;
+    }
+
+    /**
+     * Sets whether the consumed input may be discarded while reading, in seek forward only mode.
+     *
+     * @param discardConsumedInput {@code true} to discard the input as it is consumed,
+     * or {@code false} to keep the image data available (the default).
+     */
+    public void setDiscardConsumedInput(final boolean discardConsumedInput) {
+        this.discardConsumedInput = discardConsumedInput;
+    }
+}
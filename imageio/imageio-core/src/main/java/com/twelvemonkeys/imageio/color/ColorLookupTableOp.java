@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.color;
+
+import java.awt.*;
+import java.awt.color.ColorSpace;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.*;
+
+/**
+ * A {@code RasterOp} that converts 8 bit rasters between color spaces, using a precomputed lookup table.
+ * <p>
+ * The table is created by sampling the exact conversion in a regular grid of
+ * {@value #GRID_POINTS_3D}<sup>3</sup> (for 3 component source color spaces, like RGB or Lab) or
+ * {@value #GRID_POINTS_4D}<sup>4</sup> (for 4 component source color spaces, like CMYK) points.
+ * Values between grid points are found using tetrahedral interpolation in the first three dimensions,
+ * and linear interpolation in the fourth (K) dimension.
+ * </p>
+ * <p>
+ * The difference from the exact conversion depends on the profiles, but for typical profiles the mean difference is
+ * well below 1 level, and more than 99% of the samples are within {@value #TOLERANCE} levels (of 255).
+ * Close to the destination gamut boundary, where the exact conversion clips, the difference may be larger.
+ * Rasters that are not 8 bit component rasters are converted using the exact conversion.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: ColorLookupTableOp.java,v 1.0 17.10.2026 haraldk Exp$
+ * @see ColorTransforms#createLookupTableOp(ColorSpace, ColorSpace)
+ */
+final class ColorLookupTableOp implements RasterOp {
+    static final int GRID_POINTS_3D = 33;
+    static final int GRID_POINTS_4D = 17;
+
+    /** Expected max difference from the exact conversion, for all but a small fraction of the samples. */
+    static final int TOLERANCE = 3;
+
+    // Table values are stored as 8.8 fixed point, interpolation weights are in the range [0...255]
+    private static final int MAX_VALUE = 255 << 8;
+    private static final int SCALE = 255 * 256;
+
+    private final RasterOp exact;
+    private final int inputs;
+    private final int outputs;
+
+    private final int[] table;
+    private final int[] strides;
+    private final int[][] offsets;
+    private final int[] fractions = new int[256];
+
+    ColorLookupTableOp(final ColorSpace source, final ColorSpace destination, final RasterOp exact) {
+        if (source.getNumComponents() != 3 && source.getNumComponents() != 4) {
+            throw new IllegalArgumentException("Unsupported number of source components: " + source.getNumComponents());
+        }
+
+        this.exact = exact;
+        inputs = source.getNumComponents();
+        outputs = destination.getNumComponents();
+
+        int gridPoints = inputs == 3 ? GRID_POINTS_3D : GRID_POINTS_4D;
+
+        strides = new int[inputs];
+        for (int i = inputs - 1, stride = outputs; i >= 0; i--, stride *= gridPoints) {
+            strides[i] = stride;
+        }
+
+        offsets = new int[inputs][256];
+        for (int value = 0; value < 256; value++) {
+            // Use the last cell for the max value, to always have a neighbour to interpolate with
+            int position = value * (gridPoints - 1);
+            int index = Math.min(position / 255, gridPoints - 2);
+
+            fractions[value] = position - index * 255;
+
+            for (int i = 0; i < inputs; i++) {
+                offsets[i][value] = index * strides[i];
+            }
+        }
+
+        table = createTable(gridPoints);
+    }
+
+    private int[] createTable(final int gridPoints) {
+        int nodes = strides[0] / outputs * gridPoints;
+
+        // Sample the exact conversion at each grid point, using 16 bit values for better precision
+        WritableRaster samples = Raster.createInterleavedRaster(DataBuffer.TYPE_USHORT, nodes, 1, inputs, null);
+        short[] sampleData = ((DataBufferUShort) samples.getDataBuffer()).getData();
+
+        for (int node = 0; node < nodes; node++) {
+            for (int i = inputs - 1, rest = node; i >= 0; i--, rest /= gridPoints) {
+                sampleData[node * inputs + i] = (short) Math.round((rest % gridPoints) * 65535.0 / (gridPoints - 1));
+            }
+        }
+
+        WritableRaster converted = Raster.createInterleavedRaster(DataBuffer.TYPE_USHORT, nodes, 1, outputs, null);
+        exact.filter(samples, converted);
+
+        short[] convertedData = ((DataBufferUShort) converted.getDataBuffer()).getData();
+        int[] table = new int[convertedData.length];
+
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (int) (((convertedData[i] & 0xffffL) * MAX_VALUE + 32767) / 65535);
+        }
+
+        return table;
+    }
+
+    @Override
+    public WritableRaster filter(final Raster src, WritableRaster dest) {
+        if (dest == null) {
+            dest = createCompatibleDestRaster(src);
+        }
+
+        if (!isByteComponentRaster(src, inputs) || !isByteComponentRaster(dest, outputs)) {
+            return exact.filter(src, dest);
+        }
+
+        if (src.getWidth() != dest.getWidth() || src.getHeight() != dest.getHeight()) {
+            throw new IllegalArgumentException("Width or height of Rasters do not match");
+        }
+
+        byte[][] srcBanks = new byte[inputs][];
+        int[] srcOffsets = new int[inputs];
+        int srcScanlineStride = getBanks(src, srcBanks, srcOffsets);
+        int srcPixelStride = ((ComponentSampleModel) src.getSampleModel()).getPixelStride();
+
+        byte[][] destBanks = new byte[outputs][];
+        int[] destOffsets = new int[outputs];
+        int destScanlineStride = getBanks(dest, destBanks, destOffsets);
+        int destPixelStride = ((ComponentSampleModel) dest.getSampleModel()).getPixelStride();
+
+        int[] samples = new int[inputs];
+        int[] result = new int[outputs];
+
+        for (int y = 0; y < src.getHeight(); y++) {
+            int srcPos = y * srcScanlineStride;
+            int destPos = y * destScanlineStride;
+
+            for (int x = 0; x < src.getWidth(); x++) {
+                for (int i = 0; i < inputs; i++) {
+                    samples[i] = srcBanks[i][srcOffsets[i] + srcPos] & 0xff;
+                }
+
+                interpolate(samples, result);
+
+                for (int i = 0; i < outputs; i++) {
+                    destBanks[i][destOffsets[i] + destPos] = (byte) result[i];
+                }
+
+                srcPos += srcPixelStride;
+                destPos += destPixelStride;
+            }
+        }
+
+        return dest;
+    }
+
+    private void interpolate(final int[] samples, final int[] result) {
+        int fx = fractions[samples[0]];
+        int fy = fractions[samples[1]];
+        int fz = fractions[samples[2]];
+
+        int sx = strides[0];
+        int sy = strides[1];
+        int sz = strides[2];
+
+        // Find the tetrahedron containing the sample, and the offsets to its first two vertices
+        // (other than the origin), the last vertex is always the opposite corner of the cube
+        int d1, d2;
+        int w1, w2, w3;
+
+        if (fx >= fy) {
+            if (fy >= fz) {
+                d1 = sx; d2 = sx + sy; w1 = fx; w2 = fy; w3 = fz;
+            }
+            else if (fx >= fz) {
+                d1 = sx; d2 = sx + sz; w1 = fx; w2 = fz; w3 = fy;
+            }
+            else {
+                d1 = sz; d2 = sx + sz; w1 = fz; w2 = fx; w3 = fy;
+            }
+        }
+        else {
+            if (fx >= fz) {
+                d1 = sy; d2 = sx + sy; w1 = fy; w2 = fx; w3 = fz;
+            }
+            else if (fy >= fz) {
+                d1 = sy; d2 = sy + sz; w1 = fy; w2 = fz; w3 = fx;
+            }
+            else {
+                d1 = sz; d2 = sy + sz; w1 = fz; w2 = fy; w3 = fx;
+            }
+        }
+
+        int d3 = sx + sy + sz;
+        int base = offsets[0][samples[0]] + offsets[1][samples[1]] + offsets[2][samples[2]];
+
+        if (inputs == 3) {
+            for (int i = 0; i < outputs; i++) {
+                int value = tetrahedral(base + i, d1, d2, d3, w1, w2, w3);
+                result[i] = (value + SCALE / 2) / SCALE;
+            }
+        }
+        else {
+            // Interpolate linearly between the two planes of the fourth dimension
+            int fw = fractions[samples[3]];
+            int sw = strides[3];
+            base += offsets[3][samples[3]];
+
+            for (int i = 0; i < outputs; i++) {
+                int value0 = (tetrahedral(base + i, d1, d2, d3, w1, w2, w3) + 127) / 255;
+                int value1 = (tetrahedral(base + sw + i, d1, d2, d3, w1, w2, w3) + 127) / 255;
+                result[i] = (value0 * (255 - fw) + value1 * fw + SCALE / 2) / SCALE;
+            }
+        }
+    }
+
+    // Returns the interpolated value, multiplied by 255
+    private int tetrahedral(final int index, final int d1, final int d2, final int d3, final int w1, final int w2, final int w3) {
+        int c0 = table[index];
+        int c1 = table[index + d1];
+        int c2 = table[index + d2];
+        int c3 = table[index + d3];
+
+        return c0 * 255 + w1 * (c1 - c0) + w2 * (c2 - c1) + w3 * (c3 - c2);
+    }
+
+    private static boolean isByteComponentRaster(final Raster raster, final int bands) {
+        return raster.getNumBands() == bands
+                && raster.getSampleModel() instanceof ComponentSampleModel
+                && raster.getDataBuffer() instanceof DataBufferByte;
+    }
+
+    // Finds the data array and offset to the first sample of each band, returns the scanline stride
+    private static int getBanks(final Raster raster, final byte[][] banks, final int[] offsets) {
+        ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+        DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+
+        int[] bankIndices = sampleModel.getBankIndices();
+        int[] bandOffsets = sampleModel.getBandOffsets();
+
+        int scanlineStride = sampleModel.getScanlineStride();
+        int origin = (raster.getMinY() - raster.getSampleModelTranslateY()) * scanlineStride
+                + (raster.getMinX() - raster.getSampleModelTranslateX()) * sampleModel.getPixelStride();
+
+        for (int i = 0; i < banks.length; i++) {
+            banks[i] = buffer.getData(bankIndices[i]);
+            offsets[i] = buffer.getOffsets()[bankIndices[i]] + bandOffsets[i] + origin;
+        }
+
+        return scanlineStride;
+    }
+
+    @Override
+    public Rectangle2D getBounds2D(final Raster src) {
+        return src.getBounds();
+    }
+
+    @Override
+    public WritableRaster createCompatibleDestRaster(final Raster src) {
+        return exact.createCompatibleDestRaster(src);
+    }
+
+    @Override
+    public Point2D getPoint2D(final Point2D srcPt, Point2D dstPt) {
+        if (dstPt == null) {
+            dstPt = new Point2D.Float();
+        }
+
+        dstPt.setLocation(srcPt.getX(), srcPt.getY());
+
+        return dstPt;
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return null;
+    }
+}
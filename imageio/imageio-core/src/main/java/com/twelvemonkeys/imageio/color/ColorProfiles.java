@@ -311,7 +311,7 @@ public final class ColorProfiles {
             return internal;
         }
 
-        ICC_ColorSpace cached = ColorSpaces.getCachedCS(profileHeader);
+        ICC_ColorSpace cached = ColorSpaces.getCachedCS(profileHeader, getRenderingIntent(input));
         if (cached != null) {
             return cached.getProfile();
         }
@@ -379,6 +379,11 @@ public final class ColorProfiles {
         return (data[index] & 0xff) << 24 | (data[index + 1] & 0xff) << 16 | (data[index + 2] & 0xff) << 8 | (data[index + 3] & 0xff);
     }
 
+    static int getRenderingIntent(final byte[] data) {
+        // NOTE: The rendering intent is not part of the profile ID, but affects the color conversion
+        return intBigEndian(data, ICC_Profile.icHdrRenderingIntent);
+    }
+
     private static int getCsType(byte[] profileHeader) {
         int csSig = intBigEndian(profileHeader, ICC_Profile.icHdrColorSpace);
 
@@ -117,17 +117,66 @@ public final class ColorSpaces {
     public static ICC_ColorSpace createColorSpace(final ICC_Profile profile) {
         Validate.notNull(profile, "profile");
 
+        // Profiles from ColorProfiles.createProfile are typically already cached, avoid computing the profile ID again
+        ICC_ColorSpace cached = getCachedCSForProfile(profile);
+        if (cached != null) {
+            return cached;
+        }
+
         // Fix profile before lookup/create
         fixProfile(profile);
 
-        byte[] profileHeader = getProfileHeaderWithProfileId(profile);
+        byte[] data = profile.getData();
+        byte[] profileHeader = getProfileHeaderWithProfileId(data);
 
         ICC_ColorSpace cs = getInternalCS(profile.getColorSpaceType(), profileHeader);
         if (cs != null) {
             return cs;
         }
 
-        return getCachedOrCreateCS(profile, profileHeader);
+        return getCachedOrCreateCS(profile, profileHeader, getRenderingIntent(data));
+    }
+
+    /**
+     * Returns the cached color space with the same profile ID and rendering intent as the given color space.
+     * This is the given color space itself, if it is a built-in or cached instance.
+     *
+     * @param cs the ICC color space.
+     * @return the built-in or cached color space, equal to {@code cs}.
+     */
+    static ICC_ColorSpace getCachedCS(final ICC_ColorSpace cs) {
+        if (isInternalCS(cs)) {
+            return cs;
+        }
+
+        synchronized (cache) {
+            // NOTE: ColorSpace does not override equals, this is an identity check
+            if (cache.containsValue(cs)) {
+                return cs;
+            }
+        }
+
+        return createColorSpace(cs.getProfile());
+    }
+
+    private static ICC_ColorSpace getCachedCSForProfile(final ICC_Profile profile) {
+        synchronized (cache) {
+            for (ICC_ColorSpace cs : cache.values()) {
+                if (cs.getProfile() == profile) {
+                    return cs;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isInternalCS(final ColorSpace cs) {
+        return cs == ColorSpace.getInstance(ColorSpace.CS_sRGB)
+                || cs == ColorSpace.getInstance(ColorSpace.CS_GRAY)
+                || cs == ColorSpace.getInstance(ColorSpace.CS_PYCC)
+                || cs == ColorSpace.getInstance(ColorSpace.CS_LINEAR_RGB)
+                || cs == ColorSpace.getInstance(ColorSpace.CS_CIEXYZ);
     }
 
     static ICC_ColorSpace getInternalCS(final int profileCSType, final byte[] profileHeader) {
@@ -150,8 +199,8 @@ public final class ColorSpaces {
         return null;
     }
 
-    private static ICC_ColorSpace getCachedOrCreateCS(final ICC_Profile profile, final byte[] profileHeader) {
-        Key key = new Key(profileHeader);
+    private static ICC_ColorSpace getCachedOrCreateCS(final ICC_Profile profile, final byte[] profileHeader, final int renderingIntent) {
+        Key key = new Key(profileHeader, renderingIntent);
 
         synchronized (cache) {
             ICC_ColorSpace cs = getCachedCS(key);
@@ -165,7 +214,8 @@ public final class ColorSpaces {
 
                 // On LCMS, validation *alters* the profile header, need to re-generate key
                 if (ColorProfiles.validationAltersProfileHeader()) {
-                    cache.put(new Key(getProfileHeaderWithProfileId(cs.getProfile())), cs);
+                    byte[] data = cs.getProfile().getData();
+                    cache.put(new Key(getProfileHeaderWithProfileId(data), getRenderingIntent(data)), cs);
                 }
             }
 
@@ -179,8 +229,8 @@ public final class ColorSpaces {
         }
     }
 
-    static ICC_ColorSpace getCachedCS(final byte[] profileHeader) {
-        return getCachedCS(new Key(profileHeader));
+    static ICC_ColorSpace getCachedCS(final byte[] profileHeader, final int renderingIntent) {
+        return getCachedCS(new Key(profileHeader, renderingIntent));
     }
 
     static void validateColorSpace(final ICC_ColorSpace cs) {
@@ -299,19 +349,21 @@ public final class ColorSpaces {
 
     private static final class Key {
         private final byte[] data;
+        private final int renderingIntent;
 
-        Key(byte[] data) {
+        Key(byte[] data, int renderingIntent) {
             this.data = data;
+            this.renderingIntent = renderingIntent;
         }
 
         @Override
         public boolean equals(Object other) {
-            return other instanceof Key && Arrays.equals(data, ((Key) other).data);
+            return other instanceof Key && renderingIntent == ((Key) other).renderingIntent && Arrays.equals(data, ((Key) other).data);
         }
 
         @Override
         public int hashCode() {
-            return Arrays.hashCode(data);
+            return 31 * Arrays.hashCode(data) + renderingIntent;
         }
 
         @Override
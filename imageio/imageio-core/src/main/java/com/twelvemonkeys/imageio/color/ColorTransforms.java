@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.color;
+
+import com.twelvemonkeys.lang.Validate;
+import com.twelvemonkeys.util.LRUHashMap;
+
+import java.awt.*;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.*;
+import java.util.Map;
+
+/**
+ * A helper class for creating color conversions between color spaces.
+ * <p>
+ * Creating the underlying CMM transform for ICC color spaces is expensive, and
+ * the same profiles tend to be used over and over. Conversions between ICC color spaces
+ * are therefore cached, keyed on the color spaces as cached by {@link ColorSpaces},
+ * that is, by profile ID and rendering intent.
+ * </p>
+ * <p>
+ * For 8 bit rasters, conversions may optionally use a precomputed lookup table, trading some accuracy for speed.
+ * See {@link #createLookupTableOp(ColorSpace, ColorSpace)}.
+ * </p>
+ * <p>
+ * The returned {@code RasterOp}s are safe to use from multiple threads.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: ColorTransforms.java,v 1.0 17.10.2026 haraldk Exp$
+ * @see ColorSpaces#createColorSpace(java.awt.color.ICC_Profile)
+ */
+public final class ColorTransforms {
+    static final boolean USE_LOOKUP_TABLES = "true".equalsIgnoreCase(System.getProperty("com.twelvemonkeys.imageio.color.lookupTables"));
+
+    // Cache for the latest used conversions
+    private static final Map<Key, RasterOp> cache = new LRUHashMap<>(16);
+
+    // Cache for the latest used lookup tables, these are larger (up to ~1 MB each), so we keep fewer
+    private static final Map<Key, RasterOp> lookupTables = new LRUHashMap<>(4);
+
+    private ColorTransforms() {}
+
+    /**
+     * Creates a {@code RasterOp} that converts rasters from the source color space to the destination color space,
+     * in the same way as {@code new ColorConvertOp(source, destination, null)}.
+     * <p>
+     * Conversions between ICC color spaces are looked up from cache and created on demand.
+     * </p>
+     *
+     * @param source the source color space. May not be {@code null}.
+     * @param destination the destination color space. May not be {@code null}.
+     * @return a {@code RasterOp} converting from {@code source} to {@code destination}.
+     * @throws IllegalArgumentException if {@code source} or {@code destination} is {@code null}.
+     * @throws java.awt.color.CMMException if the conversion can not be created.
+     *
+     * @see ColorConvertOp#filter(Raster, WritableRaster)
+     */
+    public static RasterOp createColorConvertOp(final ColorSpace source, final ColorSpace destination) {
+        Validate.notNull(source, "source");
+        Validate.notNull(destination, "destination");
+
+        if (!(source instanceof ICC_ColorSpace) || !(destination instanceof ICC_ColorSpace)) {
+            // Non-ICC conversions do not use a CMM transform, no need to cache
+            return new ColorConvertOp(source, destination, null);
+        }
+
+        Key key = new Key(ColorSpaces.getCachedCS((ICC_ColorSpace) source), ColorSpaces.getCachedCS((ICC_ColorSpace) destination));
+
+        synchronized (cache) {
+            RasterOp op = cache.get(key);
+
+            if (op != null) {
+                return op;
+            }
+        }
+
+        // Create outside the lock, as creating the transform may be slow
+        RasterOp op = new CachedColorConvertOp(key.source, key.destination);
+
+        synchronized (cache) {
+            RasterOp existing = cache.get(key);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            cache.put(key, op);
+        }
+
+        return op;
+    }
+
+    /**
+     * Creates a {@code RasterOp} that converts rasters from the source color space to the destination color space,
+     * using a precomputed lookup table, if enabled and supported.
+     * Otherwise, this method behaves exactly as {@link #createColorConvertOp(ColorSpace, ColorSpace)}.
+     * <p>
+     * Lookup tables are enabled by setting the system property
+     * {@code com.twelvemonkeys.imageio.color.lookupTables} to {@code true}.
+     * Readers use this method for conversions where speed is more important than exact results.
+     * </p>
+     *
+     * @param source the source color space. May not be {@code null}.
+     * @param destination the destination color space. May not be {@code null}.
+     * @return a {@code RasterOp} converting from {@code source} to {@code destination}.
+     * @throws IllegalArgumentException if {@code source} or {@code destination} is {@code null}.
+     * @throws java.awt.color.CMMException if the conversion can not be created.
+     *
+     * @see #createLookupTableOp(ColorSpace, ColorSpace)
+     */
+    public static RasterOp createFastColorConvertOp(final ColorSpace source, final ColorSpace destination) {
+        if (USE_LOOKUP_TABLES && isLookupTableSupported(source, destination)) {
+            return createLookupTableOp(source, destination);
+        }
+
+        return createColorConvertOp(source, destination);
+    }
+
+    /**
+     * Creates a {@code RasterOp} that converts rasters from the source color space to the destination color space,
+     * using a precomputed lookup table.
+     * <p>
+     * The table is created by sampling the exact conversion in a 33<sup>3</sup> (RGB, Lab etc.)
+     * or 17<sup>4</sup> (CMYK) grid, using tetrahedral interpolation for values in between.
+     * This is considerably faster than the exact conversion, but the results will differ slightly.
+     * For typical profiles, the mean difference is well below 1 level, and more than 99% of the samples
+     * are within 3 levels (of 255). Close to the destination gamut boundary, where the exact conversion clips,
+     * the difference may be larger.
+     * Only 8 bit component rasters are converted using the lookup table,
+     * other rasters are converted using the exact conversion.
+     * </p>
+     * <p>
+     * Lookup tables are looked up from cache and created on demand.
+     * </p>
+     *
+     * @param source the source color space. Must be an ICC color space with 3 or 4 components.
+     * @param destination the destination color space. Must be an ICC color space.
+     * @return a {@code RasterOp} converting from {@code source} to {@code destination}.
+     * @throws IllegalArgumentException if {@code source} or {@code destination} is {@code null},
+     * or the conversion is not supported.
+     * @throws java.awt.color.CMMException if the conversion can not be created.
+     */
+    public static RasterOp createLookupTableOp(final ColorSpace source, final ColorSpace destination) {
+        Validate.notNull(source, "source");
+        Validate.notNull(destination, "destination");
+
+        if (!isLookupTableSupported(source, destination)) {
+            throw new IllegalArgumentException(String.format("Lookup table not supported for conversion from %s to %s", source, destination));
+        }
+
+        Key key = new Key(ColorSpaces.getCachedCS((ICC_ColorSpace) source), ColorSpaces.getCachedCS((ICC_ColorSpace) destination));
+
+        synchronized (lookupTables) {
+            RasterOp op = lookupTables.get(key);
+
+            if (op != null) {
+                return op;
+            }
+        }
+
+        // Create outside the lock, as sampling the transform may be slow
+        RasterOp op = new ColorLookupTableOp(key.source, key.destination, createColorConvertOp(key.source, key.destination));
+
+        synchronized (lookupTables) {
+            RasterOp existing = lookupTables.get(key);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            lookupTables.put(key, op);
+        }
+
+        return op;
+    }
+
+    private static boolean isLookupTableSupported(final ColorSpace source, final ColorSpace destination) {
+        return source instanceof ICC_ColorSpace && destination instanceof ICC_ColorSpace
+                && (source.getNumComponents() == 3 || source.getNumComponents() == 4);
+    }
+
+    /**
+     * Wraps a {@code ColorConvertOp} with its raster transform fully created,
+     * only exposing the raster conversion, which is then safe for concurrent use.
+     */
+    private static final class CachedColorConvertOp implements RasterOp {
+        private final ColorConvertOp op;
+
+        CachedColorConvertOp(final ICC_ColorSpace source, final ICC_ColorSpace destination) {
+            op = new ColorConvertOp(source, destination, null);
+
+            // The transform is created lazily on first use, convert a single pixel up front, before the op is shared
+            op.filter(Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 1, 1, source.getNumComponents(), null),
+                    Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 1, 1, destination.getNumComponents(), null));
+        }
+
+        @Override
+        public WritableRaster filter(final Raster src, final WritableRaster dest) {
+            if (isFloatingPoint(src) || dest != null && isFloatingPoint(dest)) {
+                // The value ranges for floating point rasters are also created lazily, and not safely published
+                synchronized (op) {
+                    return op.filter(src, dest);
+                }
+            }
+
+            return op.filter(src, dest);
+        }
+
+        private static boolean isFloatingPoint(final Raster raster) {
+            int transferType = raster.getTransferType();
+            return transferType == DataBuffer.TYPE_FLOAT || transferType == DataBuffer.TYPE_DOUBLE;
+        }
+
+        @Override
+        public Rectangle2D getBounds2D(final Raster src) {
+            return op.getBounds2D(src);
+        }
+
+        @Override
+        public WritableRaster createCompatibleDestRaster(final Raster src) {
+            return op.createCompatibleDestRaster(src);
+        }
+
+        @Override
+        public Point2D getPoint2D(final Point2D srcPt, final Point2D dstPt) {
+            return op.getPoint2D(srcPt, dstPt);
+        }
+
+        @Override
+        public RenderingHints getRenderingHints() {
+            return op.getRenderingHints();
+        }
+    }
+
+    private static final class Key {
+        private final ICC_ColorSpace source;
+        private final ICC_ColorSpace destination;
+
+        Key(final ICC_ColorSpace source, final ICC_ColorSpace destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            // NOTE: The color spaces are the cached instances, so identity is equality
+            return other instanceof Key && source == ((Key) other).source && destination == ((Key) other).destination;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(source) + System.identityHashCode(destination);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.stream;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.twelvemonkeys.lang.Validate.isTrue;
+
+/**
+ * A bounded pool of equally sized byte array blocks, shared between caches.
+ * <p>
+ * The pool never holds more than {@code maxBlocks} blocks, including blocks currently in use.
+ * When all blocks are in use, {@link #acquire()} returns {@code null}, and the caller must
+ * fall back to some other storage.
+ * Blocks are created lazily, and kept for reuse when released.
+ * </p>
+ * <p>
+ * Blocks are acquired on behalf of an {@link Owner}, typically a cache.
+ * If the owner is garbage collected without releasing its blocks (ie. a stream that is never closed),
+ * the blocks are left to the garbage collector, and no longer counted as in use.
+ * </p>
+ * <p>
+ * The size of the shared pool, in bytes, may be set using the system property
+ * {@code com.twelvemonkeys.imageio.stream.cachePoolSize}.
+ * The default is 1/16 of the max heap size, but no more than 64 MB.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: BlockPool.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+final class BlockPool {
+    static final String POOL_SIZE_PROPERTY = "com.twelvemonkeys.imageio.stream.cachePoolSize";
+
+    static final BlockPool SHARED = new BlockPool(PooledCache.BLOCK_SIZE, defaultMaxBlocks(PooledCache.BLOCK_SIZE));
+
+    private final int blockSize;
+    private final int maxBlocks;
+
+    private final Deque<byte[]> free = new ArrayDeque<>();
+    private int allocated;
+
+    private final ReferenceQueue<Object> unreachable = new ReferenceQueue<>();
+    private final Set<Owner> owners = new HashSet<>();
+
+    BlockPool(final int blockSize, final int maxBlocks) {
+        this.blockSize = isTrue(blockSize > 0, blockSize, "blockSize must be positive: %d");
+        this.maxBlocks = isTrue(maxBlocks >= 0, maxBlocks, "maxBlocks must be non-negative: %d");
+    }
+
+    private static int defaultMaxBlocks(final int blockSize) {
+        long defaultSize = Math.min(Runtime.getRuntime().maxMemory() / 16, 64L * 1024 * 1024);
+        long size = Long.getLong(POOL_SIZE_PROPERTY, defaultSize);
+
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size / blockSize));
+    }
+
+    int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Registers a new owner of blocks.
+     *
+     * @param referent the object holding the blocks, blocks are no longer counted as in use when it is garbage collected.
+     * @return a new owner.
+     */
+    synchronized Owner register(final Object referent) {
+        Owner owner = new Owner(referent, unreachable);
+        owners.add(owner);
+
+        return owner;
+    }
+
+    /**
+     * Returns a block from the pool, or {@code null} if all blocks are in use.
+     * The contents of the block is undefined.
+     *
+     * @param owner the owner of the block.
+     * @return a block, or {@code null}.
+     */
+    synchronized byte[] acquire(final Owner owner) {
+        expungeUnreachable();
+
+        byte[] block = free.pollLast();
+
+        if (block == null && allocated < maxBlocks) {
+            try {
+                block = new byte[blockSize];
+                allocated++;
+            }
+            catch (OutOfMemoryError e) {
+                return null;
+            }
+        }
+
+        if (block != null) {
+            owner.blocks++;
+        }
+
+        return block;
+    }
+
+    /**
+     * Returns a block, previously acquired from this pool, to the pool.
+     *
+     * @param owner the owner of the block.
+     * @param block the block to release.
+     */
+    synchronized void release(final Owner owner, final byte[] block) {
+        owner.blocks--;
+        free.addLast(block);
+    }
+
+    private void expungeUnreachable() {
+        Owner owner;
+
+        while ((owner = (Owner) unreachable.poll()) != null) {
+            if (owners.remove(owner)) {
+                allocated -= owner.blocks;
+            }
+        }
+    }
+
+    // Visible for testing
+    synchronized int available() {
+        expungeUnreachable();
+
+        return free.size() + maxBlocks - allocated;
+    }
+
+    /**
+     * Keeps track of the number of blocks held by an object, without keeping the object reachable.
+     * A phantom reference is used, so that blocks released by a finalizer are not counted twice.
+     */
+    static final class Owner extends PhantomReference<Object> {
+        private int blocks;
+
+        private Owner(final Object referent, final ReferenceQueue<Object> queue) {
+            super(referent, queue);
+        }
+    }
+}
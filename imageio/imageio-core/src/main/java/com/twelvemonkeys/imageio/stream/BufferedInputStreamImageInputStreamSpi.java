@@ -52,8 +52,9 @@ public final class BufferedInputStreamImageInputStreamSpi extends ImageInputStre
                 return new BufferedChannelImageInputStream((SeekableByteChannel) channel);
             }
 
-            // Otherwise, create a cache for backwards seeking
-            return new BufferedChannelImageInputStream(useCacheFile ? new FileCache(channel, cacheDir) : new MemoryCache(channel));
+            // Otherwise, create a cache for backwards seeking.
+            // Blocks are taken from a shared pool, when the pool runs dry we'll use a cache file if allowed
+            return new BufferedChannelImageInputStream(new PooledCache(channel, BlockPool.SHARED, useCacheFile, cacheDir));
         }
 
         throw new IllegalArgumentException("Expected input of type InputStream: " + input);
@@ -1,7 +1,16 @@
 package com.twelvemonkeys.imageio.stream;
 
+import java.io.IOException;
 import java.nio.channels.SeekableByteChannel;
 
 interface Cache extends SeekableByteChannel {
-    void flushBefore(long pos);
+    /**
+     * Discards cached data before the given position.
+     * Implementations should release the memory or disk space used by discarded data,
+     * to allow streaming large inputs using a constant amount of resources.
+     *
+     * @param pos the stream position, data before this position will no longer be read.
+     * @throws IOException if an I/O error occurs.
+     */
+    void flushBefore(long pos) throws IOException;
 }
@@ -15,6 +15,7 @@ import java.nio.file.Path;
 import static com.twelvemonkeys.lang.Validate.isTrue;
 import static com.twelvemonkeys.lang.Validate.notNull;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
 import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.WRITE;
@@ -29,9 +30,16 @@ import static java.nio.file.StandardOpenOption.WRITE;
 final class FileCache implements Cache {
     final static int BLOCK_SIZE = 1 << 13;
 
+    // Compact the cache file, once at least this much data is flushed
+    final static int COMPACT_THRESHOLD = BLOCK_SIZE << 7;
+
     private final FileChannel cache;
     private final ReadableByteChannel channel;
 
+    // The stream position of the first byte in the cache file
+    private long base;
+    private long start;
+
     // TODO: Perhaps skip this constructor?
     FileCache(InputStream stream, File cacheDir) throws IOException {
         // Stream will be closed with channel, documented behavior
@@ -58,6 +66,11 @@ final class FileCache implements Cache {
         }
     }
 
+    // Visible for testing
+    long cachedLength() throws IOException {
+        return cache.size();
+    }
+
     @Override
     public boolean isOpen() {
         return channel.isOpen();
@@ -81,12 +94,16 @@ final class FileCache implements Cache {
 
     @Override
     public long position() throws IOException {
-        return cache.position();
+        return base + cache.position();
     }
 
     @Override
     public SeekableByteChannel position(long newPosition) throws IOException {
-        cache.position(newPosition);
+        if (newPosition < start) {
+            throw new IOException("Seek before flush position");
+        }
+
+        cache.position(newPosition - base);
         return this;
     }
 
@@ -106,7 +123,47 @@ final class FileCache implements Cache {
         throw new NonWritableChannelException();
     }
 
-    @Override public void flushBefore(long pos) {
+    @Override
+    public void flushBefore(long pos) throws IOException {
+        if (pos < start) {
+            throw new IndexOutOfBoundsException("pos < flushed position");
+        }
+
+        start = pos;
+
+        long flushed = min(pos - base, cache.size());
+        long remaining = cache.size() - flushed;
+
+        // Move the data still needed to the start of the file, and truncate it, as a sliding window when streaming.
+        // As we only compact when the flushed part is larger than the remaining part, the cost is amortized,
+        // and the regions never overlap.
+        if (flushed >= COMPACT_THRESHOLD && flushed >= remaining) {
+            long position = cache.position();
+            ByteBuffer buffer = ByteBuffer.allocate((int) min(remaining, BLOCK_SIZE));
+
+            for (long offset = 0; offset < remaining; ) {
+                buffer.clear();
+                buffer.limit((int) min(buffer.capacity(), remaining - offset));
+
+                while (buffer.hasRemaining()) {
+                    if (cache.read(buffer, flushed + offset + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of cache file");
+                    }
+                }
+
+                buffer.flip();
+
+                while (buffer.hasRemaining()) {
+                    cache.write(buffer, offset + buffer.position());
+                }
+
+                offset += buffer.limit();
+            }
+
+            cache.truncate(remaining);
+            cache.position(position - flushed);
+            base += flushed;
+        }
     }
 }
 
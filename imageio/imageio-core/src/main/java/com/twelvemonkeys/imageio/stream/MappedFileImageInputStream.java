@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.stream;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.twelvemonkeys.lang.Validate.notNull;
+
+/**
+ * An {@link javax.imageio.stream.ImageInputStream} that is backed by a memory mapped file.
+ * <p>
+ * The file is mapped in segments (of up to 1 GB each), as they are needed, to allow reading files larger than 2 GB.
+ * Seeking is free, and reads are served directly from the mapped memory, without copying through an
+ * intermediate buffer.
+ * This is useful for random access in large files, like tiled BigTIFFs or large PSDs.
+ * </p>
+ * <p>
+ * Note that the mapped memory is not released when the stream is closed, only when the
+ * mapped buffers are garbage collected.
+ * On some platforms, the file can not be deleted or modified while it is mapped.
+ * The file should not be truncated while mapped, as this may cause undefined behavior.
+ * </p>
+ */
+final class MappedFileImageInputStream extends ImageInputStreamImpl {
+    static final int SEGMENT_SHIFT = 30;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    private final int segmentShift;
+    private final int segmentSize;
+    private final long length;
+
+    private FileChannel channel;
+    private boolean closeChannelOnClose;
+    private MappedByteBuffer[] segments;
+
+    /**
+     * Constructs a {@code MappedFileImageInputStream} that will read from a given {@code File}.
+     *
+     * @param file a {@code File} to read from.
+     * @throws IllegalArgumentException if {@code file} is {@code null}.
+     * @throws SecurityException        if a security manager is installed, and it denies read access to the file.
+     * @throws IOException              if an I/O error occurs while opening the file.
+     */
+    public MappedFileImageInputStream(final File file) throws IOException {
+        this(notNull(file, "file").toPath());
+    }
+
+    /**
+     * Constructs a {@code MappedFileImageInputStream} that will read from a given {@code Path}.
+     *
+     * @param file a {@code Path} to read from.
+     * @throws IllegalArgumentException      if {@code file} is {@code null}.
+     * @throws UnsupportedOperationException if the {@code file} is associated with a provider that does not support creating file channels.
+     * @throws IOException                   if an I/O error occurs while opening the file.
+     * @throws SecurityException             if a security manager is installed, and it denies read access to the file.
+     */
+    public MappedFileImageInputStream(final Path file) throws IOException {
+        this(FileChannel.open(notNull(file, "file"), StandardOpenOption.READ), true, SEGMENT_SHIFT);
+    }
+
+    /**
+     * Constructs a {@code MappedFileImageInputStream} that will read from a given {@code FileChannel}.
+     * <p>
+     * Closing this stream will <em>not</em> close the {@code FileChannel}.
+     * </p>
+     *
+     * @param channel a {@code FileChannel} to read from.
+     * @throws IllegalArgumentException if {@code channel} is {@code null}.
+     * @throws IOException              if an I/O error occurs while querying the size of the channel.
+     */
+    public MappedFileImageInputStream(final FileChannel channel) throws IOException {
+        this(notNull(channel, "channel"), false, SEGMENT_SHIFT);
+    }
+
+    // Visible for testing, to allow testing multiple segments without huge files
+    MappedFileImageInputStream(final FileChannel channel, final boolean closeChannelOnClose, final int segmentShift) throws IOException {
+        this.channel = notNull(channel, "channel");
+        this.closeChannelOnClose = closeChannelOnClose;
+        this.segmentShift = segmentShift;
+        this.segmentSize = 1 << segmentShift;
+
+        length = channel.size();
+        segments = new MappedByteBuffer[(int) ((length + segmentSize - 1) >> segmentShift)];
+    }
+
+    private MappedByteBuffer segment(final int index) throws IOException {
+        MappedByteBuffer segment = segments[index];
+
+        if (segment == null) {
+            long start = (long) index << segmentShift;
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, length - start));
+            segment.order(byteOrder);
+            segments[index] = segment;
+        }
+
+        return segment;
+    }
+
+    @Override
+    public void setByteOrder(final ByteOrder byteOrder) {
+        super.setByteOrder(byteOrder);
+
+        if (segments != null) {
+            for (MappedByteBuffer segment : segments) {
+                if (segment != null) {
+                    segment.order(byteOrder);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+
+        if (streamPos >= length) {
+            return -1;
+        }
+
+        int value = segment((int) (streamPos >> segmentShift)).get((int) (streamPos & (segmentSize - 1))) & 0xff;
+        streamPos++;
+
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        checkClosed();
+        bitOffset = 0;
+
+        if (offset < 0 || length < 0 || offset + length > bytes.length || offset + length < 0) {
+            throw new IndexOutOfBoundsException("offset < 0 || length < 0 || offset + length > bytes.length");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (streamPos >= this.length) {
+            return -1;
+        }
+
+        // Like BufferedChannelImageInputStream, read as much as possible (and behave like readFully) until EOF
+        int read = 0;
+        int remaining = (int) Math.min(length, this.length - streamPos);
+
+        while (remaining > 0) {
+            MappedByteBuffer segment = segment((int) (streamPos >> segmentShift));
+            int segmentPos = (int) (streamPos & (segmentSize - 1));
+            int count = Math.min(remaining, segment.limit() - segmentPos);
+
+            // NOTE: Cast to Buffer, to avoid covariant return type on Java 9+ when running on Java 8
+            ((Buffer) segment).position(segmentPos);
+            segment.get(bytes, offset + read, count);
+
+            read += count;
+            remaining -= count;
+            streamPos += count;
+        }
+
+        return read;
+    }
+
+    // The implementations in ImageInputStreamImpl reads through a temporary byte array,
+    // we can read directly from the mapped buffer, unless the value spans two segments.
+    // readUnsignedXx(), readChar(), readFloat() and readDouble() are covered by these.
+
+    @Override
+    public short readShort() throws IOException {
+        int segmentPos = (int) (streamPos & (segmentSize - 1));
+
+        if (streamPos + 2 > length || segmentPos + 2 > segmentSize) {
+            return super.readShort();
+        }
+
+        checkClosed();
+        bitOffset = 0;
+
+        short value = segment((int) (streamPos >> segmentShift)).getShort(segmentPos);
+        streamPos += 2;
+
+        return value;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int segmentPos = (int) (streamPos & (segmentSize - 1));
+
+        if (streamPos + 4 > length || segmentPos + 4 > segmentSize) {
+            return super.readInt();
+        }
+
+        checkClosed();
+        bitOffset = 0;
+
+        int value = segment((int) (streamPos >> segmentShift)).getInt(segmentPos);
+        streamPos += 4;
+
+        return value;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        int segmentPos = (int) (streamPos & (segmentSize - 1));
+
+        if (streamPos + 8 > length || segmentPos + 8 > segmentSize) {
+            return super.readLong();
+        }
+
+        checkClosed();
+        bitOffset = 0;
+
+        long value = segment((int) (streamPos >> segmentShift)).getLong(segmentPos);
+        streamPos += 8;
+
+        return value;
+    }
+
+    @Override
+    public void seek(final long position) throws IOException {
+        checkClosed();
+
+        if (position < flushedPos) {
+            throw new IndexOutOfBoundsException("position < flushedPos!");
+        }
+
+        bitOffset = 0;
+        streamPos = position;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+
+        // NOTE: There's no public API to unmap the buffers, they will be unmapped when garbage collected
+        segments = null;
+
+        try {
+            if (closeChannelOnClose) {
+                channel.close();
+            }
+        }
+        finally {
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.stream;
+
+import com.twelvemonkeys.imageio.spi.ProviderInfo;
+
+import javax.imageio.spi.ImageInputStreamSpi;
+import javax.imageio.spi.ServiceRegistry;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * MappedFileImageInputStreamSpi
+ * <p>
+ * Creates {@code ImageInputStream}s from {@code File}s, backed by memory mapped buffers.
+ * </p>
+ * <p>
+ * As memory mapped files are not unmapped until garbage collected, which may prevent deleting or modifying
+ * the files on some platforms, this provider is not the default.
+ * Set the system property {@code com.twelvemonkeys.imageio.stream.mapped} to {@code true} to order this provider
+ * ahead of the other {@code File} providers, including {@link BufferedFileImageInputStreamSpi}.
+ * Otherwise, it will be ordered after the other providers.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: MappedFileImageInputStreamSpi.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+public final class MappedFileImageInputStreamSpi extends ImageInputStreamSpi {
+    static final String MAPPED_PROPERTY = "com.twelvemonkeys.imageio.stream.mapped";
+
+    public MappedFileImageInputStreamSpi() {
+        this(new StreamProviderInfo());
+    }
+
+    private MappedFileImageInputStreamSpi(ProviderInfo providerInfo) {
+        super(providerInfo.getVendorName(), providerInfo.getVersion(), File.class);
+    }
+
+    @Override
+    public void onRegistration(final ServiceRegistry registry, final Class<?> category) {
+        boolean preferred = "true".equalsIgnoreCase(System.getProperty(MAPPED_PROPERTY));
+        Iterator<ImageInputStreamSpi> providers = registry.getServiceProviders(ImageInputStreamSpi.class, new FileInputFilter(), true);
+
+        while (providers.hasNext()) {
+            ImageInputStreamSpi provider = providers.next();
+            if (provider != this) {
+                if (preferred) {
+                    registry.setOrdering(ImageInputStreamSpi.class, this, provider);
+                }
+                else {
+                    registry.setOrdering(ImageInputStreamSpi.class, provider, this);
+                }
+            }
+        }
+    }
+
+    @Override
+    public ImageInputStream createInputStreamInstance(final Object input, final boolean useCacheFile, final File cacheDir) throws IOException {
+        if (input instanceof File) {
+            try {
+                return new MappedFileImageInputStream((File) input);
+            }
+            catch (FileNotFoundException | NoSuchFileException e) {
+                // For consistency with the JRE bundled SPIs, we'll return null here,
+                // even though the spec does not say that's allowed.
+                return null;
+            }
+        }
+
+        throw new IllegalArgumentException("Expected input of type File: " + input);
+    }
+
+    @Override
+    public boolean canUseCacheFile() {
+        return false;
+    }
+
+    @Override
+    public String getDescription(final Locale locale) {
+        return "Service provider that instantiates a memory mapped ImageInputStream from a File";
+    }
+
+    private static class FileInputFilter implements ServiceRegistry.Filter {
+        @Override
+        public boolean filter(final Object provider) {
+            return ((ImageInputStreamSpi) provider).getInputClass() == File.class;
+        }
+    }
+}
@@ -19,9 +19,13 @@ final class MemoryCache implements Cache {
 
     private static final byte[] NULL_BLOCK = new byte[0];
 
+    // Blocks from firstBlock and onwards, flushed blocks are removed
     private final List<byte[]> cache = new ArrayList<>();
     private final ReadableByteChannel channel;
 
+    private int firstBlock;
+    private byte[] spare;
+
     private int maxBlock = Integer.MAX_VALUE;
     private long length;
     private long position;
@@ -47,13 +51,17 @@ final class MemoryCache implements Cache {
             return NULL_BLOCK;
         }
 
-        while (index >= cache.size()) {
-            byte[] block;
-            try {
-                block = new byte[BLOCK_SIZE];
-            }
-            catch (OutOfMemoryError e) {
-                throw new IOException("No more memory for cache: " + cache.size() * BLOCK_SIZE);
+        while (index >= firstBlock + cache.size()) {
+            byte[] block = spare;
+            spare = null;
+
+            if (block == null) {
+                try {
+                    block = new byte[BLOCK_SIZE];
+                }
+                catch (OutOfMemoryError e) {
+                    throw new IOException("No more memory for cache: " + cache.size() * BLOCK_SIZE);
+                }
             }
 
             cache.add(block);
@@ -67,7 +75,7 @@ final class MemoryCache implements Cache {
             }
         }
 
-        return cache.get((int) index);
+        return cache.get((int) index - firstBlock);
     }
 
     private int readBlock(final byte[] block) throws IOException {
@@ -84,6 +92,11 @@ final class MemoryCache implements Cache {
         return wrapped.position();
     }
 
+    // Visible for testing
+    int cachedBlocks() {
+        return cache.size();
+    }
+
     @Override
     public boolean isOpen() {
         return channel.isOpen();
@@ -92,6 +105,7 @@ final class MemoryCache implements Cache {
     @Override
     public void close() throws IOException {
         cache.clear();
+        spare = null;
     }
 
     @Override
@@ -152,11 +166,13 @@ final class MemoryCache implements Cache {
             throw new IndexOutOfBoundsException("pos > current position");
         }
 
-        int blocks = (int) (pos / BLOCK_SIZE); // Overflow guarded for in fetchBlock
+        int blocks = (int) min(pos / BLOCK_SIZE - firstBlock, cache.size()); // Overflow guarded for in fetchBlock
 
-        // Clear blocks no longer needed
-        for (int i = 0; i < blocks; i++) {
-            cache.set(i, null);
+        if (blocks > 0) {
+            // Remove blocks no longer needed, but keep one for reuse, as a sliding window when streaming
+            spare = cache.get(blocks - 1);
+            cache.subList(0, blocks).clear();
+            firstBlock += blocks;
         }
 
         start = pos;
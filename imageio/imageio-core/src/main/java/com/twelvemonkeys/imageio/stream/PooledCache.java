@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.twelvemonkeys.lang.Validate.isTrue;
+import static com.twelvemonkeys.lang.Validate.notNull;
+import static java.lang.Math.min;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A cache that keeps blocks in memory, using blocks from a shared {@link BlockPool}.
+ * <p>
+ * When the pool runs dry, the remaining blocks are either written to a temporary file (like {@link FileCache}),
+ * or, if a cache file should not be used, allocated on the heap (like {@link MemoryCache}).
+ * Pooled blocks are returned to the pool when flushed or when the cache is closed,
+ * so the pool is only effective if streams are closed after use.
+ * Blocks of a cache that is garbage collected without being closed are not returned to the pool,
+ * but no longer count towards the pool's bound.
+ * Space in the cache file used by flushed blocks is reused for new blocks.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: PooledCache.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+final class PooledCache implements Cache {
+    final static int BLOCK_SIZE = 1 << 13;
+
+    private final ReadableByteChannel channel;
+    private final BlockPool pool;
+    private final BlockPool.Owner owner;
+    private final boolean useCacheFile;
+    private final File cacheDir;
+
+    // Blocks from firstBlock and onwards, flushed blocks are removed
+    private final List<Block> blocks = new ArrayList<>();
+    private int firstBlock;
+    private boolean eof;
+
+    private FileChannel cacheFile;
+    private ByteBuffer transferBuffer;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int slotCount;
+
+    private long length;
+    private long position;
+    private long start;
+
+    PooledCache(final ReadableByteChannel channel, final BlockPool pool, final boolean useCacheFile, final File cacheDir) {
+        this.channel = notNull(channel, "channel");
+        this.pool = notNull(pool, "pool");
+        isTrue(pool.blockSize() == BLOCK_SIZE, pool.blockSize(), "Unexpected pool block size: %d");
+        this.owner = pool.register(this);
+        this.useCacheFile = useCacheFile;
+        this.cacheDir = isTrue(cacheDir == null || cacheDir.isDirectory(), cacheDir, "%s is not a directory");
+    }
+
+    private void fetchBlocks(final long index) throws IOException {
+        if (index >= Integer.MAX_VALUE) {
+            throw new IOException("Cache max size exceeded");
+        }
+
+        while (!eof && index >= firstBlock + blocks.size()) {
+            Block block = new Block();
+            acquireBlock(block);
+            int bytesRead;
+
+            if (block.data != null) {
+                bytesRead = readBlock(ByteBuffer.wrap(block.data));
+            }
+            else {
+                block.slot = allocateSlot();
+                bytesRead = transferBlock(block.slot);
+            }
+
+            blocks.add(block);
+            length += bytesRead;
+
+            // Last block, EOF found
+            eof = bytesRead < BLOCK_SIZE;
+        }
+    }
+
+    private void acquireBlock(final Block block) throws IOException {
+        block.data = pool.acquire(owner);
+
+        if (block.data != null) {
+            block.pooled = true;
+        }
+        else if (!useCacheFile) {
+            try {
+                block.data = new byte[BLOCK_SIZE];
+            }
+            catch (OutOfMemoryError e) {
+                throw new IOException("No more memory for cache: " + (long) blocks.size() * BLOCK_SIZE);
+            }
+        }
+
+        // Otherwise, the pool is dry, and we'll spill the data to file
+    }
+
+    private void releaseBlock(final Block block) {
+        if (block.pooled) {
+            pool.release(owner, block.data);
+        }
+        else if (block.slot >= 0) {
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+
+            freeSlots[freeSlotCount++] = block.slot;
+        }
+
+        block.data = null;
+    }
+
+    private int allocateSlot() {
+        return freeSlotCount > 0 ? freeSlots[--freeSlotCount] : slotCount++;
+    }
+
+    private int transferBlock(final int slot) throws IOException {
+        if (cacheFile == null) {
+            // Create a temp file to hold the rest of our cache,
+            // will be deleted when this channel is closed, as we close the cache
+            Path file = cacheDir == null
+                        ? Files.createTempFile("imageio", ".tmp")
+                        : Files.createTempFile(cacheDir.toPath(), "imageio", ".tmp");
+
+            cacheFile = FileChannel.open(file, DELETE_ON_CLOSE, READ, WRITE);
+            transferBuffer = ByteBuffer.allocate(BLOCK_SIZE);
+        }
+
+        transferBuffer.clear();
+        int bytesRead = readBlock(transferBuffer);
+        transferBuffer.flip();
+
+        long offset = (long) slot * BLOCK_SIZE;
+        while (transferBuffer.hasRemaining()) {
+            offset += cacheFile.write(transferBuffer, offset);
+        }
+
+        return bytesRead;
+    }
+
+    private int readBlock(final ByteBuffer block) throws IOException {
+        while (block.hasRemaining()) {
+            int count = channel.read(block);
+            if (count == -1) {
+                // Last block, EOF found
+                break;
+            }
+        }
+
+        return block.position();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Block block : blocks) {
+            releaseBlock(block);
+        }
+
+        blocks.clear();
+
+        if (cacheFile != null) {
+            cacheFile.close();
+        }
+    }
+
+    @Override
+    public int read(final ByteBuffer dest) throws IOException {
+        long index = position / BLOCK_SIZE;
+        fetchBlocks(index);
+
+        if (position >= length) {
+            return -1;
+        }
+
+        int blockPos = (int) (position % BLOCK_SIZE);
+        int len = min(dest.remaining(), (int) min(BLOCK_SIZE - blockPos, length - position));
+
+        Block block = blocks.get((int) index - firstBlock);
+
+        if (block.data != null) {
+            dest.put(block.data, blockPos, len);
+        }
+        else {
+            readCacheFile(dest, (long) block.slot * BLOCK_SIZE + blockPos, len);
+        }
+
+        position += len;
+
+        return len;
+    }
+
+    private void readCacheFile(final ByteBuffer dest, final long offset, final int len) throws IOException {
+        int limit = dest.limit();
+        dest.limit(dest.position() + len);
+
+        try {
+            long pos = offset;
+
+            while (dest.hasRemaining()) {
+                int count = cacheFile.read(dest, pos);
+                if (count < 0) {
+                    throw new IOException("Unexpected end of cache file");
+                }
+
+                pos += count;
+            }
+        }
+        finally {
+            dest.limit(limit);
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        if (newPosition < start) {
+            throw new IOException("Seek before flush position");
+        }
+
+        this.position = newPosition;
+
+        return this;
+    }
+
+    @Override
+    public long size() {
+        // We could allow the size to grow, but that means the stream cannot rely on this size, so we'll just pretend we don't know...
+        return -1;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public void flushBefore(final long pos) {
+        if (pos < start) {
+            throw new IndexOutOfBoundsException("pos < flushed position");
+        }
+        if (pos > position) {
+            throw new IndexOutOfBoundsException("pos > current position");
+        }
+
+        int flushed = (int) min(pos / BLOCK_SIZE - firstBlock, blocks.size());
+
+        if (flushed > 0) {
+            // Return blocks no longer needed to the pool, or free their space in the cache file
+            List<Block> flushedBlocks = blocks.subList(0, flushed);
+
+            for (Block block : flushedBlocks) {
+                releaseBlock(block);
+            }
+
+            flushedBlocks.clear();
+            firstBlock += flushed;
+        }
+
+        start = pos;
+    }
+
+    private static final class Block {
+        byte[] data;
+        boolean pooled;
+        int slot = -1;
+    }
+}
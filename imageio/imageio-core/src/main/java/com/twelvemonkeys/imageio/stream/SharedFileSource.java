@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.stream;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.twelvemonkeys.lang.Validate.isTrue;
+import static com.twelvemonkeys.lang.Validate.notNull;
+
+/**
+ * A thread-safe source of {@link ImageInputStream}s, all reading from the same file.
+ * <p>
+ * Each stream created by {@link #createInputStream()} is an independent view of the file,
+ * with its own position, byte order and (small) buffer.
+ * The views share a single {@link FileChannel}, and use positional reads only,
+ * so they never affect each other, and may be used from different threads at the same time.
+ * This allows reading tiles or strips from a large file in parallel, without opening a file handle per thread.
+ * A single view is <em>not</em> thread-safe, and should be used by one thread at a time.
+ * </p>
+ * <p>
+ * Closing a view does not affect the source or other views.
+ * Closing the source will cause further reads from any view to fail with an {@code IOException}.
+ * Note that interrupting a thread blocked in a read will close the underlying {@code FileChannel},
+ * as specified by {@link java.nio.channels.InterruptibleChannel}, and thus fail all views.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: SharedFileSource.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public final class SharedFileSource implements Closeable {
+    private final FileChannel channel;
+    private final boolean closeChannelOnClose;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructs a {@code SharedFileSource} that will read from a given {@code File}.
+     *
+     * @param file a {@code File} to read from.
+     * @throws IllegalArgumentException if {@code file} is {@code null}.
+     * @throws SecurityException        if a security manager is installed, and it denies read access to the file.
+     * @throws IOException              if an I/O error occurs while opening the file.
+     */
+    public SharedFileSource(final File file) throws IOException {
+        this(notNull(file, "file").toPath());
+    }
+
+    /**
+     * Constructs a {@code SharedFileSource} that will read from a given {@code Path}.
+     *
+     * @param file a {@code Path} to read from.
+     * @throws IllegalArgumentException      if {@code file} is {@code null}.
+     * @throws UnsupportedOperationException if the {@code file} is associated with a provider that does not support creating file channels.
+     * @throws IOException                   if an I/O error occurs while opening the file.
+     * @throws SecurityException             if a security manager is installed, and it denies read access to the file.
+     */
+    public SharedFileSource(final Path file) throws IOException {
+        this(FileChannel.open(notNull(file, "file"), StandardOpenOption.READ), true);
+    }
+
+    /**
+     * Constructs a {@code SharedFileSource} that will read from a given {@code FileChannel}.
+     * <p>
+     * Closing this source will <em>not</em> close the {@code FileChannel}.
+     * </p>
+     *
+     * @param channel a {@code FileChannel} to read from.
+     * @throws IllegalArgumentException if {@code channel} is {@code null}.
+     */
+    public SharedFileSource(final FileChannel channel) {
+        this(notNull(channel, "channel"), false);
+    }
+
+    private SharedFileSource(final FileChannel channel, final boolean closeChannelOnClose) {
+        this.channel = channel;
+        this.closeChannelOnClose = closeChannelOnClose;
+    }
+
+    /**
+     * Creates a new, independent {@code ImageInputStream} view of the file, positioned at the start of the file.
+     * This method is cheap, and does not open any new file handles.
+     *
+     * @return a new {@code ImageInputStream}.
+     * @throws IOException if this source is closed.
+     */
+    public ImageInputStream createInputStream() throws IOException {
+        ensureOpen();
+
+        return new BufferedChannelImageInputStream(new PositionalChannel());
+    }
+
+    /**
+     * Returns the length of the file.
+     *
+     * @return the length of the file, in bytes.
+     * @throws IOException if an I/O error occurs, or this source is closed.
+     */
+    public long length() throws IOException {
+        ensureOpen();
+
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        if (closeChannelOnClose) {
+            channel.close();
+        }
+    }
+
+    private boolean isOpen() {
+        return !closed && channel.isOpen();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * A read-only channel with its own position, that delegates to the shared channel using positional reads.
+     */
+    private final class PositionalChannel implements SeekableByteChannel {
+        private long position;
+        private boolean open = true;
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            ensureOpen();
+
+            int read = channel.read(dst, position);
+
+            if (read > 0) {
+                position += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureOpen();
+
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(final long newPosition) throws IOException {
+            isTrue(newPosition >= 0, newPosition, "negative position: %d");
+            ensureOpen();
+
+            position = newPosition;
+
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            ensureOpen();
+
+            return channel.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(final long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open && SharedFileSource.this.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // Only this view is closed, the shared channel stays open
+            open = false;
+        }
+
+        private void ensureOpen() throws ClosedChannelException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+
+            SharedFileSource.this.ensureOpen();
+        }
+    }
+}
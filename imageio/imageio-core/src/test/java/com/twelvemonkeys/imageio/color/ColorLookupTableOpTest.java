@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.color;
+
+import java.awt.*;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.RasterOp;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * ColorLookupTableOpTest
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: ColorLookupTableOpTest.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class ColorLookupTableOpTest {
+    private static ICC_ColorSpace readColorSpace(final String name) throws IOException {
+        try (InputStream input = ColorLookupTableOpTest.class.getResourceAsStream(name)) {
+            assertNotNull(input, "Missing test resource");
+            return ColorSpaces.createColorSpace(ICC_Profile.getInstance(input));
+        }
+    }
+
+    private static ColorSpace getCMYK() {
+        ColorSpace cmyk = ColorSpaces.getColorSpace(ColorSpaces.CS_GENERIC_CMYK);
+        assumeTrue(cmyk instanceof ICC_ColorSpace, "Generic CMYK profile not available");
+
+        return cmyk;
+    }
+
+    private static ColorSpace getAdobeRGB() throws IOException {
+        return readColorSpace("/profiles/adobe_rgb_1998.icc");
+    }
+
+    private static WritableRaster createRandomRaster(final int bands, final long seed) {
+        WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 256, 128, bands, null);
+        new Random(seed).nextBytes(((DataBufferByte) raster.getDataBuffer()).getData());
+
+        return raster;
+    }
+
+    private static int maxDifference(final Raster expected, final Raster actual) {
+        int max = 0;
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                for (int b = 0; b < expected.getNumBands(); b++) {
+                    int difference = Math.abs(expected.getSample(expected.getMinX() + x, expected.getMinY() + y, b) - actual.getSample(actual.getMinX() + x, actual.getMinY() + y, b));
+                    max = Math.max(max, difference);
+                }
+            }
+        }
+
+        return max;
+    }
+
+    private static void assertWithinTolerance(final ColorSpace source, final ColorSpace destination, final Raster raster) {
+        RasterOp exact = ColorTransforms.createColorConvertOp(source, destination);
+        RasterOp lookup = ColorTransforms.createLookupTableOp(source, destination);
+
+        WritableRaster expected = exact.filter(raster, null);
+        WritableRaster actual = lookup.filter(raster, null);
+
+        // Close to the destination gamut boundary, where the exact conversion clips, the difference may be larger
+        int samples = 0;
+        int outside = 0;
+        long sum = 0;
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                for (int b = 0; b < expected.getNumBands(); b++) {
+                    int difference = Math.abs(expected.getSample(x, y, b) - actual.getSample(x, y, b));
+
+                    samples++;
+                    sum += difference;
+
+                    if (difference > ColorLookupTableOp.TOLERANCE) {
+                        outside++;
+                    }
+                }
+            }
+        }
+
+        assertTrue(sum / (double) samples < 0.5, "Mean difference: " + sum / (double) samples);
+        assertTrue(outside / (double) samples < 0.01, "Samples outside tolerance: " + outside + "/" + samples);
+    }
+
+    @Test
+    public void testLinear3D() {
+        assertLinearFunctionExact(3);
+    }
+
+    @Test
+    public void testLinear4D() {
+        assertLinearFunctionExact(4);
+    }
+
+    private static void assertLinearFunctionExact(final int inputs) {
+        // Interpolation of a linear function is exact, except for rounding
+        RasterOp linear = new LinearOp();
+        ColorSpace source = inputs == 3 ? ColorSpace.getInstance(ColorSpace.CS_LINEAR_RGB) : CMYKColorSpace.INSTANCE;
+        ColorLookupTableOp lookup = new ColorLookupTableOp(source, ColorSpace.getInstance(ColorSpace.CS_sRGB), linear);
+
+        WritableRaster raster = createRandomRaster(inputs, inputs);
+        WritableRaster expected = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, raster.getWidth(), raster.getHeight(), 3, null);
+        linear.filter(raster, expected);
+
+        assertTrue(maxDifference(expected, lookup.filter(raster, expected.createCompatibleWritableRaster())) <= 1);
+    }
+
+    @Test
+    public void testRGBToSRGB() throws IOException {
+        assertWithinTolerance(getAdobeRGB(), ColorSpace.getInstance(ColorSpace.CS_sRGB), createRandomRaster(3, 17));
+    }
+
+    @Test
+    public void testSRGBToRGB() throws IOException {
+        assertWithinTolerance(ColorSpace.getInstance(ColorSpace.CS_sRGB), getAdobeRGB(), createRandomRaster(3, 23));
+    }
+
+    @Test
+    public void testCMYKToSRGB() {
+        assertWithinTolerance(getCMYK(), ColorSpace.getInstance(ColorSpace.CS_sRGB), createRandomRaster(4, 42));
+    }
+
+    @Test
+    public void testInPlace() throws IOException {
+        ColorSpace source = getAdobeRGB();
+        ColorSpace destination = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        WritableRaster raster = createRandomRaster(3, 7);
+        WritableRaster expected = ColorTransforms.createLookupTableOp(source, destination).filter(raster, null);
+
+        assertSame(raster, ColorTransforms.createLookupTableOp(source, destination).filter(raster, raster));
+        assertEquals(0, maxDifference(expected, raster));
+    }
+
+    @Test
+    public void testBandedAndChildRasters() throws IOException {
+        RasterOp lookup = ColorTransforms.createLookupTableOp(getAdobeRGB(), ColorSpace.getInstance(ColorSpace.CS_sRGB));
+
+        WritableRaster interleaved = createRandomRaster(3, 3);
+        WritableRaster expected = lookup.filter(interleaved, null);
+
+        // Banded source
+        WritableRaster banded = Raster.createWritableRaster(new BandedSampleModel(DataBuffer.TYPE_BYTE, interleaved.getWidth(), interleaved.getHeight(), 3), null);
+        banded.setRect(interleaved);
+        assertEquals(0, maxDifference(expected, lookup.filter(banded, null)));
+
+        // Translated child of a larger raster, with bands in reverse order (BGR)
+        WritableRaster parent = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 300, 200, 300 * 3, 3, new int[] {2, 1, 0}, null);
+        WritableRaster child = parent.createWritableChild(10, 20, 256, 128, 0, 0, null);
+        lookup.filter(interleaved, child);
+        assertEquals(0, maxDifference(expected, child));
+        assertEquals(expected.getSample(0, 0, 0), parent.getSample(10, 20, 0));
+        assertEquals(0, parent.getSample(9, 20, 0));
+    }
+
+    @Test
+    public void testNonByteRasterUsesExactConversion() throws IOException {
+        ColorSpace source = getAdobeRGB();
+        ColorSpace destination = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_USHORT, 64, 32, 3, null);
+        Random random = new Random(11);
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int x = 0; x < raster.getWidth(); x++) {
+                raster.setPixel(x, y, new int[] {random.nextInt(65536), random.nextInt(65536), random.nextInt(65536)});
+            }
+        }
+
+        WritableRaster expected = ColorTransforms.createColorConvertOp(source, destination).filter(raster, null);
+        WritableRaster actual = ColorTransforms.createLookupTableOp(source, destination).filter(raster, null);
+
+        assertEquals(0, maxDifference(expected, actual));
+    }
+
+    @Test
+    public void testCached() throws IOException {
+        ColorSpace source = getAdobeRGB();
+        ColorSpace destination = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        assertSame(ColorTransforms.createLookupTableOp(source, destination), ColorTransforms.createLookupTableOp(source, destination));
+    }
+
+    @Test
+    public void testUnsupported() {
+        ColorSpace gray = ColorSpace.getInstance(ColorSpace.CS_GRAY);
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        assertThrows(IllegalArgumentException.class, () -> ColorTransforms.createLookupTableOp(gray, sRGB));
+        assertThrows(IllegalArgumentException.class, () -> ColorTransforms.createLookupTableOp(CMYKColorSpace.INSTANCE, sRGB));
+    }
+
+    @Test
+    public void testFastColorConvertOpDisabledByDefault() throws IOException {
+        ColorSpace source = getAdobeRGB();
+        ColorSpace destination = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        assertFalse(ColorTransforms.USE_LOOKUP_TABLES);
+        assertSame(ColorTransforms.createColorConvertOp(source, destination), ColorTransforms.createFastColorConvertOp(source, destination));
+    }
+
+    // Converts 3 or 4 component rasters to 3 components, using a simple linear function
+    private static final class LinearOp implements RasterOp {
+        @Override
+        public WritableRaster filter(final Raster src, final WritableRaster dest) {
+            int max = (1 << src.getSampleModel().getSampleSize(0)) - 1;
+            int[] pixel = new int[src.getNumBands()];
+
+            for (int y = 0; y < src.getHeight(); y++) {
+                for (int x = 0; x < src.getWidth(); x++) {
+                    src.getPixel(src.getMinX() + x, src.getMinY() + y, pixel);
+
+                    int last = pixel[pixel.length - 1];
+                    dest.setPixel(dest.getMinX() + x, dest.getMinY() + y, new int[] {
+                            (pixel[0] + pixel[1]) / 2,
+                            (pixel[1] + max - pixel[2]) / 2,
+                            (pixel[0] + pixel[2] + 2 * last) / 4
+                    });
+                }
+            }
+
+            return dest;
+        }
+
+        @Override
+        public Rectangle2D getBounds2D(final Raster src) {
+            return src.getBounds();
+        }
+
+        @Override
+        public WritableRaster createCompatibleDestRaster(final Raster src) {
+            return Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, src.getWidth(), src.getHeight(), 3, null);
+        }
+
+        @Override
+        public Point2D getPoint2D(final Point2D srcPt, final Point2D dstPt) {
+            return (Point2D) srcPt.clone();
+        }
+
+        @Override
+        public RenderingHints getRenderingHints() {
+            return null;
+        }
+    }
+}
@@ -119,6 +119,24 @@ public class ColorSpacesTest {
         assertSame(ColorSpace.getInstance(ColorSpace.CS_LINEAR_RGB), created);
     }
 
+    @Test
+    public void testCreateColorSpaceSameProfileDifferentRenderingIntent() throws IOException {
+        byte[] data = ICC_Profile.getInstance(getClass().getResourceAsStream("/profiles/adobe_rgb_1998.icc")).getData();
+
+        byte[] perceptual = data.clone();
+        perceptual[ICC_Profile.icHdrRenderingIntent + 3] = ICC_Profile.icPerceptual;
+        byte[] saturation = data.clone();
+        saturation[ICC_Profile.icHdrRenderingIntent + 3] = ICC_Profile.icSaturation;
+
+        ICC_ColorSpace perceptualCS = ColorSpaces.createColorSpace(ICC_Profile.getInstance(perceptual));
+        ICC_ColorSpace saturationCS = ColorSpaces.createColorSpace(ICC_Profile.getInstance(saturation));
+
+        // Same profile ID, but the rendering intent affects conversion, so must be cached separately
+        assertNotSame(perceptualCS, saturationCS);
+        assertSame(perceptualCS, ColorSpaces.createColorSpace(ICC_Profile.getInstance(perceptual)));
+        assertSame(saturationCS, ColorSpaces.createColorSpace(ICC_Profile.getInstance(saturation)));
+    }
+
     @Test
     public void testAdobeRGB98NotNull() {
         assertNotNull(ColorSpaces.getColorSpace(ColorSpaces.CS_ADOBE_RGB_1998));
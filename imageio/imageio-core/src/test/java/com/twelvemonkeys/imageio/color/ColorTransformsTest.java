@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.color;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.ColorConvertOp;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.RasterOp;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ColorTransformsTest
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: ColorTransformsTest.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class ColorTransformsTest {
+    private static byte[] readProfileData() throws IOException {
+        try (InputStream input = ColorTransformsTest.class.getResourceAsStream("/profiles/adobe_rgb_1998.icc")) {
+            assertNotNull(input, "Missing test resource");
+            return ICC_Profile.getInstance(input).getData();
+        }
+    }
+
+    private static ICC_ColorSpace createColorSpace(final byte[] data, final int renderingIntent) {
+        byte[] copy = data.clone();
+        copy[ICC_Profile.icHdrRenderingIntent + 3] = (byte) renderingIntent;
+
+        return ColorSpaces.createColorSpace(ICC_Profile.getInstance(copy));
+    }
+
+    private static WritableRaster createRandomRaster(final long seed) {
+        WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 64, 32, 3, null);
+        new Random(seed).nextBytes(((DataBufferByte) raster.getDataBuffer()).getData());
+
+        return raster;
+    }
+
+    @Test
+    public void testCreateColorConvertOpNull() {
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        assertThrows(IllegalArgumentException.class, () -> ColorTransforms.createColorConvertOp(null, sRGB));
+        assertThrows(IllegalArgumentException.class, () -> ColorTransforms.createColorConvertOp(sRGB, null));
+    }
+
+    @Test
+    public void testCreateColorConvertOpCached() {
+        ColorSpace adobeRGB = ColorSpaces.getColorSpace(ColorSpaces.CS_ADOBE_RGB_1998);
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        RasterOp op = ColorTransforms.createColorConvertOp(adobeRGB, sRGB);
+        assertNotNull(op);
+        assertSame(op, ColorTransforms.createColorConvertOp(adobeRGB, sRGB));
+        assertNotSame(op, ColorTransforms.createColorConvertOp(sRGB, adobeRGB));
+    }
+
+    @Test
+    public void testCreateColorConvertOpSameProfileData() throws IOException {
+        byte[] data = readProfileData();
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        // Color spaces from different profile instances with the same data, should share the conversion
+        ICC_ColorSpace first = new ICC_ColorSpace(ICC_Profile.getInstance(data));
+        ICC_ColorSpace second = new ICC_ColorSpace(ICC_Profile.getInstance(data));
+        assertNotSame(first, second); // Sanity check
+
+        assertSame(ColorTransforms.createColorConvertOp(first, sRGB), ColorTransforms.createColorConvertOp(second, sRGB));
+    }
+
+    @Test
+    public void testCreateColorConvertOpDifferentRenderingIntent() throws IOException {
+        byte[] data = readProfileData();
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        ICC_ColorSpace perceptual = createColorSpace(data, ICC_Profile.icPerceptual);
+        ICC_ColorSpace absolute = createColorSpace(data, ICC_Profile.icAbsoluteColorimetric);
+        assertNotSame(perceptual, absolute);
+
+        assertNotSame(ColorTransforms.createColorConvertOp(perceptual, sRGB), ColorTransforms.createColorConvertOp(absolute, sRGB));
+        assertSame(ColorTransforms.createColorConvertOp(absolute, sRGB), ColorTransforms.createColorConvertOp(createColorSpace(data, ICC_Profile.icAbsoluteColorimetric), sRGB));
+    }
+
+    @Test
+    public void testCreateColorConvertOpSameResultAsColorConvertOp() {
+        ColorSpace adobeRGB = ColorSpaces.getColorSpace(ColorSpaces.CS_ADOBE_RGB_1998);
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        WritableRaster source = createRandomRaster(42);
+        WritableRaster expected = new ColorConvertOp(adobeRGB, sRGB, null).filter(source, null);
+        WritableRaster actual = ColorTransforms.createColorConvertOp(adobeRGB, sRGB).filter(source, null);
+
+        assertArrayEquals(((DataBufferByte) expected.getDataBuffer()).getData(), ((DataBufferByte) actual.getDataBuffer()).getData());
+    }
+
+    @Test
+    public void testCreateColorConvertOpConcurrent() throws Exception {
+        ColorSpace adobeRGB = ColorSpaces.getColorSpace(ColorSpaces.CS_ADOBE_RGB_1998);
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+        RasterOp op = ColorTransforms.createColorConvertOp(adobeRGB, sRGB);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int i = 0; i < 16; i++) {
+                long seed = i;
+
+                results.add(executor.submit(() -> {
+                    WritableRaster source = createRandomRaster(seed);
+                    WritableRaster expected = new ColorConvertOp(adobeRGB, sRGB, null).filter(source, null);
+
+                    for (int j = 0; j < 10; j++) {
+                        WritableRaster actual = op.filter(source, null);
+                        assertArrayEquals(((DataBufferByte) expected.getDataBuffer()).getData(), ((DataBufferByte) actual.getDataBuffer()).getData());
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCreateColorConvertOpNonICC() {
+        ColorSpace cmyk = CMYKColorSpace.getInstance();
+        ColorSpace sRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        RasterOp op = ColorTransforms.createColorConvertOp(cmyk, sRGB);
+        assertNotNull(op);
+
+        WritableRaster source = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 1, 1, 4, null);
+        WritableRaster result = op.filter(source, null);
+        assertEquals(3, result.getNumBands());
+    }
+}
@@ -350,6 +350,30 @@ public class BufferedChannelImageInputStreamFileCacheTest {
         }
     }
 
+    @Test
+    public void testFlushBeforeDiscardsData() throws IOException {
+        byte[] bytes = new byte[FileCache.BLOCK_SIZE * 512 + 42];
+        InputStream input = randomDataToInputStream(bytes);
+        FileCache cache = new FileCache(input, null);
+
+        try (final ImageInputStream stream = new BufferedChannelImageInputStream(cache)) {
+            byte[] row = new byte[1000];
+
+            for (int pos = 0; pos < bytes.length; pos += row.length) {
+                int length = Math.min(row.length, bytes.length - pos);
+
+                stream.readFully(row, 0, length);
+                assertTrue(rangeEquals(bytes, pos, row, 0, length), "Data differ");
+
+                stream.flushBefore(stream.getStreamPosition());
+                assertTrue(cache.cachedLength() <= 2L * FileCache.COMPACT_THRESHOLD, "Flushed data should be discarded");
+            }
+
+            assertEquals(-1, stream.read());
+            assertThrows(IndexOutOfBoundsException.class, () -> stream.seek(0));
+        }
+    }
+
     @Test
     public void testClose() throws IOException {
         // Create wrapper stream
@@ -365,6 +365,30 @@ public class BufferedChannelImageInputStreamMemoryCacheTest {
         }
     }
 
+    @Test
+    public void testFlushBeforeDiscardsData() throws IOException {
+        byte[] bytes = new byte[MemoryCache.BLOCK_SIZE * 512 + 42];
+        InputStream input = randomDataToInputStream(bytes);
+        MemoryCache cache = new MemoryCache(input);
+
+        try (final ImageInputStream stream = new BufferedChannelImageInputStream(cache)) {
+            byte[] row = new byte[1000];
+
+            for (int pos = 0; pos < bytes.length; pos += row.length) {
+                int length = Math.min(row.length, bytes.length - pos);
+
+                stream.readFully(row, 0, length);
+                assertTrue(rangeEquals(bytes, pos, row, 0, length), "Data differ");
+
+                stream.flushBefore(stream.getStreamPosition());
+                assertTrue(cache.cachedBlocks() <= 2, "Flushed blocks should be discarded");
+            }
+
+            assertEquals(-1, stream.read());
+            assertThrows(IndexOutOfBoundsException.class, () -> stream.seek(0));
+        }
+    }
+
     @Test
     public void testClose() throws IOException {
         // Create wrapper stream
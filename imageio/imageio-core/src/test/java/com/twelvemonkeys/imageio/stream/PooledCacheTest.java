@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.stream;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PooledCacheTest
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: PooledCacheTest.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class PooledCacheTest {
+    private final Random random = new Random(170984354357234566L);
+
+    private ReadableByteChannel randomDataToChannel(byte[] data) {
+        random.nextBytes(data);
+
+        return Channels.newChannel(new ByteArrayInputStream(data));
+    }
+
+    private void assertReadsSame(byte[] data, ImageInputStream stream) throws IOException {
+        // Read everything, then seek back and forth
+        byte[] result = new byte[data.length];
+        stream.readFully(result);
+        assertArrayEquals(data, result);
+        assertEquals(-1, stream.read());
+
+        for (int i = 0; i < 100; i++) {
+            int offset = random.nextInt(data.length - 1);
+            int length = random.nextInt(Math.min(data.length - offset, 30000));
+            byte[] bytes = new byte[length];
+
+            stream.seek(offset);
+            stream.readFully(bytes);
+
+            for (int j = 0; j < length; j++) {
+                assertEquals(data[offset + j], bytes[j]);
+            }
+        }
+    }
+
+    @Test
+    public void testCreateNull() {
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> new PooledCache(null, pool, true, null));
+        assertThrows(IllegalArgumentException.class, () -> new PooledCache(randomDataToChannel(new byte[1]), null, true, null));
+    }
+
+    @Test
+    public void testCreateBadPool() {
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE / 2, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> new PooledCache(randomDataToChannel(new byte[1]), pool, true, null));
+    }
+
+    @Test
+    public void testReadFromPool() throws IOException {
+        byte[] data = new byte[PooledCache.BLOCK_SIZE * 20 + 17];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 32);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, true, null))) {
+            assertEquals(-1, stream.length(), "Stream length should be unknown");
+            assertReadsSame(data, stream);
+            assertEquals(32 - 21, pool.available());
+        }
+
+        assertEquals(32, pool.available());
+    }
+
+    @Test
+    public void testReadPoolDrySpillsToFile() throws IOException {
+        byte[] data = new byte[1024 * 1024];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 4);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, true, null))) {
+            assertReadsSame(data, stream);
+            assertEquals(0, pool.available());
+        }
+
+        assertEquals(4, pool.available());
+    }
+
+    @Test
+    public void testReadPoolDryNoCacheFile() throws IOException {
+        byte[] data = new byte[1024 * 1024];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 4);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, false, null))) {
+            assertReadsSame(data, stream);
+            assertEquals(0, pool.available());
+        }
+
+        // Blocks allocated outside the pool should not be added to the pool
+        assertEquals(4, pool.available());
+        BlockPool.Owner owner = pool.register(this);
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(pool.acquire(owner));
+        }
+        assertNull(pool.acquire(owner));
+    }
+
+    @Test
+    public void testReadEmptyPool() throws IOException {
+        byte[] data = new byte[PooledCache.BLOCK_SIZE * 3 + 1];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 0);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, true, null))) {
+            assertReadsSame(data, stream);
+        }
+    }
+
+    @Test
+    public void testSharedPool() throws IOException {
+        byte[] data = new byte[PooledCache.BLOCK_SIZE * 4];
+        byte[] other = new byte[PooledCache.BLOCK_SIZE * 4];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 6);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, true, null));
+             ImageInputStream otherStream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(other), pool, true, null))) {
+            assertReadsSame(data, stream);
+            assertReadsSame(other, otherStream);
+            assertEquals(0, pool.available());
+        }
+
+        assertEquals(6, pool.available());
+    }
+
+    @Test
+    public void testUnreachableCacheBlocksNotCounted() throws IOException, InterruptedException {
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 4);
+
+        // Never closed
+        readAndForget(pool, new byte[PooledCache.BLOCK_SIZE * 4]);
+
+        for (int i = 0; i < 100 && pool.available() < 4; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(4, pool.available());
+
+        byte[] data = new byte[PooledCache.BLOCK_SIZE * 4];
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, false, null))) {
+            assertReadsSame(data, stream);
+            assertEquals(0, pool.available());
+        }
+
+        assertEquals(4, pool.available());
+    }
+
+    private void readAndForget(final BlockPool pool, final byte[] data) throws IOException {
+        ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, false, null));
+        stream.readFully(new byte[data.length]);
+        assertEquals(0, pool.available());
+    }
+
+    @Test
+    public void testFlushBeforeReleasesBlocks() throws IOException {
+        byte[] data = new byte[PooledCache.BLOCK_SIZE * 8];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 8);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, true, null))) {
+            stream.readFully(new byte[PooledCache.BLOCK_SIZE * 4]);
+            assertEquals(4, pool.available());
+
+            stream.flushBefore(PooledCache.BLOCK_SIZE * 3 + 1);
+            assertEquals(7, pool.available());
+
+            // Reading from the current block and onwards should still work
+            stream.seek(PooledCache.BLOCK_SIZE * 3 + 1);
+            byte[] rest = new byte[data.length - PooledCache.BLOCK_SIZE * 3 - 1];
+            stream.readFully(rest);
+
+            for (int i = 0; i < rest.length; i++) {
+                assertEquals(data[PooledCache.BLOCK_SIZE * 3 + 1 + i], rest[i]);
+            }
+        }
+
+        assertEquals(8, pool.available());
+    }
+
+    @Test
+    public void testFlushBeforeReusesBlocks() throws IOException {
+        byte[] data = new byte[1024 * 1024];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 4);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, false, null))) {
+            byte[] row = new byte[1000];
+
+            for (int pos = 0; pos < data.length; pos += row.length) {
+                int length = Math.min(row.length, data.length - pos);
+
+                stream.readFully(row, 0, length);
+                for (int i = 0; i < length; i++) {
+                    assertEquals(data[pos + i], row[i]);
+                }
+
+                stream.flushBefore(stream.getStreamPosition());
+
+                // We never need more than the current and the next block
+                assertTrue(pool.available() >= 2);
+            }
+        }
+
+        assertEquals(4, pool.available());
+    }
+
+    @Test
+    public void testFlushBeforeReusesCacheFile() throws IOException {
+        byte[] data = new byte[1024 * 1024];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 0);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, true, null))) {
+            byte[] row = new byte[PooledCache.BLOCK_SIZE * 3 + 1];
+
+            for (int pos = 0; pos < data.length; pos += row.length) {
+                int length = Math.min(row.length, data.length - pos);
+
+                stream.readFully(row, 0, length);
+                for (int i = 0; i < length; i++) {
+                    assertEquals(data[pos + i], row[i]);
+                }
+
+                stream.flushBefore(stream.getStreamPosition());
+            }
+
+            assertEquals(-1, stream.read());
+            assertThrows(IndexOutOfBoundsException.class, () -> stream.seek(0));
+        }
+    }
+
+    @Test
+    public void testSeekPastEOF() throws IOException {
+        byte[] data = new byte[1000];
+        BlockPool pool = new BlockPool(PooledCache.BLOCK_SIZE, 8);
+
+        try (ImageInputStream stream = new BufferedChannelImageInputStream(new PooledCache(randomDataToChannel(data), pool, true, null))) {
+            stream.seek(Integer.MAX_VALUE * 2L);
+            assertEquals(-1, stream.read());
+
+            stream.seek(999);
+            assertEquals(data[999] & 0xff, stream.read());
+            assertEquals(-1, stream.read());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.stream;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SharedFileSourceTest
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: SharedFileSourceTest.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class SharedFileSourceTest {
+    private final Random random = new Random(170984354357234566L);
+
+    private File randomDataToFile(byte[] data) throws IOException {
+        random.nextBytes(data);
+
+        File file = File.createTempFile("read", ".tmp");
+        file.deleteOnExit();
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    @Test
+    public void testCreateNull() {
+        assertThrows(IllegalArgumentException.class, () -> new SharedFileSource((File) null));
+        assertThrows(IllegalArgumentException.class, () -> new SharedFileSource((FileChannel) null));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        byte[] data = new byte[1024 * 64];
+        File file = randomDataToFile(data);
+
+        try (SharedFileSource source = new SharedFileSource(file);
+             ImageInputStream stream = source.createInputStream()) {
+            assertEquals(data.length, source.length());
+            assertEquals(data.length, stream.length());
+
+            byte[] result = new byte[data.length];
+            stream.readFully(result);
+
+            assertArrayEquals(data, result);
+            assertEquals(-1, stream.read());
+        }
+    }
+
+    @Test
+    public void testViewsAreIndependent() throws IOException {
+        byte[] data = new byte[1024 * 64];
+        File file = randomDataToFile(data);
+
+        try (SharedFileSource source = new SharedFileSource(file);
+             ImageInputStream first = source.createInputStream();
+             ImageInputStream second = source.createInputStream()) {
+            first.seek(1000);
+            second.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+            second.seek(40000);
+
+            assertEquals(ByteBuffer.wrap(data, 1000, 4).getInt(), first.readInt());
+            assertEquals(ByteBuffer.wrap(data, 40000, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(), second.readInt());
+            assertEquals(data[1004], first.readByte());
+            assertEquals(data[40004], second.readByte());
+
+            assertEquals(1005, first.getStreamPosition());
+            assertEquals(40005, second.getStreamPosition());
+            assertEquals(ByteOrder.BIG_ENDIAN, first.getByteOrder());
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final byte[] data = new byte[1024 * 1024];
+        File file = randomDataToFile(data);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (final SharedFileSource source = new SharedFileSource(file)) {
+            List<Future<Void>> results = new ArrayList<>();
+
+            for (int t = 0; t < 8; t++) {
+                final long seed = t;
+
+                results.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+
+                    try (ImageInputStream stream = source.createInputStream()) {
+                        for (int i = 0; i < 500; i++) {
+                            int offset = random.nextInt(data.length - 20000);
+                            int length = random.nextInt(20000);
+                            byte[] result = new byte[length];
+
+                            stream.seek(offset);
+                            stream.readFully(result);
+
+                            for (int j = 0; j < length; j++) {
+                                assertEquals(data[offset + j], result[j]);
+                            }
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCloseViewDoesNotCloseSource() throws IOException {
+        byte[] data = new byte[1024];
+        File file = randomDataToFile(data);
+
+        try (SharedFileSource source = new SharedFileSource(file)) {
+            source.createInputStream().close();
+
+            try (ImageInputStream stream = source.createInputStream()) {
+                assertEquals(data[0] & 0xff, stream.read());
+            }
+        }
+    }
+
+    @Test
+    public void testCloseSourceFailsViews() throws IOException {
+        byte[] data = new byte[1024 * 64];
+        File file = randomDataToFile(data);
+
+        SharedFileSource source = new SharedFileSource(file);
+        ImageInputStream stream = source.createInputStream();
+        source.close();
+
+        assertThrows(IOException.class, () -> stream.readFully(new byte[100]));
+        assertThrows(IOException.class, source::createInputStream);
+    }
+
+    @Test
+    public void testCloseSourceDoesNotCloseChannel() throws IOException {
+        byte[] data = new byte[1024];
+        File file = randomDataToFile(data);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            new SharedFileSource(channel).close();
+
+            assertTrue(channel.isOpen());
+        }
+    }
+
+    @Test
+    public void testCloseSourceFailsViewsChannel() throws IOException {
+        byte[] data = new byte[1024 * 64];
+        File file = randomDataToFile(data);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            SharedFileSource source = new SharedFileSource(channel);
+            ImageInputStream stream = source.createInputStream();
+            assertEquals(data[0] & 0xff, stream.read());
+
+            source.close();
+
+            assertTrue(channel.isOpen());
+            assertThrows(IOException.class, () -> stream.readFully(new byte[data.length]));
+            assertThrows(IOException.class, source::createInputStream);
+            assertThrows(IOException.class, source::length);
+        }
+    }
+}
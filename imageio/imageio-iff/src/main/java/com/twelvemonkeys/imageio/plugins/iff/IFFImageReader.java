@@ -33,6 +33,7 @@ package com.twelvemonkeys.imageio.plugins.iff;
 import com.twelvemonkeys.image.ResampleOp;
 import com.twelvemonkeys.imageio.ImageReaderBase;
 import com.twelvemonkeys.imageio.color.ColorSpaces;
+import com.twelvemonkeys.imageio.color.ColorTransforms;
 import com.twelvemonkeys.imageio.util.IIOUtil;
 import com.twelvemonkeys.imageio.util.ImageTypeSpecifiers;
 import com.twelvemonkeys.io.enc.DecoderStream;
@@ -523,7 +524,7 @@ public final class IFFImageReader extends ImageReaderBase {
 
         Object dataElements = null;
         Object outDataElements = null;
-        ColorConvertOp converter = null;
+        RasterOp converter = null;
 
         for (int srcY = 0; srcY < height; srcY++) {
             for (int p = 0; p < planes; p++) {
@@ -593,7 +594,7 @@ public final class IFFImageReader extends ImageReaderBase {
                     // TODO: This branch is never tested, and is probably "dead"
                     // ColorConvertOp
                     if (converter == null) {
-                        converter = new ColorConvertOp(cm.getColorSpace(), destination.getColorModel().getColorSpace(), null);
+                        converter = ColorTransforms.createColorConvertOp(cm.getColorSpace(), destination.getColorModel().getColorSpace());
                     }
                     converter.filter(
                             rowRaster.createChild(aoi.x, 0, aoi.width, 1, 0, 0, null),
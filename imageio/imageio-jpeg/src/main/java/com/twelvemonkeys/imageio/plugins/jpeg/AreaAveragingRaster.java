@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.jpeg;
+
+import java.awt.*;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * A write-only raster that area-averages the rows written to it, into a smaller target raster.
+ * <p>
+ * The raster reports the full size of the source region, but is backed by a minimal
+ * data buffer. Rows must be written using {@link #setRect(int, int, Raster)}, in increasing order.
+ * Starting over from row {@code 0} (like a progressive JPEG decoder does for each pass) is allowed.
+ * Each {@code scale x scale} block of samples is averaged into a single target pixel,
+ * as soon as the last row of the block is written.
+ * Any other way of writing samples is detected by {@link #isComplete()} returning {@code false}.
+ * If target bands are given, only those bands of the target are written, the other bands are left untouched.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: AreaAveragingRaster.java,v 1.0 16/10/2026 haraldk Exp$
+ */
+final class AreaAveragingRaster extends WritableRaster {
+    private final WritableRaster target;
+    private final Point targetOffset;
+    private final int scale;
+
+    private final int scaledWidth;
+    private final int[] sums;
+    private final int[] row;
+    private final int[] averages;
+    private final int[] targetBands;
+    private final int[] selected;
+
+    private int nextRow;
+    private int rowsInBlock;
+    private int rowsDone;
+    private boolean invalid;
+
+    AreaAveragingRaster(final SampleModel sampleModel, final WritableRaster target, final Point targetOffset, final int scale) {
+        this(sampleModel, target, targetOffset, scale, null);
+    }
+
+    AreaAveragingRaster(final SampleModel sampleModel, final WritableRaster target, final Point targetOffset, final int scale, final int[] targetBands) {
+        // The data buffer is never written to, a buffer for a single pixel is enough
+        super(sampleModel, sampleModel.createCompatibleSampleModel(1, 1).createDataBuffer(), new Point());
+
+        // Writing to a child with only the target bands, leaves the other bands of the target untouched
+        this.target = targetBands == null
+                      ? target
+                      : target.createWritableChild(target.getMinX(), target.getMinY(), target.getWidth(), target.getHeight(),
+                                                   target.getMinX(), target.getMinY(), targetBands);
+        this.targetBands = targetBands;
+        this.targetOffset = targetOffset;
+        this.scale = scale;
+
+        scaledWidth = (width + scale - 1) / scale;
+        sums = new int[scaledWidth * numBands];
+        row = new int[width * numBands];
+        averages = new int[scaledWidth * numBands];
+        selected = targetBands != null ? new int[scaledWidth * targetBands.length] : null;
+    }
+
+    /**
+     * Returns {@code true} if all rows were written in the expected order, and so all target rows are written.
+     *
+     * @return {@code true} if the target raster is completely written.
+     */
+    boolean isComplete() {
+        return !invalid && rowsDone == height;
+    }
+
+    /**
+     * Resets the state, allowing the rows to be written again, after a failed attempt.
+     */
+    void reset() {
+        nextRow = 0;
+        rowsInBlock = 0;
+        rowsDone = 0;
+        invalid = false;
+    }
+
+    @Override
+    public void setRect(final int dx, final int dy, final Raster source) {
+        int x = dx + source.getMinX();
+        int y = dy + source.getMinY();
+
+        if (invalid || x != minX || source.getWidth() != width || source.getNumBands() != numBands) {
+            invalid = true;
+            return;
+        }
+
+        for (int r = 0; r < source.getHeight(); r++) {
+            int rowY = y + r;
+
+            if (rowY == 0) {
+                // Start over, a progressive decoder rewrites all rows for every pass
+                nextRow = 0;
+                rowsInBlock = 0;
+                rowsDone = 0;
+            }
+            else if (rowY != nextRow) {
+                invalid = true;
+                return;
+            }
+
+            source.getPixels(source.getMinX(), source.getMinY() + r, width, 1, row);
+            accumulate();
+
+            nextRow = rowY + 1;
+
+            if (rowsInBlock == scale || nextRow == height) {
+                writeBlock(rowY / scale);
+                rowsDone = nextRow;
+            }
+        }
+    }
+
+    private void accumulate() {
+        if (rowsInBlock == 0) {
+            Arrays.fill(sums, 0);
+        }
+
+        for (int x = 0, col = 0; x < width; col++) {
+            int end = Math.min(x + scale, width);
+
+            for (; x < end; x++) {
+                for (int b = 0; b < numBands; b++) {
+                    sums[col * numBands + b] += row[x * numBands + b];
+                }
+            }
+        }
+
+        rowsInBlock++;
+    }
+
+    private void writeBlock(final int scaledRow) {
+        for (int col = 0; col < scaledWidth; col++) {
+            int count = rowsInBlock * (Math.min((col + 1) * scale, width) - col * scale);
+            int half = count / 2;
+
+            for (int b = 0; b < numBands; b++) {
+                int index = col * numBands + b;
+                averages[index] = (sums[index] + half) / count;
+            }
+        }
+
+        rowsInBlock = 0;
+
+        writeRow(scaledRow);
+    }
+
+    private void writeRow(final int scaledRow) {
+        int targetY = targetOffset.y + scaledRow;
+
+        if (targetY < target.getMinY() || targetY >= target.getMinY() + target.getHeight()) {
+            return;
+        }
+
+        // Clip horizontally, to allow negative destination offsets and smaller destinations
+        int fromCol = Math.max(0, target.getMinX() - targetOffset.x);
+        int toCol = Math.min(scaledWidth, target.getMinX() + target.getWidth() - targetOffset.x);
+
+        if (fromCol >= toCol) {
+            return;
+        }
+
+        if (targetBands != null) {
+            for (int col = fromCol, i = 0; col < toCol; col++) {
+                for (int band : targetBands) {
+                    selected[i++] = averages[col * numBands + band];
+                }
+            }
+
+            target.setPixels(targetOffset.x + fromCol, targetY, toCol - fromCol, 1, selected);
+        }
+        else if (fromCol == 0) {
+            target.setPixels(targetOffset.x, targetY, toCol, 1, averages);
+        }
+        else {
+            target.setPixels(targetOffset.x + fromCol, targetY, toCol - fromCol, 1,
+                    Arrays.copyOfRange(averages, fromCol * numBands, toCol * numBands));
+        }
+    }
+}
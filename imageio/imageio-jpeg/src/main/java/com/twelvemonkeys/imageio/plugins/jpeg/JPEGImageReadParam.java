@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.jpeg;
+
+/**
+ * {@code ImageReadParam} for the JPEG plugin, adding decode-time scaling.
+ * <p>
+ * Setting a scale denominator of 2, 4 or 8 makes the reader produce an image
+ * {@code 1/denominator} the size of the source region (rounded up), in the same way
+ * as libjpeg's {@code scale_denom}.
+ * Each destination pixel is the average of the corresponding
+ * {@code denominator x denominator} block of source pixels.
+ * Where possible, the blocks are averaged as the scanlines are decoded,
+ * so the full size image is never allocated.
+ * </p>
+ * <p>
+ * A scale denominator other than {@code 1} can not be combined with source subsampling.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: JPEGImageReadParam.java,v 1.0 16/10/2026 haraldk Exp$
+ */
+public final class JPEGImageReadParam extends javax.imageio.plugins.jpeg.JPEGImageReadParam {
+    private int scaleDenominator = 1;
+
+    /**
+     * Sets the scale denominator.
+     *
+     * @param scaleDenominator the scale denominator, one of {@code 1, 2, 4} or {@code 8}.
+     * @throws IllegalArgumentException if {@code scaleDenominator} is not one of the allowed values.
+     */
+    public void setScaleDenominator(final int scaleDenominator) {
+        switch (scaleDenominator) {
+            case 1:
+            case 2:
+            case 4:
+            case 8:
+                this.scaleDenominator = scaleDenominator;
+                break;
+            default:
+                throw new IllegalArgumentException("scaleDenominator must be 1, 2, 4 or 8: " + scaleDenominator);
+        }
+    }
+
+    /**
+     * Returns the scale denominator.
+     *
+     * @return the scale denominator, {@code 1} means no scaling.
+     */
+    public int getScaleDenominator() {
+        return scaleDenominator;
+    }
+}
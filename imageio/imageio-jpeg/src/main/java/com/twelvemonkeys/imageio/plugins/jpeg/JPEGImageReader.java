@@ -33,6 +33,7 @@ package com.twelvemonkeys.imageio.plugins.jpeg;
 import com.twelvemonkeys.imageio.ImageReaderBase;
 import com.twelvemonkeys.imageio.color.ColorProfiles;
 import com.twelvemonkeys.imageio.color.ColorSpaces;
+import com.twelvemonkeys.imageio.color.ColorTransforms;
 import com.twelvemonkeys.imageio.color.YCbCrConverter;
 import com.twelvemonkeys.imageio.metadata.CompoundDirectory;
 import com.twelvemonkeys.imageio.metadata.jpeg.JPEG;
@@ -105,6 +106,8 @@ public final class JPEGImageReader extends ImageReaderBase {
 
     final static boolean DEBUG = "true".equalsIgnoreCase(System.getProperty("com.twelvemonkeys.imageio.plugins.jpeg.debug"));
     final static boolean FORCE_RASTER_CONVERSION = "force".equalsIgnoreCase(System.getProperty("com.twelvemonkeys.imageio.plugins.jpeg.raster"));
+    /** Rasters larger than this (in bytes) are read and converted in stripes, to limit peak memory */
+    final static int MAX_RASTER_BYTES = Math.max(1, Integer.getInteger("com.twelvemonkeys.imageio.plugins.jpeg.maxRasterBytes", 64 * 1024 * 1024));
 
     /** Internal constant for referring all APP segments */
     static final int ALL_APP_MARKERS = -1;
@@ -125,6 +128,13 @@ public final class JPEGImageReader extends ImageReaderBase {
     private int currentStreamIndex = 0;
     private final List<Long> streamOffsets = new ArrayList<>();
 
+    /** Rasters larger than this (in bytes) are read in stripes, package access for testing */
+    int maxRasterBytes = MAX_RASTER_BYTES;
+
+    /** The current stripe and number of stripes, when reading in stripes (stripe is -1 otherwise) */
+    private int stripe = -1;
+    private int stripes;
+
     JPEGImageReader(final ImageReaderSpi provider, final ImageReader delegate) {
         super(provider);
 
@@ -292,6 +302,81 @@ public final class JPEGImageReader extends ImageReaderBase {
         checkBounds(imageIndex);
         initHeader(imageIndex);
 
+        int scale = param instanceof JPEGImageReadParam ? ((JPEGImageReadParam) param).getScaleDenominator() : 1;
+        if (scale > 1) {
+            return readScaled(imageIndex, (JPEGImageReadParam) param, scale);
+        }
+
+        return readImage(imageIndex, param, null);
+    }
+
+    private BufferedImage readScaled(final int imageIndex, final JPEGImageReadParam param, final int scale) throws IOException {
+        // NOTE: The delegate does not expose libjpeg's DCT scaling, so instead we area-average the decoded scanlines
+        if (param.getSourceXSubsampling() != 1 || param.getSourceYSubsampling() != 1) {
+            throw new IllegalArgumentException("Source subsampling can not be combined with scale denominator: " + scale);
+        }
+
+        Rectangle sourceRegion = getSourceRegion(param, getWidth(imageIndex), getHeight(imageIndex));
+        int scaledWidth = (sourceRegion.width + scale - 1) / scale;
+        int scaledHeight = (sourceRegion.height + scale - 1) / scale;
+
+        // The destination has the scaled size, so we can't use the source region here
+        ImageReadParam destinationParam = new ImageReadParam();
+        destinationParam.setDestinationType(param.getDestinationType());
+        destinationParam.setDestination(param.getDestination()); // NOTE: Must be set after type, as setting type clears destination
+        destinationParam.setDestinationOffset(param.getDestinationOffset());
+
+        BufferedImage destination = getDestination(destinationParam, getImageTypes(imageIndex), scaledWidth, scaledHeight);
+        WritableRaster raster = destination.getRaster();
+
+        AreaAveragingRaster averaging = new AreaAveragingRaster(
+                raster.getSampleModel().createCompatibleSampleModel(sourceRegion.width, sourceRegion.height),
+                raster, param.getDestinationOffset(), scale, param.getDestinationBands()
+        );
+        // With destination bands, the decoded rows only hold the selected bands, so we need to go through the full size image
+        BufferedImage sink = param.getDestinationBands() == null
+                             ? new BufferedImage(destination.getColorModel(), averaging, destination.isAlphaPremultiplied(), null)
+                             : null;
+
+        JPEGImageReadParam unscaledParam = new JPEGImageReadParam();
+        unscaledParam.setSourceRegion(sourceRegion);
+        unscaledParam.setSourceBands(param.getSourceBands());
+        unscaledParam.setDestinationBands(param.getDestinationBands());
+        unscaledParam.setDestinationType(param.getDestinationType());
+        unscaledParam.setSourceProgressivePasses(param.getSourceMinProgressivePass(), param.getSourceNumProgressivePasses());
+
+        if (param.areTablesSet()) {
+            unscaledParam.setDecodeTables(param.getQTables(), param.getDCHuffmanTables(), param.getACHuffmanTables());
+        }
+
+        BufferedImage image = readImage(imageIndex, unscaledParam, sink);
+
+        if (image != null) {
+            // The image could not be decoded directly into the sink, average the full size image instead
+            Raster source = image.getRaster();
+
+            if (source.getWidth() != sourceRegion.width || source.getHeight() != sourceRegion.height) {
+                // The lossless decoder does not (yet) support source region
+                source = source.createChild(sourceRegion.x, sourceRegion.y, sourceRegion.width, sourceRegion.height, 0, 0, null);
+            }
+
+            averaging.reset();
+            averaging.setRect(source);
+
+            if (!averaging.isComplete()) {
+                throw new IIOException("Could not scale image to destination: " + destination);
+            }
+        }
+
+        return destination;
+    }
+
+    /**
+     * Reads the image.
+     * If {@code sink} is not {@code null}, the delegate will try to decode directly into it, and
+     * {@code null} is returned on success. Otherwise, the full size image is returned.
+     */
+    private BufferedImage readImage(int imageIndex, ImageReadParam param, BufferedImage sink) throws IOException {
         Frame sof = getSOF();
         ICC_Profile profile = getEmbeddedICCProfile(false);
         AdobeDCT adobeDCT = getAdobeDCT();
@@ -345,13 +430,34 @@ public final class JPEGImageReader extends ImageReaderBase {
                 System.out.println("ICC color profile: " + profile);
             }
 
-            return readImageAsRasterAndReplaceColorProfile(imageIndex, param, sof, sourceCSType, profile);
+            BufferedImage image = readImageAsRasterAndReplaceColorProfile(imageIndex, param, sof, sourceCSType, profile, sink);
+
+            return sink != null && ((AreaAveragingRaster) sink.getRaster()).isComplete() ? null : image;
         }
 
         if (DEBUG) {
             System.out.println("Reading using delegate");
         }
 
+        if (sink != null) {
+            param.setDestination(sink);
+
+            try {
+                delegate.read(0, param);
+            }
+            finally {
+                param.setDestination(null);
+            }
+
+            if (((AreaAveragingRaster) sink.getRaster()).isComplete()) {
+                return null;
+            }
+
+            if (DEBUG) {
+                System.out.println("Incomplete scaled read, reading full image");
+            }
+        }
+
         return delegate.read(0, param);
     }
 
@@ -405,7 +511,7 @@ public final class JPEGImageReader extends ImageReaderBase {
         }
     }
 
-    private BufferedImage readImageAsRasterAndReplaceColorProfile(int imageIndex, ImageReadParam param, Frame startOfFrame, JPEGColorSpace csType, ICC_Profile profile) throws IOException {
+    private BufferedImage readImageAsRasterAndReplaceColorProfile(int imageIndex, ImageReadParam param, Frame startOfFrame, JPEGColorSpace csType, ICC_Profile profile, BufferedImage sink) throws IOException {
         int origWidth = getWidth(imageIndex);
         int origHeight = getHeight(imageIndex);
 
@@ -414,7 +520,8 @@ public final class JPEGImageReader extends ImageReaderBase {
         // If YCbCr or RGB, we could instead create a BufferedImage around the converted raster directly.
         // If YCCK or CMYK, we could instead create a BufferedImage around the converted raster,
         // leaving the fourth band as alpha (or pretend it's not there, by creating a child raster).
-        BufferedImage image = getDestination(param, imageTypes, origWidth, origHeight);
+        // If scaling, each stripe is converted to a temporary raster, and written to the sink instead
+        BufferedImage image = sink != null ? sink : getDestination(param, imageTypes, origWidth, origHeight);
         WritableRaster destination = image.getRaster();
 
         // TODO: checkReadParamBandSettings(param, );
@@ -441,7 +548,7 @@ public final class JPEGImageReader extends ImageReaderBase {
                 ));
 
                 if (csType == JPEGColorSpace.CMYK && image.getColorModel().getColorSpace().getType() != ColorSpace.TYPE_CMYK) {
-                    convert = new ColorConvertOp(ColorSpaces.getColorSpace(ColorSpaces.CS_GENERIC_CMYK), image.getColorModel().getColorSpace(), null);
+                    convert = ColorTransforms.createFastColorConvertOp(ColorSpaces.getColorSpace(ColorSpaces.CS_GENERIC_CMYK), image.getColorModel().getColorSpace());
                 }
             }
             // NOTE: Avoid using CCOp if same color space, as it's more compatible that way
@@ -450,7 +557,7 @@ public final class JPEGImageReader extends ImageReaderBase {
                     System.err.println("Converting from " + intendedCS + " to " + (image.getColorModel().getColorSpace().isCS_sRGB() ? "sRGB" : image.getColorModel().getColorSpace()));
                 }
 
-                convert = new ColorConvertOp(intendedCS, image.getColorModel().getColorSpace(), null);
+                convert = ColorTransforms.createFastColorConvertOp(intendedCS, image.getColorModel().getColorSpace());
             }
             // Else, pass through with no conversion
         }
@@ -462,7 +569,7 @@ public final class JPEGImageReader extends ImageReaderBase {
 
                 // NOTE: Avoid using CCOp if same color space, as it's more compatible that way
                 if (cmykCS != image.getColorModel().getColorSpace()) {
-                    convert = new ColorConvertOp(cmykCS, image.getColorModel().getColorSpace(), null);
+                    convert = ColorTransforms.createFastColorConvertOp(cmykCS, image.getColorModel().getColorSpace());
                 }
             }
             else {
@@ -491,48 +598,92 @@ public final class JPEGImageReader extends ImageReaderBase {
         srcRegion.width += gridX;
         srcRegion.height += gridY;
 
-        // Unfortunately, reading the image in steps, is increasingly slower
-        // for each iteration, so we'll read all at once.
+        // Unfortunately, reading the image in steps is increasingly slower for each iteration, as the delegate
+        // decodes (and discards) all rows above the source region. So we'll read all at once, unless the raster
+        // is so large that peak memory is a bigger concern than decoding time.
+        int periodY = param.getSourceYSubsampling();
+        int stripeHeight = getStripeHeight(dstRegion.width, dstRegion.height, startOfFrame.componentsInFrame(), maxRasterBytes);
+
+        WritableRaster stripeRaster = null;
+
         try {
-            param.setSourceRegion(srcRegion);
-            Raster raster = delegate.readRaster(0, param); // non-converted
+            stripes = (dstRegion.height + stripeHeight - 1) / stripeHeight;
+            clearAbortRequest();
 
-            // Apply source color conversion from implicit color space
-            if (csType == JPEGColorSpace.YCbCr) {
-                convertYCbCr2RGB(raster, 3);
-            }
-            else if (csType == JPEGColorSpace.YCbCrA) {
-                convertYCbCr2RGB(raster, 4);
-            }
-            else if (csType == JPEGColorSpace.YCCK) {
-                // TODO: Need to rethink this (non-) inversion, see #147
-                // TODO: Allow param to specify inversion, or possibly the PDF decode array
-                // flag0 bit 15, blend = 1 see http://graphicdesign.stackexchange.com/questions/12894/cmyk-jpegs-extracted-from-pdf-appear-inverted
-                convertYCCK2CMYK(raster);
-            }
-            else if (csType == JPEGColorSpace.CMYK) {
-                invertCMYK(raster);
-            }
-            // ...else assume the raster is already converted
+            for (int y = 0; y < dstRegion.height; y += stripeHeight) {
+                int rows = Math.min(stripeHeight, dstRegion.height - y);
+                int stripeY = y * periodY;
 
-            WritableRaster dest = destination.createWritableChild(dstRegion.x, dstRegion.y, raster.getWidth(), raster.getHeight(), 0, 0, param.getDestinationBands());
+                stripe = stripes > 1 ? y / stripeHeight : -1;
+                param.setSourceRegion(new Rectangle(srcRegion.x, srcRegion.y + stripeY, srcRegion.width,
+                        Math.min(gridY + (rows - 1) * periodY + 1, srcRegion.height - stripeY)));
 
-            // Apply further color conversion for explicit color space, or just copy the pixels into place
-            if (convert != null) {
-                convert.filter(raster, dest);
-            }
-            else {
-                dest.setRect(0, 0, raster);
+                Raster raster = delegate.readRaster(0, param); // non-converted
+
+                if (abortRequested()) {
+                    break;
+                }
+
+                // Apply source color conversion from implicit color space
+                if (csType == JPEGColorSpace.YCbCr) {
+                    convertYCbCr2RGB(raster, 3);
+                }
+                else if (csType == JPEGColorSpace.YCbCrA) {
+                    convertYCbCr2RGB(raster, 4);
+                }
+                else if (csType == JPEGColorSpace.YCCK) {
+                    // TODO: Need to rethink this (non-) inversion, see #147
+                    // TODO: Allow param to specify inversion, or possibly the PDF decode array
+                    // flag0 bit 15, blend = 1 see http://graphicdesign.stackexchange.com/questions/12894/cmyk-jpegs-extracted-from-pdf-appear-inverted
+                    convertYCCK2CMYK(raster);
+                }
+                else if (csType == JPEGColorSpace.CMYK) {
+                    invertCMYK(raster);
+                }
+                // ...else assume the raster is already converted
+
+                WritableRaster dest;
+
+                if (sink != null) {
+                    // The sink has no pixel storage, so we need to convert into a temporary raster
+                    if (stripeRaster == null || stripeRaster.getHeight() != raster.getHeight()) {
+                        stripeRaster = destination.createCompatibleWritableRaster(raster.getWidth(), raster.getHeight());
+                    }
+
+                    dest = stripeRaster.createWritableChild(0, 0, raster.getWidth(), raster.getHeight(), 0, 0, param.getDestinationBands());
+                }
+                else {
+                    dest = destination.createWritableChild(dstRegion.x, dstRegion.y + y, raster.getWidth(), raster.getHeight(), 0, 0, param.getDestinationBands());
+                }
+
+                // Apply further color conversion for explicit color space, or just copy the pixels into place
+                if (convert != null) {
+                    convert.filter(raster, dest);
+                }
+                else {
+                    dest.setRect(0, 0, raster);
+                }
+
+                if (sink != null) {
+                    destination.setRect(dstRegion.x, dstRegion.y + y, stripeRaster);
+                }
             }
         }
         finally {
             // NOTE: Would be cleaner to clone the param, unfortunately it can't be done easily...
             param.setSourceRegion(origSourceRegion);
+            stripe = -1;
         }
 
         return image;
     }
 
+    static int getStripeHeight(final int width, final int height, final int components, final int maxRasterBytes) {
+        long rowBytes = (long) width * components;
+
+        return (int) Math.max(1, Math.min(height, maxRasterBytes / rowBytes));
+    }
+
     static JPEGColorSpace getSourceCSType(final JFIF jfif, final AdobeDCT adobeDCT, final Frame startOfFrame) throws IIOException {
         // Adapted from libjpeg jdapimin.c:
         // Guess the input colorspace
@@ -1065,7 +1216,7 @@ public final class JPEGImageReader extends ImageReaderBase {
 
     @Override
     public ImageReadParam getDefaultReadParam() {
-        return delegate.getDefaultReadParam();
+        return new JPEGImageReadParam();
     }
 
     @Override
@@ -1224,16 +1375,29 @@ public final class JPEGImageReader extends ImageReaderBase {
 
         @Override
         public void imageComplete(ImageReader source) {
+            if (stripe >= 0 && stripe < stripes - 1) {
+                return;
+            }
+
             processImageComplete();
         }
 
         @Override
         public void imageProgress(ImageReader source, float percentageDone) {
+            if (stripe >= 0) {
+                // Report progress for the image as a whole, not for the current stripe
+                percentageDone = (stripe * 100f + percentageDone) / stripes;
+            }
+
             processImageProgress(percentageDone);
         }
 
         @Override
         public void imageStarted(ImageReader source, int imageIndex) {
+            if (stripe > 0) {
+                return;
+            }
+
             processImageStarted(currentStreamIndex);
         }
 
@@ -1268,17 +1432,34 @@ public final class JPEGImageReader extends ImageReaderBase {
         }
 
         public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
+            if (isScaling(theImage)) {
+                return;
+            }
+
             processPassStarted(theImage, pass, minPass, maxPass, minX, minY, periodX, periodY, bands);
         }
 
         public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width, int height, int periodX, int periodY, int[] bands) {
+            if (isScaling(theImage)) {
+                return;
+            }
+
             processImageUpdate(theImage, minX, minY, width, height, periodX, periodY, bands);
         }
 
         public void passComplete(ImageReader source, BufferedImage theImage) {
+            if (isScaling(theImage)) {
+                return;
+            }
+
             processPassComplete(theImage);
         }
 
+        private boolean isScaling(final BufferedImage theImage) {
+            // The scaling sink holds no pixel data, there's nothing useful to report to listeners
+            return theImage != null && theImage.getRaster() instanceof AreaAveragingRaster;
+        }
+
         public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass, int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
             processThumbnailPassStarted(theThumbnail, pass, minPass, maxPass, minX, minY, periodX, periodY, bands);
         }
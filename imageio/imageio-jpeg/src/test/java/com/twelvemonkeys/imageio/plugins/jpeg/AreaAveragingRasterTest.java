@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.jpeg;
+
+import java.awt.*;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AreaAveragingRasterTest {
+    private static WritableRaster createSource(final int width, final int height) {
+        WritableRaster source = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, width, height, 3, null);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                source.setPixel(x, y, new int[] {x * 10, y * 10, 200});
+            }
+        }
+
+        return source;
+    }
+
+    @Test
+    public void testAverage() {
+        WritableRaster source = createSource(4, 4);
+        WritableRaster target = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 2, 2, 3, null);
+
+        AreaAveragingRaster averaging = new AreaAveragingRaster(source.getSampleModel(), target, new Point(), 2);
+        averaging.setRect(source);
+
+        assertTrue(averaging.isComplete());
+        assertArrayEquals(new int[] {5, 5, 200}, target.getPixel(0, 0, (int[]) null));
+        assertArrayEquals(new int[] {25, 5, 200}, target.getPixel(1, 0, (int[]) null));
+        assertArrayEquals(new int[] {5, 25, 200}, target.getPixel(0, 1, (int[]) null));
+        assertArrayEquals(new int[] {25, 25, 200}, target.getPixel(1, 1, (int[]) null));
+    }
+
+    @Test
+    public void testAverageTargetBands() {
+        WritableRaster source = createSource(4, 4);
+        WritableRaster target = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 2, 2, 3, null);
+
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 2; x++) {
+                target.setPixel(x, y, new int[] {127, 127, 127});
+            }
+        }
+
+        // Only the selected bands should be written, the other bands must be left untouched
+        AreaAveragingRaster averaging = new AreaAveragingRaster(source.getSampleModel(), target, new Point(), 2, new int[] {0, 2});
+        averaging.setRect(source);
+
+        assertTrue(averaging.isComplete());
+        assertArrayEquals(new int[] {5, 127, 200}, target.getPixel(0, 0, (int[]) null));
+        assertArrayEquals(new int[] {25, 127, 200}, target.getPixel(1, 0, (int[]) null));
+        assertArrayEquals(new int[] {5, 127, 200}, target.getPixel(0, 1, (int[]) null));
+        assertArrayEquals(new int[] {25, 127, 200}, target.getPixel(1, 1, (int[]) null));
+    }
+
+    @Test
+    public void testAverageTargetBandsClipped() {
+        WritableRaster source = createSource(6, 2);
+        WritableRaster target = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 2, 1, 3, null);
+
+        for (int x = 0; x < 2; x++) {
+            target.setPixel(x, 0, new int[] {127, 127, 127});
+        }
+
+        // Negative offset, the first target column is clipped
+        AreaAveragingRaster averaging = new AreaAveragingRaster(source.getSampleModel(), target, new Point(-1, 0), 2, new int[] {1});
+        averaging.setRect(source);
+
+        assertTrue(averaging.isComplete());
+        assertArrayEquals(new int[] {127, 5, 127}, target.getPixel(0, 0, (int[]) null));
+        assertArrayEquals(new int[] {127, 5, 127}, target.getPixel(1, 0, (int[]) null));
+    }
+
+    @Test
+    public void testRowsOutOfOrderNotComplete() {
+        WritableRaster source = createSource(4, 4);
+        WritableRaster target = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 2, 2, 3, null);
+
+        AreaAveragingRaster averaging = new AreaAveragingRaster(source.getSampleModel(), target, new Point(), 2);
+        averaging.setRect(0, 0, source.createChild(0, 2, 4, 2, 0, 2, null));
+
+        assertFalse(averaging.isComplete());
+    }
+}
@@ -41,6 +41,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import javax.imageio.*;
+import javax.imageio.event.IIOReadProgressListener;
 import javax.imageio.event.IIOReadWarningListener;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.metadata.IIOMetadataFormatImpl;
@@ -159,6 +160,283 @@ public class JPEGImageReaderTest extends ImageReaderAbstractTest<JPEGImageReader
         return Collections.singletonList("image/jpeg");
     }
 
+    @Test
+    public void testDefaultReadParamScaleDenominator() throws IOException {
+        JPEGImageReader reader = createReader();
+
+        try {
+            ImageReadParam param = reader.getDefaultReadParam();
+            assertInstanceOf(JPEGImageReadParam.class, param);
+            assertEquals(1, ((JPEGImageReadParam) param).getScaleDenominator());
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testSetScaleDenominatorIllegal() {
+        JPEGImageReadParam param = new JPEGImageReadParam();
+
+        for (int scale : new int[] {-1, 0, 3, 5, 16}) {
+            assertThrows(IllegalArgumentException.class, () -> param.setScaleDenominator(scale));
+        }
+
+        assertEquals(1, param.getScaleDenominator());
+    }
+
+    @Test
+    public void testReadScaled() throws IOException {
+        String[] resources = {
+                "/jpeg/jfif-jfxx-thumbnail-olympus-d320l.jpg", // Delegate
+                "/jpeg/gray-sample.jpg", // Delegate, gray
+                "/jpeg/jfif-exif-xmp-adobe-progressive-negative-component-count.jpg", // Delegate, progressive
+                "/jpeg/cmyk-sample.jpg", // Raster conversion
+                "/jpeg-lossless/8_ls.jpg" // Lossless
+        };
+
+        for (String resource : resources) {
+            for (int scale : new int[] {2, 4, 8}) {
+                assertReadScaled(resource, scale, null);
+            }
+        }
+    }
+
+    @Test
+    public void testReadScaledSourceRegion() throws IOException {
+        assertReadScaled("/jpeg/jfif-jfxx-thumbnail-olympus-d320l.jpg", 4, new Rectangle(13, 17, 211, 101));
+        assertReadScaled("/jpeg/cmyk-sample.jpg", 2, new Rectangle(7, 9, 100, 75));
+    }
+
+    private void assertReadScaled(final String resource, final int scale, final Rectangle sourceRegion) throws IOException {
+        BufferedImage full = readScaled(resource, 1, sourceRegion);
+        BufferedImage scaled = readScaled(resource, scale, sourceRegion);
+
+        String message = String.format("%s, 1/%d", resource, scale);
+        assertEquals((full.getWidth() + scale - 1) / scale, scaled.getWidth(), message);
+        assertEquals((full.getHeight() + scale - 1) / scale, scaled.getHeight(), message);
+        assertEquals(full.getColorModel(), scaled.getColorModel(), message);
+
+        int bands = full.getRaster().getNumBands();
+        int[] block = new int[scale * scale * bands];
+        int[] pixel = new int[bands];
+
+        for (int y = 0; y < scaled.getHeight(); y++) {
+            for (int x = 0; x < scaled.getWidth(); x++) {
+                int w = Math.min(scale, full.getWidth() - x * scale);
+                int h = Math.min(scale, full.getHeight() - y * scale);
+                full.getRaster().getPixels(x * scale, y * scale, w, h, block);
+                scaled.getRaster().getPixel(x, y, pixel);
+
+                for (int b = 0; b < bands; b++) {
+                    int sum = 0;
+                    for (int i = 0; i < w * h; i++) {
+                        sum += block[i * bands + b];
+                    }
+
+                    assertEquals((sum + w * h / 2) / (w * h), pixel[b], String.format("%s: [%d, %d, %d]", message, x, y, b));
+                }
+            }
+        }
+    }
+
+    private BufferedImage readScaled(final String resource, final int scale, final Rectangle sourceRegion) throws IOException {
+        JPEGImageReader reader = createReader();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource(resource))) {
+            reader.setInput(stream);
+
+            JPEGImageReadParam param = (JPEGImageReadParam) reader.getDefaultReadParam();
+            param.setSourceRegion(sourceRegion);
+            param.setScaleDenominator(scale);
+
+            return reader.read(0, param);
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testReadScaledDestinationOffset() throws IOException {
+        JPEGImageReader reader = createReader();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/jpeg/jfif-jfxx-thumbnail-olympus-d320l.jpg"))) {
+            reader.setInput(stream);
+
+            JPEGImageReadParam param = (JPEGImageReadParam) reader.getDefaultReadParam();
+            param.setScaleDenominator(8);
+            BufferedImage expected = reader.read(0, param);
+
+            BufferedImage destination = new BufferedImage(expected.getWidth() + 10, expected.getHeight() + 5, BufferedImage.TYPE_3BYTE_BGR);
+            param.setDestination(destination);
+            param.setDestinationOffset(new Point(10, 5));
+
+            BufferedImage image = reader.read(0, param);
+            assertSame(destination, image);
+
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    assertRGBEquals(expected.getRGB(x, y), image.getRGB(x + 10, y + 5));
+                }
+            }
+
+            assertRGBEquals(0xff000000, image.getRGB(9, 4));
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testReadScaledDestinationBands() throws IOException {
+        String[] resources = {
+                "/jpeg/jfif-jfxx-thumbnail-olympus-d320l.jpg", // Delegate
+                "/jpeg/cmyk-sample.jpg", // Raster conversion
+        };
+
+        for (String resource : resources) {
+            BufferedImage full = readReversedBands(resource, 1);
+            BufferedImage scaled = readReversedBands(resource, 4);
+
+            assertEquals((full.getWidth() + 3) / 4, scaled.getWidth(), resource);
+            assertEquals((full.getHeight() + 3) / 4, scaled.getHeight(), resource);
+
+            int[] block = new int[4 * 4 * 3];
+            int[] pixel = new int[3];
+
+            for (int y = 0; y < scaled.getHeight(); y++) {
+                for (int x = 0; x < scaled.getWidth(); x++) {
+                    int w = Math.min(4, full.getWidth() - x * 4);
+                    int h = Math.min(4, full.getHeight() - y * 4);
+                    full.getRaster().getPixels(x * 4, y * 4, w, h, block);
+                    scaled.getRaster().getPixel(x, y, pixel);
+
+                    for (int b = 0; b < 3; b++) {
+                        int sum = 0;
+                        for (int i = 0; i < w * h; i++) {
+                            sum += block[i * 3 + b];
+                        }
+
+                        assertEquals((sum + w * h / 2) / (w * h), pixel[b], String.format("%s: [%d, %d, %d]", resource, x, y, b));
+                    }
+                }
+            }
+        }
+    }
+
+    private BufferedImage readReversedBands(final String resource, final int scale) throws IOException {
+        JPEGImageReader reader = createReader();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource(resource))) {
+            reader.setInput(stream);
+
+            JPEGImageReadParam param = (JPEGImageReadParam) reader.getDefaultReadParam();
+            param.setDestinationBands(new int[] {2, 1, 0});
+            param.setScaleDenominator(scale);
+
+            return reader.read(0, param);
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testReadScaledWithSubsamplingIllegal() throws IOException {
+        JPEGImageReader reader = createReader();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/jpeg/gray-sample.jpg"))) {
+            reader.setInput(stream);
+
+            JPEGImageReadParam param = (JPEGImageReadParam) reader.getDefaultReadParam();
+            param.setScaleDenominator(2);
+            param.setSourceSubsampling(2, 2, 0, 0);
+
+            assertThrows(IllegalArgumentException.class, () -> reader.read(0, param));
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testReadStriped() throws IOException {
+        String[] resources = {
+                "/jpeg/cmyk-sample.jpg", // CMYK, ICC profile
+                "/jpeg/cmyk-sample-no-icc.jpg", // CMYK, no ICC profile
+        };
+
+        for (String resource : resources) {
+            assertReadStriped(resource, null, 1, 1, 0, 0, 1);
+            assertReadStriped(resource, new Rectangle(11, 7, 203, 149), 1, 1, 0, 0, 1);
+            assertReadStriped(resource, new Rectangle(11, 7, 203, 149), 3, 2, 1, 1, 1);
+            assertReadStriped(resource, new Rectangle(11, 7, 203, 149), 1, 1, 0, 0, 4);
+        }
+    }
+
+    private void assertReadStriped(final String resource, final Rectangle sourceRegion,
+                                   final int xSub, final int ySub, final int xOff, final int yOff, final int scale) throws IOException {
+        BufferedImage expected = readStriped(resource, sourceRegion, xSub, ySub, xOff, yOff, scale, JPEGImageReader.MAX_RASTER_BYTES);
+        BufferedImage actual = readStriped(resource, sourceRegion, xSub, ySub, xOff, yOff, scale, 4096);
+
+        String message = String.format("%s: %s, %dx%d subsampling, 1/%d", resource, sourceRegion, xSub, ySub, scale);
+        assertEquals(expected.getWidth(), actual.getWidth(), message);
+        assertEquals(expected.getHeight(), actual.getHeight(), message);
+        assertArrayEquals(expected.getRaster().getPixels(0, 0, expected.getWidth(), expected.getHeight(), (int[]) null),
+                actual.getRaster().getPixels(0, 0, actual.getWidth(), actual.getHeight(), (int[]) null), message);
+    }
+
+    private BufferedImage readStriped(final String resource, final Rectangle sourceRegion,
+                                      final int xSub, final int ySub, final int xOff, final int yOff, final int scale,
+                                      final int maxRasterBytes) throws IOException {
+        JPEGImageReader reader = createReader();
+        reader.maxRasterBytes = maxRasterBytes;
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource(resource))) {
+            reader.setInput(stream);
+
+            JPEGImageReadParam param = (JPEGImageReadParam) reader.getDefaultReadParam();
+            param.setSourceRegion(sourceRegion);
+            param.setSourceSubsampling(xSub, ySub, xOff, yOff);
+            param.setScaleDenominator(scale);
+
+            return reader.read(0, param);
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testReadStripedProgress() throws IOException {
+        JPEGImageReader reader = createReader();
+        reader.maxRasterBytes = 4096;
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/jpeg/cmyk-sample.jpg"))) {
+            reader.setInput(stream);
+
+            List<Float> progress = new ArrayList<>();
+            IIOReadProgressListener listener = mock(IIOReadProgressListener.class);
+            doAnswer(invocation -> progress.add(invocation.getArgument(1))).when(listener).imageProgress(eq(reader), anyFloat());
+            reader.addIIOReadProgressListener(listener);
+
+            reader.read(0, null);
+
+            verify(listener, times(1)).imageStarted(reader, 0);
+            verify(listener, times(1)).imageComplete(reader);
+
+            assertFalse(progress.isEmpty());
+            for (int i = 1; i < progress.size(); i++) {
+                assertTrue(progress.get(i - 1) <= progress.get(i), "Progress must be increasing: " + progress);
+            }
+            assertTrue(progress.get(progress.size() - 1) <= 100f, "Progress must not exceed 100%: " + progress);
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
     // TODO: Test that subsampling is actually reading something
 
     // Special cases found in the wild below
@@ -65,8 +65,8 @@ public abstract class AbstractCompoundDirectory extends AbstractDirectory implem
 
     @Override
     public Entry getEntryById(final Object identifier) {
-        for (Directory directory : directories) {
-            Entry entry = directory.getEntryById(identifier);
+        for (int i = 0; i < directoryCount(); i++) {
+            Entry entry = getDirectory(i).getEntryById(identifier);
 
             if (entry != null) {
                 return entry;
@@ -78,8 +78,8 @@ public abstract class AbstractCompoundDirectory extends AbstractDirectory implem
 
     @Override
     public Entry getEntryByFieldName(final String fieldName) {
-        for (Directory directory : directories) {
-            Entry entry = directory.getEntryByFieldName(fieldName);
+        for (int i = 0; i < directoryCount(); i++) {
+            Entry entry = getDirectory(i).getEntryByFieldName(fieldName);
 
             if (entry != null) {
                 return entry;
@@ -92,11 +92,19 @@ public abstract class AbstractCompoundDirectory extends AbstractDirectory implem
     @Override
     public Iterator<Entry> iterator() {
         return new Iterator<Entry>() {
-            Iterator<Directory> directoryIterator = directories.iterator();
+            int nextDirectory;
             Iterator<Entry> current;
 
             public boolean hasNext() {
-                return current != null && current.hasNext() || directoryIterator.hasNext() && (current = directoryIterator.next().iterator()).hasNext();
+                while (current == null || !current.hasNext()) {
+                    if (nextDirectory >= directoryCount()) {
+                        return false;
+                    }
+
+                    current = getDirectory(nextDirectory++).iterator();
+                }
+
+                return true;
             }
 
             public Entry next() {
@@ -134,8 +142,8 @@ public abstract class AbstractCompoundDirectory extends AbstractDirectory implem
     public int size() {
         int size = 0;
 
-        for (Directory directory : directories) {
-            size += directory.size();
+        for (int i = 0; i < directoryCount(); i++) {
+            size += getDirectory(i).size();
         }
 
         return size;
@@ -143,15 +151,21 @@ public abstract class AbstractCompoundDirectory extends AbstractDirectory implem
 
     @Override
     public String toString() {
-        return String.format("%s%s", getClass().getSimpleName(), directories.toString());
+        List<Directory> directories = new ArrayList<>(directoryCount());
+
+        for (int i = 0; i < directoryCount(); i++) {
+            directories.add(getDirectory(i));
+        }
+
+        return String.format("%s%s", getClass().getSimpleName(), directories);
     }
 
     @Override
     public int hashCode() {
         int hash = 0;
 
-        for (Directory ifd : directories) {
-            hash ^= ifd.hashCode();
+        for (int i = 0; i < directoryCount(); i++) {
+            hash ^= getDirectory(i).hashCode();
         }
 
         return hash;
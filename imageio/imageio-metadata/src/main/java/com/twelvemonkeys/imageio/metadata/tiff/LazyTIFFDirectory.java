@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.metadata.tiff;
+
+import com.twelvemonkeys.imageio.metadata.AbstractCompoundDirectory;
+import com.twelvemonkeys.imageio.metadata.Directory;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A TIFF directory that follows the linked IFDs and reads their entries only when needed.
+ *
+ * @see TIFFReader#readLazy(ImageInputStream)
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: LazyTIFFDirectory.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public final class LazyTIFFDirectory extends AbstractCompoundDirectory {
+    private final TIFFReader reader;
+    private final ImageInputStream input;
+    private final ByteOrder byteOrder;
+
+    private long[] offsets = new long[16];
+    private IFD[] ifds = new IFD[16];
+    private int count;
+
+    // Offset of the next IFD to validate, or 0 when the end of the IFD list is reached
+    private long nextOffset;
+
+    LazyTIFFDirectory(final TIFFReader reader, final ImageInputStream input, final long firstOffset) {
+        super(null);
+
+        this.reader = reader;
+        this.input = input;
+        this.byteOrder = input.getByteOrder();
+        this.nextOffset = firstOffset;
+    }
+
+    @Override
+    public Directory getDirectory(final int index) {
+        if (index < 0 || index >= count && !scanTo(index)) {
+            throw new IndexOutOfBoundsException(String.format("index: %d, directory count: %d", index, directoryCount()));
+        }
+
+        IFD ifd = ifds[index];
+
+        if (ifd == null) {
+            ifd = readIFD(offsets[index]);
+            ifds[index] = ifd;
+        }
+
+        return ifd;
+    }
+
+    @Override
+    public int directoryCount() {
+        scanTo(Integer.MAX_VALUE);
+
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if all links of the IFD list are followed, in which case
+     * {@link #directoryCount()} returns without reading from the stream.
+     *
+     * @return {@code true} if the number of directories is known.
+     */
+    public boolean isCountKnown() {
+        return nextOffset == 0;
+    }
+
+    private boolean scanTo(final int index) {
+        if (index < count) {
+            return true;
+        }
+
+        if (nextOffset == 0) {
+            return false;
+        }
+
+        long pos = -1;
+        ByteOrder originalOrder = input.getByteOrder();
+
+        try {
+            pos = input.getStreamPosition();
+            input.setByteOrder(byteOrder);
+
+            while (nextOffset != 0 && index >= count) {
+                long offset = nextOffset;
+                long next = reader.readNextIFDOffset(input, offset);
+
+                if (next < 0) {
+                    nextOffset = 0;
+                    break;
+                }
+
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                    ifds = Arrays.copyOf(ifds, count * 2);
+                }
+
+                offsets[count++] = offset;
+                nextOffset = next;
+            }
+
+            return index < count;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            restore(pos, originalOrder);
+        }
+    }
+
+    private IFD readIFD(final long offset) {
+        long pos = -1;
+        ByteOrder originalOrder = input.getByteOrder();
+
+        try {
+            pos = input.getStreamPosition();
+            input.setByteOrder(byteOrder);
+
+            return reader.readLinkedIFD(input, offset);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            restore(pos, originalOrder);
+        }
+    }
+
+    private void restore(final long pos, final ByteOrder originalOrder) {
+        input.setByteOrder(originalOrder);
+
+        if (pos >= 0) {
+            try {
+                input.seek(pos);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -91,6 +91,48 @@ public final class TIFFEntry extends AbstractEntry {
         return type;
     }
 
+    /**
+     * Returns the integral value at the given index, as a {@code long}.
+     * Array values are accessed directly, without boxing or copying,
+     * making this method suitable for large arrays,
+     * like {@code StripOffsets} or {@code TileByteCounts}.
+     * Unsigned types are never returned as negative values.
+     *
+     * @param index the index of the value.
+     * @return the value at the given index.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is outside the range {@code [0, valueCount())}.
+     * @throws UnsupportedOperationException if the value of this entry is not integral.
+     */
+    public long getValueAsLong(final int index) {
+        Object value = getValue();
+
+        if (value instanceof long[]) {
+            return ((long[]) value)[index];
+        }
+        else if (value instanceof int[]) {
+            int intValue = ((int[]) value)[index];
+            return type == TIFF.TYPE_LONG || type == TIFF.TYPE_IFD ? intValue & 0xffffffffL : intValue;
+        }
+        else if (value instanceof short[]) {
+            short shortValue = ((short[]) value)[index];
+            return type == TIFF.TYPE_SHORT ? shortValue & 0xffff : shortValue;
+        }
+        else if (value instanceof byte[]) {
+            byte byteValue = ((byte[]) value)[index];
+            return type == TIFF.TYPE_BYTE ? byteValue & 0xff : byteValue;
+        }
+        else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            if (index != 0) {
+                throw new IndexOutOfBoundsException(String.format("index: %d, valueCount: 1", index));
+            }
+
+            return ((Number) value).longValue();
+        }
+
+        throw new UnsupportedOperationException(String.format("Method getValueAsLong not implemented for type %s", value != null ? value.getClass() : null));
+    }
+
     @Override
     public String getFieldName() {
         switch ((Integer) getIdentifier()) {
@@ -42,6 +42,7 @@ import javax.imageio.stream.ImageInputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -88,6 +89,38 @@ public final class TIFFReader extends MetadataReader {
     public Directory read(final ImageInputStream input) throws IOException {
         Validate.notNull(input, "input");
 
+        readHeader(input);
+
+        return readLinkedIFDs(input);
+    }
+
+    /**
+     * Reads the TIFF structure from the input, without reading all IFDs up front.
+     * <p>
+     * The linked list of IFDs is only followed as far as needed, and the entries of each IFD are read on first access.
+     * This makes the time to access the first IFDs independent of the number of IFDs in the file.
+     * Counting the IFDs requires following all the links, but does not read the entries.
+     * </p>
+     * <p>
+     * The input must be kept open as long as the returned directory is in use, and the stream position and
+     * byte order are restored after each read.
+     * As the {@code CompoundDirectory} methods can not throw {@code IOException}, I/O errors that occur while
+     * reading lazily are thrown as {@link UncheckedIOException}.
+     * </p>
+     *
+     * @param input the input stream, positioned at the TIFF header.
+     * @return a compound directory, reading its IFDs lazily from {@code input}.
+     * @throws IOException if the TIFF header can not be read.
+     */
+    public LazyTIFFDirectory readLazy(final ImageInputStream input) throws IOException {
+        Validate.notNull(input, "input");
+
+        readHeader(input);
+
+        return new LazyTIFFDirectory(this, input, readOffset(input));
+    }
+
+    private void readHeader(final ImageInputStream input) throws IOException {
         byte[] bom = new byte[2];
         input.readFully(bom);
 
@@ -128,8 +161,6 @@ public final class TIFFReader extends MetadataReader {
         }
 
         inputLength = input.length();
-
-        return readLinkedIFDs(input);
     }
 
     private TIFFDirectory readLinkedIFDs(final ImageInputStream input) throws IOException {
@@ -161,6 +192,53 @@ public final class TIFFReader extends MetadataReader {
         return new TIFFDirectory(ifds);
     }
 
+    /**
+     * Validates the IFD at the given offset and finds the offset of the next linked IFD,
+     * without reading the entries.
+     *
+     * @return the offset of the next IFD, {@code 0} if this is the last IFD,
+     * or {@code -1} if there is no valid IFD at {@code ifdOffset}.
+     */
+    long readNextIFDOffset(final ImageInputStream input, final long ifdOffset) throws IOException {
+        if ((inputLength > 0 && ifdOffset >= inputLength) || !isValidOffset(input, ifdOffset) || !parsedIFDs.add(ifdOffset)) {
+            // TODO: Issue warning
+            if (DEBUG) {
+                System.err.println("Bad IFD offset: " + ifdOffset);
+            }
+
+            return -1;
+        }
+
+        try {
+            input.seek(ifdOffset);
+
+            long entryCount = readEntryCount(input);
+            long entriesEnd = input.getStreamPosition() + entryCount * (longOffsets ? 20 : 12);
+
+            // Truncated IFD, treated the same way as an EOF while reading all entries
+            if (entryCount < 0 || entryCount > Integer.MAX_VALUE
+                    || inputLength > 0 && entriesEnd > inputLength
+                    || entryCount > 0 && !isValidOffset(input, entriesEnd - 1)) {
+                return -1;
+            }
+
+            input.seek(entriesEnd);
+
+            return readOffset(input);
+        }
+        catch (EOFException eof) {
+            // catch EOF here as missing EOF marker
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the IFD at an offset already validated by {@link #readNextIFDOffset(ImageInputStream, long)}.
+     */
+    IFD readLinkedIFD(final ImageInputStream input, final long ifdOffset) throws IOException {
+        return readIFD(input, ifdOffset, VALID_TOP_LEVEL_IFDS);
+    }
+
     private long readOffset(final ImageInputStream input) throws IOException {
         return longOffsets ? input.readLong() : input.readUnsignedInt();
     }
@@ -481,6 +559,8 @@ public final class TIFFReader extends MetadataReader {
                 if (pCount == 1) {
                     return pInput.readUnsignedInt();
                 }
+
+                return readUnsignedInts(pInput, pCount);
             case TIFF.TYPE_SLONG:
                 if (pCount == 1) {
                     return pInput.readInt();
@@ -489,15 +569,6 @@ public final class TIFFReader extends MetadataReader {
                 int[] ints = new int[pCount];
                 pInput.readFully(ints, 0, ints.length);
 
-                if (pType == TIFF.TYPE_LONG || pType == TIFF.TYPE_IFD) {
-                    long[] longs = new long[pCount];
-                    for (int i = 0; i < pCount; i++) {
-                        longs[i] = ints[i] & 0xffffffffL;
-                    }
-
-                    return longs;
-                }
-
                 return ints;
             case TIFF.TYPE_FLOAT:
                 if (pCount == 1) {
@@ -554,9 +625,7 @@ public final class TIFFReader extends MetadataReader {
                     }
 
                     long[] longs = new long[pCount];
-                    for (int i = 0; i < pCount; i++) {
-                        longs[i] = pInput.readLong();
-                    }
+                    pInput.readFully(longs, 0, longs.length);
 
                     return longs;
                 }
@@ -567,6 +636,23 @@ public final class TIFFReader extends MetadataReader {
         }
     }
 
+    private static long[] readUnsignedInts(final ImageInputStream pInput, final int pCount) throws IOException {
+        // Read in chunks, to avoid a temporary int array as large as the result
+        long[] longs = new long[pCount];
+        int[] buffer = new int[Math.min(pCount, 1024)];
+
+        for (int offset = 0; offset < pCount; offset += buffer.length) {
+            int length = Math.min(buffer.length, pCount - offset);
+            pInput.readFully(buffer, 0, length);
+
+            for (int i = 0; i < length; i++) {
+                longs[offset + i] = buffer[i] & 0xffffffffL;
+            }
+        }
+
+        return longs;
+    }
+
     private static Rational createSafeRational(final long numerator, final long denominator) {
         if (denominator == 0) {
             // Bad data.
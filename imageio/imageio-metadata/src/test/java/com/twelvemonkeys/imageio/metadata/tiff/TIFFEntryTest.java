@@ -35,6 +35,7 @@ import com.twelvemonkeys.imageio.metadata.EntryAbstractTest;
 
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -59,5 +60,46 @@ public class TIFFEntryTest extends EntryAbstractTest {
         assertThrows(IllegalArgumentException.class, () -> createEXIFEntry(0, null, -1));
     }
     
+    @Test
+    public void testGetValueAsLongUnsigned() {
+        TIFFEntry longs = createEXIFEntry(TIFF.TAG_TILE_OFFSETS, new int[] {1, -1}, TIFF.TYPE_LONG);
+        assertEquals(1, longs.getValueAsLong(0));
+        assertEquals(0xffffffffL, longs.getValueAsLong(1));
+
+        TIFFEntry shorts = createEXIFEntry(TIFF.TAG_TILE_BYTE_COUNTS, new short[] {1, -1}, TIFF.TYPE_SHORT);
+        assertEquals(1, shorts.getValueAsLong(0));
+        assertEquals(0xffff, shorts.getValueAsLong(1));
+
+        TIFFEntry bytes = createEXIFEntry(TIFF.TAG_BITS_PER_SAMPLE, new byte[] {1, -1}, TIFF.TYPE_BYTE);
+        assertEquals(0xff, bytes.getValueAsLong(1));
+    }
+
+    @Test
+    public void testGetValueAsLongSigned() {
+        assertEquals(-1, createEXIFEntry(0, new int[] {1, -1}, TIFF.TYPE_SLONG).getValueAsLong(1));
+        assertEquals(-1, createEXIFEntry(0, new short[] {1, -1}, TIFF.TYPE_SSHORT).getValueAsLong(1));
+        assertEquals(-1, createEXIFEntry(0, new long[] {1, -1}, TIFF.TYPE_SLONG8).getValueAsLong(1));
+    }
+
+    @Test
+    public void testGetValueAsLongSingle() {
+        TIFFEntry entry = createEXIFEntry(TIFF.TAG_STRIP_OFFSETS, 42L, TIFF.TYPE_LONG);
+        assertEquals(42, entry.getValueAsLong(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> entry.getValueAsLong(1));
+    }
+
+    @Test
+    public void testGetValueAsLongOutOfBounds() {
+        TIFFEntry entry = createEXIFEntry(TIFF.TAG_STRIP_OFFSETS, new long[] {1, 2}, TIFF.TYPE_LONG8);
+        assertThrows(IndexOutOfBoundsException.class, () -> entry.getValueAsLong(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> entry.getValueAsLong(-1));
+    }
+
+    @Test
+    public void testGetValueAsLongNotIntegral() {
+        assertThrows(UnsupportedOperationException.class, () -> createEXIFEntry(TIFF.TAG_SOFTWARE, "foo", TIFF.TYPE_ASCII).getValueAsLong(0));
+        assertThrows(UnsupportedOperationException.class, () -> createEXIFEntry(0, new double[] {1}, TIFF.TYPE_DOUBLE).getValueAsLong(0));
+    }
+
     // TODO: TIFF/EXIF specific tests
 }
@@ -36,6 +36,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.time.Duration;
 
 import javax.imageio.ImageIO;
@@ -98,6 +100,63 @@ public class TIFFReaderTest extends MetadataReaderAbstractTest {
         });
     }
 
+    @Test
+    public void testReadLazySameAsRead() throws IOException {
+        CompoundDirectory exif = (CompoundDirectory) createReader().read(getDataAsIIS());
+
+        try (ImageInputStream stream = getDataAsIIS()) {
+            CompoundDirectory lazy = createReader().readLazy(stream);
+
+            assertEquals(exif.directoryCount(), lazy.directoryCount());
+            assertEquals(exif.size(), lazy.size());
+
+            for (int i = 0; i < exif.directoryCount(); i++) {
+                assertEquals(exif.getDirectory(i), lazy.getDirectory(i));
+            }
+        }
+    }
+
+    @Test
+    public void testReadLazyOnDemand() throws IOException {
+        try (ImageInputStream stream = getDataAsIIS()) {
+            CompoundDirectory lazy = createReader().readLazy(stream);
+
+            // Accessing a directory should not move the stream
+            stream.seek(4);
+            Directory ifd1 = lazy.getDirectory(1);
+            assertEquals(4, stream.getStreamPosition());
+
+            assertNotNull(ifd1);
+            assertSame(ifd1, lazy.getDirectory(1));
+            assertEquals(2, lazy.directoryCount());
+        }
+    }
+
+    @Test
+    public void testReadLazyCountKnown() throws IOException {
+        try (ImageInputStream stream = getDataAsIIS()) {
+            LazyTIFFDirectory lazy = createReader().readLazy(stream);
+            assertFalse(lazy.isCountKnown());
+
+            lazy.getDirectory(0);
+            assertFalse(lazy.isCountKnown());
+
+            lazy.getDirectory(1);
+            assertTrue(lazy.isCountKnown());
+            assertEquals(2, lazy.directoryCount());
+        }
+    }
+
+    @Test
+    public void testReadLazyDirectoryOutOfBounds() throws IOException {
+        try (ImageInputStream stream = getDataAsIIS()) {
+            CompoundDirectory lazy = createReader().readLazy(stream);
+
+            assertThrows(IndexOutOfBoundsException.class, () -> lazy.getDirectory(2));
+            assertThrows(IndexOutOfBoundsException.class, () -> lazy.getDirectory(-1));
+        }
+    }
+
     @Test
     public void testEntries() throws IOException {
         CompoundDirectory exif = (CompoundDirectory) createReader().read(getDataAsIIS());
@@ -367,6 +426,58 @@ public class TIFFReaderTest extends MetadataReaderAbstractTest {
         }
     }
 
+    @Test
+    public void testReadLargeLongArray() throws IOException {
+        int count = 3000; // More than the internal buffer
+        ByteBuffer buffer = ByteBuffer.allocate(26 + count * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(8);
+        buffer.putShort((short) 1); // entry count
+        buffer.putShort((short) TIFF.TAG_TILE_OFFSETS).putShort(TIFF.TYPE_LONG).putInt(count).putInt(26);
+        buffer.putInt(0); // End of IFD chain
+
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(0xfffff000 + i);
+        }
+
+        try (ImageInputStream stream = new ByteArrayImageInputStream(buffer.array())) {
+            CompoundDirectory directory = (CompoundDirectory) createReader().read(stream);
+            TIFFEntry entry = (TIFFEntry) directory.getDirectory(0).getEntryById(TIFF.TAG_TILE_OFFSETS);
+
+            assertEquals(count, entry.valueCount());
+            long[] offsets = (long[]) entry.getValue();
+
+            for (int i = 0; i < count; i++) {
+                assertEquals(0xfffff000L + i, offsets[i]);
+                assertEquals(0xfffff000L + i, entry.getValueAsLong(i));
+            }
+        }
+    }
+
+    @Test
+    public void testReadLargeLong8ArrayBigTIFF() throws IOException {
+        int count = 3000;
+        ByteBuffer buffer = ByteBuffer.allocate(52 + count * 8).order(ByteOrder.BIG_ENDIAN);
+        buffer.put((byte) 'M').put((byte) 'M').putShort((short) 43).putShort((short) 8).putShort((short) 0).putLong(16);
+        buffer.putLong(1); // entry count
+        buffer.putShort((short) TIFF.TAG_TILE_BYTE_COUNTS).putShort(TIFF.TYPE_LONG8).putLong(count).putLong(52);
+        buffer.putLong(0); // End of IFD chain
+
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(0x100000000L + i);
+        }
+
+        try (ImageInputStream stream = new ByteArrayImageInputStream(buffer.array())) {
+            CompoundDirectory directory = (CompoundDirectory) createReader().read(stream);
+            TIFFEntry entry = (TIFFEntry) directory.getDirectory(0).getEntryById(TIFF.TAG_TILE_BYTE_COUNTS);
+
+            assertEquals(count, entry.valueCount());
+
+            for (int i = 0; i < count; i++) {
+                assertEquals(0x100000000L + i, entry.getValueAsLong(i));
+            }
+        }
+    }
+
     @Test
     public void testReadCyclicExifWithoutLoopOrOOME() throws IOException {
         // This EXIF segment has an interesting bug...
@@ -405,6 +516,28 @@ public class TIFFReaderTest extends MetadataReaderAbstractTest {
         });
     }
 
+    @Test
+    public void testIFDLoopLazy() throws IOException {
+        byte[] looping = new byte[] {
+                'M', 'M', 0, 42,
+                0, 0, 0, 8,     // IFD0 pointer
+                0, 1,           // entry count
+                0, (byte) 259,  // compression
+                0, 3,           // SHORT
+                0, 0, 0, 1,     // count
+                0, 0, 0, 0,     //
+                0, 0, 0, 8,     // IFD1 pointer
+        };
+        assertTimeoutPreemptively(Duration.ofMillis(100), () -> {
+            try (ImageInputStream stream = new ByteArrayImageInputStream(looping)) {
+                CompoundDirectory directory = createReader().readLazy(stream);
+
+                assertEquals(1, directory.directoryCount());
+                assertEquals(1, directory.size());
+            }
+        });
+    }
+
     @Test
     public void testIFDLoopNested() throws IOException {
         byte[] looping = new byte[] {
@@ -173,6 +173,8 @@ public final class PCXImageReader extends ImageReaderBase {
         Iterator<ImageTypeSpecifier> imageTypes = getImageTypes(imageIndex);
         ImageTypeSpecifier rawType = getRawImageType(imageIndex);
 
+        assertImageDataAvailable();
+
         int width = getWidth(imageIndex);
         int height = getHeight(imageIndex);
 
@@ -227,6 +229,8 @@ public final class PCXImageReader extends ImageReaderBase {
 
                 processImageProgress(100f * y / height);
 
+                flushConsumedInput(param);
+
                 if (y >= srcRegion.y + srcRegion.height) {
                     break;
                 }
@@ -253,6 +257,8 @@ public final class PCXImageReader extends ImageReaderBase {
 
                 processImageProgress(100f * y / height);
 
+                flushConsumedInput(param);
+
                 if (y >= srcRegion.y + srcRegion.height) {
                     break;
                 }
@@ -297,6 +303,8 @@ public final class PCXImageReader extends ImageReaderBase {
 
                 processImageProgress(100f * y / height);
 
+                flushConsumedInput(param);
+
                 if (y >= srcRegion.y + srcRegion.height) {
                     break;
                 }
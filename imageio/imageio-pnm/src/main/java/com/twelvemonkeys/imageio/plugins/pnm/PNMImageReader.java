@@ -209,6 +209,8 @@ public final class PNMImageReader extends ImageReaderBase {
         Iterator<ImageTypeSpecifier> imageTypes = getImageTypes(imageIndex);
         ImageTypeSpecifier rawType = getRawImageType(imageIndex);
 
+        assertImageDataAvailable();
+
         int width = getWidth(imageIndex);
         int height = getHeight(imageIndex);
 
@@ -274,6 +276,8 @@ public final class PNMImageReader extends ImageReaderBase {
 
             processImageProgress(100f * y / height);
 
+            flushConsumedInput(param);
+
             if (abortRequested()) {
                 processReadAborted();
                 break;
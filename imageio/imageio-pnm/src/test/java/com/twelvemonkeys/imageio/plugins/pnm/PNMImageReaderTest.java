@@ -29,6 +29,7 @@
  */
 package com.twelvemonkeys.imageio.plugins.pnm;
 
+import com.twelvemonkeys.imageio.StreamingImageReadParam;
 import com.twelvemonkeys.imageio.stream.ByteArrayImageInputStream;
 import com.twelvemonkeys.imageio.util.ImageReaderAbstractTest;
 
@@ -41,12 +42,14 @@ import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -75,6 +78,63 @@ public class PNMImageReaderTest extends ImageReaderAbstractTest<PNMImageReader>
         }
     }
 
+    @Test
+    public void testReadSeekForwardOnlyFlushesInputOnlyWhenRequested() throws IOException {
+        byte[] header = "P5\n200 300\n255\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] data = new byte[header.length + 200 * 300];
+        System.arraycopy(header, 0, data, 0, header.length);
+        for (int i = header.length; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        ImageReader reader = createReader();
+
+        try (ImageInputStream input = new ByteArrayImageInputStream(data)) {
+            reader.setInput(input, true);
+            BufferedImage image = reader.read(0);
+
+            // Only the header is flushed, the image can be read again
+            assertEquals(header.length, input.getFlushedPosition());
+            assertEquals(data[data.length - 1] & 0xff, image.getRaster().getSample(199, 299, 0));
+
+            image = reader.read(0);
+            assertEquals(data[header.length] & 0xff, image.getRaster().getSample(0, 0, 0));
+            assertEquals(data[data.length - 1] & 0xff, image.getRaster().getSample(199, 299, 0));
+        }
+
+        try (ImageInputStream input = new ByteArrayImageInputStream(data)) {
+            reader.setInput(input, true);
+
+            StreamingImageReadParam param = new StreamingImageReadParam();
+            param.setDiscardConsumedInput(true);
+
+            BufferedImage image = reader.read(0, param);
+
+            // All image data is flushed
+            assertEquals(data.length, input.getFlushedPosition());
+            assertEquals(data[header.length] & 0xff, image.getRaster().getSample(0, 0, 0));
+            assertEquals(data[data.length - 1] & 0xff, image.getRaster().getSample(199, 299, 0));
+
+            // The image can not be read again
+            assertThrows(IIOException.class, () -> reader.read(0));
+        }
+
+        try (ImageInputStream input = new ByteArrayImageInputStream(data)) {
+            // Not in seek forward only mode, only the header is discarded
+            reader.setInput(input);
+
+            StreamingImageReadParam param = new StreamingImageReadParam();
+            param.setDiscardConsumedInput(true);
+
+            reader.read(0, param);
+            assertEquals(header.length, input.getFlushedPosition());
+            assertEquals(data[data.length - 1] & 0xff, reader.read(0, param).getRaster().getSample(199, 299, 0));
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
     @Override
     protected List<TestData> getTestData() {
         return Arrays.asList(
@@ -33,6 +33,7 @@ package com.twelvemonkeys.imageio.plugins.psd;
 import com.twelvemonkeys.image.ImageUtil;
 import com.twelvemonkeys.imageio.ImageReaderBase;
 import com.twelvemonkeys.imageio.color.ColorSpaces;
+import com.twelvemonkeys.imageio.color.ColorTransforms;
 import com.twelvemonkeys.imageio.util.ImageTypeSpecifiers;
 
 import javax.imageio.IIOException;
@@ -525,7 +526,7 @@ public final class PSDImageReader extends ImageReaderBase {
                 createBandList(sourceCM.getColorSpace().getNumComponents()))
                                            : raster;
 
-        new ColorConvertOp(sourceCM.getColorSpace(), destinationCM.getColorSpace(), null)
+        ColorTransforms.createFastColorConvertOp(sourceCM.getColorSpace(), destinationCM.getColorSpace())
                 .filter(alphaMaskedRaster, alphaMaskedRaster);
 
         if (DEBUG) {
@@ -155,6 +155,8 @@ public final class SGIImageReader extends ImageReaderBase {
         Iterator<ImageTypeSpecifier> imageTypes = getImageTypes(imageIndex);
         ImageTypeSpecifier rawType = getRawImageType(imageIndex);
 
+        assertImageDataAvailable();
+
         if (header.getColorMode() != SGI.COLORMODE_NORMAL) {
             processWarningOccurred(String.format("Unsupported color mode: %d, colors may look incorrect", header.getColorMode()));
         }
@@ -218,6 +220,12 @@ public final class SGIImageReader extends ImageReaderBase {
 
                 processImageProgress(100f * y / height * c / header.getChannels());
 
+                if (compression == SGI.COMPRESSION_NONE) {
+                    // Uncompressed data is read sequentially, allow the stream to discard it when streaming.
+                    // RLE scanlines may be stored in any order, and even shared.
+                    flushConsumedInput(param);
+                }
+
                 if (height - 1 - y < srcRegion.y) {
                     break;
                 }
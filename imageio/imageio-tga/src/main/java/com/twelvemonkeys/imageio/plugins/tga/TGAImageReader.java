@@ -176,6 +176,8 @@ final class TGAImageReader extends ImageReaderBase {
         Iterator<ImageTypeSpecifier> imageTypes = getImageTypes(imageIndex);
         ImageTypeSpecifier rawType = getRawImageType(imageIndex);
 
+        assertImageDataAvailable();
+
         int width = getWidth(imageIndex);
         int height = getHeight(imageIndex);
 
@@ -235,6 +237,8 @@ final class TGAImageReader extends ImageReaderBase {
 
             processImageProgress(100f * y / height);
 
+            flushConsumedInput(param);
+
             if (height - 1 - y < srcRegion.y) {
                 break;
             }
@@ -71,6 +71,14 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
 
     private int lastChangingElement = 0;
 
+    // Input is read in chunks, and kept in a bit buffer for table lookups
+    private final byte[] input = new byte[4096];
+    private int inputPos;
+    private int inputLength;
+
+    private long bits;
+    private int bitCount;
+
     /**
      * Creates a CCITTFaxDecoderStream.
      *
@@ -238,16 +246,7 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
         changesCurrentRowCount = 0;
 
         do {
-            int completeRun;
-
-            if (white) {
-                completeRun = decodeRun(whiteRunTree);
-            }
-            else {
-                completeRun = decodeRun(blackRunTree);
-            }
-
-            index += completeRun;
+            index += decodeRun(white ? whiteRunTree : blackRunTree);
             changesCurrentRow[changesCurrentRowCount++] = index;
 
             // Flip color for next run
@@ -265,61 +264,54 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
         int index = 0;
         changesCurrentRowCount = 0;
 
-        mode: while (index < columns) {
+        while (index < columns) {
             // read mode
-            Node n = codeTree.root;
+            Node n = decodeCode(codeTree);
 
-            while (true) {
-                n = n.walk(readBit());
+            if (n == null) {
+                continue;
+            }
 
-                if (n == null) {
-                    continue mode;
-                }
-                else if (n.isLeaf) {
-                    switch (n.value) {
-                        case VALUE_HMODE:
-                            int runLength;
-                            runLength = decodeRun(white ? whiteRunTree : blackRunTree);
-                            index += runLength;
-                            changesCurrentRow[changesCurrentRowCount++] = index;
-
-                            runLength = decodeRun(white ? blackRunTree : whiteRunTree);
-                            index += runLength;
-                            changesCurrentRow[changesCurrentRowCount++] = index;
-                            break;
-
-                        case VALUE_PASSMODE:
-                            int pChangingElement = getNextChangingElement(index, white) + 1;
-
-                            if (pChangingElement >= changesReferenceRowCount) {
-                                index = columns;
-                            }
-                            else {
-                                index = changesReferenceRow[pChangingElement];
-                            }
-
-                            break;
-
-                        default:
-                            // Vertical mode (-3 to 3)
-                            int vChangingElement = getNextChangingElement(index, white);
-
-                            if (vChangingElement >= changesReferenceRowCount || vChangingElement == -1) {
-                                index = columns + n.value;
-                            }
-                            else {
-                                index = changesReferenceRow[vChangingElement] + n.value;
-                            }
-
-                            changesCurrentRow[changesCurrentRowCount] = index;
-                            changesCurrentRowCount++;
-                            white = !white;
-
-                            break;
+            switch (n.value) {
+                case VALUE_HMODE:
+                    int runLength;
+                    runLength = decodeRun(white ? whiteRunTree : blackRunTree);
+                    index += runLength;
+                    changesCurrentRow[changesCurrentRowCount++] = index;
+
+                    runLength = decodeRun(white ? blackRunTree : whiteRunTree);
+                    index += runLength;
+                    changesCurrentRow[changesCurrentRowCount++] = index;
+                    break;
+
+                case VALUE_PASSMODE:
+                    int pChangingElement = getNextChangingElement(index, white) + 1;
+
+                    if (pChangingElement >= changesReferenceRowCount) {
+                        index = columns;
+                    }
+                    else {
+                        index = changesReferenceRow[pChangingElement];
                     }
 
-                    continue mode;
-                }
+                    break;
+
+                default:
+                    // Vertical mode (-3 to 3)
+                    int vChangingElement = getNextChangingElement(index, white);
+
+                    if (vChangingElement >= changesReferenceRowCount || vChangingElement == -1) {
+                        index = columns + n.value;
+                    }
+                    else {
+                        index = changesReferenceRow[vChangingElement] + n.value;
+                    }
+
+                    changesCurrentRow[changesCurrentRowCount] = index;
+                    changesCurrentRowCount++;
+                    white = !white;
+
+                    break;
             }
         }
     }
@@ -355,21 +347,10 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
         if (optionByteAligned) {
             resetBuffer();
         }
-        eof: while (true) {
-            // read till next EOL code
-            Node n = eolOnlyTree.root;
-
-            while (true) {
-                n = n.walk(readBit());
-
-                if (n == null) {
-                    continue eof;
-                }
 
-                if (n.isLeaf) {
-                    break eof;
-                }
-            }
+        // read till next EOL code
+        while (decodeCode(eolOnlyTree) == null) {
+            // Skip unknown codes
         }
 
         if (!optionG32D || readBit()) {
@@ -404,47 +385,26 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
         boolean white = true;
 
         lastChangingElement = 0;
+        Arrays.fill(decodedRow, (byte) 0);
+
         for (int i = 0; i <= changesCurrentRowCount; i++) {
             int nextChange = columns;
 
-            if (i != changesCurrentRowCount) {
+            if (i != changesCurrentRowCount && changesCurrentRow[i] < columns) {
                 nextChange = changesCurrentRow[i];
             }
 
-            if (nextChange > columns) {
-                nextChange = columns;
-            }
-
-            int byteIndex = index / 8;
-
-            while (index % 8 != 0 && (nextChange - index) > 0) {
-                decodedRow[byteIndex] |= (byte) (white ? 0 : 1 << (7 - ((index) % 8)));
-                index++;
-            }
-
-            if (index % 8 == 0) {
-                byteIndex = index / 8;
-                final byte value = (byte) (white ? 0x00 : 0xff);
-
-                while ((nextChange - index) > 7) {
-                    decodedRow[byteIndex] = value;
-                    index += 8;
-                    ++byteIndex;
-                }
-            }
-
-            while ((nextChange - index) > 0) {
-                if (index % 8 == 0) {
-                    decodedRow[byteIndex] = 0;
+            if (nextChange > index) {
+                if (!white) {
+                    fillBlack(index, nextChange);
                 }
 
-                decodedRow[byteIndex] |= (byte) (white ? 0 : 1 << (7 - ((index) % 8)));
-                index++;
+                index = nextChange;
             }
 
             white = !white;
         }
-        
+
         if (index != columns) {
             throw new IOException("Sum of run-lengths does not equal scan line width: " + index + " > " + columns);
         }
@@ -453,57 +413,108 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
         decodedLength = (index + 7) / 8;
     }
 
+    private void fillBlack(final int start, final int end) {
+        // Sets the bits in the range [start, end), whole bytes at a time where possible
+        int first = start >> 3;
+        int last = (end - 1) >> 3;
+        int firstMask = 0xff >> (start & 7);
+        int lastMask = 0xff00 >> (((end - 1) & 7) + 1);
+
+        if (first == last) {
+            decodedRow[first] |= (byte) (firstMask & lastMask);
+        }
+        else {
+            decodedRow[first] |= (byte) firstMask;
+
+            for (int i = first + 1; i < last; i++) {
+                decodedRow[i] = (byte) 0xff;
+            }
+
+            decodedRow[last] |= (byte) lastMask;
+        }
+    }
+
     private int decodeRun(final Tree tree) throws IOException {
         int total = 0;
 
-        Node n = tree.root;
-
         while (true) {
-            boolean bit = readBit();
-            n = n.walk(bit);
+            Node n = decodeCode(tree);
 
             if (n == null) {
                 throw new IOException("Unknown code in Huffman RLE stream");
             }
 
-            if (n.isLeaf) {
-                total += n.value;
-                if (n.value >= 64) {
-                    n = tree.root;
-                }
-                else if (n.value >= 0) {
-                    return total;
-                }
-                else {
-                    return columns;
-                }
+            total += n.value;
+
+            if (n.value >= 0 && n.value < 64) {
+                return total;
+            }
+            else if (n.value < 0) {
+                return columns;
             }
+
+            // Make-up code, continue with the terminating code
         }
     }
 
-    private void resetBuffer() throws IOException {
-        bufferPos = -1;
+    /**
+     * Decodes a single code, using the lookup table of the tree to resolve most codes in one step.
+     * Codes longer than the table are resolved by walking the tree from where the table left off.
+     *
+     * @return the leaf node for the code, or {@code null} if the bits read are not a valid code.
+     */
+    private Node decodeCode(final Tree tree) throws IOException {
+        Node n;
+
+        if (bitCount >= tree.lookupBits || fillBits() >= tree.lookupBits) {
+            int index = (int) (bits >>> (bitCount - tree.lookupBits)) & ((1 << tree.lookupBits) - 1);
+            bitCount -= tree.lookupLengths[index];
+            n = tree.lookupNodes[index];
+        }
+        else {
+            // Too few bits left for a table lookup, near the end of the stream
+            n = tree.root;
+        }
+
+        while (n != null && !n.isLeaf) {
+            n = n.walk(readBit());
+        }
+
+        return n;
     }
 
-    int buffer = -1;
-    int bufferPos = -1;
+    private void resetBuffer() {
+        // Skip the remaining bits of the current byte
+        bitCount &= ~7;
+    }
 
-    private boolean readBit() throws IOException {
-        if (bufferPos > 7 || bufferPos < 0) {
-            buffer = in.read();
+    private int fillBits() throws IOException {
+        while (bitCount <= 56) {
+            if (inputPos >= inputLength) {
+                inputLength = in.read(input, 0, input.length);
+                inputPos = 0;
 
-            if (buffer == -1) {
-                throw new EOFException("Unexpected end of Huffman RLE stream");
+                if (inputLength <= 0) {
+                    inputLength = 0;
+                    break;
+                }
             }
 
-            bufferPos = 0;
+            bits = (bits << 8) | (input[inputPos++] & 0xff);
+            bitCount += 8;
+        }
+
+        return bitCount;
+    }
+
+    private boolean readBit() throws IOException {
+        if (bitCount == 0 && fillBits() == 0) {
+            throw new EOFException("Unexpected end of Huffman RLE stream");
         }
 
-        boolean isSet = (buffer & 0x80) != 0;
-        buffer <<= 1;
-        bufferPos++;
+        bitCount--;
 
-        return isSet;
+        return ((bits >>> bitCount) & 1) != 0;
     }
 
     @Override
@@ -605,6 +616,31 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
     private static final class Tree {
         final Node root = new Node();
 
+        // Lookup tables for all codes of up to lookupBits length, indexed by the next lookupBits bits
+        int lookupBits;
+        Node[] lookupNodes;
+        byte[] lookupLengths;
+
+        void createLookupTable(final int bits) {
+            lookupBits = bits;
+            lookupNodes = new Node[1 << bits];
+            lookupLengths = new byte[1 << bits];
+
+            for (int code = 0; code < lookupNodes.length; code++) {
+                Node current = root;
+                int length = 0;
+
+                // Walk until a leaf or an invalid code, or the table is exhausted
+                while (length < bits && current != null && !current.isLeaf) {
+                    current = current.walk(((code >> (bits - 1 - length)) & 1) == 1);
+                    length++;
+                }
+
+                lookupNodes[code] = current;
+                lookupLengths[code] = (byte) length;
+            }
+        }
+
         void fill(final int depth, final int path, final int value) throws IOException {
             Node current = root;
 
@@ -840,6 +876,7 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
         try {
             eolOnlyTree.fill(12, 0, FILL);
             eolOnlyTree.fill(12, 1, EOL);
+            eolOnlyTree.createLookupTable(12);
         }
         catch (IOException e) {
             throw new AssertionError(e);
@@ -854,6 +891,7 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
             }
             blackRunTree.fill(12, 0, FILL);
             blackRunTree.fill(12, 1, EOL);
+            blackRunTree.createLookupTable(13);
         }
         catch (IOException e) {
             throw new AssertionError(e);
@@ -869,6 +907,7 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
 
             whiteRunTree.fill(12, 0, FILL);
             whiteRunTree.fill(12, 1, EOL);
+            whiteRunTree.createLookupTable(12);
         }
         catch (IOException e) {
             throw new AssertionError(e);
@@ -885,6 +924,7 @@ final class CCITTFaxDecoderStream extends FilterInputStream {
             codeTree.fill(3, 2, -1); // V_L(1)
             codeTree.fill(6, 2, -2); // V_L(2)
             codeTree.fill(7, 2, -3); // V_L(3)
+            codeTree.createLookupTable(7);
         }
         catch (IOException e) {
             throw new AssertionError(e);
@@ -35,6 +35,7 @@ import com.twelvemonkeys.io.enc.Decoder;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
 /**
@@ -58,7 +59,21 @@ abstract class LZWDecoder implements Decoder {
 
     private static final int TABLE_SIZE = 1 << MAX_BITS;
 
-    private final LZWString[] table;
+    // The string table, each string is stored as the code of its prefix string and its last byte
+    private final short[] prefixes;
+    private final byte[] suffixes;
+    private final byte[] firstChars; // Copied forward for fast access
+    private final short[] lengths; // 0 means no string (CLEAR/EOI or unused code)
+
+    // Strings are expanded in reverse into this buffer, for buffers without a backing array
+    private final byte[] expanded;
+
+    // Input is read in chunks, as reading single bytes from the (synchronized) stream is expensive
+    private final byte[] input = new byte[4096];
+    private InputStream inputStream;
+    private int inputPos;
+    private int inputLength;
+
     private int tableLength;
     int bitsPerCode;
     private int oldCode = CLEAR_CODE;
@@ -70,11 +85,17 @@ abstract class LZWDecoder implements Decoder {
     int nextBits;
 
     protected LZWDecoder(int tableSize) {
-        table = new LZWString[tableSize];
+        prefixes = new short[tableSize];
+        suffixes = new byte[tableSize];
+        firstChars = new byte[tableSize];
+        lengths = new short[tableSize];
+        expanded = new byte[tableSize];
 
         // First 258 entries of table is always fixed
         for (int i = 0; i < 256; i++) {
-            table[i] = new LZWString((byte) i);
+            suffixes[i] = (byte) i;
+            firstChars[i] = (byte) i;
+            lengths[i] = 1;
         }
 
         init();
@@ -97,6 +118,13 @@ abstract class LZWDecoder implements Decoder {
             throw new NullPointerException("buffer == null"); // As per contract
         }
 
+        if (stream != inputStream) {
+            // New stream, discard any data read ahead from the previous stream
+            inputStream = stream;
+            inputPos = 0;
+            inputLength = 0;
+        }
+
         // Adapted from the pseudo-code example found in the TIFF 6.0 Specification, 1992.
         // See Section 13: "LZW Compression"/"LZW Decoding", page 61+
         int code;
@@ -110,26 +138,24 @@ abstract class LZWDecoder implements Decoder {
                     break;
                 }
 
-                if (table[code] == null) {
+                if (lengths[code] == 0) {
                     throw new DecodeException(String.format("Corrupted TIFF LZW: code %d (table size: %d)", code, tableLength));
                 }
 
-                table[code].writeTo(buffer);
+                writeString(code, buffer);
             }
             else {
-                if (table[oldCode] == null) {
+                if (lengths[oldCode] == 0) {
                     throw new DecodeException(String.format("Corrupted TIFF LZW: code %d (table size: %d)", oldCode, tableLength));
                 }
 
                 if (isInTable(code)) {
-                    table[code].writeTo(buffer);
-                    addStringToTable(table[oldCode].concatenate(table[code].firstChar));
+                    writeString(code, buffer);
+                    addStringToTable(oldCode, firstChars[code]);
                 }
                 else {
-                    LZWString outString = table[oldCode].concatenate(table[oldCode].firstChar);
-
-                    outString.writeTo(buffer);
-                    addStringToTable(outString);
+                    addStringToTable(oldCode, firstChars[oldCode]);
+                    writeString(tableLength - 1, buffer);
                 }
             }
 
@@ -144,12 +170,49 @@ abstract class LZWDecoder implements Decoder {
         return buffer.position();
     }
 
-    private void addStringToTable(final LZWString string) throws IOException {
-        if (tableLength >= table.length) {
+    private void writeString(final int code, final ByteBuffer buffer) {
+        int length = lengths[code];
+
+        if (buffer.hasArray()) {
+            // Expand directly into the buffer's backing array
+            if (length > buffer.remaining()) {
+                throw new BufferOverflowException();
+            }
+
+            int position = buffer.position();
+            expand(code, length, buffer.array(), buffer.arrayOffset() + position);
+            buffer.position(position + length);
+        }
+        else if (length == 1) {
+            buffer.put(suffixes[code]);
+        }
+        else {
+            expand(code, length, expanded, 0);
+            buffer.put(expanded, 0, length);
+        }
+    }
+
+    private void expand(final int code, final int length, final byte[] destination, final int offset) {
+        int current = code;
+
+        for (int i = offset + length - 1; i >= offset; i--) {
+            destination[i] = suffixes[current];
+            current = prefixes[current];
+        }
+    }
+
+    private void addStringToTable(final int prefix, final byte value) throws IOException {
+        if (tableLength >= lengths.length) {
             throw new DecodeException(String.format("TIFF LZW with more than %d bits per code encountered (table overflow)", MAX_BITS));
         }
 
-        table[tableLength++] = string;
+        int length = lengths[prefix] + 1;
+
+        prefixes[tableLength] = (short) prefix;
+        suffixes[tableLength] = value;
+        firstChars[tableLength] = firstChars[prefix];
+        lengths[tableLength] = (short) length;
+        tableLength++;
 
         if (tableLength > maxCode) {
             bitsPerCode++;
@@ -163,8 +226,8 @@ abstract class LZWDecoder implements Decoder {
             maxCode = maxCode();
         }
 
-        if (string.length > maxString) {
-            maxString = string.length;
+        if (length > maxString) {
+            maxString = length;
         }
     }
 
@@ -176,6 +239,20 @@ abstract class LZWDecoder implements Decoder {
 
     protected abstract int getNextCode(final InputStream stream) throws IOException;
 
+    final int readByte(final InputStream stream) throws IOException {
+        if (inputPos >= inputLength) {
+            inputPos = 0;
+            inputLength = stream.read(input, 0, input.length);
+
+            if (inputLength <= 0) {
+                inputLength = 0;
+                return -1;
+            }
+        }
+
+        return input[inputPos++] & 0xff;
+    }
+
     static boolean isOldBitReversedStream(final InputStream stream) throws IOException {
         stream.mark(2);
 
@@ -211,7 +288,7 @@ abstract class LZWDecoder implements Decoder {
             }
 
             int code;
-            int read = stream.read();
+            int read = readByte(stream);
             if (read < 0) {
                 eofReached = true;
                 return EOI_CODE;
@@ -221,7 +298,7 @@ abstract class LZWDecoder implements Decoder {
             nextBits += 8;
 
             if (nextBits < bitsPerCode) {
-                read = stream.read();
+                read = readByte(stream);
                 if (read < 0) {
                     eofReached = true;
                     return EOI_CODE;
@@ -260,7 +337,7 @@ abstract class LZWDecoder implements Decoder {
             }
 
             int code;
-            int read = stream.read();
+            int read = readByte(stream);
             if (read < 0) {
                 eofReached = true;
                 return EOI_CODE;
@@ -270,7 +347,7 @@ abstract class LZWDecoder implements Decoder {
             nextBits += 8;
 
             if (nextBits < bitsPerCode) {
-                read = stream.read();
+                read = readByte(stream);
                 if (read < 0) {
                     eofReached = true;
                     return EOI_CODE;
@@ -287,124 +364,4 @@ abstract class LZWDecoder implements Decoder {
             return code;
         }
     }
-
-    static final class LZWString implements Comparable<LZWString> {
-        static final LZWString EMPTY = new LZWString((byte) 0, (byte) 0, 0, null);
-
-        final LZWString previous;
-
-        final int length;
-        final byte value;
-        final byte firstChar; // Copied forward for fast access
-
-        public LZWString(final byte code) {
-            this(code, code, 1, null);
-        }
-
-        private LZWString(final byte value, final byte firstChar, final int length, final LZWString previous) {
-            this.value = value;
-            this.firstChar = firstChar;
-            this.length = length;
-            this.previous = previous;
-        }
-
-        public final LZWString concatenate(final byte value) {
-            if (this == EMPTY) {
-                return new LZWString(value);
-            }
-
-            return new LZWString(value, this.firstChar, length + 1, this);
-        }
-
-        public final void writeTo(final ByteBuffer buffer) {
-            if (length == 0) {
-                return;
-            }
-
-            if (length == 1) {
-                buffer.put(value);
-            }
-            else {
-                LZWString e = this;
-                final int offset = buffer.position();
-
-                for (int i = length - 1; i >= 0; i--) {
-                    buffer.put(offset + i, e.value);
-                    e = e.previous;
-                }
-
-                buffer.position(offset + length);
-            }
-        }
-
-        @Override
-        public String toString() {
-            StringBuilder builder = new StringBuilder("ZLWString[");
-            int offset = builder.length();
-            LZWString e = this;
-            for (int i = length - 1; i >= 0; i--) {
-                builder.insert(offset, String.format("%2x", e.value));
-                e = e.previous;
-            }
-            builder.append("]");
-            return builder.toString();
-        }
-
-        @Override
-        public boolean equals(final Object other) {
-            if (this == other) {
-                return true;
-            }
-            if (other == null || getClass() != other.getClass()) {
-                return false;
-            }
-
-            LZWString string = (LZWString) other;
-
-            return firstChar == string.firstChar &&
-                    length == string.length &&
-                    value == string.value &&
-//                    !(previous != null ? !previous.equals(string.previous) : string.previous != null);
-                    previous == string.previous;
-        }
-
-        @Override
-        public int hashCode() {
-            int result = previous != null ? previous.hashCode() : 0;
-            result = 31 * result + length;
-            result = 31 * result + (int) value;
-            result = 31 * result + (int) firstChar;
-            return result;
-        }
-
-        @Override
-        public int compareTo(final LZWString other) {
-            if (other == this) {
-                return 0;
-            }
-
-            if (length != other.length) {
-                return other.length - length;
-            }
-
-            if (firstChar != other.firstChar) {
-                return other.firstChar - firstChar;
-            }
-
-            LZWString t = this;
-            LZWString o = other;
-
-            for (int i = length - 1; i > 0; i--) {
-                if (t.value != o.value) {
-                    return o.value - t.value;
-                }
-
-                t = t.previous;
-                o = o.previous;
-            }
-
-            return 0;
-        }
-    }
 }
-
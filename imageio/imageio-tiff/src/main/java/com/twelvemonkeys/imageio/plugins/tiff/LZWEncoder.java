@@ -27,7 +27,6 @@
  * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
  * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-
 package com.twelvemonkeys.imageio.plugins.tiff;
 
 import com.twelvemonkeys.io.enc.Encoder;
@@ -40,11 +39,10 @@ import java.util.Arrays;
 /**
  * LZWEncoder
  * <p>
- * Inspired by LZWTreeEncoder by <a href="mailto:yuwen_66@yahoo.com">Wen Yu</a> and the
- * <a href="http://gingko.homeip.net/docs/file_formats/lzwgif.html#bob">algorithm described by Bob Montgomery</a>
- * which
- * "[...] uses a tree method to search if a new string is already in the table,
- * which is much simpler, faster, and easier to understand than hashing."
+ * The string table is an open-addressing hash table, mapping a prefix code plus a suffix byte to the code
+ * of the concatenated string. Entries are tagged with a generation number, so that the table can be reset
+ * (on {@code CLEAR}) without clearing the table.
+ * Codes are collected in a 64 bit accumulator, and written to the stream in chunks.
  * </p>
  *
  * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
@@ -60,14 +58,18 @@ final class LZWEncoder implements Encoder {
     private static final int MIN_BITS = 9;
     private static final int MAX_BITS = 12;
 
-    private static final int TABLE_SIZE = 1 << MAX_BITS;
+    // Hash table with twice as many slots as codes, to keep probe sequences short
+    private static final int HASH_BITS = MAX_BITS + 1;
+    private static final int HASH_MASK = (1 << HASH_BITS) - 1;
+
+    // Each slot holds the generation in the upper bits, and the key (prefix code << 8 | suffix byte) in the lower 20 bits
+    private static final int KEY_BITS = MAX_BITS + 8;
+    private static final int GENERATION_MASK = -1 << KEY_BITS;
+    private static final int GENERATION_INCREMENT = 1 << KEY_BITS;
 
-    // A child is made up of a parent (or prefix) code plus a suffix byte
-    // and siblings are strings with a common parent(or prefix) and different
-    // suffix bytes
-    private final short[] CHILDREN = new short[TABLE_SIZE];
-    private final short[] SIBLINGS = new short[TABLE_SIZE];
-    private final short[] SUFFIXES = new short[TABLE_SIZE];
+    private final int[] slots = new int[1 << HASH_BITS];
+    private final short[] codes = new short[1 << HASH_BITS];
+    private int generation = GENERATION_INCREMENT;
 
     // Initial setup
     private int parent = -1;
@@ -76,9 +78,13 @@ final class LZWEncoder implements Encoder {
     private int maxCode = maxValue(bitsPerCode);
 
     // Buffer for partial codes
-    private int bits = 0;
+    private long bits = 0;
     private int bitPos = 0;
 
+    // Buffer for encoded bytes, written to the stream in chunks
+    private final byte[] output = new byte[4096];
+    private int outputPos;
+
     // Keep track of how many bytes we will write, to make sure we write EOI at correct position
     private long remaining;
 
@@ -96,10 +102,12 @@ final class LZWEncoder implements Encoder {
             writeCode(stream, EOI_CODE);
 
             // Flush partial codes by writing 0 pad
-            if (bitPos > 0) {
+            if ((bitPos & 7) > 0) {
                 writeCode(stream, 0);
             }
         }
+
+        flushOutput(stream);
     }
 
     void encodeBytes(final OutputStream stream, final ByteBuffer buffer) throws IOException {
@@ -115,51 +123,43 @@ final class LZWEncoder implements Encoder {
             parent = buffer.get() & 0xff;
         }
 
-        while (buffer.hasRemaining()) {
-            int value = buffer.get() & 0xff;
-            int child = CHILDREN[parent];
+        byte[] array = buffer.hasArray() ? buffer.array() : null;
+        int offset = buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0;
+        int end = offset + buffer.remaining();
+
+        for (int i = offset; i < end; i++) {
+            int value = (array != null ? array[i] : buffer.get(buffer.position() + i)) & 0xff;
+            int key = parent << 8 | value;
+            int stamped = generation | key;
+            int slot = (key * 0x9E3779B1) >>> (32 - HASH_BITS);
+
+            while (true) {
+                int current = slots[slot];
 
-            if (child > 0) {
-                if (SUFFIXES[child] == value) {
-                    parent = child;
+                if (current == stamped) {
+                    // Found, continue with the longer string
+                    parent = codes[slot];
+                    break;
                 }
-                else {
-                    int sibling = child;
-
-                    while (true) {
-                        if (SIBLINGS[sibling] > 0) {
-                            sibling = SIBLINGS[sibling];
-
-                            if (SUFFIXES[sibling] == value) {
-                                parent = sibling;
-                                break;
-                            }
-                        }
-                        else {
-                            SIBLINGS[sibling] = (short) nextValidCode;
-                            SUFFIXES[nextValidCode] = (short) value;
-                            writeCode(stream, parent);
-                            parent = value;
-                            nextValidCode++;
-
-                            increaseCodeSizeOrResetIfNeeded(stream);
-
-                            break;
-                        }
-                    }
+                else if ((current & GENERATION_MASK) != generation) {
+                    // Empty slot (or stale, from a previous generation), add new string
+                    slots[slot] = stamped;
+                    codes[slot] = (short) nextValidCode;
+                    writeCode(stream, parent);
+                    parent = value;
+                    nextValidCode++;
+
+                    increaseCodeSizeOrResetIfNeeded(stream);
+
+                    break;
                 }
-            }
-            else {
-                CHILDREN[parent] = (short) nextValidCode;
-                SUFFIXES[nextValidCode] = (short) value;
-                writeCode(stream, parent);
-                parent = value;
-                nextValidCode++;
 
-                increaseCodeSizeOrResetIfNeeded(stream);
+                slot = (slot + 1) & HASH_MASK;
             }
         }
 
+        buffer.position(buffer.limit());
+
         remaining -= length;
     }
 
@@ -181,8 +181,14 @@ final class LZWEncoder implements Encoder {
     }
 
     private void resetTables() {
-        Arrays.fill(CHILDREN, (short) 0);
-        Arrays.fill(SIBLINGS, (short) 0);
+        // Start a new generation, making all existing entries stale
+        generation += GENERATION_INCREMENT;
+
+        if (generation == 0) {
+            // Generation wrapped around, we need to clear the table
+            Arrays.fill(slots, 0);
+            generation = GENERATION_INCREMENT;
+        }
 
         bitsPerCode = MIN_BITS;
         maxCode = maxValue(bitsPerCode);
@@ -190,25 +196,45 @@ final class LZWEncoder implements Encoder {
     }
 
     private void writeCode(final OutputStream stream, final int code) throws IOException {
-//        System.err.printf("LZWEncoder.writeCode: 0x%04x\n", code);
+        // NOTE: Bits above bitPos are discarded as we go, so no need to mask the accumulator
         bits = (bits << bitsPerCode) | (code & maxCode);
         bitPos += bitsPerCode;
 
+        if (bitPos >= 32) {
+            if (outputPos + 4 > output.length) {
+                stream.write(output, 0, outputPos);
+                outputPos = 0;
+            }
+
+            bitPos -= 32;
+            int word = (int) (bits >>> bitPos);
+
+            output[outputPos++] = (byte) (word >>> 24);
+            output[outputPos++] = (byte) (word >>> 16);
+            output[outputPos++] = (byte) (word >>> 8);
+            output[outputPos++] = (byte) word;
+        }
+    }
+
+    private void flushOutput(final OutputStream stream) throws IOException {
+        // Write all complete bytes, keep partial code bits for the next call
         while (bitPos >= 8) {
-            int b = (bits >> (bitPos - 8)) & 0xff;
-//            System.err.printf("write: 0x%02x\n", b);
-            stream.write(b);
+            if (outputPos == output.length) {
+                stream.write(output, 0, outputPos);
+                outputPos = 0;
+            }
+
             bitPos -= 8;
+            output[outputPos++] = (byte) (bits >>> bitPos);
         }
 
-        bits &= bitmaskFor(bitPos);
+        if (outputPos > 0) {
+            stream.write(output, 0, outputPos);
+            outputPos = 0;
+        }
     }
 
     private static int maxValue(final int codeLen) {
         return (1 << codeLen) - 1;
     }
-
-    private static int bitmaskFor(final int bits) {
-        return maxValue(bits);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.twelvemonkeys.imageio.plugins.tiff;
+
+import javax.imageio.ImageReadParam;
+import java.util.concurrent.Executor;
+
+/**
+ * TIFFImageReadParam.
+ * <p>
+ * Allows decoding independent strips or tiles concurrently, by setting an {@link Executor}.
+ * The result will be identical to reading with the default, sequential, settings.
+ * Concurrent decoding currently applies to chunky (interleaved) images, using
+ * PackBits, LZW, Deflate or CCITT compression, with known strip/tile byte counts.
+ * Other images are decoded sequentially, on the calling thread.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: TIFFImageReadParam.java,v 1.0 16.10.2026 haraldk Exp$
+ */
+public final class TIFFImageReadParam extends ImageReadParam {
+    private Executor executor;
+
+    /**
+     * Returns the executor used for concurrent decoding of strips or tiles,
+     * or {@code null} if strips or tiles are decoded sequentially.
+     *
+     * @return the executor, or {@code null}.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used for concurrent decoding of strips or tiles.
+     * The executor is not shut down by the reader.
+     *
+     * @param executor the executor, or {@code null} to decode sequentially on the calling thread (the default).
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+}
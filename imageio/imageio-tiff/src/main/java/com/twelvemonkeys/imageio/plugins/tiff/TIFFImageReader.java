@@ -36,7 +36,6 @@ import com.twelvemonkeys.imageio.color.CIELabColorConverter.Illuminant;
 import com.twelvemonkeys.imageio.color.ColorProfiles;
 import com.twelvemonkeys.imageio.color.ColorSpaces;
 import com.twelvemonkeys.imageio.color.YCbCrConverter;
-import com.twelvemonkeys.imageio.metadata.CompoundDirectory;
 import com.twelvemonkeys.imageio.metadata.Directory;
 import com.twelvemonkeys.imageio.metadata.Entry;
 import com.twelvemonkeys.imageio.metadata.iptc.IPTCReader;
@@ -44,8 +43,10 @@ import com.twelvemonkeys.imageio.metadata.jpeg.JPEG;
 import com.twelvemonkeys.imageio.metadata.psd.PSD;
 import com.twelvemonkeys.imageio.metadata.psd.PSDReader;
 import com.twelvemonkeys.imageio.metadata.tiff.Half;
+import com.twelvemonkeys.imageio.metadata.tiff.LazyTIFFDirectory;
 import com.twelvemonkeys.imageio.metadata.tiff.Rational;
 import com.twelvemonkeys.imageio.metadata.tiff.TIFF;
+import com.twelvemonkeys.imageio.metadata.tiff.TIFFEntry;
 import com.twelvemonkeys.imageio.metadata.tiff.TIFFReader;
 import com.twelvemonkeys.imageio.metadata.xmp.XMPReader;
 import com.twelvemonkeys.imageio.stream.ByteArrayImageInputStream;
@@ -83,16 +84,25 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.zip.InflaterInputStream;
 
 import static com.twelvemonkeys.imageio.util.IIOUtil.createStreamAdapter;
@@ -172,7 +182,7 @@ public final class TIFFImageReader extends ImageReaderBase {
     static final double[] CCIR_601_1_COEFFICIENTS = new double[] {299.0 / 1000.0, 587.0 / 1000.0, 114.0 / 1000.0};
     static final double[] REFERENCE_BLACK_WHITE_YCC_DEFAULT = new double[] {0, 255, 128, 255, 128, 255};
 
-    private CompoundDirectory IFDs;
+    private LazyTIFFDirectory IFDs;
     private Directory currentIFD;
     private int overrideCCITTCompression = -1;
 
@@ -193,7 +203,8 @@ public final class TIFFImageReader extends ImageReaderBase {
         }
 
         if (IFDs == null) {
-            IFDs = (CompoundDirectory) new TIFFReader().read(imageInput); // NOTE: Sets byte order as a side effect
+            // IFDs are read on demand, to make reading the first pages of large multipage documents fast
+            IFDs = new TIFFReader().readLazy(imageInput); // NOTE: Sets byte order as a side effect
 
             if (DEBUG) {
                 System.err.println("Byte order: " + imageInput.getByteOrder());
@@ -388,7 +399,14 @@ public final class TIFFImageReader extends ImageReaderBase {
     private void readIFD(final int imageIndex) throws IOException {
         readMetadata();
         checkBounds(imageIndex);
-        currentIFD = IFDs.getDirectory(imageIndex);
+
+        try {
+            currentIFD = IFDs.getDirectory(imageIndex);
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
         overrideCCITTCompression = -1; // Reset override for next image
     }
 
@@ -396,7 +414,17 @@ public final class TIFFImageReader extends ImageReaderBase {
     public int getNumImages(final boolean allowSearch) throws IOException {
         readMetadata();
 
-        return IFDs.directoryCount();
+        if (!allowSearch && !IFDs.isCountKnown()) {
+            // Counting requires following the remaining links of the IFDs
+            return -1;
+        }
+
+        try {
+            return IFDs.directoryCount();
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     private Number getValueAsNumberWithDefault(final int tag, final String tagName, final Number defaultValue) throws IIOException {
@@ -1096,6 +1124,17 @@ public final class TIFFImageReader extends ImageReaderBase {
                 boolean needsAdapter = compression != TIFFBaseline.COMPRESSION_NONE || fillOrder != TIFFBaseline.FILL_LEFT_TO_RIGHT
                         || interpretation == TIFFExtension.PHOTOMETRIC_YCBCR || needsBitPadding;
 
+                Executor executor = param instanceof TIFFImageReadParam ? ((TIFFImageReadParam) param).getExecutor() : null;
+
+                if (executor != null && canDecodeConcurrently(needsAdapter, bands, stripTileByteCounts, tilesAcross, destRaster)) {
+                    readStripTilesConcurrently(executor, param, rawType, destRaster, rowRaster, srcRegion, xSub, ySub,
+                            stripTileOffsets, stripTileByteCounts, stripTileWidth, stripTileHeight, tilesAcross, tilesDown,
+                            width, height, fillOrder, compression, predictor, interpretation, samplesInTile, bitsPerSample,
+                            needsBitPadding, yCbCrSubsampling, yCbCrPos, normalize);
+
+                    break;
+                }
+
                 for (int y = 0; y < tilesDown; y++) {
                     int col = 0;
                     int rowsInTile = Math.min(stripTileHeight, height - srcRow);
@@ -1130,36 +1169,16 @@ public final class TIFFImageReader extends ImageReaderBase {
                                                       ? createStreamAdapter(imageInput, stripTileByteCounts[i])
                                                       : createStreamAdapter(imageInput);
 
-                                adapter = createFillOrderStream(fillOrder, adapter);
-
-                                // For subsampled planar, the compressed data will not be full width
-                                int compressedStripTileWidth = planarConfiguration == TIFFExtension.PLANARCONFIG_PLANAR && b > 0 && yCbCrSubsampling != null
-                                                               ? ((stripTileWidth + yCbCrSubsampling[0] - 1) / yCbCrSubsampling[0])
-                                                               : stripTileWidth;
-                                adapter = createDecompressorStream(compression, compressedStripTileWidth, stripTileHeight, samplesInTile, adapter);
-                                adapter = createUnpredictorStream(predictor, compressedStripTileWidth, samplesInTile, bitsPerSample, adapter, imageInput.getByteOrder());
-                                adapter = createYCbCrUpsamplerStream(interpretation, planarConfiguration, b, rowRaster.getTransferType(), yCbCrSubsampling, yCbCrPos, colsInTile, adapter, imageInput.getByteOrder());
-
-                                if (needsBitPadding) {
-                                    // We'll pad "odd" bitsPerSample streams to the smallest data type (byte/short/int) larger than the input
-                                    adapter = bitsPerSample < 8
-                                              ? new BitPaddingStream(adapter, 1, samplesInTile * bitsPerSample, colsInTile, imageInput.getByteOrder())
-                                              : new BitPaddingStream(adapter, samplesInTile, bitsPerSample, colsInTile, imageInput.getByteOrder());
-                                }
-
                                 // According to the spec, short/long/etc should follow order of containing stream
-                                input = new DirectImageInputStream(adapter);
+                                input = new DirectImageInputStream(createStripTileDecodingStream(
+                                        adapter, fillOrder, compression, predictor, interpretation, planarConfiguration, b,
+                                        rowRaster.getTransferType(), stripTileWidth, stripTileHeight, colsInTile, samplesInTile,
+                                        bitsPerSample, needsBitPadding, yCbCrSubsampling, yCbCrPos
+                                ));
                             }
 
                             try (ImageInputStream stream = input) {
-                                // Temporary set byte order to match the color model for USHORT_4444/555/565/etc...
-                                if (rawType.getColorModel() instanceof DirectColorModel && rawType.getColorModel().getTransferType() == DataBuffer.TYPE_USHORT) {
-                                    stream.setByteOrder(ByteOrder.BIG_ENDIAN);
-                                }
-                                else {
-                                    // ...otherwise keep the order from the parent stream
-                                    stream.setByteOrder(imageInput.getByteOrder());
-                                }
+                                setStripTileByteOrder(stream, rawType);
 
                                 // Read a full strip/tile
                                 readStripTileData(clippedRow, srcRegion, xSub, ySub, b, samplesInTile, interpretation, destRaster, col, srcRow, colsInTile, rowsInTile, input, normalize);
@@ -1642,6 +1661,223 @@ public final class TIFFImageReader extends ImageReaderBase {
         return destination;
     }
 
+    private InputStream createStripTileDecodingStream(InputStream adapter, final int fillOrder, final int compression, final int predictor,
+                                                      final int interpretation, final int planarConfiguration, final int band, final int transferType,
+                                                      final int stripTileWidth, final int stripTileHeight, final int colsInTile, final int samplesInTile,
+                                                      final int bitsPerSample, final boolean needsBitPadding, final int[] yCbCrSubsampling, final int yCbCrPos)
+            throws IOException {
+        ByteOrder byteOrder = imageInput.getByteOrder();
+
+        adapter = createFillOrderStream(fillOrder, adapter);
+
+        // For subsampled planar, the compressed data will not be full width
+        int compressedStripTileWidth = planarConfiguration == TIFFExtension.PLANARCONFIG_PLANAR && band > 0 && yCbCrSubsampling != null
+                                       ? ((stripTileWidth + yCbCrSubsampling[0] - 1) / yCbCrSubsampling[0])
+                                       : stripTileWidth;
+        adapter = createDecompressorStream(compression, compressedStripTileWidth, stripTileHeight, samplesInTile, adapter);
+        adapter = createUnpredictorStream(predictor, compressedStripTileWidth, samplesInTile, bitsPerSample, adapter, byteOrder);
+        adapter = createYCbCrUpsamplerStream(interpretation, planarConfiguration, band, transferType, yCbCrSubsampling, yCbCrPos, colsInTile, adapter, byteOrder);
+
+        if (needsBitPadding) {
+            // We'll pad "odd" bitsPerSample streams to the smallest data type (byte/short/int) larger than the input
+            adapter = bitsPerSample < 8
+                      ? new BitPaddingStream(adapter, 1, samplesInTile * bitsPerSample, colsInTile, byteOrder)
+                      : new BitPaddingStream(adapter, samplesInTile, bitsPerSample, colsInTile, byteOrder);
+        }
+
+        return adapter;
+    }
+
+    private void setStripTileByteOrder(final ImageInputStream stream, final ImageTypeSpecifier rawType) {
+        // Temporary set byte order to match the color model for USHORT_4444/555/565/etc...
+        if (rawType.getColorModel() instanceof DirectColorModel && rawType.getColorModel().getTransferType() == DataBuffer.TYPE_USHORT) {
+            stream.setByteOrder(ByteOrder.BIG_ENDIAN);
+        }
+        else {
+            // ...otherwise keep the order from the parent stream
+            stream.setByteOrder(imageInput.getByteOrder());
+        }
+    }
+
+    private boolean canDecodeConcurrently(final boolean needsAdapter, final int bands, final long[] stripTileByteCounts,
+                                          final int tilesAcross, final WritableRaster destRaster) {
+        if (!needsAdapter) {
+            // Reading uncompressed data is bound by I/O, nothing to gain
+            return false;
+        }
+        if (bands != 1 || stripTileByteCounts == null) {
+            // Planar data needs normalization after all bands are read,
+            // and without byte counts, we can't tell where a strip/tile ends until it's decoded
+            return false;
+        }
+
+        for (long byteCount : stripTileByteCounts) {
+            if (byteCount > Integer.MAX_VALUE - 8) {
+                return false;
+            }
+        }
+
+        // Tiles side by side in a packed raster may share bytes at the tile boundaries
+        return tilesAcross == 1 || !(destRaster.getSampleModel() instanceof MultiPixelPackedSampleModel);
+    }
+
+    private void readStripTilesConcurrently(final Executor executor, final ImageReadParam param, final ImageTypeSpecifier rawType,
+                                            final WritableRaster destRaster, final WritableRaster rowRaster,
+                                            final Rectangle srcRegion, final int xSub, final int ySub,
+                                            final long[] stripTileOffsets, final long[] stripTileByteCounts,
+                                            final int stripTileWidth, final int stripTileHeight, final int tilesAcross, final int tilesDown,
+                                            final int width, final int height, final int fillOrder, final int compression,
+                                            final int predictor, final int interpretation, final int samplesInTile, final int bitsPerSample,
+                                            final boolean needsBitPadding, final int[] yCbCrSubsampling, final int yCbCrPos,
+                                            final boolean normalize)
+            throws IOException {
+        // The compressed data is read sequentially on the calling thread, while decoding happens on the executor.
+        // We'll limit the number of pending strips/tiles, to keep the amount of compressed data in memory bounded.
+        int maxPending = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        Deque<FutureTask<Void>> pending = new ArrayDeque<>(maxPending);
+
+        int tilesDone = 0;
+
+        try {
+            int srcRow = 0;
+
+            for (int y = 0; y < tilesDown && !abortRequested(); y++) {
+                int col = 0;
+                final int rowsInTile = Math.min(stripTileHeight, height - srcRow);
+
+                for (int x = 0; x < tilesAcross && !abortRequested(); x++) {
+                    final int colsInTile = Math.min(stripTileWidth, width - col);
+                    int i = y * tilesAcross + x;
+
+                    // Strips/tiles completely outside the source region will not contribute to the result
+                    if (srcRow < srcRegion.y + srcRegion.height && srcRow + rowsInTile > srcRegion.y) {
+                        imageInput.seek(stripTileOffsets[i]);
+
+                        // Like the stream adapter, we'll allow the last strip/tile to be truncated
+                        byte[] data = new byte[(int) stripTileByteCounts[i]];
+                        int length = readAsMuchAsPossible(data);
+
+                        // NOTE: Decoding streams are created here, as creating them may have side effects (ie. CCITT type detection)
+                        final ImageInputStream input = new DirectImageInputStream(createStripTileDecodingStream(
+                                new ByteArrayInputStream(data, 0, length), fillOrder, compression, predictor, interpretation,
+                                TIFFBaseline.PLANARCONFIG_CHUNKY, 0, rowRaster.getTransferType(), stripTileWidth, stripTileHeight,
+                                colsInTile, samplesInTile, bitsPerSample, needsBitPadding, yCbCrSubsampling, yCbCrPos
+                        ));
+                        setStripTileByteOrder(input, rawType);
+
+                        final int startCol = col;
+                        final int startRow = srcRow;
+
+                        FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+                            @Override
+                            public Void call() throws IOException {
+                                // Each task needs its own row buffer
+                                WritableRaster taskRowRaster = rowRaster.createCompatibleWritableRaster();
+
+                                Rectangle clip = new Rectangle(srcRegion);
+                                clip.width = Math.min(colsInTile, srcRegion.width);
+                                Raster clippedRow = clipRowToRect(taskRowRaster, clip, param.getSourceBands(), xSub);
+
+                                try (ImageInputStream stream = input) {
+                                    readStripTileData(clippedRow, srcRegion, xSub, ySub, 0, samplesInTile, interpretation, destRaster,
+                                            startCol, startRow, colsInTile, rowsInTile, stream, normalize);
+                                }
+
+                                return null;
+                            }
+                        });
+
+                        if (pending.size() >= maxPending) {
+                            awaitStripTile(pending.removeFirst());
+                            processImageProgress(100f * ++tilesDone / (tilesDown * tilesAcross));
+                        }
+
+                        pending.addLast(task);
+
+                        try {
+                            executor.execute(task);
+                        }
+                        catch (RejectedExecutionException e) {
+                            // Executor is saturated or shut down, just do the work ourselves
+                            task.run();
+                        }
+                    }
+                    else {
+                        tilesDone++;
+                    }
+
+                    col += colsInTile;
+                }
+
+                srcRow += rowsInTile;
+            }
+
+            while (!pending.isEmpty()) {
+                awaitStripTile(pending.removeFirst());
+                processImageProgress(100f * ++tilesDone / (tilesDown * tilesAcross));
+            }
+        }
+        finally {
+            // In case of errors, make sure no task is still writing to the destination when we return
+            for (FutureTask<Void> task : pending) {
+                try {
+                    task.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException ignore) {
+                    // The first exception is already propagating
+                }
+            }
+        }
+
+        if (abortRequested()) {
+            processReadAborted();
+        }
+    }
+
+    private int readAsMuchAsPossible(final byte[] data) throws IOException {
+        int length = 0;
+
+        while (length < data.length) {
+            int read = imageInput.read(data, length, data.length - length);
+
+            if (read < 0) {
+                break;
+            }
+
+            length += read;
+        }
+
+        return length;
+    }
+
+    private void awaitStripTile(final Future<Void> task) throws IOException {
+        try {
+            task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IIOException("Interrupted while decoding TIFF strip/tile", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IIOException("Could not decode TIFF strip/tile", cause);
+        }
+    }
+
     private InputStream createYCbCrUpsamplerStream(int photometricInterpretation, int planarConfiguration, int plane, int transferType,
                                                    int[] yCbCrSubsampling, int yCbCrPos, int colsInTile, InputStream stream, ByteOrder byteOrder) {
         if (photometricInterpretation == TIFFExtension.PHOTOMETRIC_YCBCR) {
@@ -2595,7 +2831,25 @@ public final class TIFFImageReader extends ImageReaderBase {
 
         long[] value;
 
-        if (entry.valueCount() == 1) {
+        if (entry.valueCount() > 1 && entry.getValue() instanceof long[]) {
+            // Unsigned LONG and LONG8 arrays, like large StripOffsets/TileOffsets, are used as is
+            value = (long[]) entry.getValue();
+        }
+        else if (entry instanceof TIFFEntry) {
+            // Indexed access, without boxing, also handles unsigned types correctly
+            TIFFEntry tiffEntry = (TIFFEntry) entry;
+            value = new long[tiffEntry.valueCount()];
+
+            try {
+                for (int i = 0, length = value.length; i < length; i++) {
+                    value[i] = tiffEntry.getValueAsLong(i);
+                }
+            }
+            catch (UnsupportedOperationException e) {
+                throw new IIOException(String.format("Unsupported %s type: %s (%s)", tagName, entry.getTypeName(), entry.getValue().getClass()));
+            }
+        }
+        else if (entry.valueCount() == 1) {
             // For single entries, this will be a boxed type
             value = new long[] {((Number) entry.getValue()).longValue()};
         }
@@ -2691,6 +2945,11 @@ public final class TIFFImageReader extends ImageReaderBase {
         return null;
     }
 
+    @Override
+    public ImageReadParam getDefaultReadParam() {
+        return new TIFFImageReadParam();
+    }
+
     @Override
     public boolean canReadRaster() {
         return true;
@@ -35,6 +35,7 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.*;
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -369,6 +370,58 @@ public class CCITTFaxDecoderStreamTest {
         new DataInputStream(stream).readFully(bytes);
     }
 
+    @Test
+    public void testDecodeFullWidthRows() throws IOException {
+        // A4 width at 300 DPI, mix of long (make-up code) and short runs, large enough to span multiple input chunks
+        int columns = 2480;
+        int rows = 200;
+        int stride = (columns + 7) / 8;
+
+        byte[] data = new byte[stride * rows];
+        Random random = new Random(2480);
+
+        for (int y = 0; y < rows; y++) {
+            int x = 0;
+            boolean black = false;
+
+            while (x < columns) {
+                int run = y % 4 == 0 ? random.nextInt(columns) : random.nextInt(y % 3 == 0 ? 80 : 8);
+                int end = Math.min(columns, x + run);
+
+                for (; black && x < end; x++) {
+                    data[y * stride + x / 8] |= (byte) (0x80 >> (x % 8));
+                }
+
+                x = end;
+                black = !black;
+            }
+        }
+
+        long[][] typesAndOptions = {
+                {TIFFBaseline.COMPRESSION_CCITT_MODIFIED_HUFFMAN_RLE, 0L},
+                {TIFFExtension.COMPRESSION_CCITT_T4, 0L},
+                {TIFFExtension.COMPRESSION_CCITT_T4, TIFFExtension.GROUP3OPT_2DENCODING | TIFFExtension.GROUP3OPT_FILLBITS},
+                {TIFFExtension.COMPRESSION_CCITT_T6, 0L}
+        };
+
+        for (long[] typeAndOptions : typesAndOptions) {
+            int type = (int) typeAndOptions[0];
+
+            ByteArrayOutputStream imageOutput = new ByteArrayOutputStream();
+            try (OutputStream outputSteam = new CCITTFaxEncoderStream(imageOutput, columns, rows, type, 1, typeAndOptions[1])) {
+                outputSteam.write(data);
+            }
+
+            InputStream stream = new CCITTFaxDecoderStream(new ByteArrayInputStream(imageOutput.toByteArray()), columns,
+                    type, typeAndOptions[1]);
+
+            byte[] bytes = new byte[data.length];
+            new DataInputStream(stream).readFully(bytes);
+            assertArrayEquals(data, bytes, "type: " + type);
+            assertEquals(-1, stream.read(), "type: " + type);
+        }
+    }
+
     @SuppressWarnings("StatementWithEmptyBody")
     @Test
     public void testAIOBEInCorruptStreamShouldThrowIOException() throws IOException {
@@ -85,6 +85,28 @@ public class LZWDecoderTest extends DecoderAbstractTest {
         assertSameStreamContents(unpacked, stream);
     }
 
+    @Test
+    public void testLongStreamDirectBuffer() throws IOException {
+        byte[] expected = FileUtil.read(getClass().getResourceAsStream("/lzw/unpacked-long.bin"));
+
+        Decoder decoder = LZWDecoder.create(false);
+        InputStream stream = getClass().getResourceAsStream("/lzw/lzw-long.bin");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+
+        while (decoder.decode(stream, buffer) > 0) {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                actual.write(buffer.get());
+            }
+
+            buffer.clear();
+        }
+
+        assertArrayEquals(expected, actual.toByteArray());
+    }
+
     @Test
     public void testTableOverflowDoesNotWritePastTable() throws IOException {
         // A stream that keeps extending the dictionary without ever emitting a CLEAR code
@@ -31,10 +31,13 @@
 package com.twelvemonkeys.imageio.plugins.tiff;
 
 import com.twelvemonkeys.io.FastByteArrayOutputStream;
+import com.twelvemonkeys.io.FileUtil;
 import com.twelvemonkeys.io.enc.Decoder;
+import com.twelvemonkeys.io.enc.DecoderStream;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.time.Duration;
@@ -176,6 +179,56 @@ public class LZWEncoderTest {
         assertEquals(-1, inputStream.read());
     }
 
+    @Test
+    public void testEncodeDecodeLargeWithTableResets() throws IOException {
+        // Large enough for the table to fill up and reset (CLEAR) many times
+        byte[] bytes = new byte[1 << 20];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((i % 3000) / 12 + random.nextInt(8));
+        }
+
+        FastByteArrayOutputStream stream = new FastByteArrayOutputStream(bytes.length);
+        new LZWEncoder(bytes.length).encode(stream, ByteBuffer.wrap(bytes));
+
+        InputStream decoded = new DecoderStream(stream.createInputStream(), LZWDecoder.create(false), 1024);
+        byte[] actual = FileUtil.read(decoded);
+
+        assertArrayEquals(bytes, actual);
+    }
+
+    @Test
+    public void testEncodeChunkedSameOutput() throws IOException {
+        byte[] bytes = new byte[20000];
+        random.nextBytes(bytes);
+
+        for (int i = 0; i < bytes.length / 2; i++) {
+            bytes[i] = (byte) (i / 100);
+        }
+
+        FastByteArrayOutputStream expected = new FastByteArrayOutputStream(bytes.length);
+        new LZWEncoder(bytes.length).encode(expected, ByteBuffer.wrap(bytes));
+
+        for (int chunk : new int[] {1, 3, 1000}) {
+            for (boolean direct : new boolean[] {false, true}) {
+                FastByteArrayOutputStream actual = new FastByteArrayOutputStream(bytes.length);
+                LZWEncoder encoder = new LZWEncoder(bytes.length);
+
+                for (int offset = 0; offset < bytes.length; offset += chunk) {
+                    int length = Math.min(chunk, bytes.length - offset);
+                    ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+                    buffer.put(bytes, offset, length);
+                    buffer.flip();
+
+                    encoder.encode(actual, buffer);
+                    assertFalse(buffer.hasRemaining());
+                }
+
+                assertArrayEquals(expected.toByteArray(), actual.toByteArray(), String.format("chunk: %d, direct: %s", chunk, direct));
+            }
+        }
+    }
+
     @Disabled
     @Test
     public void testSpeed() throws IOException {
@@ -49,6 +49,8 @@ import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.containsString;
@@ -387,6 +389,35 @@ public class TIFFImageReaderTest extends ImageReaderAbstractTest<TIFFImageReader
         }
     }
 
+    @Test
+    public void testGetNumImagesNoSearchKnownAfterLastIFD() throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/tiff/fivepages-scan-causingerrors.tif"))) {
+            TIFFImageReader reader = createReader();
+            reader.setInput(stream);
+
+            // Links to the following IFDs are not yet read
+            assertEquals(-1, reader.getNumImages(false));
+            assertEquals(2480, reader.getWidth(0));
+            assertEquals(-1, reader.getNumImages(false));
+
+            // Reaching the last IFD makes the count known
+            assertEquals(2484, reader.getWidth(4));
+            assertEquals(5, reader.getNumImages(false));
+            assertEquals(5, reader.getNumImages(true));
+        }
+    }
+
+    @Test
+    public void testGetNumImagesNoSearchKnownAfterSearch() throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/tiff/fivepages-scan-causingerrors.tif"))) {
+            TIFFImageReader reader = createReader();
+            reader.setInput(stream);
+
+            assertEquals(5, reader.getNumImages(true));
+            assertEquals(5, reader.getNumImages(false));
+        }
+    }
+
     @Test
     public void testReadIncompatibleICCProfileIgnoredWithWarning() throws IOException {
         TestData testData = new TestData(getClassLoaderResource("/tiff/rgb-with-embedded-cmyk-icc.tif"), new Dimension(1500, 1500));
@@ -1036,4 +1067,74 @@ public class TIFFImageReaderTest extends ImageReaderAbstractTest<TIFFImageReader
             }
         }
     }
+
+    @Test
+    public void testReadConcurrentEqualsSequential() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            TIFFImageReader reader = createReader();
+
+            for (TestData data : getTestData()) {
+                reader.setInput(data.getInputStream());
+
+                for (int i = 0; i < data.getImageCount(); i++) {
+                    BufferedImage expected = reader.read(i, null);
+
+                    TIFFImageReadParam param = (TIFFImageReadParam) reader.getDefaultReadParam();
+                    param.setExecutor(executor);
+                    BufferedImage actual = reader.read(i, param);
+
+                    assertImageDataEquals(String.format("Image %s index %s differs", data.getInput(), i), expected, actual);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadConcurrentEqualsSequentialSourceRegion() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/tiff/quad-lzw.tif"))) {
+            TIFFImageReader reader = createReader();
+            reader.setInput(stream);
+
+            ImageReadParam expectedParam = reader.getDefaultReadParam();
+            expectedParam.setSourceRegion(new Rectangle(13, 17, 400, 300));
+            BufferedImage expected = reader.read(0, expectedParam);
+
+            TIFFImageReadParam param = (TIFFImageReadParam) reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(13, 17, 400, 300));
+            param.setExecutor(executor);
+            BufferedImage actual = reader.read(0, param);
+
+            assertImageDataEquals("Images differ", expected, actual);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadConcurrentRejected() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        executor.shutdown();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/tiff/quad-lzw.tif"))) {
+            TIFFImageReader reader = createReader();
+            reader.setInput(stream);
+
+            BufferedImage expected = reader.read(0, null);
+
+            // Rejected strips/tiles are decoded in the calling thread
+            TIFFImageReadParam param = (TIFFImageReadParam) reader.getDefaultReadParam();
+            param.setExecutor(executor);
+            BufferedImage actual = reader.read(0, param);
+
+            assertImageDataEquals("Images differ", expected, actual);
+        }
+    }
 }
@@ -32,7 +32,6 @@
 package com.twelvemonkeys.imageio.plugins.webp;
 
 import javax.imageio.stream.ImageInputStream;
-import java.io.EOFException;
 import java.io.IOException;
 
 import static com.twelvemonkeys.lang.Validate.notNull;
@@ -46,15 +45,30 @@ import static com.twelvemonkeys.lang.Validate.notNull;
 public final class LSBBitReader {
     // TODO: Consider creating an ImageInputStream wrapper with the WebP implementation of readBit(s)?
 
+    private static final int CHUNK_SIZE = 4096;
+
     private final ImageInputStream imageInput;
-    private int bitOffset = 64;
-    private long streamPosition = -1;
+
+    /**
+     * Bytes read ahead from the stream, not yet shifted into the buffer.
+     */
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkPos;
+    private int chunkLength;
+    private long chunkStart = -1; // Stream position of chunk[0]
+    private int padding; // Number of zero bytes shifted into the buffer past the end of the stream
 
     /**
      * Pre-buffers up to the next 8 Bytes in input.
      * Contains valid bits in bits 63 to {@code bitOffset} (inclusive).
      */
     private long buffer;
+    private int bitOffset = 64;
+
+    /**
+     * The position we last left the underlying stream at, used to detect reads from the stream in the meantime.
+     */
+    private long streamPosition = -1;
 
     public LSBBitReader(ImageInputStream imageInput) {
         this.imageInput = notNull(imageInput);
@@ -94,25 +108,63 @@ public final class LSBBitReader {
         return readBits(bits, true);
     }
 
+    /**
+     * Returns the buffered bits in an LSB-first way, with at least the lowest 32 bits valid.
+     * Does not advance the bitOffset, use {@link #skipBits(int)} to consume the bits used.
+     * <p>
+     * Unlike {@link #readBits(int)} and {@link #peekBits(int)} this method does not keep the underlying stream
+     * in sync with the read bits, and will not detect reads from the stream in the meantime.
+     * It is intended for decoding loops that read only through this reader. The next call to
+     * {@code readBits} or {@code peekBits} will restore the stream position.
+     *
+     * @return the buffered bits, the lowest 32 bits valid
+     * @throws IOException if an I/O error occurs
+     * @see LSBBitReader#skipBits
+     */
+    public long prefetchBits() throws IOException {
+        if (bitOffset >= 32) {
+            if (chunkStart < 0) {
+                resetBuffer();
+            }
+
+            fillBuffer();
+        }
+
+        return buffer >>> bitOffset;
+    }
+
+    /**
+     * Consumes the specified number of bits, previously returned from {@link #prefetchBits()}.
+     *
+     * @param bits the number of bits to consume (max 32)
+     * @see LSBBitReader#prefetchBits
+     */
+    public void skipBits(int bits) {
+        bitOffset += bits;
+    }
+
     private long readBits(int bits, boolean peek) throws IOException {
         if (bits <= 56) {
             // Could eliminate if we never read from the underlying InputStream
             // outside this class after the object is created
-            if (streamPosition != imageInput.getStreamPosition()) {
+            if (chunkStart < 0 || streamPosition != imageInput.getStreamPosition()) {
                 // Need to reset buffer as stream was read in the meantime
                 resetBuffer();
             }
 
+            if (bitOffset >= 8) {
+                fillBuffer();
+            }
+
             long ret = (buffer >>> bitOffset) & ((1L << bits) - 1);
 
             if (!peek) {
                 bitOffset += bits;
-
-                if (bitOffset >= 8) {
-                    refillBuffer();
-                }
             }
 
+            // Set to stream position consistent with returned bits
+            syncStreamPosition();
+
             return ret;
         }
         else {
@@ -122,44 +174,64 @@ public final class LSBBitReader {
         }
     }
 
-    private void refillBuffer() throws IOException {
-        // Set to stream position consistent with buffered bytes
-        imageInput.readLong(); // Don't replace with skipBytes(8) or seek(+8), this will invalidate stream buffer... TODO: Fix streams to cope...
+    private void fillBuffer() throws IOException {
+        // Shift in whole ints while we can
+        while (bitOffset >= 32 && chunkPos + 4 <= chunkLength) {
+            long value = (chunk[chunkPos] & 0xff) | (chunk[chunkPos + 1] & 0xff) << 8
+                    | (chunk[chunkPos + 2] & 0xff) << 16 | (long) (chunk[chunkPos + 3] & 0xff) << 24;
+            buffer = value << 32 | buffer >>> 32;
+            chunkPos += 4;
+            bitOffset -= 32;
+        }
 
         for (; bitOffset >= 8; bitOffset -= 8) {
-            try {
-                byte b = imageInput.readByte();
-                buffer = ((long) b << 56) | buffer >>> 8;
-                streamPosition++;
+            if (chunkPos == chunkLength && !readChunk()) {
+                // End of stream, shift in zeros
+                buffer >>>= 8;
+                padding++;
             }
-            catch (EOFException e) {
-                imageInput.seek(streamPosition);
-                return;
+            else {
+                buffer = ((long) chunk[chunkPos++] << 56) | buffer >>> 8;
             }
         }
-
-        // Reset to guarantee stream position consistent with returned bytes
-        // Would not need to do this seeking around when the underlying ImageInputStream is never read from outside
-        // this class after the object is created.
-        imageInput.seek(streamPosition);
     }
 
-    private void resetBuffer() throws IOException {
-        long inputStreamPosition = imageInput.getStreamPosition();
+    private boolean readChunk() throws IOException {
+        long position = chunkStart + chunkLength;
 
-        try {
-            buffer = imageInput.readLong();
-            bitOffset = 0;
-            streamPosition = inputStreamPosition;
-            imageInput.seek(inputStreamPosition);
+        if (streamPosition != position) {
+            imageInput.seek(position);
         }
-        catch (EOFException e) {
-            // Retry byte by byte
-            streamPosition = inputStreamPosition - 8;
-            bitOffset = 64;
-            refillBuffer();
+
+        int read = imageInput.read(chunk, 0, chunk.length);
+
+        chunkStart = position;
+        chunkPos = 0;
+        chunkLength = Math.max(read, 0);
+        streamPosition = position + chunkLength;
+
+        return chunkLength > 0;
+    }
+
+    private void syncStreamPosition() throws IOException {
+        // The first not (completely) read byte, but never past the end of the stream
+        long position = Math.min(chunkStart + chunkPos + padding - 8 + (bitOffset >>> 3), chunkStart + chunkLength);
+
+        if (position != streamPosition) {
+            imageInput.seek(position);
+            streamPosition = position;
         }
+    }
 
+    private void resetBuffer() throws IOException {
+        chunkStart = imageInput.getStreamPosition();
+        chunkPos = 0;
+        chunkLength = 0;
+        padding = 0;
+        streamPosition = chunkStart;
+
+        buffer = 0;
+        bitOffset = 64;
     }
 
     // Left for backwards compatibility / Compatibility with ImageInputStream interface
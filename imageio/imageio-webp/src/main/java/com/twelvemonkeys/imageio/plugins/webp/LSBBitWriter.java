@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp;
+
+import javax.imageio.stream.ImageOutputStream;
+import java.io.IOException;
+
+import static com.twelvemonkeys.lang.Validate.notNull;
+
+/**
+ * LSBBitWriter.
+ * <p>
+ * The writing counterpart of {@link LSBBitReader}, writes bits to the stream in an LSB-first way.
+ * Bytes are buffered, and only written to the underlying stream once a chunk is full, or on {@link #flush()}.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: LSBBitWriter.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public final class LSBBitWriter {
+    private static final int CHUNK_SIZE = 4096;
+
+    private final ImageOutputStream imageOutput;
+
+    /**
+     * Bytes not yet written to the stream.
+     */
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkPos;
+
+    /**
+     * Bits not yet written to the chunk, valid bits in bits 0 to {@code bitCount - 1}.
+     */
+    private long buffer;
+    private int bitCount;
+
+    public LSBBitWriter(final ImageOutputStream imageOutput) {
+        this.imageOutput = notNull(imageOutput);
+    }
+
+    /**
+     * Writes a single bit.
+     *
+     * @param bit the bit to write, only the lowest bit is used.
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeBit(final int bit) throws IOException {
+        writeBits(bit, 1);
+    }
+
+    /**
+     * Writes the lowest {@code bits} bits of {@code value} in an LSB-first way.
+     *
+     * @param value the value to write
+     * @param bits the number of bits to write (max 56)
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeBits(final long value, final int bits) throws IOException {
+        if (bits > 56) {
+            throw new IllegalArgumentException("Tried writing over 56");
+        }
+
+        buffer |= (value & ((1L << bits) - 1)) << bitCount;
+        bitCount += bits;
+
+        while (bitCount >= 8) {
+            chunk[chunkPos++] = (byte) buffer;
+            buffer >>>= 8;
+            bitCount -= 8;
+
+            if (chunkPos == CHUNK_SIZE) {
+                writeChunk();
+            }
+        }
+    }
+
+    /**
+     * Pads the written bits with zeros up to the next byte boundary, and writes all buffered bytes to the stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        if (bitCount > 0) {
+            writeBits(0, 8 - bitCount);
+        }
+
+        writeChunk();
+    }
+
+    private void writeChunk() throws IOException {
+        imageOutput.write(chunk, 0, chunkPos);
+        chunkPos = 0;
+    }
+}
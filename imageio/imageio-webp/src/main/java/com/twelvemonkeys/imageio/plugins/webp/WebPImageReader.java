@@ -34,6 +34,7 @@ package com.twelvemonkeys.imageio.plugins.webp;
 import com.twelvemonkeys.imageio.ImageReaderBase;
 import com.twelvemonkeys.imageio.color.ColorProfiles;
 import com.twelvemonkeys.imageio.color.ColorSpaces;
+import com.twelvemonkeys.imageio.color.ColorTransforms;
 import com.twelvemonkeys.imageio.metadata.Directory;
 import com.twelvemonkeys.imageio.metadata.tiff.TIFFReader;
 import com.twelvemonkeys.imageio.metadata.xmp.XMPReader;
@@ -61,7 +62,6 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
-import static com.twelvemonkeys.imageio.plugins.webp.lossless.VP8LDecoder.copyIntoRasterWithParams;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
@@ -424,6 +424,11 @@ final class WebPImageReader extends ImageReaderBase {
         return types.iterator();
     }
 
+    @Override
+    public ImageReadParam getDefaultReadParam() {
+        return new WebPImageReadParam();
+    }
+
     @Override
     public BufferedImage read(final int imageIndex, final ImageReadParam param) throws IOException {
         int width = getWidth(imageIndex);
@@ -435,7 +440,7 @@ final class WebPImageReader extends ImageReaderBase {
         switch (header.fourCC) {
             case WebP.CHUNK_VP8_:
                 imageInput.seek(header.offset);
-                readVP8(RasterUtils.asByteRaster(destination.getRaster()), param);
+                readVP8(destination.getRaster(), param, null);
 
                 break;
 
@@ -479,7 +484,7 @@ final class WebPImageReader extends ImageReaderBase {
     }
 
     private void readVP8Extended(BufferedImage destination, ImageReadParam param, long streamEnd, final int width, final int height) throws IOException {
-        boolean seenALPH = false;
+        byte[] alpha = null;
 
         while (imageInput.getStreamPosition() < streamEnd) {
             int nextChunk = imageInput.readInt();
@@ -494,19 +499,13 @@ final class WebPImageReader extends ImageReaderBase {
 
             switch (nextChunk) {
                 case WebP.CHUNK_ALPH:
-                    seenALPH = true;
-                    readAlpha(destination, param, width, height);
+                    alpha = readAlpha(width, height);
                     break;
 
                 case WebP.CHUNK_VP8_:
-                    readVP8(RasterUtils.asByteRaster(destination.getRaster())
-                            .createWritableChild(0, 0, destination.getWidth(), destination.getHeight(), 0, 0, new int[] {0, 1, 2}), param);
-
-                    if (header.containsALPH && !seenALPH) {
-                        // May happen for animation frames, if some frames are fully opaque
-                        opaqueAlpha(destination.getAlphaRaster());
-                    }
-
+                    // Alpha is stored along with the color samples. Without an ALPH chunk (may happen for
+                    // animation frames, if some frames are fully opaque), the destination alpha is set to opaque
+                    readVP8(destination.getRaster(), param, alpha);
                     break;
 
                 case WebP.CHUNK_VP8L:
@@ -534,7 +533,7 @@ final class WebPImageReader extends ImageReaderBase {
         }
     }
 
-    private void readAlpha(BufferedImage destination, ImageReadParam param, final int width, final int height) throws IOException {
+    private byte[] readAlpha(final int width, final int height) throws IOException {
         int compression = (int) lsbBitReader.readBits(2);
         int filtering = (int) lsbBitReader.readBits(2);
         int preProcessing = (int) lsbBitReader.readBits(2);
@@ -551,76 +550,76 @@ final class WebPImageReader extends ImageReaderBase {
             System.out.println("compression: " + compression);
         }
 
-        WritableRaster alphaRaster = destination.getAlphaRaster();
         switch (compression) {
             case 0:
-                readUncompressedAlpha(alphaRaster);
-                break;
+                return readUncompressedAlpha();
             case 1:
                 // Simulate header
                 imageInput.seek(imageInput.getStreamPosition() - 5);
 
-                // Temp alpha raster must have same dimensions as the source, because of filtering.
-                WritableRaster tempRaster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, width, height, 4, null);
-                readVP8Lossless(tempRaster, null, width, height);
+                // Alpha is stored in the green channel, and must be decoded using the full dimensions, because of filtering
+                int[] argb = new VP8LDecoder(imageInput, DEBUG).readVP8Lossless(true, width, height);
+                byte[] alpha = new byte[width * height];
 
-                // Copy from green (band 1) in temp to alpha in destination
-                WritableRaster alphaChannel = tempRaster.createWritableChild(0, 0, width, height, 0, 0, new int[]{1});
-                alphaFilter(alphaChannel, filtering);
-                copyIntoRasterWithParams(alphaChannel, alphaRaster, param);
-                break;
+                for (int i = 0; i < alpha.length; i++) {
+                    alpha[i] = (byte) (argb[i] >> 8);
+                }
+
+                alphaFilter(alpha, width, height, filtering);
+
+                return alpha;
             default:
                 processWarningOccurred("Unknown WebP alpha compression: " + compression);
-                opaqueAlpha(alphaRaster);
-                break;
+                return null;
         }
     }
 
-    private void alphaFilter(WritableRaster alphaRaster, int filtering) {
-        if (filtering != AlphaFiltering.NONE) {
-            for (int y = 0; y < alphaRaster.getHeight(); y++) {
-                for (int x = 0; x < alphaRaster.getWidth(); x++) {
-                    int predictorAlpha = getPredictorAlpha(alphaRaster, filtering, y, x);
-                    alphaRaster.setSample(x, y, 0, alphaRaster.getSample(x, y, 0) + predictorAlpha % 256);
-                }
+    private static void alphaFilter(final byte[] alpha, final int width, final int height, final int filtering) {
+        if (filtering == AlphaFiltering.NONE) {
+            return;
+        }
+
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+
+            for (int x = 0; x < width; x++) {
+                int predictorAlpha = getPredictorAlpha(alpha, width, filtering, row, y, x);
+                alpha[row + x] = (byte) (alpha[row + x] + predictorAlpha);
             }
         }
     }
 
-    private int getPredictorAlpha(WritableRaster alphaRaster, int filtering, int y, int x) {
+    private static int getPredictorAlpha(final byte[] alpha, final int width, final int filtering, final int row, final int y, final int x) {
         switch (filtering) {
-            case AlphaFiltering.NONE:
-                return 0;
             case AlphaFiltering.HORIZONTAL:
                 if (x == 0) {
-                    return y == 0 ? 0 : alphaRaster.getSample(0, y - 1, 0);
+                    return y == 0 ? 0 : alpha[row - width] & 0xff;
                 }
                 else {
-                    return alphaRaster.getSample(x - 1, y, 0);
+                    return alpha[row + x - 1] & 0xff;
                 }
             case AlphaFiltering.VERTICAL:
                 if (y == 0) {
-                    return x == 0 ? 0 : alphaRaster.getSample(x - 1, 0, 0);
+                    return x == 0 ? 0 : alpha[x - 1] & 0xff;
                 }
                 else {
-                    return alphaRaster.getSample(x, y - 1, 0);
+                    return alpha[row - width + x] & 0xff;
                 }
             case AlphaFiltering.GRADIENT:
                 if (x == 0) {
-                    return y == 0 ? 0 : alphaRaster.getSample(0, y - 1, 0);
+                    return y == 0 ? 0 : alpha[row - width] & 0xff;
                 }
                 else if (y == 0) {
-                    return alphaRaster.getSample(x - 1, 0, 0);
+                    return alpha[x - 1] & 0xff;
                 }
                 else {
-                    int left = alphaRaster.getSample(x - 1, y, 0);
-                    int top = alphaRaster.getSample(x, y - 1, 0);
-                    int topLeft = alphaRaster.getSample(x - 1, y - 1, 0);
+                    int left = alpha[row + x - 1] & 0xff;
+                    int top = alpha[row - width + x] & 0xff;
+                    int topLeft = alpha[row - width + x - 1] & 0xff;
 
                     return max(0, min(left + top - topLeft, 255));
                 }
             default:
-                processWarningOccurred("Unknown WebP alpha filtering: " + filtering);
                 return 0;
         }
     }
@@ -628,7 +627,8 @@ final class WebPImageReader extends ImageReaderBase {
     private void applyICCProfileIfNeeded(final BufferedImage destination) {
         if (iccProfile != null) {
             ColorModel colorModel = destination.getColorModel();
-            ICC_Profile destinationProfile = ((ICC_ColorSpace) colorModel.getColorSpace()).getProfile();
+            ColorSpace destinationCS = colorModel.getColorSpace();
+            ICC_Profile destinationProfile = ((ICC_ColorSpace) destinationCS).getProfile();
 
             if (!iccProfile.equals(destinationProfile)) {
                 if (DEBUG) {
@@ -639,28 +639,17 @@ final class WebPImageReader extends ImageReaderBase {
                                         ? destination.getRaster().createWritableChild(0, 0, destination.getWidth(), destination.getHeight(), 0, 0, new int[] {0, 1, 2})
                                         : destination.getRaster();
 
-                new ColorConvertOp(new ICC_Profile[] {iccProfile, destinationProfile}, null)
+                ColorTransforms.createColorConvertOp(ColorSpaces.createColorSpace(iccProfile), destinationCS)
                         .filter(raster, raster);
             }
         }
     }
 
-    private void opaqueAlpha(final WritableRaster alphaRaster) {
-        int h = alphaRaster.getHeight();
-        int w = alphaRaster.getWidth();
-
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                alphaRaster.setSample(x, y, 0, 0xff);
-            }
-        }
-    }
-
     @SuppressWarnings("RedundantThrows")
-    private void readUncompressedAlpha(final WritableRaster alphaRaster) throws IOException {
+    private byte[] readUncompressedAlpha() throws IOException {
         // Hardly used in practice, need to find a sample file
         processWarningOccurred("Uncompressed WebP alpha not implemented");
-        opaqueAlpha(alphaRaster);
+        return null;
     }
 
     private void readVP8Lossless(final WritableRaster raster, final ImageReadParam param) throws IOException {
@@ -673,8 +662,9 @@ final class WebPImageReader extends ImageReaderBase {
         decoder.readVP8Lossless(raster, true, param, width, height);
     }
 
-    private void readVP8(final WritableRaster raster, final ImageReadParam param) throws IOException {
+    private void readVP8(final WritableRaster raster, final ImageReadParam param, final byte[] alpha) throws IOException {
         VP8Frame frame = new VP8Frame(imageInput, DEBUG);
+        frame.setAlpha(alpha);
 
         frame.setProgressListener(new ProgressListenerBase() {
             @Override
@@ -683,6 +673,10 @@ final class WebPImageReader extends ImageReaderBase {
             }
         });
 
+        if (param instanceof WebPImageReadParam) {
+            frame.setExecutor(((WebPImageReadParam) param).getExecutor());
+        }
+
         if (!frame.decode(raster, param)) {
             processWarningOccurred("Nothing to decode");
         }
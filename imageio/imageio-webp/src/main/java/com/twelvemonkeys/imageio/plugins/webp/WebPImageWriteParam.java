@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp;
+
+import javax.imageio.ImageWriteParam;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * WebPImageWriteParam.
+ * <p>
+ * Images are always written using lossless (VP8L) compression.
+ * The compression quality controls the encoding effort, from {@code 0} (fastest) to {@code 1} (smallest output),
+ * similar to the {@code -q} option of {@code cwebp -lossless}. The default quality is {@code 0.75}.
+ * </p>
+ * <p>
+ * Allows the analysis of large images to be split into tasks run in parallel, by setting an {@link Executor}.
+ * The result will be identical to writing with the default, sequential, settings.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: WebPImageWriteParam.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public final class WebPImageWriteParam extends ImageWriteParam {
+    static final float DEFAULT_QUALITY = 0.75f;
+
+    private Executor executor;
+
+    @SuppressWarnings("unused")
+    public WebPImageWriteParam() {
+        this(null);
+    }
+
+    public WebPImageWriteParam(final Locale locale) {
+        super(locale);
+
+        canWriteCompressed = true;
+        compressionTypes = new String[] {"VP8L"};
+        compressionType = compressionTypes[0];
+        compressionQuality = DEFAULT_QUALITY;
+    }
+
+    @Override
+    public void unsetCompression() {
+        super.unsetCompression();
+
+        // There's only one compression type, keep it, so that only quality needs to be set in explicit mode
+        compressionType = compressionTypes[0];
+        compressionQuality = DEFAULT_QUALITY;
+    }
+
+    @Override
+    public boolean isCompressionLossless() {
+        super.isCompressionLossless(); // Validates mode and type
+
+        return true;
+    }
+
+    /**
+     * Returns the executor used for analyzing large images,
+     * or {@code null} if images are encoded sequentially.
+     *
+     * @return the executor, or {@code null}.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used for analyzing large images.
+     * The executor is not shut down by the writer.
+     *
+     * @param executor the executor, or {@code null} to encode sequentially on the calling thread (the default).
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    static float getQuality(final ImageWriteParam param) {
+        return param != null && param.canWriteCompressed() && param.getCompressionMode() == MODE_EXPLICIT
+               ? param.getCompressionQuality()
+               : DEFAULT_QUALITY;
+    }
+}
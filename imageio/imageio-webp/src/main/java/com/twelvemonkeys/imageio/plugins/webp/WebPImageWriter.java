@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp;
+
+import com.twelvemonkeys.imageio.ImageWriterBase;
+import com.twelvemonkeys.imageio.plugins.webp.lossless.VP8LEncoder;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.spi.ImageWriterSpi;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import static com.twelvemonkeys.lang.Validate.notNull;
+
+/**
+ * WebPImageWriter.
+ * <p>
+ * Writes images in WebP lossless (VP8L) format, in the simple file format (ie. no VP8X chunk, and no metadata).
+ * </p>
+ *
+ * @see WebPImageWriteParam
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: WebPImageWriter.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+final class WebPImageWriter extends ImageWriterBase {
+    // The VP8L header stores width and height minus one, in 14 bits each
+    private static final int MAX_DIMENSION = 1 << 14;
+
+    WebPImageWriter(final ImageWriterSpi provider) {
+        super(provider);
+    }
+
+    @Override
+    public void setOutput(final Object output) {
+        super.setOutput(output);
+
+        if (imageOutput != null) {
+            // RIFF native order is Little Endian
+            imageOutput.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @Override
+    public ImageWriteParam getDefaultWriteParam() {
+        return new WebPImageWriteParam(getLocale());
+    }
+
+    @Override
+    public IIOMetadata getDefaultImageMetadata(final ImageTypeSpecifier imageType, final ImageWriteParam param) {
+        return null;
+    }
+
+    @Override
+    public IIOMetadata convertImageMetadata(final IIOMetadata inData, final ImageTypeSpecifier imageType, final ImageWriteParam param) {
+        return null;
+    }
+
+    @Override
+    public void write(final IIOMetadata streamMetadata, final IIOImage image, final ImageWriteParam param) throws IOException {
+        assertOutput();
+        notNull(image, "image");
+
+        if (image.hasRaster()) {
+            throw new UnsupportedOperationException("Raster not supported");
+        }
+
+        RenderedImage renderedImage = image.getRenderedImage();
+        Rectangle region = getSourceRegion(param, renderedImage.getWidth(), renderedImage.getHeight());
+        region.translate(renderedImage.getMinX(), renderedImage.getMinY());
+
+        int xSub = param != null ? param.getSourceXSubsampling() : 1;
+        int ySub = param != null ? param.getSourceYSubsampling() : 1;
+        int width = (region.width + xSub - 1) / xSub;
+        int height = (region.height + ySub - 1) / ySub;
+
+        if (width <= 0 || height <= 0) {
+            throw new IIOException("Empty source region");
+        }
+        if (width > MAX_DIMENSION || height > MAX_DIMENSION) {
+            throw new IIOException(String.format("Image too large for WebP: %dx%d (max %dx%d)", width, height, MAX_DIMENSION, MAX_DIMENSION));
+        }
+
+        processImageStarted(0);
+
+        int[] argb = getARGB(renderedImage, region, xSub, ySub, width, height);
+        boolean hasAlpha = renderedImage.getColorModel().hasAlpha() && !isOpaque(argb);
+
+        processImageProgress(10f);
+
+        if (abortRequested()) {
+            processWriteAborted();
+            return;
+        }
+
+        long riffStart = imageOutput.getStreamPosition();
+
+        imageOutput.writeInt(WebP.RIFF_MAGIC);
+        imageOutput.writeInt(0); // Size, update later
+        imageOutput.writeInt(WebP.WEBP_MAGIC);
+
+        long chunkStart = imageOutput.getStreamPosition();
+
+        imageOutput.writeInt(WebP.CHUNK_VP8L);
+        imageOutput.writeInt(0); // Size, update later
+
+        // 14 bit width, 14 bit height, 1 bit alpha, 3 bit version
+        imageOutput.writeByte(WebP.LOSSLESSS_SIG);
+        imageOutput.writeInt((width - 1) | (height - 1) << 14 | (hasAlpha ? 1 : 0) << 28);
+
+        VP8LEncoder encoder = new VP8LEncoder(imageOutput);
+        encoder.setQuality(WebPImageWriteParam.getQuality(param));
+
+        if (param instanceof WebPImageWriteParam) {
+            encoder.setExecutor(((WebPImageWriteParam) param).getExecutor());
+        }
+
+        encoder.writeVP8Lossless(argb, width, height);
+
+        long chunkEnd = imageOutput.getStreamPosition();
+        long chunkLength = chunkEnd - chunkStart - 8;
+
+        // Chunks are padded to even length
+        if ((chunkLength & 1) != 0) {
+            imageOutput.writeByte(0);
+        }
+
+        long riffEnd = imageOutput.getStreamPosition();
+
+        if (riffEnd - riffStart - 8 > 0xffffffffL) {
+            throw new IIOException("Image too large for WebP");
+        }
+
+        // Update chunk and file length fields
+        imageOutput.seek(riffStart + 4);
+        imageOutput.writeInt((int) (riffEnd - riffStart - 8));
+        imageOutput.seek(chunkStart + 4);
+        imageOutput.writeInt((int) chunkLength);
+        imageOutput.seek(riffEnd);
+
+        imageOutput.flush();
+
+        processImageComplete();
+    }
+
+    private static int[] getARGB(final RenderedImage image, final Rectangle region, final int xSub, final int ySub,
+                                 final int width, final int height) {
+        BufferedImage buffered;
+        int xOffset = region.x;
+        int yOffset = region.y;
+
+        if (image instanceof BufferedImage) {
+            buffered = (BufferedImage) image;
+        }
+        else {
+            // Copy the source region into a new image
+            ColorModel colorModel = image.getColorModel();
+            WritableRaster raster = colorModel.createCompatibleWritableRaster(region.width, region.height);
+            image.copyData(raster.createWritableTranslatedChild(region.x, region.y));
+
+            buffered = new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+            xOffset = 0;
+            yOffset = 0;
+        }
+
+        int[] argb = new int[width * height];
+        int[] row = xSub != 1 ? new int[region.width] : null;
+
+        for (int y = 0; y < height; y++) {
+            int srcY = yOffset + y * ySub;
+
+            if (row == null) {
+                buffered.getRGB(xOffset, srcY, width, 1, argb, y * width, width);
+            }
+            else {
+                buffered.getRGB(xOffset, srcY, region.width, 1, row, 0, region.width);
+
+                for (int x = 0; x < width; x++) {
+                    argb[y * width + x] = row[x * xSub];
+                }
+            }
+        }
+
+        return argb;
+    }
+
+    private static boolean isOpaque(final int[] argb) {
+        for (int pixel : argb) {
+            if (pixel >>> 24 != 0xff) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp.lossless;
+
+import java.util.Arrays;
+
+/**
+ * LZ77 backward references for an image, found using a hash chain.
+ * <p>
+ * The references are stored as a sequence of tokens, each either a literal pixel (length 1),
+ * or a copy of {@code length} pixels. The distance of a copy is stored as a distance code,
+ * the inverse of the mapping done by the decoder, where the shortest codes represent 2D neighbours.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: BackwardReferences.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+final class BackwardReferences {
+    static final int MAX_LENGTH = 4096;
+    static final int MAX_DISTANCE = (1 << 20) - 120;
+
+    private static final int MIN_LENGTH = 3;
+    private static final int MAX_HASH_BITS = 18;
+
+    /**
+     * Inverse of the decoder's distance mapping: The distance code, indexed by y distance * 16 + 8 minus x distance,
+     * or 0 if there is no code for this offset.
+     */
+    private static final byte[] PLANE_TO_CODE = createPlaneToCode();
+
+    final int[] lengths;
+    final int[] distanceCodes;
+    final int size;
+
+    private BackwardReferences(final int[] lengths, final int[] distanceCodes, final int size) {
+        this.lengths = lengths;
+        this.distanceCodes = distanceCodes;
+        this.size = size;
+    }
+
+    /**
+     * Finds backward references for the image.
+     *
+     * @param argb the image data, as packed ARGB pixels.
+     * @param width the width of the image (the row length of {@code argb}).
+     * @param height the height of the image.
+     * @param maxChainLength the maximum number of earlier positions to examine for each pixel,
+     *                       higher is slower, but may find longer matches.
+     * @param lazyMatching if {@code true}, a match is skipped if the next pixel starts a longer match.
+     * @return the backward references.
+     */
+    static BackwardReferences create(final int[] argb, final int width, final int height,
+                                     final int maxChainLength, final boolean lazyMatching) {
+        int pixels = width * height;
+
+        int[] lengths = new int[pixels];
+        int[] distanceCodes = new int[pixels];
+        int size = 0;
+
+        HashChain hashChain = new HashChain(argb, pixels, maxChainLength);
+
+        long match = hashChain.findMatch(0);
+
+        for (int pos = 0; pos < pixels; ) {
+            hashChain.insert(pos);
+
+            int length = length(match);
+            long nextMatch = -1;
+
+            if (lazyMatching && length >= MIN_LENGTH && length < MAX_LENGTH && pos + 1 < pixels) {
+                nextMatch = hashChain.findMatch(pos + 1);
+
+                if (length(nextMatch) > length + 1) {
+                    // Emit a literal, and use the longer match from the next position
+                    length = 1;
+                }
+            }
+
+            if (length >= MIN_LENGTH) {
+                lengths[size] = length;
+                distanceCodes[size] = distanceToPlaneCode(width, distance(match));
+
+                for (int i = pos + 1; i < pos + length; i++) {
+                    hashChain.insert(i);
+                }
+            }
+            else {
+                length = 1;
+                lengths[size] = 1;
+            }
+
+            size++;
+            pos += length;
+
+            if (pos < pixels) {
+                match = length == 1 && nextMatch != -1 ? nextMatch : hashChain.findMatch(pos);
+            }
+        }
+
+        return new BackwardReferences(lengths, distanceCodes, size);
+    }
+
+    private static int length(final long match) {
+        return (int) (match >>> 32);
+    }
+
+    private static int distance(final long match) {
+        return (int) match;
+    }
+
+    /**
+     * Converts a linear distance to a distance code, using the short codes for the closest 2D neighbours.
+     */
+    static int distanceToPlaneCode(final int width, final int distance) {
+        int yOffset = distance / width;
+        int xOffset = distance - yOffset * width;
+
+        if (xOffset <= 8 && yOffset < 8) {
+            return PLANE_TO_CODE[yOffset * 16 + 8 - xOffset];
+        }
+        else if (xOffset > width - 8 && yOffset < 7) {
+            // Offset to the right, on the row above
+            return PLANE_TO_CODE[(yOffset + 1) * 16 + 8 + (width - xOffset)];
+        }
+
+        return distance + 120;
+    }
+
+    private static byte[] createPlaneToCode() {
+        byte[] planeToCode = new byte[128];
+
+        for (int code = 1; code <= 120; code++) {
+            // Upper 4 bits are y distance, lower 4 bits are 8 minus x distance
+            planeToCode[VP8LDecoder.DISTANCES[code - 1]] = (byte) code;
+        }
+
+        return planeToCode;
+    }
+
+    /**
+     * Length or distance value to prefix code.
+     */
+    static int prefixCode(final int value) {
+        int n = value - 1;
+
+        if (n < 4) {
+            return n;
+        }
+
+        int highestBit = 31 - Integer.numberOfLeadingZeros(n);
+
+        return 2 * highestBit + ((n >> (highestBit - 1)) & 1);
+    }
+
+    static int prefixExtraBits(final int prefixCode) {
+        return prefixCode < 4 ? 0 : (prefixCode - 2) >> 1;
+    }
+
+    static int prefixExtraValue(final int value, final int prefixCode) {
+        return (value - 1) & ((1 << prefixExtraBits(prefixCode)) - 1);
+    }
+
+    private static final class HashChain {
+        private static final int HASH_MUL_1 = 0x1e35a7bd;
+        private static final int HASH_MUL_2 = 0x5bd1e995;
+
+        private final int[] argb;
+        private final int pixels;
+        private final int maxChainLength;
+
+        private final int hashShift;
+        private final int[] head;  // Most recent position for each hash, or -1
+        private final int[] chain; // Previous position with the same hash, or -1
+
+        HashChain(final int[] argb, final int pixels, final int maxChainLength) {
+            this.argb = argb;
+            this.pixels = pixels;
+            this.maxChainLength = maxChainLength;
+
+            int hashBits = Math.max(8, Math.min(MAX_HASH_BITS, 32 - Integer.numberOfLeadingZeros(pixels)));
+            hashShift = 32 - hashBits;
+            head = new int[1 << hashBits];
+            chain = new int[pixels];
+
+            Arrays.fill(head, -1);
+        }
+
+        private int hash(final int pos) {
+            // Hash of two consecutive pixels
+            return (argb[pos] * HASH_MUL_1 ^ argb[pos + 1] * HASH_MUL_2) >>> hashShift;
+        }
+
+        void insert(final int pos) {
+            if (pos + 1 < pixels) {
+                int hash = hash(pos);
+                chain[pos] = head[hash];
+                head[hash] = pos;
+            }
+        }
+
+        /**
+         * Finds the longest match for the pixels starting at {@code pos}, among the inserted positions.
+         *
+         * @return the length of the match in the upper 32 bits, and the distance in the lower 32 bits,
+         * or a length of 0, if no match was found.
+         */
+        long findMatch(final int pos) {
+            if (pos + 1 >= pixels) {
+                return 0;
+            }
+
+            int maxLength = Math.min(MAX_LENGTH, pixels - pos);
+            int bestLength = 0;
+            int bestDistance = 0;
+
+            // The pixel to the left is always tested, as it is both common and cheap to encode
+            if (pos > 0) {
+                bestLength = matchLength(pos - 1, pos, maxLength);
+                bestDistance = 1;
+            }
+
+            int candidate = head[hash(pos)];
+
+            for (int i = 0; i < maxChainLength && candidate >= 0 && bestLength < maxLength; i++, candidate = chain[candidate]) {
+                int distance = pos - candidate;
+
+                if (distance > MAX_DISTANCE) {
+                    break;
+                }
+
+                // Quick reject, the candidate must at least match the pixel past the current best length
+                if (argb[candidate + bestLength] != argb[pos + bestLength]) {
+                    continue;
+                }
+
+                int length = matchLength(candidate, pos, maxLength);
+
+                if (length > bestLength) {
+                    bestLength = length;
+                    bestDistance = distance;
+                }
+            }
+
+            return (long) bestLength << 32 | bestDistance;
+        }
+
+        private int matchLength(final int candidate, final int pos, final int maxLength) {
+            int length = 0;
+
+            while (length < maxLength && argb[candidate + length] == argb[pos + length]) {
+                length++;
+            }
+
+            return length;
+        }
+    }
+}
@@ -31,49 +31,77 @@
 
 package com.twelvemonkeys.imageio.plugins.webp.lossless;
 
-import java.awt.image.*;
+import java.util.Arrays;
 
 /**
  * @author Simon Kammermeier
  */
 final class ColorIndexingTransform implements Transform {
 
-    private final byte[] colorTable;
+    private final int[] colorTable;
+    private final int width;
     private final byte bits;
 
-    public ColorIndexingTransform(byte[] colorTable, byte bits) {
+    public ColorIndexingTransform(int[] colorTable, int width, byte bits) {
         this.colorTable = colorTable;
+        this.width = width;
         this.bits = bits;
     }
 
     @Override
-    public void applyInverse(WritableRaster raster) {
-        int width = raster.getWidth();
-        int height = raster.getHeight();
+    public void applyInverse(int[] argb, int height) {
+        // The packed indices are stored with a row length of xSize, the result is expanded to width
+        int xSize = (width + (1 << bits) - 1) >> bits;
+        int componentSize = 8 >> bits;
+        int componentMask = (1 << componentSize) - 1;
+        int packedMask = (1 << bits) - 1;
 
-        byte[] rgba = new byte[4];
+        // Reversed so no used elements are overridden (in case of packing)
+        for (int y = height - 1; y >= 0; y--) {
+            int srcRow = y * xSize;
+            int dstRow = y * width;
 
-        for (int y = 0; y < height; y++) {
-            // Reversed so no used elements are overridden (in case of packing)
             for (int x = width - 1; x >= 0; x--) {
-                int componentSize = 8 >> bits;
-                int packed = 1 << bits;
-                int xC = x / packed;
-                int componentOffset = componentSize * (x % packed);
+                int sample = (argb[srcRow + (x >> bits)] >> 8) & 0xff;
+                int index = sample >> (componentSize * (x & packedMask)) & componentMask;
+
+                argb[dstRow + x] = colorTable[index];
+            }
+        }
+    }
+
+    // NOTE: For encoding!
+    static int[] applyForward(final int[] argb, final int width, final int height, final int[] sortedColorTable, final byte bits) {
+        // Pack the indices into the green component, with a row length of xSize
+        int xSize = (width + (1 << bits) - 1) >> bits;
+        int componentSize = 8 >> bits;
+        int packedMask = (1 << bits) - 1;
 
-                int sample = raster.getSample(xC, y, 1);
+        int[] packed = new int[xSize * height];
 
-                int index = sample >> componentOffset & ((1 << componentSize) - 1);
+        int lastColor = ~sortedColorTable[0];
+        int lastIndex = 0;
 
-                // Arraycopy for 4 elements might not be beneficial
-                System.arraycopy(colorTable, index * 4, rgba, 0, 4);
-//                 rgba[0] = colorTable[index * 4];
-//                 rgba[1] = colorTable[index * 4 + 1];
-//                 rgba[2] = colorTable[index * 4 + 2];
-//                 rgba[3] = colorTable[index * 4 + 3];
+        for (int y = 0; y < height; y++) {
+            int srcRow = y * width;
+            int dstRow = y * xSize;
+
+            for (int x = 0; x < width; x++) {
+                int color = argb[srcRow + x];
+
+                if (color != lastColor) {
+                    lastColor = color;
+                    lastIndex = Arrays.binarySearch(sortedColorTable, color);
+                }
 
-                raster.setDataElements(x, y, rgba);
+                packed[dstRow + (x >> bits)] |= lastIndex << (componentSize * (x & packedMask) + 8);
+            }
+
+            for (int i = dstRow; i < dstRow + xSize; i++) {
+                packed[i] |= 0xff000000;
             }
         }
+
+        return packed;
     }
 }
@@ -31,97 +31,79 @@
 
 package com.twelvemonkeys.imageio.plugins.webp.lossless;
 
-import java.awt.image.*;
-
 /**
  * @author Simon Kammermeier
  */
 final class ColorTransform implements Transform {
-    private final Raster data;
+    private final int[] data;
+    private final int width;
     private final byte bits;
 
-    public ColorTransform(Raster raster, byte bits) {
-        this.data = raster;
+    public ColorTransform(int[] data, int width, byte bits) {
+        this.data = data;
+        this.width = width;
         this.bits = bits;
     }
 
     @Override
-    public void applyInverse(WritableRaster raster) {
-        int width = raster.getWidth();
-        int height = raster.getHeight();
-
-        byte[] rgba = new byte[4];
+    public void applyInverse(int[] argb, int height) {
+        int blocksPerRow = (width + (1 << bits) - 1) >> bits;
 
         for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-
-                data.getDataElements(x >> bits, y >> bits, rgba);
-                ColorTransformElement trans = new ColorTransformElement(rgba);
-
-                raster.getDataElements(x, y, rgba);
+            int blockRow = (y >> bits) * blocksPerRow;
 
-                trans.inverseTransform(rgba);
-
-                raster.setDataElements(x, y, rgba);
+            for (int x = 0, i = y * width; x < width; x++, i++) {
+                argb[i] = inverseTransform(data[blockRow + (x >> bits)], argb[i]);
             }
         }
     }
 
-    // NOTE: For encoding!
-    private static void colorTransform(final int red, final int blue, final int green,
-                                       final ColorTransformElement trans,
-                                       final int[] newRedBlue) {
+    // The transform element is stored as ARGB, with red_to_blue in red, green_to_blue in green and green_to_red in blue
+    static int inverseTransform(final int element, final int argb) {
+        // Applying inverse transform is just adding (!, different from specification) the
+        // color transform deltas 3
+        byte green = (byte) (argb >> 8);
+
         // Transformed values of red and blue components
-        int tmp_red = red;
-        int tmp_blue = blue;
-
-        // Applying transform is just adding the transform deltas
-        tmp_red += colorTransformDelta((byte) trans.green_to_red, (byte) green);
-        tmp_blue += colorTransformDelta((byte) trans.green_to_blue, (byte) green);
-        tmp_blue += colorTransformDelta((byte) trans.red_to_blue, (byte) red);
-
-        // No pointer dereferences in Java...
-        // TODO: Consider passing an offset too, so we can modify in-place
-        newRedBlue[0] = tmp_red & 0xff;
-        newRedBlue[1] = tmp_blue & 0xff;
-    }
+        int red = (argb >> 16) + colorTransformDelta((byte) element, green);
+        int blue = argb + colorTransformDelta((byte) (element >> 8), green);
+        blue += colorTransformDelta((byte) (element >> 16), (byte) red); // Spec has red & 0xff
 
-    // A conversion from the 8-bit unsigned representation (uint8) to the 8-bit
-    // signed one (int8) is required before calling ColorTransformDelta(). It
-    // should be performed using 8-bit two's complement (that is: uint8 range
-    // [128-255] is mapped to the [-128, -1] range of its converted int8
-    // value).
-    private static byte colorTransformDelta(final byte t, final byte c) {
-        return (byte) ((t * c) >> 5);
+        return argb & 0xff00ff00 | (red & 0xff) << 16 | blue & 0xff;
     }
 
-    private static final class ColorTransformElement {
+    // NOTE: For encoding!
+    static void applyForward(final int[] argb, final int width, final int yStart, final int yEnd,
+                             final int[] data, final int bits) {
+        int blocksPerRow = (width + (1 << bits) - 1) >> bits;
 
-        final int green_to_red;
-        final int green_to_blue;
-        final int red_to_blue;
+        for (int y = yStart; y < yEnd; y++) {
+            int blockRow = (y >> bits) * blocksPerRow;
 
-        ColorTransformElement(final byte[] rgba) {
-            this.green_to_red = rgba[2];
-            this.green_to_blue = rgba[1];
-            this.red_to_blue = rgba[0];
+            for (int x = 0, i = y * width; x < width; x++, i++) {
+                argb[i] = forwardTransform(data[blockRow + (x >> bits)], argb[i]);
+            }
         }
+    }
 
-        private void inverseTransform(final byte[] rgb) {
-            // Applying inverse transform is just adding (!, different from specification) the
-            // color transform deltas 3
-
-            // Transformed values of red and blue components
-            int tmp_red = rgb[0];
-            int tmp_blue = rgb[2];
+    static int forwardTransform(final int element, final int argb) {
+        // Applying the transform is subtracting the color transform deltas, using the original red for blue
+        byte green = (byte) (argb >> 8);
+        byte red = (byte) (argb >> 16);
 
-            tmp_red += colorTransformDelta((byte) this.green_to_red, rgb[1]);
-            tmp_blue += colorTransformDelta((byte) this.green_to_blue, rgb[1]);
-            tmp_blue += colorTransformDelta((byte) this.red_to_blue, (byte) tmp_red); // Spec has red & 0xff
+        int newRed = red - colorTransformDelta((byte) element, green);
+        int newBlue = argb - colorTransformDelta((byte) (element >> 8), green);
+        newBlue -= colorTransformDelta((byte) (element >> 16), red);
 
-            rgb[0] = (byte) (tmp_red & 0xff);
-            rgb[2] = (byte) (tmp_blue & 0xff);
-        }
+        return argb & 0xff00ff00 | (newRed & 0xff) << 16 | newBlue & 0xff;
     }
 
+    // A conversion from the 8-bit unsigned representation (uint8) to the 8-bit
+    // signed one (int8) is required before calling ColorTransformDelta(). It
+    // should be performed using 8-bit two's complement (that is: uint8 range
+    // [128-255] is mapped to the [-128, -1] range of its converted int8
+    // value).
+    static byte colorTransformDelta(final byte t, final byte c) {
+        return (byte) ((t * c) >> 5);
+    }
 }
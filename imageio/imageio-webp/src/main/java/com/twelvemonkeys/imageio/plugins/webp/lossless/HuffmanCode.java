@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp.lossless;
+
+import com.twelvemonkeys.imageio.plugins.webp.LSBBitWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A length limited, canonical Huffman code, the encoding counterpart of {@link HuffmanTable}.
+ * <p>
+ * The codes are stored bit reversed, so they can be written directly in an LSB-first way.
+ * A code with only one (or no) used symbol writes no bits at all for its symbols.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: HuffmanCode.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+final class HuffmanCode {
+    static final int MAX_LENGTH = 15;
+
+    private static final int MAX_LCODE_LENGTH = 7;
+
+    /**
+     * Symbols of the L-code in the order they need to be written
+     */
+    private static final int[] L_CODE_ORDER = {17, 18, 0, 1, 2, 3, 4, 5, 16, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+
+    private final int[] lengths;
+    private final int[] codes;
+    private final int[] symbols; // The used symbols, at most 2 (only needed for simple codes)
+    private final int numSymbols;
+
+    private HuffmanCode(final int[] lengths) {
+        this.lengths = lengths;
+
+        int[] symbols = new int[2];
+        int numSymbols = 0;
+
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] != 0) {
+                if (numSymbols < 2) {
+                    symbols[numSymbols] = symbol;
+                }
+
+                numSymbols++;
+            }
+        }
+
+        this.symbols = symbols;
+        this.numSymbols = numSymbols;
+        this.codes = createCodes(lengths);
+    }
+
+    /**
+     * Creates a Huffman code for the given symbol frequencies, with no code longer than {@code MAX_LENGTH} bits.
+     *
+     * @param histogram the frequency of each symbol, the length of the array is the alphabet size.
+     * @return a new Huffman code.
+     */
+    static HuffmanCode create(final int[] histogram) {
+        return new HuffmanCode(createLengths(histogram, MAX_LENGTH));
+    }
+
+    /**
+     * Writes the symbol.
+     *
+     * @param writer the writer
+     * @param symbol the symbol, must have a non-zero frequency in the histogram this code was created from.
+     * @throws IOException if an I/O error occurs
+     */
+    void writeSymbol(final LSBBitWriter writer, final int symbol) throws IOException {
+        if (numSymbols > 1) {
+            writer.writeBits(codes[symbol], lengths[symbol]);
+        }
+    }
+
+    /**
+     * Returns the number of bits used to write the symbol.
+     */
+    int length(final int symbol) {
+        return numSymbols > 1 ? lengths[symbol] : 0;
+    }
+
+    /**
+     * Writes the code lengths, in the format expected by {@link HuffmanTable}.
+     *
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs
+     */
+    void write(final LSBBitWriter writer) throws IOException {
+        if (isSimple()) {
+            writeSimpleLengthCode(writer);
+        }
+        else {
+            writeNormalLengthCode(writer);
+        }
+    }
+
+    /**
+     * Returns the number of bits used to write the code lengths, the same as written by {@link #write(LSBBitWriter)}.
+     */
+    int headerLength() {
+        if (isSimple()) {
+            return 3 + (numSymbols != 0 && symbols[0] > 1 ? 8 : 1) + (numSymbols == 2 ? 8 : 0);
+        }
+
+        int[] tokens = createTokens();
+        HuffmanCode lCode = createLCode(tokens);
+
+        int bits = 1 + 4 + 3 * numLCodeLengths(lCode) + 1;
+
+        for (int token : tokens) {
+            int symbol = token & 0xff;
+            bits += lCode.length(symbol) + tokenExtraBits(symbol);
+        }
+
+        return bits;
+    }
+
+    /**
+     * Returns the number of bits used to write the symbols counted in the histogram, including the code lengths.
+     *
+     * @param histogram the frequency of each symbol, only symbols with non-zero frequency in the histogram
+     *                  this code was created from may be counted.
+     */
+    long cost(final int[] histogram) {
+        long bits = headerLength();
+
+        if (numSymbols > 1) {
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                bits += (long) histogram[symbol] * lengths[symbol];
+            }
+        }
+
+        return bits;
+    }
+
+    private boolean isSimple() {
+        return numSymbols <= 2 && (numSymbols == 0 || symbols[numSymbols - 1] < 256);
+    }
+
+    private void writeSimpleLengthCode(final LSBBitWriter writer) throws IOException {
+        writer.writeBit(1);
+        writer.writeBit(numSymbols == 2 ? 1 : 0);
+
+        // The first symbol is decoded from bit 0, which is the code of the lowest symbol
+        int first = numSymbols == 0 ? 0 : symbols[0];
+
+        if (first > 1) {
+            writer.writeBit(1);
+            writer.writeBits(first, 8);
+        }
+        else {
+            writer.writeBit(0);
+            writer.writeBits(first, 1);
+        }
+
+        if (numSymbols == 2) {
+            writer.writeBits(symbols[1], 8);
+        }
+    }
+
+    private void writeNormalLengthCode(final LSBBitWriter writer) throws IOException {
+        writer.writeBit(0);
+
+        int[] tokens = createTokens();
+        HuffmanCode lCode = createLCode(tokens);
+        int numLCodeLengths = numLCodeLengths(lCode);
+
+        writer.writeBits(numLCodeLengths - 4, 4);
+        for (int i = 0; i < numLCodeLengths; i++) {
+            writer.writeBits(lCode.lengths[L_CODE_ORDER[i]], 3);
+        }
+
+        // All code lengths are written (no max symbol)
+        writer.writeBit(0);
+
+        for (int token : tokens) {
+            int symbol = token & 0xff;
+            lCode.writeSymbol(writer, symbol);
+            writer.writeBits(token >> 8, tokenExtraBits(symbol));
+        }
+    }
+
+    /**
+     * Run length encodes the code lengths, using the L-code symbols 16 (repeat previous), 17 and 18 (repeat zero).
+     * Each token holds the symbol in the lower 8 bits, and the value of the extra bits above.
+     */
+    private int[] createTokens() {
+        int[] tokens = new int[lengths.length];
+        int numTokens = 0;
+        int prevLength = 8; // Default code for repeating
+
+        for (int i = 0; i < lengths.length; ) {
+            int length = lengths[i];
+            int runLength = 1;
+
+            while (i + runLength < lengths.length && lengths[i + runLength] == length) {
+                runLength++;
+            }
+
+            i += runLength;
+
+            if (length == 0) {
+                while (runLength >= 11) {
+                    int count = Math.min(runLength, 138);
+                    tokens[numTokens++] = 18 | (count - 11) << 8;
+                    runLength -= count;
+                }
+                if (runLength >= 3) {
+                    tokens[numTokens++] = 17 | (runLength - 3) << 8;
+                    runLength = 0;
+                }
+            }
+            else {
+                if (length != prevLength) {
+                    tokens[numTokens++] = length;
+                    prevLength = length;
+                    runLength--;
+                }
+
+                while (runLength >= 3) {
+                    int count = Math.min(runLength, 6);
+                    tokens[numTokens++] = 16 | (count - 3) << 8;
+                    runLength -= count;
+                }
+            }
+
+            while (runLength-- > 0) {
+                tokens[numTokens++] = length;
+            }
+        }
+
+        return Arrays.copyOf(tokens, numTokens);
+    }
+
+    /**
+     * Creates the L-code, used to write the code lengths.
+     */
+    private static HuffmanCode createLCode(final int[] tokens) {
+        int[] lCodeHistogram = new int[L_CODE_ORDER.length];
+        for (int token : tokens) {
+            lCodeHistogram[token & 0xff]++;
+        }
+
+        return new HuffmanCode(createLengths(lCodeHistogram, MAX_LCODE_LENGTH));
+    }
+
+    private static int numLCodeLengths(final HuffmanCode lCode) {
+        int numLCodeLengths = L_CODE_ORDER.length;
+        while (numLCodeLengths > 4 && lCode.lengths[L_CODE_ORDER[numLCodeLengths - 1]] == 0) {
+            numLCodeLengths--;
+        }
+
+        return numLCodeLengths;
+    }
+
+    private static int tokenExtraBits(final int symbol) {
+        switch (symbol) {
+            case 16:
+                return 2;
+            case 17:
+                return 3;
+            case 18:
+                return 7;
+            default:
+                // Literal length, no extra bits
+                return 0;
+        }
+    }
+
+    /**
+     * Creates Huffman code lengths for the histogram, no longer than {@code maxLength}.
+     * If the lengths of the optimal code are too long, the code is recreated with the lowest frequencies
+     * increased, until the lengths fit.
+     * A histogram with only one used symbol gets a code length of 1 for that symbol.
+     */
+    static int[] createLengths(final int[] histogram, final int maxLength) {
+        int numSymbols = 0;
+        for (int count : histogram) {
+            if (count != 0) {
+                numSymbols++;
+            }
+        }
+
+        int[] lengths = new int[histogram.length];
+
+        if (numSymbols <= 1) {
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                if (histogram[symbol] != 0) {
+                    lengths[symbol] = 1;
+                }
+            }
+
+            return lengths;
+        }
+
+        for (long minCount = 1; ; minCount <<= 1) {
+            if (createLengths(histogram, numSymbols, minCount, lengths) <= maxLength) {
+                return lengths;
+            }
+        }
+    }
+
+    private static int createLengths(final int[] histogram, final int numSymbols, final long minCount, final int[] lengths) {
+        // Sort the used symbols by frequency (and symbol, for a stable result), packed as count << 16 | symbol
+        long[] leaves = new long[numSymbols];
+
+        for (int symbol = 0, i = 0; symbol < histogram.length; symbol++) {
+            if (histogram[symbol] != 0) {
+                leaves[i++] = Math.max(histogram[symbol], minCount) << 16 | symbol;
+            }
+        }
+
+        Arrays.sort(leaves);
+
+        // Two queue Huffman tree construction: leaves are 0 to numSymbols - 1, inner nodes follow in increasing weight
+        int numNodes = 2 * numSymbols - 1;
+        long[] weights = new long[numNodes];
+        int[] parents = new int[numNodes];
+
+        for (int i = 0; i < numSymbols; i++) {
+            weights[i] = leaves[i] >>> 16;
+        }
+
+        int leaf = 0;
+        int inner = numSymbols;
+
+        for (int node = numSymbols; node < numNodes; node++) {
+            int first = leaf < numSymbols && (inner >= node || weights[leaf] <= weights[inner]) ? leaf++ : inner++;
+            int second = leaf < numSymbols && (inner >= node || weights[leaf] <= weights[inner]) ? leaf++ : inner++;
+
+            weights[node] = weights[first] + weights[second];
+            parents[first] = node;
+            parents[second] = node;
+        }
+
+        // Parents always follow their children, so depths can be computed from the root down
+        int[] depths = new int[numNodes];
+        int maxDepth = 0;
+
+        for (int node = numNodes - 2; node >= 0; node--) {
+            depths[node] = depths[parents[node]] + 1;
+        }
+
+        for (int i = 0; i < numSymbols; i++) {
+            lengths[(int) (leaves[i] & 0xffff)] = depths[i];
+            maxDepth = Math.max(maxDepth, depths[i]);
+        }
+
+        return maxDepth;
+    }
+
+    private static int[] createCodes(final int[] lengths) {
+        // Canonical codes, ordered by length, then symbol (like HuffmanTable)
+        int[] count = new int[MAX_LENGTH + 1];
+        for (int length : lengths) {
+            count[length]++;
+        }
+        count[0] = 0;
+
+        int[] nextCode = new int[MAX_LENGTH + 1];
+        for (int length = 1, code = 0; length <= MAX_LENGTH; length++) {
+            code = (code + count[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+
+        int[] codes = new int[lengths.length];
+
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+
+            if (length != 0) {
+                codes[symbol] = Integer.reverse(nextCode[length]++) >>> (32 - length);
+            }
+        }
+
+        return codes;
+    }
+}
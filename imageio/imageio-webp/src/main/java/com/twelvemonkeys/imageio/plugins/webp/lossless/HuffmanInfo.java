@@ -31,20 +31,20 @@
 
 package com.twelvemonkeys.imageio.plugins.webp.lossless;
 
-import java.awt.image.*;
-
 /**
  * @author Simon Kammermeier
  */
 final class HuffmanInfo {
-    public final Raster huffmanMetaCodes; // Raster allows intuitive lookup by x and y
+    public final int[] huffmanMetaCodes; // Meta group index for each block, in row order
+    public final int huffmanXSize; // Row length of the meta codes
 
     public final int metaCodeBits;
 
     public final HuffmanCodeGroup[] huffmanGroups;
 
-    public HuffmanInfo(Raster huffmanMetaCodes, int metaCodeBits, HuffmanCodeGroup[] huffmanGroups) {
+    public HuffmanInfo(int[] huffmanMetaCodes, int huffmanXSize, int metaCodeBits, HuffmanCodeGroup[] huffmanGroups) {
         this.huffmanMetaCodes = huffmanMetaCodes;
+        this.huffmanXSize = huffmanXSize;
         this.metaCodeBits = metaCodeBits;
         this.huffmanGroups = huffmanGroups;
     }
@@ -35,9 +35,7 @@ import com.twelvemonkeys.imageio.plugins.webp.LSBBitReader;
 
 import javax.imageio.IIOException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * Represents a single huffman tree as a table.
@@ -53,7 +51,8 @@ import java.util.List;
  * 2^15 elements. To keep a reasonable memory usage, instead the lookup table only directly holds symbols with code
  * length up to {@code LEVEL1_BITS} (Currently 8 bits). For longer codes the lookup table stores a reference to a
  * second level lookup table. This reference consists of an element with length as the max length of the level 2
- * table and value as the index of the table in the list of level 2 tables.
+ * table and value as the offset of the level 2 table. The level 2 tables are stored in the same array, following
+ * the level 1 table, so that decoding a symbol is one or two probes into the same array.
  * <p>
  * Reading bits from the input is done in a least significant bit first way (LSB) way, therefore the prefix of the
  * read value of length i is the lowest i bits in inverse order.
@@ -72,8 +71,12 @@ final class HuffmanTable {
      * Symbols of the L-code in the order they need to be read
      */
     private static final int[] L_CODE_ORDER = {17, 18, 0, 1, 2, 3, 4, 5, 16, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
-    private final int[] level1 = new int[1 << LEVEL1_BITS];
-    private final List<int[]> level2 = new ArrayList<>();
+    private static final int LEVEL1_MASK = (1 << LEVEL1_BITS) - 1;
+
+    /**
+     * Level 1 table (the first {@code 1 << LEVEL1_BITS} elements), followed by the level 2 tables.
+     */
+    private int[] table = new int[1 << LEVEL1_BITS];
 
     /**
      * Build a Huffman table by reading the encoded symbol lengths from the reader
@@ -94,12 +97,12 @@ final class HuffmanTable {
                 short symbol2 = (short) lsbBitReader.readBits(8);
 
                 for (int i = 0; i < (1 << LEVEL1_BITS); i += 2) {
-                    level1[i] = 1 << 16 | symbol1;
-                    level1[i + 1] = 1 << 16 | symbol2;
+                    table[i] = 1 << 16 | symbol1;
+                    table[i + 1] = 1 << 16 | symbol2;
                 }
             }
             else {
-                Arrays.fill(level1, symbol1);
+                Arrays.fill(table, symbol1);
             }
         }
         else {
@@ -165,7 +168,7 @@ final class HuffmanTable {
         // Special case: Only 1 code value
         if (numPosCodeLens == 1) {
             // Length is 0 so mask to clear length bits
-            Arrays.fill(level1, lengthsAndSymbols[0] & 0xffff);
+            Arrays.fill(table, lengthsAndSymbols[0] & 0xffff);
             return;
         }
 
@@ -188,38 +191,43 @@ final class HuffmanTable {
             for (; count[length] > 0; count[length]--) {
                 int lengthAndSymbol = lengthsAndSymbols[index++];
 
-                for (int j = code; j < level1.length; j += step) {
-                    level1[j] = lengthAndSymbol;
+                for (int j = code; j <= LEVEL1_MASK; j += step) {
+                    table[j] = lengthAndSymbol;
                 }
 
                 code = nextCode(code, length);
             }
         }
 
-        int rootMask = (1 << LEVEL1_BITS) - 1;
         int rootEntry = -1;
-        int[] currentTable = null;
+        int tableOffset = 0;
+        int tableSize = 0;
+        int tableEnd = 1 << LEVEL1_BITS;
 
         step = 2;
         for (int length = LEVEL1_BITS + 1; length <= 15; length++, step <<= 1) {
             for (; count[length] > 0; count[length]--) {
                 int lengthAndSymbol = lengthsAndSymbols[index++];
 
-                if ((code & rootMask) != rootEntry) {
+                if ((code & LEVEL1_MASK) != rootEntry) {
                     int level2Bits = nextTableBitSize(count, length, LEVEL1_BITS);
-                    int level2Size = 1 << level2Bits;
 
-                    currentTable = new int[level2Size];
-                    rootEntry = code & rootMask;
-                    level2.add(currentTable);
+                    tableSize = 1 << level2Bits;
+                    tableOffset = tableEnd;
+                    tableEnd += tableSize;
+                    rootEntry = code & LEVEL1_MASK;
+
+                    if (tableEnd > table.length) {
+                        table = Arrays.copyOf(table, Math.max(tableEnd, table.length * 2));
+                    }
 
                     // Set root table indirection
-                    level1[rootEntry] = (LEVEL1_BITS + level2Bits) << 16 | (level2.size() - 1);
+                    table[rootEntry] = (LEVEL1_BITS + level2Bits) << 16 | tableOffset;
                 }
 
                 int value = (length - LEVEL1_BITS) << 16 | (lengthAndSymbol & 0xffff);
-                for (int j = (code >>> LEVEL1_BITS); j < currentTable.length; j += step) {
-                    currentTable[j] = value;
+                for (int j = (code >>> LEVEL1_BITS); j < tableSize; j += step) {
+                    table[tableOffset + j] = value;
                 }
 
                 code = nextCode(code, length);
@@ -339,20 +347,20 @@ final class HuffmanTable {
      * @throws IOException when the reader throws one reading a symbol
      */
     public short readSymbol(LSBBitReader lsbBitReader) throws IOException {
-        int index = (int) lsbBitReader.peekBits(LEVEL1_BITS);
-        int lengthAndSymbol = level1[index];
+        // At least 32 bits, enough for the longest code (15 bits)
+        int bits = (int) lsbBitReader.prefetchBits();
+        int lengthAndSymbol = table[bits & LEVEL1_MASK];
 
         int length = lengthAndSymbol >>> 16;
 
         if (length > LEVEL1_BITS) {
-            // Lvl2 lookup
-            lsbBitReader.readBits(LEVEL1_BITS); // Consume bits of first level
-            int level2Index = (int) lsbBitReader.peekBits(length - LEVEL1_BITS); // Peek remaining required bits
-            lengthAndSymbol = level2.get(lengthAndSymbol & 0xffff)[level2Index];
-            length = lengthAndSymbol >>> 16;
+            // Lvl2 lookup, using the remaining required bits
+            int level2Index = (bits >>> LEVEL1_BITS) & ((1 << (length - LEVEL1_BITS)) - 1);
+            lengthAndSymbol = table[(lengthAndSymbol & 0xffff) + level2Index];
+            length = LEVEL1_BITS + (lengthAndSymbol >>> 16);
         }
 
-        lsbBitReader.readBits(length); // Consume bits
+        lsbBitReader.skipBits(length); // Consume bits
 
         return (short) (lengthAndSymbol & 0xffff);
     }
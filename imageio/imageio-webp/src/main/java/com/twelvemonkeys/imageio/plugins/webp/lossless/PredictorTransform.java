@@ -31,8 +31,6 @@
 
 package com.twelvemonkeys.imageio.plugins.webp.lossless;
 
-import java.awt.image.*;
-
 import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -41,196 +39,182 @@ import static java.lang.Math.min;
  * @author Simon Kammermeier
  */
 final class PredictorTransform implements Transform {
-    private final Raster data;
+    private final int[] data;
+    private final int width;
     private final byte bits;
 
-    public PredictorTransform(Raster raster, byte bits) {
-        this.data = raster;
+    public PredictorTransform(int[] data, int width, byte bits) {
+        this.data = data;
+        this.width = width;
         this.bits = bits;
     }
 
     @Override
-    public void applyInverse(WritableRaster raster) {
-        int width = raster.getWidth();
-        int height = raster.getHeight();
-
-        byte[] rgba = new byte[4];
+    public void applyInverse(int[] argb, int height) {
+        int blocksPerRow = (width + (1 << bits) - 1) >> bits;
 
         // Handle top and left border separately
 
-        // (0,0) Black (0x000000ff) predict
-        raster.getDataElements(0, 0, rgba);
-        rgba[3] += (byte) 0xff;
-        raster.setDataElements(0, 0, rgba);
-
-        byte[] predictor = new byte[4];
-        byte[] predictor2 = new byte[4];
-        byte[] predictor3 = new byte[4];
+        // (0,0) Black (0xff000000) predict
+        argb[0] = addPixels(argb[0], 0xff000000);
 
         // (x,0) L predict
         for (int x = 1; x < width; x++) {
-            raster.getDataElements(x, 0, rgba);
-            raster.getDataElements(x - 1, 0, predictor);
-            addPixels(rgba, predictor);
-
-            raster.setDataElements(x, 0, rgba);
-        }
-
-        // (0,y) T predict
-        for (int y = 1; y < height; y++) {
-            raster.getDataElements(0, y, rgba);
-            raster.getDataElements(0, y - 1, predictor);
-            addPixels(rgba, predictor);
-
-            raster.setDataElements(0, y, rgba);
+            argb[x] = addPixels(argb[x], argb[x - 1]);
         }
 
         for (int y = 1; y < height; y++) {
-            for (int x = 1; x < width; x++) {
-                int transformType = data.getSample(x >> bits, y >> bits, 1);
+            int row = y * width;
+            int blockRow = (y >> bits) * blocksPerRow;
 
-                raster.getDataElements(x, y, rgba);
+            // (0,y) T predict
+            argb[row] = addPixels(argb[row], argb[row - width]);
 
-                int lX = x - 1; // x for left
-                int tY = y - 1; // y for top
+            for (int x = 1, i = row + 1; x < width; x++, i++) {
+                int transformType = (data[blockRow + (x >> bits)] >> 8) & 0xff;
 
-                // top right is not (x+1, tY) if last pixel in line instead (0, y)
-                int trX = x == width - 1 ? 0 : x + 1;
-                int trY = x == width - 1 ? y : tY;
+                int l = i - 1;         // left
+                int t = i - width;     // top
+                int tl = t - 1;        // top left
+                // NOTE: Top right of the last pixel in a line is the leftmost pixel of the same line,
+                // which is exactly where it ends up in memory
+                int tr = t + 1;        // top right
 
                 switch (transformType) {
                     case PredictorMode.BLACK:
-                        rgba[3] += (byte) 0xff;
+                        argb[i] = addPixels(argb[i], 0xff000000);
                         break;
                     case PredictorMode.L:
-                        raster.getDataElements(lX, y, predictor);
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], argb[l]);
                         break;
                     case PredictorMode.T:
-                        raster.getDataElements(x, tY, predictor);
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], argb[t]);
                         break;
                     case PredictorMode.TR:
-                        raster.getDataElements(trX, trY, predictor);
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], argb[tr]);
                         break;
                     case PredictorMode.TL:
-                        raster.getDataElements(lX, tY, predictor);
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], argb[tl]);
                         break;
                     case PredictorMode.AVG_L_TR_T:
-                        raster.getDataElements(lX, y, predictor);
-                        raster.getDataElements(trX, trY, predictor2);
-                        average2(predictor, predictor2);
-
-                        raster.getDataElements(x, tY, predictor2);
-                        average2(predictor, predictor2);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], average2(average2(argb[l], argb[tr]), argb[t]));
                         break;
                     case PredictorMode.AVG_L_TL:
-                        raster.getDataElements(lX, y, predictor);
-                        raster.getDataElements(lX, tY, predictor2);
-                        average2(predictor, predictor2);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], average2(argb[l], argb[tl]));
                         break;
                     case PredictorMode.AVG_L_T:
-                        raster.getDataElements(lX, y, predictor);
-                        raster.getDataElements(x, tY, predictor2);
-                        average2(predictor, predictor2);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], average2(argb[l], argb[t]));
                         break;
                     case PredictorMode.AVG_TL_T:
-                        raster.getDataElements(lX, tY, predictor);
-                        raster.getDataElements(x, tY, predictor2);
-                        average2(predictor, predictor2);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], average2(argb[tl], argb[t]));
                         break;
                     case PredictorMode.AVG_T_TR:
-                        raster.getDataElements(x, tY, predictor);
-                        raster.getDataElements(trX, trY, predictor2);
-                        average2(predictor, predictor2);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], average2(argb[t], argb[tr]));
                         break;
                     case PredictorMode.AVG_L_TL_T_TR:
-                        raster.getDataElements(lX, y, predictor);
-                        raster.getDataElements(lX, tY, predictor2);
-                        average2(predictor, predictor2);
-
-                        raster.getDataElements(x, tY, predictor2);
-                        raster.getDataElements(trX, trY, predictor3);
-                        average2(predictor2, predictor3);
-
-                        average2(predictor, predictor2);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], average2(average2(argb[l], argb[tl]), average2(argb[t], argb[tr])));
                         break;
                     case PredictorMode.SELECT:
-                        raster.getDataElements(lX, y, predictor);
-                        raster.getDataElements(x, tY, predictor2);
-                        raster.getDataElements(lX, tY, predictor3);
-
-
-                        addPixels(rgba, select(predictor, predictor2, predictor3));
+                        argb[i] = addPixels(argb[i], select(argb[l], argb[t], argb[tl]));
                         break;
                     case PredictorMode.CLAMP_ADD_SUB_FULL:
-                        raster.getDataElements(lX, y, predictor);
-                        raster.getDataElements(x, tY, predictor2);
-                        raster.getDataElements(lX, tY, predictor3);
-                        clampAddSubtractFull(predictor, predictor2, predictor3);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], clampAddSubtractFull(argb[l], argb[t], argb[tl]));
                         break;
                     case PredictorMode.CLAMP_ADD_SUB_HALF:
-                        raster.getDataElements(lX, y, predictor);
-                        raster.getDataElements(x, tY, predictor2);
-                        average2(predictor, predictor2);
-
-                        raster.getDataElements(lX, tY, predictor2);
-                        clampAddSubtractHalf(predictor, predictor2);
-
-                        addPixels(rgba, predictor);
+                        argb[i] = addPixels(argb[i], clampAddSubtractHalf(average2(argb[l], argb[t]), argb[tl]));
                         break;
-
                 }
+            }
+        }
+    }
+
+    // NOTE: For encoding!
+    static void applyForward(final int[] argb, final int[] residuals, final int width, final int yStart, final int yEnd,
+                             final int[] data, final int bits) {
+        int blocksPerRow = (width + (1 << bits) - 1) >> bits;
+
+        for (int y = yStart; y < yEnd; y++) {
+            int row = y * width;
+            int blockRow = (y >> bits) * blocksPerRow;
 
-                raster.setDataElements(x, y, rgba);
+            for (int x = 0, i = row; x < width; x++, i++) {
+                int transformType = (data[blockRow + (x >> bits)] >> 8) & 0xff;
+                residuals[i] = subtractPixels(argb[i], predict(transformType, argb, x, y, i, width));
             }
         }
     }
 
-    private static byte[] select(final byte[] l, final byte[] t, final byte[] tl) {
-        // l = left pixel, t = top pixel, tl = top left pixel.
+    /**
+     * Returns the prediction for the pixel at index {@code i}, using the special rules for the top row and
+     * leftmost column.
+     */
+    static int predict(final int transformType, final int[] argb, final int x, final int y, final int i, final int width) {
+        if (y == 0) {
+            return x == 0 ? 0xff000000 : argb[i - 1];
+        }
+        if (x == 0) {
+            return argb[i - width];
+        }
 
-        // ARGB component estimates for prediction.
+        int l = i - 1;         // left
+        int t = i - width;     // top
+        int tl = t - 1;        // top left
+        int tr = t + 1;        // top right, or leftmost pixel on the same row for the last pixel in a line
+
+        switch (transformType) {
+            case PredictorMode.BLACK:
+                return 0xff000000;
+            case PredictorMode.L:
+                return argb[l];
+            case PredictorMode.T:
+                return argb[t];
+            case PredictorMode.TR:
+                return argb[tr];
+            case PredictorMode.TL:
+                return argb[tl];
+            case PredictorMode.AVG_L_TR_T:
+                return average2(average2(argb[l], argb[tr]), argb[t]);
+            case PredictorMode.AVG_L_TL:
+                return average2(argb[l], argb[tl]);
+            case PredictorMode.AVG_L_T:
+                return average2(argb[l], argb[t]);
+            case PredictorMode.AVG_TL_T:
+                return average2(argb[tl], argb[t]);
+            case PredictorMode.AVG_T_TR:
+                return average2(argb[t], argb[tr]);
+            case PredictorMode.AVG_L_TL_T_TR:
+                return average2(average2(argb[l], argb[tl]), average2(argb[t], argb[tr]));
+            case PredictorMode.SELECT:
+                return select(argb[l], argb[t], argb[tl]);
+            case PredictorMode.CLAMP_ADD_SUB_FULL:
+                return clampAddSubtractFull(argb[l], argb[t], argb[tl]);
+            case PredictorMode.CLAMP_ADD_SUB_HALF:
+                return clampAddSubtractHalf(average2(argb[l], argb[t]), argb[tl]);
+            default:
+                throw new IllegalArgumentException("Invalid predictor mode: " + transformType);
+        }
+    }
 
-        int pAlpha = addSubtractFull(l[3], t[3], tl[3]);
-        int pRed = addSubtractFull(l[0], t[0], tl[0]);
-        int pGreen = addSubtractFull(l[1], t[1], tl[1]);
-        int pBlue = addSubtractFull(l[2], t[2], tl[2]);
+    private static int select(final int l, final int t, final int tl) {
+        // l = left pixel, t = top pixel, tl = top left pixel.
 
-        // Manhattan distances to estimates for left and top pixels.
-        int pL = manhattanDistance(l, pAlpha, pRed, pGreen, pBlue);
-        int pT = manhattanDistance(t, pAlpha, pRed, pGreen, pBlue);
+        // The ARGB component estimates for prediction are l + t - tl, so the
+        // Manhattan distances to the estimates for left and top pixels are simply:
+        int pL = manhattanDistance(t, tl);
+        int pT = manhattanDistance(l, tl);
 
         // Return either left or top, the one closer to the prediction.
         return pL < pT ? l : t;
     }
 
-    private static int manhattanDistance(byte[] rgba, int pAlpha, int pRed, int pGreen, int pBlue) {
-        return abs(pAlpha - (rgba[3] & 0xff)) + abs(pRed - (rgba[0] & 0xff)) +
-                abs(pGreen - (rgba[1] & 0xff)) + abs(pBlue - (rgba[2] & 0xff));
+    private static int manhattanDistance(final int a, final int b) {
+        return abs((a >>> 24) - (b >>> 24)) + abs((a >> 16 & 0xff) - (b >> 16 & 0xff)) +
+                abs((a >> 8 & 0xff) - (b >> 8 & 0xff)) + abs((a & 0xff) - (b & 0xff));
     }
 
-    private static void average2(final byte[] rgba1, final byte[] rgba2) {
-        rgba1[0] = (byte) (((rgba1[0] & 0xff) + (rgba2[0] & 0xff)) / 2);
-        rgba1[1] = (byte) (((rgba1[1] & 0xff) + (rgba2[1] & 0xff)) / 2);
-        rgba1[2] = (byte) (((rgba1[2] & 0xff) + (rgba2[2] & 0xff)) / 2);
-        rgba1[3] = (byte) (((rgba1[3] & 0xff) + (rgba2[3] & 0xff)) / 2);
+    private static int average2(final int argb1, final int argb2) {
+        // Per component (a + b) / 2, without carry between components
+        return (((argb1 ^ argb2) & 0xfefefefe) >>> 1) + (argb1 & argb2);
     }
 
     // Clamp the input value between 0 and 255.
@@ -238,33 +222,37 @@ final class PredictorTransform implements Transform {
         return max(0, min(a, 255));
     }
 
-    private static void clampAddSubtractFull(final byte[] a, final byte[] b, final byte[] c) {
-        a[0] = (byte) clamp(addSubtractFull(a[0], b[0], c[0]));
-        a[1] = (byte) clamp(addSubtractFull(a[1], b[1], c[1]));
-        a[2] = (byte) clamp(addSubtractFull(a[2], b[2], c[2]));
-        a[3] = (byte) clamp(addSubtractFull(a[3], b[3], c[3]));
+    private static int clampAddSubtractFull(final int a, final int b, final int c) {
+        return clamp((a >>> 24) + (b >>> 24) - (c >>> 24)) << 24 |
+                clamp((a >> 16 & 0xff) + (b >> 16 & 0xff) - (c >> 16 & 0xff)) << 16 |
+                clamp((a >> 8 & 0xff) + (b >> 8 & 0xff) - (c >> 8 & 0xff)) << 8 |
+                clamp((a & 0xff) + (b & 0xff) - (c & 0xff));
     }
 
-    private static void clampAddSubtractHalf(final byte[] a, final byte[] b) {
-        a[0] = (byte) clamp(addSubtractHalf(a[0], b[0]));
-        a[1] = (byte) clamp(addSubtractHalf(a[1], b[1]));
-        a[2] = (byte) clamp(addSubtractHalf(a[2], b[2]));
-        a[3] = (byte) clamp(addSubtractHalf(a[3], b[3]));
+    private static int clampAddSubtractHalf(final int a, final int b) {
+        return clamp(addSubtractHalf(a >>> 24, b >>> 24)) << 24 |
+                clamp(addSubtractHalf(a >> 16 & 0xff, b >> 16 & 0xff)) << 16 |
+                clamp(addSubtractHalf(a >> 8 & 0xff, b >> 8 & 0xff)) << 8 |
+                clamp(addSubtractHalf(a & 0xff, b & 0xff));
     }
 
-    private static int addSubtractFull(byte a, byte b, byte c) {
-        return (a & 0xff) + (b & 0xff) - (c & 0xff);
+    private static int addSubtractHalf(final int a, final int b) {
+        return a + (a - b) / 2;
     }
 
-    private static int addSubtractHalf(byte a, byte b) {
-        return (a & 0xff) + ((a & 0xff) - (b & 0xff)) / 2;
-    }
+    static int addPixels(final int argb, final int predictor) {
+        // Per component addition modulo 256, without carry between components
+        int alphaAndGreen = (argb & 0xff00ff00) + (predictor & 0xff00ff00);
+        int redAndBlue = (argb & 0x00ff00ff) + (predictor & 0x00ff00ff);
 
-    private static void addPixels(byte[] rgba, byte[] predictor) {
-        rgba[0] += predictor[0];
-        rgba[1] += predictor[1];
-        rgba[2] += predictor[2];
-        rgba[3] += predictor[3];
+        return alphaAndGreen & 0xff00ff00 | redAndBlue & 0x00ff00ff;
     }
 
+    static int subtractPixels(final int argb, final int predictor) {
+        // Per component subtraction modulo 256, without borrow between components
+        int alphaAndGreen = 0x00ff00ff + (argb & 0xff00ff00) - (predictor & 0xff00ff00);
+        int redAndBlue = 0xff00ff00 + (argb & 0x00ff00ff) - (predictor & 0x00ff00ff);
+
+        return alphaAndGreen & 0xff00ff00 | redAndBlue & 0x00ff00ff;
+    }
 }
@@ -31,31 +31,43 @@
 
 package com.twelvemonkeys.imageio.plugins.webp.lossless;
 
-import java.awt.image.*;
-
 /**
  * @author Simon Kammermeier
  */
 final class SubtractGreenTransform implements Transform {
 
-    private static void addGreenToBlueAndRed(byte[] rgb) {
-        rgb[0] = (byte) ((rgb[0] + rgb[1]) & 0xff);
-        rgb[2] = (byte) ((rgb[2] + rgb[1]) & 0xff);
+    private final int width;
+
+    public SubtractGreenTransform(int width) {
+        this.width = width;
     }
 
     @Override
-    public void applyInverse(WritableRaster raster) {
-        int width = raster.getWidth();
-        int height = raster.getHeight();
-
-        byte[] rgba = new byte[4];
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                raster.getDataElements(x, y, rgba);
-                addGreenToBlueAndRed(rgba);
-                raster.setDataElements(x, y, rgba);
-            }
+    public void applyInverse(int[] argb, int height) {
+        for (int i = 0, length = width * height; i < length; i++) {
+            argb[i] = addGreenToBlueAndRed(argb[i]);
         }
     }
+
+    static int addGreenToBlueAndRed(final int argb) {
+        int green = (argb >> 8) & 0xff;
+        int redAndBlue = (argb & 0x00ff00ff) + (green << 16 | green);
+
+        return argb & 0xff00ff00 | redAndBlue & 0x00ff00ff;
+    }
+
+    // NOTE: For encoding!
+    static void applyForward(final int[] argb, final int length) {
+        for (int i = 0; i < length; i++) {
+            argb[i] = subtractGreenFromBlueAndRed(argb[i]);
+        }
+    }
+
+    static int subtractGreenFromBlueAndRed(final int argb) {
+        int green = (argb >> 8) & 0xff;
+        // Borrow from the (masked out) bits above red and blue, to avoid borrowing across components
+        int redAndBlue = ((argb & 0x00ff00ff) | 0x01000100) - (green << 16 | green);
+
+        return argb & 0xff00ff00 | redAndBlue & 0x00ff00ff;
+    }
 }
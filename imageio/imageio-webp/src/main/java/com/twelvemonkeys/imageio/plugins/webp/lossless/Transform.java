@@ -31,8 +31,6 @@
 
 package com.twelvemonkeys.imageio.plugins.webp.lossless;
 
-import java.awt.image.*;
-
 /**
  * Transform.
  *
@@ -40,5 +38,12 @@ import java.awt.image.*;
  */
 interface Transform {
 
-    void applyInverse(WritableRaster raster);
+    /**
+     * Applies the inverse transform, in place.
+     *
+     * @param argb the image data, as packed ARGB pixels, at least {@code width * height} in length,
+     *             where {@code width} is the image width at the point the transform was read from the stream.
+     * @param height the height of the image.
+     */
+    void applyInverse(int[] argb, int height);
 }
@@ -42,8 +42,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.twelvemonkeys.imageio.util.RasterUtils.asByteRaster;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 
 /**
  * VP8LDecoder.
@@ -57,7 +57,7 @@ public final class VP8LDecoder {
      * Used for decoding backward references
      * Upper 4Bits are y distance, lower 4 Bits are 8 minus x distance
      */
-    private final static byte[] DISTANCES = {
+    final static byte[] DISTANCES = {
             0x18, 0x07, 0x17, 0x19, 0x28, 0x06, 0x27, 0x29, 0x16, 0x1a,
             0x26, 0x2a, 0x38, 0x05, 0x37, 0x39, 0x15, 0x1b, 0x36, 0x3a,
             0x25, 0x2b, 0x48, 0x04, 0x47, 0x49, 0x14, 0x1c, 0x35, 0x3b,
@@ -80,6 +80,26 @@ public final class VP8LDecoder {
     }
 
     public void readVP8Lossless(final WritableRaster raster, final boolean topLevel, ImageReadParam param, int width, int height) throws IOException {
+        // Decode the whole image into packed ARGB, then copy into the raster at once
+        int[] argb = decode(topLevel, width, height);
+
+        copyIntoRasterWithParams(argb, width, height, raster, param);
+    }
+
+    /**
+     * Decodes the image into packed ARGB values, without applying source region or subsampling.
+     *
+     * @param topLevel {@code true} if decoding a top level image, including transforms.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @return the decoded image, as packed ARGB values in scanline order.
+     * @throws IOException if an I/O error occurs while decoding.
+     */
+    public int[] readVP8Lossless(final boolean topLevel, final int width, final int height) throws IOException {
+        return decode(topLevel, width, height);
+    }
+
+    private int[] decode(final boolean topLevel, final int width, final int height) throws IOException {
         // Skip past already read parts of header (signature, width, height, alpha, version) 5 Bytes in total
         if (topLevel) {
             imageInput.seek(imageInput.getStreamPosition() + 5);
@@ -112,59 +132,81 @@ public final class VP8LDecoder {
             colorCache = new ColorCache(colorCacheBits);
         }
 
-        WritableRaster fullSizeRaster;
-        WritableRaster decodeRaster;
-
-        if (topLevel) {
-            Rectangle bounds = new Rectangle(width, height);
-            fullSizeRaster = createDecodeRaster(raster, param, bounds);
-
-            // If multiple indices packed into one pixel xSize is different from raster width
-            decodeRaster = fullSizeRaster.createWritableChild(0, 0, xSize, height, 0, 0, null);
-        }
-        else {
-            // All recursive calls have Rasters of the correct sizes with origin (0, 0)
-            decodeRaster = fullSizeRaster = raster;
-        }
+        // If multiple indices packed into one pixel xSize is different from width,
+        // the buffer is allocated for the full width, and expanded in place by the color indexing transform
+        int[] argb = new int[width * height];
 
         // Use the Huffman trees to decode the LZ77 encoded data.
-        decodeImage(decodeRaster, huffmanInfo, colorCache);
+        decodeImage(argb, xSize, height, huffmanInfo, colorCache);
 
         for (Transform transform : transforms) {
-            transform.applyInverse(fullSizeRaster);
+            transform.applyInverse(argb, height);
         }
 
-        if (fullSizeRaster != raster) {
-            copyIntoRasterWithParams(fullSizeRaster, raster, param);
-        }
+        return argb;
     }
 
-    private WritableRaster createDecodeRaster(WritableRaster raster, ImageReadParam param, Rectangle bounds) {
-        // If the ImageReadParam requires only a subregion of the image, and if the whole image does not fit into the
-        // Raster or subsampling is requested, we need a temporary Raster as we can only decode the whole image at once
-        boolean originSet = false;
+    private static void copyIntoRasterWithParams(final int[] argb, final int width, final int height,
+                                                 final WritableRaster raster, final ImageReadParam param) {
+        Rectangle bounds = new Rectangle(width, height);
 
         if (param != null) {
-            if (param.getSourceRegion() != null && !param.getSourceRegion().contains(bounds) ||
-                    param.getSourceXSubsampling() != 1 || param.getSourceYSubsampling() != 1) {
-                // Can't reuse existing
-                return createCompatibleRaster(raster, bounds.width, bounds.height);
+            if (param.getSourceXSubsampling() != 1 || param.getSourceYSubsampling() != 1) {
+                // Expand into a temporary raster, and let the general case handle the subsampling
+                WritableRaster tempRaster = createCompatibleRaster(raster, width, height);
+                setARGB(argb, width, bounds, tempRaster, 0, 0);
+                copyIntoRasterWithParams(tempRaster, raster, param);
+
+                return;
             }
-            else {
-                bounds.setLocation(param.getDestinationOffset());
-                originSet = true;
+
+            if (param.getSourceRegion() != null) {
+                bounds = bounds.intersection(param.getSourceRegion());
             }
+
+            Point destinationOffset = param.getDestinationOffset();
+            setARGB(argb, width, bounds, raster, destinationOffset.x, destinationOffset.y);
         }
+        else {
+            setARGB(argb, width, bounds, raster, 0, 0);
+        }
+    }
 
-        if (!raster.getBounds().contains(bounds)) {
-            // Can't reuse existing
-            return createCompatibleRaster(raster, bounds.width, bounds.height);
+    private static final int[] BAND_SHIFTS = {16, 8, 0, 24}; // R, G, B, A
+
+    /**
+     * Copy the given region of packed ARGB pixels into the raster, one row at a time.
+     * The raster is assumed to have {@code byte} samples in R, G, B(, A) order.
+     */
+    private static void setARGB(final int[] argb, final int scanlineStride, final Rectangle region,
+                                final WritableRaster raster, final int dstX, final int dstY) {
+        // Clip against the raster bounds
+        int xStart = max(dstX, raster.getMinX());
+        int yStart = max(dstY, raster.getMinY());
+        int xEnd = min(dstX + region.width, raster.getMinX() + raster.getWidth());
+        int yEnd = min(dstY + region.height, raster.getMinY() + raster.getHeight());
+
+        if (xStart >= xEnd || yStart >= yEnd) {
+            return;
         }
 
-        return originSet ?
-                // Recenter to (0, 0)
-                raster.createWritableChild(bounds.x, bounds.y, bounds.width, bounds.height, 0, 0, null) :
-                raster;
+        int numBands = raster.getNumBands();
+        int rowWidth = xEnd - xStart;
+        byte[] row = new byte[rowWidth * numBands];
+
+        for (int y = yStart; y < yEnd; y++) {
+            int offset = (region.y + y - dstY) * scanlineStride + region.x + xStart - dstX;
+
+            for (int x = 0, i = 0; x < rowWidth; x++) {
+                int pixel = argb[offset + x];
+
+                for (int b = 0; b < numBands; b++) {
+                    row[i++] = (byte) (pixel >> BAND_SHIFTS[b]);
+                }
+            }
+
+            raster.setDataElements(xStart, y, rowWidth, 1, row);
+        }
     }
 
     private static WritableRaster createCompatibleRaster(WritableRaster src, int width, int height) {
@@ -203,136 +245,119 @@ public final class VP8LDecoder {
         }
     }
 
-    private void decodeImage(WritableRaster raster, HuffmanInfo huffmanInfo, ColorCache colorCache) throws IOException {
-        int width = raster.getWidth();
-        int height = raster.getHeight();
-
-        int huffmanMask = huffmanInfo.metaCodeBits == 0 ? -1 : ((1 << huffmanInfo.metaCodeBits) - 1);
+    private void decodeImage(int[] argb, int width, int height, HuffmanInfo huffmanInfo, ColorCache colorCache) throws IOException {
+        int[] huffmanMetaCodes = huffmanInfo.huffmanMetaCodes;
+        int metaCodeBits = huffmanInfo.metaCodeBits;
+        int huffmanMask = metaCodeBits == 0 ? -1 : ((1 << metaCodeBits) - 1);
         HuffmanCodeGroup curCodeGroup = huffmanInfo.huffmanGroups[0];
 
-        byte[] rgba = new byte[4];
+        int end = width * height;
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if ((x & huffmanMask) == 0 && huffmanInfo.huffmanMetaCodes != null) {
-                    // Crossed border into new metaGroup
-                    int index = huffmanInfo.huffmanMetaCodes.getSample(x >> huffmanInfo.metaCodeBits, y >> huffmanInfo.metaCodeBits, 0);
-                    curCodeGroup = huffmanInfo.huffmanGroups[index];
-                }
+        for (int pos = 0, x = 0, y = 0; pos < end; ) {
+            if ((x & huffmanMask) == 0 && huffmanMetaCodes != null) {
+                // Crossed border into new metaGroup
+                curCodeGroup = huffmanInfo.huffmanGroups[huffmanMetaCodes[(y >> metaCodeBits) * huffmanInfo.huffmanXSize + (x >> metaCodeBits)]];
+            }
 
-                short code = curCodeGroup.mainCode.readSymbol(lsbBitReader);
+            short code = curCodeGroup.mainCode.readSymbol(lsbBitReader);
 
-                if (code < 256) { // Literal
-                    decodeLiteral(raster, colorCache, curCodeGroup, rgba, y, x, code);
-                }
-                else if (code < 256 + 24) { // backward reference
-                    int length = decodeBwRef(raster, colorCache, width, curCodeGroup, rgba, code, x, y);
-
-                    // Decrement one because for loop already increments by one
-                    x--;
-                    y = y + ((x + length) / width);
-                    x = (x + length) % width;
-
-                    // Reset Huffman meta group
-                    if (y < height && x < width && huffmanInfo.huffmanMetaCodes != null) {
-                        int index = huffmanInfo.huffmanMetaCodes.getSample(x >> huffmanInfo.metaCodeBits, y >> huffmanInfo.metaCodeBits, 0);
-                        curCodeGroup = huffmanInfo.huffmanGroups[index];
-                    }
-                }
-                else { // colorCache
-                    decodeCached(raster, colorCache, rgba, y, x, code);
-                }
+            if (code < 256) { // Literal
+                argb[pos] = decodeLiteral(colorCache, curCodeGroup, code);
+                pos++;
+                x++;
             }
-        }
-    }
+            else if (code < 256 + 24) { // backward reference
+                int length = decodeBwRef(argb, colorCache, width, end, curCodeGroup, code, pos);
 
-    private void decodeCached(WritableRaster raster, ColorCache colorCache, byte[] rgba, int y, int x, short code) {
-        int argb = colorCache.lookup(code - 256 - 24);
+                pos += length;
+                x += length;
+                y += x / width;
+                x %= width;
 
-        rgba[0] = (byte) ((argb >> 16) & 0xff);
-        rgba[1] = (byte) ((argb >> 8) & 0xff);
-        rgba[2] = (byte) (argb & 0xff);
-        rgba[3] = (byte) (argb >>> 24);
+                // Reset Huffman meta group
+                if (pos < end && huffmanMetaCodes != null) {
+                    curCodeGroup = huffmanInfo.huffmanGroups[huffmanMetaCodes[(y >> metaCodeBits) * huffmanInfo.huffmanXSize + (x >> metaCodeBits)]];
+                }
 
-        raster.setDataElements(x, y, rgba);
+                continue;
+            }
+            else { // colorCache
+                argb[pos] = colorCache.lookup(code - 256 - 24);
+                pos++;
+                x++;
+            }
+
+            if (x == width) {
+                x = 0;
+                y++;
+            }
+        }
     }
 
-    private void decodeLiteral(WritableRaster raster, ColorCache colorCache, HuffmanCodeGroup curCodeGroup, byte[] rgba, int y, int x, short code) throws IOException {
-        byte red = (byte) curCodeGroup.redCode.readSymbol(lsbBitReader);
-        byte blue = (byte) curCodeGroup.blueCode.readSymbol(lsbBitReader);
-        byte alpha = (byte) curCodeGroup.alphaCode.readSymbol(lsbBitReader);
+    private int decodeLiteral(ColorCache colorCache, HuffmanCodeGroup curCodeGroup, short code) throws IOException {
+        int red = curCodeGroup.redCode.readSymbol(lsbBitReader) & 0xff;
+        int blue = curCodeGroup.blueCode.readSymbol(lsbBitReader) & 0xff;
+        int alpha = curCodeGroup.alphaCode.readSymbol(lsbBitReader) & 0xff;
 
-        rgba[0] = red;
-        rgba[1] = (byte) code;
-        rgba[2] = blue;
-        rgba[3] = alpha;
-        raster.setDataElements(x, y, rgba);
+        int argb = alpha << 24 | red << 16 | (code & 0xff) << 8 | blue;
 
         if (colorCache != null) {
-            colorCache.insert((alpha & 0xff) << 24 | (red & 0xff) << 16 | (code & 0xff) << 8 | (blue & 0xff));
+            colorCache.insert(argb);
         }
+
+        return argb;
     }
 
-    private int decodeBwRef(WritableRaster raster, ColorCache colorCache, int width, HuffmanCodeGroup curCodeGroup, byte[] rgba, short code, int x, int y) throws IOException {
+    private int decodeBwRef(int[] argb, ColorCache colorCache, int width, int end, HuffmanCodeGroup curCodeGroup, short code, int pos) throws IOException {
         int length = lz77decode(code - 256);
 
-        int remaining = width * raster.getHeight() - (y * width + x);
+        int remaining = end - pos;
         if (length > remaining) {
             throw new IIOException("Corrupt WebP stream, backward reference exceeds image bounds: length=" + length +
-                                   ", remaining=" + remaining + ", x=" + x + ", y=" + y);
+                                   ", remaining=" + remaining + ", x=" + pos % width + ", y=" + pos / width);
         }
 
         short distancePrefix = curCodeGroup.distanceCode.readSymbol(lsbBitReader);
         int distanceCode = lz77decode(distancePrefix);
+        int distance = planeCodeToDistance(width, distanceCode);
 
-        int xSrc, ySrc;
-
-        if (distanceCode > 120) {
-            // Linear distance
-            int distance = distanceCode - 120;
-            ySrc = y - (distance / width);
-            xSrc = x - (distance % width);
-        }
-        else {
-            // See comment of distances array
-            xSrc = x - (8 - (DISTANCES[distanceCode - 1] & 0xf));
-            ySrc = y - (DISTANCES[distanceCode - 1] >> 4);
+        int src = pos - distance;
+        if (src < 0) {
+            throw new IIOException("Corrupt WebP stream, backward reference outside image: distance=" + distanceCode +
+                                   ", x=" + pos % width + ", y=" + pos / width + ", src=" + src);
         }
 
-        if (xSrc < 0) {
-            ySrc--;
-            xSrc += width;
-        }
-        else if (xSrc >= width) {
-            xSrc -= width;
-            ySrc++;
+        if (distance >= length) {
+            System.arraycopy(argb, src, argb, pos, length);
         }
-
-        if (ySrc < 0 || ySrc >= raster.getHeight()) {
-            throw new IIOException("Corrupt WebP stream, backward reference outside image: distance=" + distanceCode +
-                                   ", x=" + x + ", y=" + y + ", xSrc=" + xSrc + ", ySrc=" + ySrc);
+        else {
+            // Overlapping, copy pixel by pixel to repeat the pattern
+            for (int i = 0; i < length; i++) {
+                argb[pos + i] = argb[src + i];
+            }
         }
 
-        for (int l = length; l > 0; x++, l--) {
-            // Check length and xSrc, ySrc not falling outside raster? (Should not occur if image is correct)
-            if (x == width) {
-                x = 0;
-                y++;
+        if (colorCache != null) {
+            for (int i = pos; i < pos + length; i++) {
+                colorCache.insert(argb[i]);
             }
+        }
 
-            raster.getDataElements(xSrc++, ySrc, rgba);
-            raster.setDataElements(x, y, rgba);
+        return length;
+    }
 
-            if (xSrc == width) {
-                xSrc = 0;
-                ySrc++;
-            }
-            if (colorCache != null) {
-                colorCache.insert((rgba[3] & 0xff) << 24 | (rgba[0] & 0xff) << 16 | (rgba[1] & 0xff) << 8 | (rgba[2] & 0xff));
-            }
+    private static int planeCodeToDistance(final int width, final int distanceCode) {
+        if (distanceCode > 120) {
+            // Linear distance
+            return distanceCode - 120;
         }
 
-        return length;
+        // See comment of distances array
+        int xOffset = 8 - (DISTANCES[distanceCode - 1] & 0xf);
+        int yOffset = DISTANCES[distanceCode - 1] >> 4;
+        int distance = yOffset * width + xOffset;
+
+        return max(distance, 1);
     }
 
     private int lz77decode(int prefixCode) throws IOException {
@@ -344,7 +369,11 @@ public final class VP8LDecoder {
             int extraBits = (prefixCode - 2) >> 1;
             int offset = (2 + (prefixCode & 1)) << extraBits;
 
-            return offset + (int) lsbBitReader.readBits(extraBits) + 1;
+            // At most 18 extra bits, within the prefetched bits
+            int bits = (int) lsbBitReader.prefetchBits() & ((1 << extraBits) - 1);
+            lsbBitReader.skipBits(extraBits);
+
+            return offset + bits + 1;
         }
     }
 
@@ -363,24 +392,20 @@ public final class VP8LDecoder {
 
                 int blockWidth = subSampleSize(xSize, sizeBits);
                 int blockHeight = subSampleSize(ySize, sizeBits);
-                WritableRaster raster =
-                        Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, blockWidth, blockHeight, 4 * blockWidth, 4,
-                                new int[] {0, 1, 2, 3}, null);
-                readVP8Lossless(raster, false, null, blockWidth, blockHeight);
+                int[] data = decode(false, blockWidth, blockHeight);
 
-                // Keep data as raster for convenient (x,y) indexing
                 if (transformType == TransformType.PREDICTOR_TRANSFORM) {
-                    transforms.add(0, new PredictorTransform(raster, sizeBits));
+                    transforms.add(0, new PredictorTransform(data, xSize, sizeBits));
                 }
                 else {
-                    transforms.add(0, new ColorTransform(raster, sizeBits));
+                    transforms.add(0, new ColorTransform(data, xSize, sizeBits));
                 }
 
                 break;
             }
             case TransformType.SUBTRACT_GREEN: {
                 // No data here
-                transforms.add(0, new SubtractGreenTransform());
+                transforms.add(0, new SubtractGreenTransform(xSize));
                 break;
             }
             case TransformType.COLOR_INDEXING_TRANSFORM: {
@@ -394,22 +419,18 @@ public final class VP8LDecoder {
                                          colorTableSize > 4 ? 16 :
                                          colorTableSize > 2 ? 4 : 2;
 
-                byte[] colorTable = new byte[safeColorTableSize * 4];
+                int[] colorTable = new int[safeColorTableSize];
 
                 // The color table can be obtained by reading an image,
                 // without the RIFF header, image size, and transforms,
                 // assuming a height of one pixel and a width of
                 // color_table_size. The color table is always
                 // subtraction-coded to reduce image entropy.
-                readVP8Lossless(
-                        Raster.createInterleavedRaster(
-                                new DataBufferByte(colorTable, colorTableSize * 4),
-                                colorTableSize, 1, colorTableSize * 4, 4, new int[] {0, 1, 2, 3}, null),
-                        false, null, colorTableSize, 1);
-
-                // resolve subtraction code
-                for (int i = 4; i < colorTable.length; i++) {
-                    colorTable[i] += colorTable[i - 4];
+                System.arraycopy(decode(false, colorTableSize, 1), 0, colorTable, 0, colorTableSize);
+
+                // resolve subtraction code (the entries past colorTableSize stay 0x00000000)
+                for (int i = 1; i < colorTableSize; i++) {
+                    colorTable[i] = PredictorTransform.addPixels(colorTable[i], colorTable[i - 1]);
                 }
 
                 // The number of pixels packed into each green sample (byte)
@@ -417,11 +438,10 @@ public final class VP8LDecoder {
                                          colorTableSize > 4 ? 1 :
                                          colorTableSize > 2 ? 2 : 3);
 
-                xSize = subSampleSize(xSize, widthBits);
-
-                // The colors components are stored in ARGB order at 4*index, 4*index + 1, 4*index + 2, 4*index + 3
                 // TODO: Can we use this to produce an image with IndexColorModel instead of expanding the values in-memory?
-                transforms.add(0, new ColorIndexingTransform(colorTable, widthBits));
+                transforms.add(0, new ColorIndexingTransform(colorTable, xSize, widthBits));
+
+                xSize = subSampleSize(xSize, widthBits);
 
                 break;
             }
@@ -434,36 +454,28 @@ public final class VP8LDecoder {
 
     private HuffmanInfo readHuffmanCodes(int xSize, int ySize, int colorCacheBits, boolean readMetaCodes) throws IOException {
         int huffmanGroupNum = 1;
-        int huffmanXSize;
-        int huffmanYSize;
 
         int metaCodeBits = 0;
 
-        WritableRaster huffmanMetaCodes = null;
+        int[] huffmanMetaCodes = null;
+        int huffmanXSize = 0;
 
         if (readMetaCodes && lsbBitReader.readBit() == 1) {
             // read in meta codes
             metaCodeBits = (int) lsbBitReader.readBits(3) + 2;
             huffmanXSize = subSampleSize(xSize, metaCodeBits);
-            huffmanYSize = subSampleSize(ySize, metaCodeBits);
+            int huffmanYSize = subSampleSize(ySize, metaCodeBits);
 
-            // Raster with elements as BARG (only the RG components encode the meta group)
-            WritableRaster packedRaster = Raster.createPackedRaster(DataBuffer.TYPE_INT, huffmanXSize, huffmanYSize,
-                    new int[] {0x0000ff00, 0x000000ff, 0xff000000, 0x00ff0000}, null);
-            readVP8Lossless(asByteRaster(packedRaster), false, null, huffmanXSize, huffmanYSize);
+            // Only the RG components encode the meta group, replace the ARGB values with the meta group index
+            huffmanMetaCodes = decode(false, huffmanXSize, huffmanYSize);
 
-            int[] data = ((DataBufferInt) packedRaster.getDataBuffer()).getData();
             // Max metaGroup is number of meta groups
             int maxCode = Integer.MIN_VALUE;
-            for (int code : data) {
-                maxCode = max(maxCode, code & 0xffff);
+            for (int i = 0; i < huffmanMetaCodes.length; i++) {
+                huffmanMetaCodes[i] = (huffmanMetaCodes[i] >> 8) & 0xffff;
+                maxCode = max(maxCode, huffmanMetaCodes[i]);
             }
             huffmanGroupNum = maxCode + 1;
-
-            // New Raster with just RG components exposed as single band
-            // allowing simple access of metaGroupIndex with x,y lookup
-            huffmanMetaCodes = Raster.createPackedRaster(packedRaster.getDataBuffer(), huffmanXSize, huffmanYSize,
-                    huffmanXSize, new int[] {0xffff}, null);
         }
 
         HuffmanCodeGroup[] huffmanGroups = new HuffmanCodeGroup[huffmanGroupNum];
@@ -472,7 +484,7 @@ public final class VP8LDecoder {
             huffmanGroups[i] = new HuffmanCodeGroup(lsbBitReader, colorCacheBits);
         }
 
-        return new HuffmanInfo(huffmanMetaCodes, metaCodeBits, huffmanGroups);
+        return new HuffmanInfo(huffmanMetaCodes, huffmanXSize, metaCodeBits, huffmanGroups);
     }
 
     private static int subSampleSize(final int size, final int samplingBits) {
@@ -0,0 +1,935 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp.lossless;
+
+import com.twelvemonkeys.imageio.plugins.webp.LSBBitWriter;
+
+import javax.imageio.IIOException;
+import javax.imageio.stream.ImageOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.twelvemonkeys.lang.Validate.isTrue;
+import static com.twelvemonkeys.lang.Validate.notNull;
+
+/**
+ * VP8LEncoder.
+ * <p>
+ * Encodes packed ARGB pixels as a WebP lossless (VP8L) bitstream, using the same transforms as the decoder,
+ * in the forward direction. Images with at most 256 colors are written using a color indexing transform,
+ * other images are written using the subtract green, predictor and (if it makes the result smaller) color transforms.
+ * The pixels are entropy coded using LZ77 backward references (found using a hash chain), an optional color cache,
+ * and a single group of Huffman codes.
+ * </p>
+ * <p>
+ * The {@link #setQuality(float) quality} controls the effort used to find the best predictor and color transforms,
+ * the backward references, and the color cache size. Higher values are slower, but produce smaller files.
+ * The encoded sizes are computed exactly (including the Huffman codes), and the transforms and references found
+ * with lower effort are kept, if they give a smaller result.
+ * If an {@link #setExecutor(Executor) executor} is set, the analysis of large images
+ * (the selection of predictor and color transforms, and the histograms used to select the color cache size)
+ * is split into tasks run on the executor. The result is identical to the sequential encoding.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: VP8LEncoder.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public final class VP8LEncoder {
+    /** Images with fewer pixels than this are always analyzed on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+
+    /** Transforms are selected for bands of 1 << BAND_BITS tile rows, using the statistics of the band so far. */
+    private static final int BAND_BITS = 3;
+
+    private static final int MAX_PALETTE_SIZE = 256;
+    private static final int MAX_COLOR_CACHE_BITS = 10;
+
+    private static final int NUM_LITERAL_CODES = 256;
+    private static final int NUM_LENGTH_CODES = 24;
+    private static final int NUM_DISTANCE_CODES = 40;
+
+    // Histogram indexes, in the same order as the codes in HuffmanCodeGroup
+    private static final int GREEN = 0;
+    private static final int RED = 1;
+    private static final int BLUE = 2;
+    private static final int ALPHA = 3;
+    private static final int DISTANCE = 4;
+
+    private static final int[] ALL_PREDICTOR_MODES = {
+            PredictorMode.BLACK, PredictorMode.L, PredictorMode.T, PredictorMode.TR, PredictorMode.TL,
+            PredictorMode.AVG_L_TR_T, PredictorMode.AVG_L_TL, PredictorMode.AVG_L_T, PredictorMode.AVG_TL_T,
+            PredictorMode.AVG_T_TR, PredictorMode.AVG_L_TL_T_TR, PredictorMode.SELECT,
+            PredictorMode.CLAMP_ADD_SUB_FULL, PredictorMode.CLAMP_ADD_SUB_HALF
+    };
+    private static final int[] FAST_PREDICTOR_MODES = {
+            PredictorMode.L, PredictorMode.T, PredictorMode.AVG_L_T, PredictorMode.SELECT
+    };
+
+    /** The references found using the settings for these efforts are also tried, for any higher effort. */
+    private static final float[] EFFORT_STEPS = {0.25f, 0.5f, 0.75f};
+
+    private static final int[] ALL_COLOR_CACHE_BITS = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, MAX_COLOR_CACHE_BITS};
+    private static final int[] FAST_COLOR_CACHE_BITS = {0, 4, 7, MAX_COLOR_CACHE_BITS};
+
+    // n * log2(n), for small counts
+    private static final float[] N_LOG2_N = new float[1 << 16];
+
+    static {
+        for (int n = 1; n < N_LOG2_N.length; n++) {
+            N_LOG2_N[n] = (float) (n * log2(n));
+        }
+    }
+
+    private final LSBBitWriter bitWriter;
+
+    private float quality = 0.75f;
+    private Executor executor;
+
+    public VP8LEncoder(final ImageOutputStream imageOutput) {
+        this.bitWriter = new LSBBitWriter(notNull(imageOutput, "imageOutput"));
+    }
+
+    /**
+     * Sets the encoding effort.
+     *
+     * @param quality the effort, from {@code 0} (fastest) to {@code 1} (smallest output). The default is {@code 0.75}.
+     */
+    public void setQuality(final float quality) {
+        isTrue(quality >= 0 && quality <= 1, quality, "quality must be between 0 and 1: %s");
+        this.quality = quality;
+    }
+
+    /**
+     * Sets the executor used for analyzing large images.
+     * The executor is not shut down by the encoder.
+     *
+     * @param executor the executor, or {@code null} to encode sequentially on the calling thread (the default).
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Encodes the image, and writes it to the stream.
+     * The 5 byte header (signature, image size, alpha hint and version) is not written, and must be written
+     * by the caller, before invoking this method. The stream is left at the first byte after the encoded data.
+     *
+     * @param argb the image data, as packed ARGB values in scanline order. The array is not modified.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    public void writeVP8Lossless(final int[] argb, final int width, final int height) throws IOException {
+        isTrue(width > 0 && height > 0, "width and height must be > 0");
+        isTrue(argb.length >= width * height, "argb too short for width * height");
+
+        int pixels = width * height;
+        int[] palette = createPalette(argb, pixels);
+
+        EncodedImage mainImage;
+
+        if (palette != null) {
+            // The color table is always subtraction-coded to reduce image entropy
+            int[] colorTable = new int[palette.length];
+            colorTable[0] = palette[0];
+            for (int i = 1; i < palette.length; i++) {
+                colorTable[i] = PredictorTransform.subtractPixels(palette[i], palette[i - 1]);
+            }
+
+            // The number of pixels packed into each green sample (byte)
+            byte widthBits = (byte) (palette.length > 16 ? 0 :
+                                     palette.length > 4 ? 1 :
+                                     palette.length > 2 ? 2 : 3);
+
+            writeTransformType(TransformType.COLOR_INDEXING_TRANSFORM);
+            bitWriter.writeBits(palette.length - 1, 8);
+            writeImage(analyzeImage(colorTable, palette.length, 1, false, quality));
+
+            int[] image = ColorIndexingTransform.applyForward(argb, width, height, palette, widthBits);
+            mainImage = analyzeImage(image, subSampleSize(width, widthBits), height, true, quality);
+        }
+        else {
+            int[] image = Arrays.copyOf(argb, pixels);
+            SubtractGreenTransform.applyForward(image, pixels);
+
+            TransformedImage transformed = analyzeTransforms(image, width, height, quality);
+
+            if (quality > 0) {
+                // The heuristics used for higher effort usually, but not always, give a smaller result
+                TransformedImage fastest = analyzeTransforms(image, width, height, 0);
+
+                if (fastest.cost() < transformed.cost()) {
+                    transformed = fastest;
+                }
+            }
+
+            writeTransformType(TransformType.SUBTRACT_GREEN);
+
+            writeTransformType(TransformType.PREDICTOR_TRANSFORM);
+            bitWriter.writeBits(transformed.bits - 2, 3);
+            writeImage(transformed.predictorImage);
+
+            if (transformed.colorTransformImage != null) {
+                writeTransformType(TransformType.COLOR_TRANSFORM);
+                bitWriter.writeBits(transformed.bits - 2, 3);
+                writeImage(transformed.colorTransformImage);
+            }
+
+            mainImage = transformed.image;
+        }
+
+        bitWriter.writeBit(0); // No more transforms
+
+        writeImage(mainImage);
+
+        bitWriter.flush();
+    }
+
+    /**
+     * Selects and applies the predictor and (if it makes the result smaller) color transforms
+     * to the green subtracted image, using the given effort.
+     */
+    private TransformedImage analyzeTransforms(final int[] argb, final int width, final int height, final float effort) throws IOException {
+        int bits = effort >= 0.5f ? 4 : 5;
+        int blockWidth = subSampleSize(width, bits);
+        int blockHeight = subSampleSize(height, bits);
+
+        int[] predictorModes = selectPredictorModes(argb, width, height, bits, effort);
+        int[] image = applyPredictorTransform(argb, width, height, predictorModes, bits);
+
+        EncodedImage predictorImage = analyzeImage(predictorModes, blockWidth, blockHeight, false, effort);
+
+        if (effort >= 0.25f) {
+            // The color transform reduces the entropy of the red and blue residuals, but may also break up
+            // runs of pixels that could otherwise be copied, so it is only used if the encoded image is smaller
+            int[] colorTransforms = selectColorTransforms(image, width, height, bits, effort);
+            int[] transformed = Arrays.copyOf(image, image.length);
+            applyColorTransform(transformed, width, height, colorTransforms, bits);
+
+            // As finding the references is the most expensive part, the transforms are compared using the fastest
+            // references, and the references for this effort are only searched for the image that is written
+            EncodedImage mainImage = analyzeImage(image, findReferences(image, width, height, 0), true, effort);
+            EncodedImage transformedImage = analyzeImage(transformed, findReferences(transformed, width, height, 0), true, effort);
+            EncodedImage colorTransformImage = analyzeImage(colorTransforms, blockWidth, blockHeight, false, effort);
+
+            if (transformedImage.cost + colorTransformImage.cost < mainImage.cost) {
+                return new TransformedImage(bits, predictorImage, colorTransformImage, analyzeImage(transformedImage, width, height, effort));
+            }
+
+            return new TransformedImage(bits, predictorImage, null, analyzeImage(mainImage, width, height, effort));
+        }
+
+        return new TransformedImage(bits, predictorImage, null, analyzeImage(image, width, height, true, effort));
+    }
+
+    private void writeTransformType(final int transformType) throws IOException {
+        bitWriter.writeBit(1);
+        bitWriter.writeBits(transformType, 2);
+    }
+
+    /**
+     * Finds the backward references and color cache size for the image, and computes the encoded size.
+     */
+    private EncodedImage analyzeImage(final int[] argb, final int width, final int height, final boolean topLevel, final float effort) throws IOException {
+        return analyzeImage(analyzeImage(argb, findReferences(argb, width, height, 0), topLevel, effort), width, height, effort);
+    }
+
+    /**
+     * Searches the references for the given effort, starting from the image encoded using the fastest references.
+     * Longer hash chains find more matches, but also more distant ones, that may cost more than the pixels they
+     * replace (typically in noisy images). So the references found with lower effort are kept, if smaller.
+     */
+    private EncodedImage analyzeImage(final EncodedImage fastest, final int width, final int height, final float effort) throws IOException {
+        EncodedImage smallest = fastest;
+
+        for (float step : EFFORT_STEPS) {
+            if (step < effort) {
+                smallest = smallest(smallest, analyzeImage(fastest.argb, findReferences(fastest.argb, width, height, step), fastest.topLevel, effort));
+            }
+        }
+
+        if (maxChainLength(effort) > 1 || isLazyMatching(effort)) {
+            smallest = smallest(smallest, analyzeImage(fastest.argb, findReferences(fastest.argb, width, height, effort), fastest.topLevel, effort));
+        }
+
+        return smallest;
+    }
+
+    private static EncodedImage smallest(final EncodedImage image, final EncodedImage other) {
+        return other.cost < image.cost ? other : image;
+    }
+
+    private static BackwardReferences findReferences(final int[] argb, final int width, final int height, final float effort) {
+        return BackwardReferences.create(argb, width, height, maxChainLength(effort), isLazyMatching(effort));
+    }
+
+    private static int maxChainLength(final float effort) {
+        return 1 + (int) (effort * effort * 255);
+    }
+
+    private static boolean isLazyMatching(final float effort) {
+        return effort >= 0.5f;
+    }
+
+    private EncodedImage analyzeImage(final int[] argb, final BackwardReferences refs, final boolean topLevel, final float effort) throws IOException {
+        int[] candidates = topLevel ? effort >= 0.5f ? ALL_COLOR_CACHE_BITS : FAST_COLOR_CACHE_BITS : new int[] {0};
+        long[] costs = computeCosts(argb, refs, candidates);
+
+        int best = 0;
+        for (int i = 1; i < candidates.length; i++) {
+            if (costs[i] < costs[best]) {
+                best = i;
+            }
+        }
+
+        return new EncodedImage(argb, refs, topLevel, candidates[best], costs[best]);
+    }
+
+    private void writeImage(final EncodedImage image) throws IOException {
+        if (image.colorCacheBits > 0) {
+            bitWriter.writeBit(1);
+            bitWriter.writeBits(image.colorCacheBits, 4);
+        }
+        else {
+            bitWriter.writeBit(0);
+        }
+
+        if (image.topLevel) {
+            // No meta prefix codes, all pixels use the same group of Huffman codes
+            bitWriter.writeBit(0);
+        }
+
+        int[][] histograms = createHistograms(image.argb, image.refs, image.colorCacheBits);
+        HuffmanCode[] codes = new HuffmanCode[histograms.length];
+
+        for (int i = 0; i < histograms.length; i++) {
+            codes[i] = HuffmanCode.create(histograms[i]);
+            codes[i].write(bitWriter);
+        }
+
+        writePixels(image.argb, image.refs, image.colorCacheBits, codes);
+    }
+
+    private void writePixels(final int[] argb, final BackwardReferences refs, final int colorCacheBits, final HuffmanCode[] codes) throws IOException {
+        ColorCache colorCache = colorCacheBits > 0 ? new ColorCache(colorCacheBits) : null;
+
+        for (int i = 0, pos = 0; i < refs.size; i++) {
+            int length = refs.lengths[i];
+
+            if (length == 1) {
+                int pixel = argb[pos];
+                int key = colorCache != null ? colorCache.contains(pixel) : -1;
+
+                if (key >= 0) {
+                    codes[GREEN].writeSymbol(bitWriter, NUM_LITERAL_CODES + NUM_LENGTH_CODES + key);
+                }
+                else {
+                    codes[GREEN].writeSymbol(bitWriter, (pixel >> 8) & 0xff);
+                    codes[RED].writeSymbol(bitWriter, (pixel >> 16) & 0xff);
+                    codes[BLUE].writeSymbol(bitWriter, pixel & 0xff);
+                    codes[ALPHA].writeSymbol(bitWriter, pixel >>> 24);
+
+                    if (colorCache != null) {
+                        colorCache.insert(pixel);
+                    }
+                }
+            }
+            else {
+                int lengthCode = BackwardReferences.prefixCode(length);
+                codes[GREEN].writeSymbol(bitWriter, NUM_LITERAL_CODES + lengthCode);
+                bitWriter.writeBits(BackwardReferences.prefixExtraValue(length, lengthCode), BackwardReferences.prefixExtraBits(lengthCode));
+
+                int distance = refs.distanceCodes[i];
+                int distanceCode = BackwardReferences.prefixCode(distance);
+                codes[DISTANCE].writeSymbol(bitWriter, distanceCode);
+                bitWriter.writeBits(BackwardReferences.prefixExtraValue(distance, distanceCode), BackwardReferences.prefixExtraBits(distanceCode));
+
+                if (colorCache != null) {
+                    for (int j = pos; j < pos + length; j++) {
+                        colorCache.insert(argb[j]);
+                    }
+                }
+            }
+
+            pos += length;
+        }
+    }
+
+    private static int[][] createHistograms(final int[] argb, final BackwardReferences refs, final int colorCacheBits) {
+        int[][] histograms = new int[][] {
+                new int[NUM_LITERAL_CODES + NUM_LENGTH_CODES + (colorCacheBits > 0 ? 1 << colorCacheBits : 0)],
+                new int[256],
+                new int[256],
+                new int[256],
+                new int[NUM_DISTANCE_CODES]
+        };
+
+        ColorCache colorCache = colorCacheBits > 0 ? new ColorCache(colorCacheBits) : null;
+
+        for (int i = 0, pos = 0; i < refs.size; i++) {
+            int length = refs.lengths[i];
+
+            if (length == 1) {
+                int pixel = argb[pos];
+                int key = colorCache != null ? colorCache.contains(pixel) : -1;
+
+                if (key >= 0) {
+                    histograms[GREEN][NUM_LITERAL_CODES + NUM_LENGTH_CODES + key]++;
+                }
+                else {
+                    histograms[GREEN][(pixel >> 8) & 0xff]++;
+                    histograms[RED][(pixel >> 16) & 0xff]++;
+                    histograms[BLUE][pixel & 0xff]++;
+                    histograms[ALPHA][pixel >>> 24]++;
+
+                    if (colorCache != null) {
+                        colorCache.insert(pixel);
+                    }
+                }
+            }
+            else {
+                histograms[GREEN][NUM_LITERAL_CODES + BackwardReferences.prefixCode(length)]++;
+                histograms[DISTANCE][BackwardReferences.prefixCode(refs.distanceCodes[i])]++;
+
+                if (colorCache != null) {
+                    for (int j = pos; j < pos + length; j++) {
+                        colorCache.insert(argb[j]);
+                    }
+                }
+            }
+
+            pos += length;
+        }
+
+        return histograms;
+    }
+
+    /**
+     * Number of bits needed to encode the image, including the Huffman codes, for each of the candidate color cache sizes.
+     * Each color cache size is evaluated with the same backward references.
+     */
+    private long[] computeCosts(final int[] argb, final BackwardReferences refs, final int[] candidates) throws IOException {
+        final long[] costs = new long[candidates.length];
+        final long extraBits = extraBits(refs);
+
+        // Each candidate size is evaluated independently
+        runInParallel(candidates.length, argb.length, new RangeTask() {
+            @Override
+            public void run(final int start, final int end) {
+                for (int i = start; i < end; i++) {
+                    long cost = 0;
+
+                    for (int[] histogram : createHistograms(argb, refs, candidates[i])) {
+                        cost += HuffmanCode.create(histogram).cost(histogram);
+                    }
+
+                    costs[i] = cost + extraBits;
+                }
+            }
+        });
+
+        return costs;
+    }
+
+    /**
+     * Number of extra bits needed to encode the lengths and distances of the backward references.
+     */
+    private static long extraBits(final BackwardReferences refs) {
+        long bits = 0;
+
+        for (int i = 0; i < refs.size; i++) {
+            if (refs.lengths[i] > 1) {
+                bits += BackwardReferences.prefixExtraBits(BackwardReferences.prefixCode(refs.lengths[i]));
+                bits += BackwardReferences.prefixExtraBits(BackwardReferences.prefixCode(refs.distanceCodes[i]));
+            }
+        }
+
+        return bits;
+    }
+
+    private int[] selectPredictorModes(final int[] argb, final int width, final int height, final int bits, final float effort) throws IOException {
+        final int[] modes = new int[subSampleSize(width, bits) * subSampleSize(height, bits)];
+        final int[] candidates = effort >= 0.25f ? ALL_PREDICTOR_MODES : FAST_PREDICTOR_MODES;
+        final int tileRows = subSampleSize(height, bits);
+
+        // Each band of tile rows is evaluated independently
+        runInParallel(subSampleSize(tileRows, BAND_BITS), width * height, new RangeTask() {
+            @Override
+            public void run(final int start, final int end) {
+                for (int band = start; band < end; band++) {
+                    selectPredictorModes(argb, width, height, bits, candidates, modes, band << BAND_BITS, Math.min((band + 1) << BAND_BITS, tileRows));
+                }
+            }
+        });
+
+        return modes;
+    }
+
+    private static void selectPredictorModes(final int[] argb, final int width, final int height, final int bits,
+                                             final int[] candidates, final int[] modes, final int tileYStart, final int tileYEnd) {
+        int tilesPerRow = subSampleSize(width, bits);
+
+        // Residual histograms for alpha, red, green and blue for the current tile, and accumulated for the band
+        int[] histograms = new int[4 * 256];
+        int[] bestHistograms = new int[4 * 256];
+        int[] accumulated = new int[4 * 256];
+
+        for (int tileY = tileYStart; tileY < tileYEnd; tileY++) {
+            int yStart = tileY << bits;
+            int yEnd = Math.min(yStart + (1 << bits), height);
+
+            for (int tileX = 0; tileX < tilesPerRow; tileX++) {
+                int xStart = tileX << bits;
+                int xEnd = Math.min(xStart + (1 << bits), width);
+
+                int bestMode = candidates[0];
+                double bestCost = Double.MAX_VALUE;
+
+                for (int mode : candidates) {
+                    Arrays.fill(histograms, 0);
+
+                    for (int y = yStart; y < yEnd; y++) {
+                        for (int x = xStart, i = y * width + xStart; x < xEnd; x++, i++) {
+                            int residual = PredictorTransform.subtractPixels(argb[i], PredictorTransform.predict(mode, argb, x, y, i, width));
+
+                            histograms[residual >>> 24]++;
+                            histograms[256 + ((residual >> 16) & 0xff)]++;
+                            histograms[512 + ((residual >> 8) & 0xff)]++;
+                            histograms[768 + (residual & 0xff)]++;
+                        }
+                    }
+
+                    double cost = 0;
+                    for (int offset = 0; offset < histograms.length; offset += 256) {
+                        cost += combinedEntropy(histograms, accumulated, offset);
+                    }
+
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestMode = mode;
+                        System.arraycopy(histograms, 0, bestHistograms, 0, histograms.length);
+                    }
+                }
+
+                for (int i = 0; i < accumulated.length; i++) {
+                    accumulated[i] += bestHistograms[i];
+                }
+
+                modes[tileY * tilesPerRow + tileX] = 0xff000000 | bestMode << 8;
+            }
+        }
+    }
+
+    private int[] applyPredictorTransform(final int[] argb, final int width, final int height, final int[] modes, final int bits) throws IOException {
+        final int[] residuals = new int[argb.length];
+
+        runInParallel(height, width * height, new RangeTask() {
+            @Override
+            public void run(final int start, final int end) {
+                PredictorTransform.applyForward(argb, residuals, width, start, end, modes, bits);
+            }
+        });
+
+        return residuals;
+    }
+
+    private int[] selectColorTransforms(final int[] argb, final int width, final int height, final int bits, final float effort) throws IOException {
+        final int[] elements = new int[subSampleSize(width, bits) * subSampleSize(height, bits)];
+        final int searchRadius = effort >= 0.5f ? 1 : 0;
+        final int tileRows = subSampleSize(height, bits);
+
+        // Each band of tile rows is evaluated independently
+        runInParallel(subSampleSize(tileRows, BAND_BITS), width * height, new RangeTask() {
+            @Override
+            public void run(final int start, final int end) {
+                for (int band = start; band < end; band++) {
+                    selectColorTransforms(argb, width, height, bits, searchRadius, elements, band << BAND_BITS, Math.min((band + 1) << BAND_BITS, tileRows));
+                }
+            }
+        });
+
+        return elements;
+    }
+
+    private static void selectColorTransforms(final int[] argb, final int width, final int height, final int bits,
+                                              final int searchRadius, final int[] elements, final int tileYStart, final int tileYEnd) {
+        int tilesPerRow = subSampleSize(width, bits);
+
+        int[] histogram = new int[256];
+        int[] bestHistogram = new int[256];
+        int[] accumulatedRed = new int[256];
+        int[] accumulatedBlue = new int[256];
+
+        for (int tileY = tileYStart; tileY < tileYEnd; tileY++) {
+            int yStart = tileY << bits;
+            int yEnd = Math.min(yStart + (1 << bits), height);
+
+            for (int tileX = 0; tileX < tilesPerRow; tileX++) {
+                int xStart = tileX << bits;
+                int xEnd = Math.min(xStart + (1 << bits), width);
+
+                // Least squares estimates of the (signed) red and blue values from green and red, in 1/32 units
+                long gg = 0, gr = 0, gb = 0, rr = 0, rb = 0;
+
+                for (int y = yStart; y < yEnd; y++) {
+                    for (int i = y * width + xStart, end = y * width + xEnd; i < end; i++) {
+                        int r = (byte) (argb[i] >> 16);
+                        int g = (byte) (argb[i] >> 8);
+                        int b = (byte) argb[i];
+
+                        gg += g * g;
+                        gr += g * r;
+                        gb += g * b;
+                        rr += r * r;
+                        rb += r * b;
+                    }
+                }
+
+                int greenToRedEstimate = gg != 0 ? (int) Math.round(32.0 * gr / gg) : 0;
+
+                int greenToBlueEstimate = 0;
+                int redToBlueEstimate = 0;
+                double det = (double) gg * rr - (double) gr * gr;
+
+                if (det != 0) {
+                    greenToBlueEstimate = (int) Math.round(32.0 * (gb * (double) rr - rb * (double) gr) / det);
+                    redToBlueEstimate = (int) Math.round(32.0 * (rb * (double) gg - gb * (double) gr) / det);
+                }
+                else if (gg != 0) {
+                    greenToBlueEstimate = (int) Math.round(32.0 * gb / gg);
+                }
+
+                // Find the best candidates around the estimates, always including the identity transform
+                // and the transform of the tile to the left (preferred if equal, as it keeps the transform image simple)
+                int leftElement = tileX > 0 ? elements[tileY * tilesPerRow + tileX - 1] : 0;
+
+                int greenToRed = (byte) leftElement;
+                double bestCost = redCost(argb, width, xStart, xEnd, yStart, yEnd, greenToRed, histogram, accumulatedRed);
+                System.arraycopy(histogram, 0, bestHistogram, 0, histogram.length);
+
+                for (int dg = -searchRadius - 1; dg <= searchRadius; dg++) {
+                    int candidate = dg < -searchRadius ? 0 : clampInt8(greenToRedEstimate + dg);
+                    double cost = redCost(argb, width, xStart, xEnd, yStart, yEnd, candidate, histogram, accumulatedRed);
+
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        greenToRed = candidate;
+                        System.arraycopy(histogram, 0, bestHistogram, 0, histogram.length);
+                    }
+                }
+
+                for (int i = 0; i < accumulatedRed.length; i++) {
+                    accumulatedRed[i] += bestHistogram[i];
+                }
+
+                int greenToBlue = (byte) (leftElement >> 8);
+                int redToBlue = (byte) (leftElement >> 16);
+                bestCost = blueCost(argb, width, xStart, xEnd, yStart, yEnd, greenToBlue, redToBlue, histogram, accumulatedBlue);
+                System.arraycopy(histogram, 0, bestHistogram, 0, histogram.length);
+
+                for (int dg = -searchRadius - 1; dg <= searchRadius; dg++) {
+                    for (int dr = -searchRadius; dr <= searchRadius; dr++) {
+                        if (dg < -searchRadius && dr != 0) {
+                            continue;
+                        }
+
+                        int greenCandidate = dg < -searchRadius ? 0 : clampInt8(greenToBlueEstimate + dg);
+                        int redCandidate = dg < -searchRadius ? 0 : clampInt8(redToBlueEstimate + dr);
+                        double cost = blueCost(argb, width, xStart, xEnd, yStart, yEnd, greenCandidate, redCandidate, histogram, accumulatedBlue);
+
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            greenToBlue = greenCandidate;
+                            redToBlue = redCandidate;
+                            System.arraycopy(histogram, 0, bestHistogram, 0, histogram.length);
+                        }
+                    }
+                }
+
+                for (int i = 0; i < accumulatedBlue.length; i++) {
+                    accumulatedBlue[i] += bestHistogram[i];
+                }
+
+                // The transform element is stored as ARGB, with red_to_blue in red, green_to_blue in green and green_to_red in blue
+                elements[tileY * tilesPerRow + tileX] = 0xff000000 | (redToBlue & 0xff) << 16 | (greenToBlue & 0xff) << 8 | greenToRed & 0xff;
+            }
+        }
+    }
+
+    private static double redCost(final int[] argb, final int width, final int xStart, final int xEnd, final int yStart, final int yEnd,
+                                  final int greenToRed, final int[] histogram, final int[] accumulated) {
+        Arrays.fill(histogram, 0);
+
+        for (int y = yStart; y < yEnd; y++) {
+            for (int i = y * width + xStart, end = y * width + xEnd; i < end; i++) {
+                int red = (argb[i] >> 16) - ColorTransform.colorTransformDelta((byte) greenToRed, (byte) (argb[i] >> 8));
+                histogram[red & 0xff]++;
+            }
+        }
+
+        return combinedEntropy(histogram, accumulated, 0);
+    }
+
+    private static double blueCost(final int[] argb, final int width, final int xStart, final int xEnd, final int yStart, final int yEnd,
+                                   final int greenToBlue, final int redToBlue, final int[] histogram, final int[] accumulated) {
+        Arrays.fill(histogram, 0);
+
+        for (int y = yStart; y < yEnd; y++) {
+            for (int i = y * width + xStart, end = y * width + xEnd; i < end; i++) {
+                int blue = argb[i] - ColorTransform.colorTransformDelta((byte) greenToBlue, (byte) (argb[i] >> 8))
+                        - ColorTransform.colorTransformDelta((byte) redToBlue, (byte) (argb[i] >> 16));
+                histogram[blue & 0xff]++;
+            }
+        }
+
+        return combinedEntropy(histogram, accumulated, 0);
+    }
+
+    private void applyColorTransform(final int[] argb, final int width, final int height, final int[] elements, final int bits) throws IOException {
+        runInParallel(height, width * height, new RangeTask() {
+            @Override
+            public void run(final int start, final int end) {
+                ColorTransform.applyForward(argb, width, start, end, elements, bits);
+            }
+        });
+    }
+
+    /**
+     * Returns the colors of the image, sorted, or {@code null} if there are more than {@code MAX_PALETTE_SIZE} colors.
+     */
+    private static int[] createPalette(final int[] argb, final int pixels) {
+        // Open addressing hash set, with room to spare
+        int[] colors = new int[4 * MAX_PALETTE_SIZE];
+        boolean[] used = new boolean[colors.length];
+        int numColors = 0;
+
+        int lastColor = ~argb[0];
+
+        for (int i = 0; i < pixels; i++) {
+            int color = argb[i];
+
+            if (color == lastColor) {
+                continue;
+            }
+
+            lastColor = color;
+
+            int key = (color * 0x1e35a7bd) >>> 22;
+
+            while (used[key] && colors[key] != color) {
+                key = (key + 1) & (colors.length - 1);
+            }
+
+            if (!used[key]) {
+                if (++numColors > MAX_PALETTE_SIZE) {
+                    return null;
+                }
+
+                used[key] = true;
+                colors[key] = color;
+            }
+        }
+
+        int[] palette = new int[numColors];
+
+        for (int key = 0, i = 0; key < colors.length; key++) {
+            if (used[key]) {
+                palette[i++] = colors[key];
+            }
+        }
+
+        Arrays.sort(palette);
+
+        return palette;
+    }
+
+    /**
+     * Estimated number of additional bits needed to encode the symbols counted in the 256 entry histogram at
+     * {@code offset}, if added to the symbols already counted in the accumulated histogram at the same offset.
+     */
+    private static double combinedEntropy(final int[] histogram, final int[] accumulated, final int offset) {
+        long total = 0;
+        long accumulatedTotal = 0;
+        double sum = 0;
+
+        for (int i = offset; i < offset + 256; i++) {
+            int count = histogram[i];
+            int accumulatedCount = accumulated[i];
+
+            accumulatedTotal += accumulatedCount;
+
+            if (count != 0) {
+                total += count;
+                sum += nLog2n(accumulatedCount + count) - nLog2n(accumulatedCount);
+            }
+        }
+
+        return nLog2n(accumulatedTotal + total) - nLog2n(accumulatedTotal) - sum;
+    }
+
+    private static double nLog2n(final long n) {
+        return n < N_LOG2_N.length ? N_LOG2_N[(int) n] : n * log2(n);
+    }
+
+    private static double log2(final double value) {
+        return value == 0 ? 0 : Math.log(value) / Math.log(2);
+    }
+
+    private static int clampInt8(final int value) {
+        return Math.max(-128, Math.min(value, 127));
+    }
+
+    private static int subSampleSize(final int size, final int samplingBits) {
+        return (size + (1 << samplingBits) - 1) >> samplingBits;
+    }
+
+    private static final class EncodedImage {
+        final int[] argb;
+        final BackwardReferences refs;
+        final boolean topLevel;
+        final int colorCacheBits;
+        final long cost;
+
+        EncodedImage(final int[] argb, final BackwardReferences refs, final boolean topLevel, final int colorCacheBits, final long cost) {
+            this.argb = argb;
+            this.refs = refs;
+            this.topLevel = topLevel;
+            this.colorCacheBits = colorCacheBits;
+            this.cost = cost;
+        }
+    }
+
+    private static final class TransformedImage {
+        final int bits;
+        final EncodedImage predictorImage;
+        final EncodedImage colorTransformImage;
+        final EncodedImage image;
+
+        TransformedImage(final int bits, final EncodedImage predictorImage, final EncodedImage colorTransformImage, final EncodedImage image) {
+            this.bits = bits;
+            this.predictorImage = predictorImage;
+            this.colorTransformImage = colorTransformImage;
+            this.image = image;
+        }
+
+        long cost() {
+            return predictorImage.cost + (colorTransformImage != null ? colorTransformImage.cost : 0) + image.cost;
+        }
+    }
+
+    private interface RangeTask {
+        void run(int start, int end);
+    }
+
+    private void runInParallel(final int count, final int pixels, final RangeTask task) throws IOException {
+        if (executor == null || pixels < PARALLEL_THRESHOLD || count < 2) {
+            task.run(0, count);
+            return;
+        }
+
+        int ranges = Math.min(count, Math.max(2, Runtime.getRuntime().availableProcessors()));
+        List<FutureTask<Void>> pending = new ArrayList<>(ranges);
+
+        try {
+            for (int i = 0; i < ranges; i++) {
+                final int start = count * i / ranges;
+                final int end = count * (i + 1) / ranges;
+
+                FutureTask<Void> future = new FutureTask<>(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        task.run(start, end);
+                        return null;
+                    }
+                });
+
+                pending.add(future);
+
+                try {
+                    executor.execute(future);
+                }
+                catch (RejectedExecutionException e) {
+                    // Executor is saturated or shut down, just do the work ourselves
+                    future.run();
+                }
+            }
+
+            for (Future<Void> future : pending) {
+                await(future);
+            }
+        }
+        finally {
+            // In case of errors, make sure no task is still running when we return
+            for (Future<Void> future : pending) {
+                try {
+                    future.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException ignore) {
+                    // The first exception is already propagating
+                }
+            }
+        }
+    }
+
+    private static void await(final Future<Void> task) throws IOException {
+        try {
+            task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IIOException("Interrupted while encoding VP8L image", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IIOException("Could not encode VP8L image", cause);
+        }
+    }
+}
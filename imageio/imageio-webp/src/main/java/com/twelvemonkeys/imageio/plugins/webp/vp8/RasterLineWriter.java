@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp.vp8;
+
+import com.twelvemonkeys.imageio.util.RasterUtils;
+
+import java.awt.*;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Writes lines of packed ARGB values into a raster, applying source region and subsampling.
+ * <p>
+ * Rasters using the standard packed int (ie. {@code TYPE_INT_RGB}/{@code TYPE_INT_ARGB}) or
+ * interleaved byte (ie. {@code TYPE_3BYTE_BGR}/{@code TYPE_4BYTE_ABGR}) layouts are written directly
+ * into the data arrays. Alpha is written, if the raster has a fourth band.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: RasterLineWriter.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+final class RasterLineWriter {
+    private static final int[] RGB_MASKS = {0xff0000, 0xff00, 0xff};
+    private static final int[] ARGB_MASKS = {0xff0000, 0xff00, 0xff, 0xff000000};
+
+    private final int xStart;
+    private final int yStart;
+    private final int xSubsampling;
+    private final int ySubsampling;
+    private final int destWidth;
+    private final int destHeight;
+    private final boolean hasAlpha;
+
+    private final int[] intData;
+    private final byte[] byteData;
+    private final int offset;
+    private final int scanlineStride;
+    private final int pixelStride;
+    private final int[] bandOffsets;
+
+    private final WritableRaster raster;
+    private final byte[] pixel;
+
+    RasterLineWriter(final WritableRaster raster, final Rectangle sourceRegion, final int xSubsampling, final int ySubsampling,
+                     final int width, final int height) {
+        Rectangle region = sourceRegion.intersection(new Rectangle(width, height));
+
+        this.xStart = region.x;
+        this.yStart = region.y;
+        this.xSubsampling = xSubsampling;
+        this.ySubsampling = ySubsampling;
+        destWidth = Math.max(0, Math.min(raster.getWidth(), (region.width + xSubsampling - 1) / xSubsampling));
+        destHeight = Math.max(0, Math.min(raster.getHeight(), (region.height + ySubsampling - 1) / ySubsampling));
+        hasAlpha = raster.getNumBands() > 3;
+
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        int x = raster.getMinX() - raster.getSampleModelTranslateX();
+        int y = raster.getMinY() - raster.getSampleModelTranslateY();
+
+        if (dataBuffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel
+                && isStandardMasks(((SinglePixelPackedSampleModel) sampleModel).getBitMasks())) {
+            SinglePixelPackedSampleModel packedModel = (SinglePixelPackedSampleModel) sampleModel;
+
+            intData = ((DataBufferInt) dataBuffer).getData();
+            byteData = null;
+            scanlineStride = packedModel.getScanlineStride();
+            pixelStride = 1;
+            offset = dataBuffer.getOffset() + y * scanlineStride + x;
+            bandOffsets = null;
+            this.raster = null;
+            pixel = null;
+        }
+        else if (dataBuffer instanceof DataBufferByte && sampleModel instanceof PixelInterleavedSampleModel
+                && (raster.getNumBands() == 3 || raster.getNumBands() == 4)) {
+            PixelInterleavedSampleModel interleavedModel = (PixelInterleavedSampleModel) sampleModel;
+
+            intData = null;
+            byteData = ((DataBufferByte) dataBuffer).getData();
+            scanlineStride = interleavedModel.getScanlineStride();
+            pixelStride = interleavedModel.getPixelStride();
+            offset = dataBuffer.getOffset() + y * scanlineStride + x * pixelStride;
+            bandOffsets = interleavedModel.getBandOffsets();
+            this.raster = null;
+            pixel = null;
+        }
+        else {
+            // Any other layout is written one pixel at the time, through the raster
+            intData = null;
+            byteData = null;
+            scanlineStride = 0;
+            pixelStride = 0;
+            offset = 0;
+            bandOffsets = null;
+            this.raster = RasterUtils.asByteRaster(raster);
+            pixel = new byte[4];
+        }
+    }
+
+    private static boolean isStandardMasks(final int[] masks) {
+        return Arrays.equals(masks, RGB_MASKS) || Arrays.equals(masks, ARGB_MASKS);
+    }
+
+    /**
+     * Returns {@code true} if the given source line is written to the destination.
+     *
+     * @param y the source line.
+     * @return {@code true} if the line is part of the source region, and not skipped by subsampling.
+     */
+    boolean isLineIncluded(final int y) {
+        return y >= yStart && (y - yStart) % ySubsampling == 0 && (y - yStart) / ySubsampling < destHeight;
+    }
+
+    /**
+     * Writes a source line to the destination.
+     *
+     * @param y the source line, must be included.
+     * @param argb the full width source line, as packed ARGB values.
+     */
+    void writeLine(final int y, final int[] argb) {
+        int destY = (y - yStart) / ySubsampling;
+
+        if (intData != null) {
+            int index = offset + destY * scanlineStride;
+            int mask = hasAlpha ? 0xffffffff : 0x00ffffff;
+
+            for (int x = 0, srcX = xStart; x < destWidth; x++, srcX += xSubsampling) {
+                intData[index + x] = argb[srcX] & mask;
+            }
+        }
+        else if (byteData != null) {
+            int index = offset + destY * scanlineStride;
+
+            for (int x = 0, srcX = xStart; x < destWidth; x++, srcX += xSubsampling, index += pixelStride) {
+                int value = argb[srcX];
+
+                byteData[index + bandOffsets[0]] = (byte) (value >> 16);
+                byteData[index + bandOffsets[1]] = (byte) (value >> 8);
+                byteData[index + bandOffsets[2]] = (byte) value;
+
+                if (hasAlpha) {
+                    byteData[index + bandOffsets[3]] = (byte) (value >>> 24);
+                }
+            }
+        }
+        else {
+            for (int x = 0, srcX = xStart; x < destWidth; x++, srcX += xSubsampling) {
+                int value = argb[srcX];
+
+                pixel[0] = (byte) (value >> 16);
+                pixel[1] = (byte) (value >> 8);
+                pixel[2] = (byte) value;
+                pixel[3] = (byte) (value >>> 24);
+
+                raster.setDataElements(raster.getMinX() + x, raster.getMinY() + destY, pixel);
+            }
+        }
+    }
+}
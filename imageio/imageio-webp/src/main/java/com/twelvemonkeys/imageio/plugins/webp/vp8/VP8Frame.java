@@ -41,8 +41,12 @@ import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-
-import static com.twelvemonkeys.imageio.color.YCbCrConverter.convertRec601YCbCr2RGB;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 public final class VP8Frame {
     private static final int BLOCK_TYPES = 4;
@@ -52,7 +56,12 @@ public final class VP8Frame {
     private static final int MAX_REF_LF_DELTAS = 4;
     private static final int PREV_COEF_CONTEXTS = 3;
 
+    // The row being parsed, the row being reconstructed, and the row above it
+    private static final int MACRO_BLOCK_ROW_WINDOW = 3;
+
     private IIOReadProgressListener listener = null;
+    private Executor executor = null;
+    private byte[] alpha = null;
 
     private final int[][][][] coefProbs;
     private int filterLevel;
@@ -67,8 +76,7 @@ public final class VP8Frame {
     private int macroBlockRows;
 
     private MacroBlock[][] macroBlocks;
-    private MacroBlock[] currentMacroBlockRow;
-    private int currentMacroBlockRowIndex;
+    private MacroBlock[][] macroBlockRowWindow;
     private int[][] filterLevels;
     private MacroBlock[] lastNonBPredMacroBlockByColumn;
     private int[][] segmentIds;
@@ -76,7 +84,6 @@ public final class VP8Frame {
     private int[][] uvModes;
     private int[][][] ySubBlockModes;
     private int[][] yModes;
-    private MacroBlock[] previousMacroBlockRow;
     private MacroBlock[] topMacroBlockRow;
     private int macroBlockSegementAbsoluteDelta;
     private int[] macroBlockSegmentTreeProbs;
@@ -99,6 +106,13 @@ public final class VP8Frame {
     private int updateMacroBlockSegmentatonData;
     private int width;
 
+    // Reconstructed samples of the current macroblock row, preceded by the last line of the row above
+    private byte[] yLines;
+    private byte[] uLines;
+    private byte[] vLines;
+    private int[] argbLine;
+    private RasterLineWriter lineWriter;
+
     public VP8Frame(final ImageInputStream stream, boolean debug) throws IOException {
         this.frame = stream;
         this.debug = debug;
@@ -112,6 +126,26 @@ public final class VP8Frame {
         this.listener = listener;
     }
 
+    /**
+     * Sets the executor used for reconstructing and loop filtering macroblock rows,
+     * while the calling thread parses the next row.
+     *
+     * @param executor the executor, or {@code null} to decode sequentially on the calling thread (the default).
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the (unfiltered) alpha samples for the frame, one byte per pixel in scanline order.
+     * Alpha is stored in the same pass as the color samples, if the destination raster has an alpha band.
+     *
+     * @param alpha the alpha samples, or {@code null} if the frame is opaque (the default).
+     */
+    public void setAlpha(final byte[] alpha) {
+        this.alpha = alpha;
+    }
+
     private void createMacroBlockMetadata() {
         segmentIds = new int[macroBlockRows][macroBlockCols];
         filterLevels = new int[macroBlockRows][macroBlockCols];
@@ -149,9 +183,7 @@ public final class VP8Frame {
     private void initializeWindowedDecodeState() {
         createMacroBlockMetadata();
         topMacroBlockRow = createMacroBlockRow(-1);
-        previousMacroBlockRow = topMacroBlockRow;
-        currentMacroBlockRow = null;
-        currentMacroBlockRowIndex = -1;
+        macroBlockRowWindow = new MacroBlock[MACRO_BLOCK_ROW_WINDOW][];
         lastNonBPredMacroBlockByColumn = new MacroBlock[macroBlockCols + 2];
 
         System.arraycopy(topMacroBlockRow, 0, lastNonBPredMacroBlockByColumn, 0, macroBlockCols + 2);
@@ -403,64 +435,205 @@ public final class VP8Frame {
         int ibc = 0;
         int parts = 1 << multiTokenPartition;
 
-        Rectangle region = param != null && param.getSourceRegion() != null ? param.getSourceRegion() : raster.getBounds();
+        Rectangle region = param != null && param.getSourceRegion() != null ? param.getSourceRegion() : new Rectangle(width, height);
         int sourceXSubsampling = param != null ? param.getSourceXSubsampling() : 1;
         int sourceYSubsampling = param != null ? param.getSourceYSubsampling() : 1;
 
-        for (int row = 0; row < macroBlockRows; row++) {
-            if (parts > 1) {
-                tokenBoolDecoder = tokenBoolDecoders.get(ibc);
-                tokenBoolDecoder.seek();
+        lineWriter = new RasterLineWriter(raster, region, sourceXSubsampling, sourceYSubsampling, width, height);
+        yLines = new byte[17 * macroBlockCols * 16];
+        uLines = new byte[9 * macroBlockCols * 8];
+        vLines = new byte[9 * macroBlockCols * 8];
+        argbLine = new int[width];
+
+        FutureTask<Void> pending = null;
+
+        try {
+            for (int row = 0; row < macroBlockRows; row++) {
+                if (parts > 1) {
+                    tokenBoolDecoder = tokenBoolDecoders.get(ibc);
+                    tokenBoolDecoder.seek();
 
-                ibc++;
-                if (ibc == parts) {
-                    ibc = 0;
+                    ibc++;
+                    if (ibc == parts) {
+                        ibc = 0;
+                    }
                 }
-            }
 
-            currentMacroBlockRow = createMacroBlockRow(row);
-            currentMacroBlockRowIndex = row;
+                parseMacroBlockRow(row);
+
+                if (executor == null) {
+                    reconstructMacroBlockRow(row);
+                    fireProgressUpdate(row);
+                }
+                else {
+                    // Reconstruction and loop filtering depend on the (filtered) row above, so rows are
+                    // reconstructed in order, lagging one row behind the parsing on the calling thread
+                    if (pending != null) {
+                        awaitMacroBlockRow(pending);
+                        fireProgressUpdate(row - 1);
+                    }
 
-            decodeMacroBlockRow(row, raster, region, sourceXSubsampling, sourceYSubsampling);
+                    pending = createReconstructTask(row);
 
-            previousMacroBlockRow = currentMacroBlockRow;
-            currentMacroBlockRow = null;
-            currentMacroBlockRowIndex = -1;
+                    try {
+                        executor.execute(pending);
+                    }
+                    catch (RejectedExecutionException e) {
+                        // Executor is saturated or shut down, just do the work ourselves
+                        pending.run();
+                    }
+                }
+            }
 
-            fireProgressUpdate(row);
+            if (pending != null) {
+                awaitMacroBlockRow(pending);
+                fireProgressUpdate(macroBlockRows - 1);
+            }
+        }
+        finally {
+            // In case of errors, make sure no task is still writing to the destination when we return
+            if (pending != null) {
+                try {
+                    pending.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException ignore) {
+                    // The first exception is already propagating
+                }
+            }
         }
 
         return true;
     }
 
-    private void decodeMacroBlockRow(final int mbRow, final WritableRaster raster, final Rectangle region,
-                                     final int xSubsampling, final int ySubsampling) throws IOException {
+    private void parseMacroBlockRow(final int mbRow) throws IOException {
+        MacroBlock[] currRow = createMacroBlockRow(mbRow);
+        macroBlockRowWindow[mbRow % MACRO_BLOCK_ROW_WINDOW] = currRow;
+
+        for (int mbCol = 0; mbCol < macroBlockCols; mbCol++) {
+            MacroBlock mb = currRow[mbCol + 1];
+
+            populateMacroBlock(mb, mbRow, mbCol);
+            mb.decodeMacroBlock(this);
+
+            if (mb.getYMode() != Globals.B_PRED) {
+                lastNonBPredMacroBlockByColumn[mbCol + 1] = mb;
+            }
+        }
+    }
+
+    private FutureTask<Void> createReconstructTask(final int mbRow) {
+        return new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() {
+                reconstructMacroBlockRow(mbRow);
+                return null;
+            }
+        });
+    }
+
+    private void reconstructMacroBlockRow(final int mbRow) {
         final boolean filter = filterLevel != 0;
 
         MacroBlock left = null;
-        MacroBlock[] prevRow = previousMacroBlockRow;
-        MacroBlock[] currRow = currentMacroBlockRow;
+        MacroBlock[] prevRow = mbRow > 0 ? macroBlockRowWindow[(mbRow - 1) % MACRO_BLOCK_ROW_WINDOW] : null;
+        MacroBlock[] currRow = macroBlockRowWindow[mbRow % MACRO_BLOCK_ROW_WINDOW];
 
         for (int mbCol = 0; mbCol < macroBlockCols; mbCol++) {
             MacroBlock mb = currRow[mbCol + 1];
 
-            populateMacroBlock(mb, mbRow, mbCol);
-
-            mb.decodeMacroBlock(this);
             mb.dequantMacroBlock(this);
 
             if (filter) {
-                MacroBlock top = mbRow > 0 ? prevRow[mbCol + 1] : null;
+                MacroBlock top = prevRow != null ? prevRow[mbCol + 1] : null;
                 LoopFilter.loopFilterBlock(mb, left, top, frameType, simpleFilter, sharpnessLevel);
             }
 
-            copyBlock(mb, raster, region, xSubsampling, ySubsampling);
+            storeMacroBlock(mb);
 
-            if (mb.getYMode() != Globals.B_PRED) {
-                lastNonBPredMacroBlockByColumn[mbCol + 1] = mb;
+            left = mb;
+        }
+
+        writeLines(mbRow);
+    }
+
+    private void storeMacroBlock(final MacroBlock mb) {
+        int yStride = macroBlockCols * 16;
+        int uvStride = macroBlockCols * 8;
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                storeSubBlock(mb.getYSubBlock(x, y), yLines, (1 + y * 4) * yStride + mb.getX() * 16 + x * 4, yStride);
             }
+        }
 
-            left = mb;
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 2; x++) {
+                int offset = (1 + y * 4) * uvStride + mb.getX() * 8 + x * 4;
+                storeSubBlock(mb.getUSubBlock(x, y), uLines, offset, uvStride);
+                storeSubBlock(mb.getVSubBlock(x, y), vLines, offset, uvStride);
+            }
+        }
+    }
+
+    private static void storeSubBlock(final SubBlock subBlock, final byte[] lines, final int offset, final int stride) {
+        int[][] dest = subBlock.getDest();
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                lines[offset + y * stride + x] = (byte) dest[x][y];
+            }
+        }
+    }
+
+    private void writeLines(final int mbRow) {
+        int yStride = macroBlockCols * 16;
+        int uvStride = macroBlockCols * 8;
+        int chromaHeight = (height + 1) / 2;
+
+        // Upsampling the last line of a macroblock row needs the first chroma line of the next row,
+        // so it is delayed until the next row, and written from the first line of the buffers
+        int first = mbRow == 0 ? 0 : mbRow * 16 - 1;
+        int last = mbRow == macroBlockRows - 1 ? height : Math.min(mbRow * 16 + 15, height);
+
+        for (int y = first; y < last; y++) {
+            if (lineWriter.isLineIncluded(y)) {
+                int near = y >> 1;
+                int far = (y & 1) != 0 ? Math.min(near + 1, chromaHeight - 1) : Math.max(near - 1, 0);
+
+                YCbCrUpsampler.upsampleLine(yLines, (y - mbRow * 16 + 1) * yStride, uLines, vLines,
+                        (near - mbRow * 8 + 1) * uvStride, (far - mbRow * 8 + 1) * uvStride,
+                        alpha, y * width, argbLine, width);
+                lineWriter.writeLine(y, argbLine);
+            }
+        }
+
+        System.arraycopy(yLines, 16 * yStride, yLines, 0, yStride);
+        System.arraycopy(uLines, 8 * uvStride, uLines, 0, uvStride);
+        System.arraycopy(vLines, 8 * uvStride, vLines, 0, uvStride);
+    }
+
+    private void awaitMacroBlockRow(final Future<Void> task) throws IOException {
+        try {
+            task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IIOException("Interrupted while decoding VP8 macroblock row", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IIOException("Could not decode VP8 macroblock row", cause);
         }
     }
 
@@ -894,24 +1067,13 @@ public final class VP8Frame {
     }
 
     MacroBlock getMacroBlock(int mbCol, int mbRow) {
-        if (mbRow == currentMacroBlockRowIndex && currentMacroBlockRow != null) {
-            return currentMacroBlockRow[mbCol + 1];
-        }
+        if (mbRow >= 0 && mbRow < macroBlockRows) {
+            MacroBlock[] row = macroBlockRowWindow[mbRow % MACRO_BLOCK_ROW_WINDOW];
 
-        if (mbRow == currentMacroBlockRowIndex - 1 && previousMacroBlockRow != null) {
-            return previousMacroBlockRow[mbCol + 1];
-        }
-
-        if (mbRow < currentMacroBlockRowIndex - 1 && mbRow >= -1) {
-            if (mbCol < 0 || mbCol >= macroBlockCols) {
-                return topMacroBlockRow[mbCol + 1];
+            // Rows outside the window are no longer available
+            if (row != null && row[0].getY() == mbRow) {
+                return row[mbCol + 1];
             }
-
-            return lastNonBPredMacroBlockByColumn[mbCol + 1];
-        }
-
-        if (mbRow < 0 || mbRow >= macroBlockRows || mbCol < 0 || mbCol >= macroBlockCols) {
-            return topMacroBlockRow[mbCol + 1];
         }
 
         return topMacroBlockRow[mbCol + 1];
@@ -1138,38 +1300,4 @@ public final class VP8Frame {
 
         tokenBoolDecoder = tokenBoolDecoders.get(0);
     }
-
-    private final byte[] yuv = new byte[3];
-    private final byte[] rgb = new byte[4]; // Allow decoding into RGBA, leaving the alpha out.
-
-    private void copyBlock(final MacroBlock macroBlock, final WritableRaster byteRGBRaster,
-                           final Rectangle region, final int xSubsampling, final int ySubsampling) {
-        // We might be copying into a smaller raster
-        int yStart = macroBlock.getY() * 16 - region.y;
-        int yEnd = Math.min(16, byteRGBRaster.getHeight() * ySubsampling - yStart);
-        int xStart = macroBlock.getX() * 16 - region.x;
-        int xEnd = Math.min(16, byteRGBRaster.getWidth() * xSubsampling - xStart);
-
-        for (int y = 0; y < yEnd; y += ySubsampling) {
-            int dstY = (yStart + y) / ySubsampling;
-            if (dstY < 0) {
-                continue;
-            }
-
-            for (int x = 0; x < xEnd; x += xSubsampling) {
-                int dstX = (xStart + x) / xSubsampling;
-                if (dstX < 0) {
-                    continue;
-                }
-
-                yuv[0] = (byte) macroBlock.getSubBlock(SubBlock.Plane.Y1, x / 4, y / 4).getDest()[x % 4][y % 4];
-                yuv[1] = (byte) macroBlock.getSubBlock(SubBlock.Plane.U, (x / 2) / 4, (y / 2) / 4).getDest()[(x / 2) % 4][(y / 2) % 4];
-                yuv[2] = (byte) macroBlock.getSubBlock(SubBlock.Plane.V, (x / 2) / 4, (y / 2) / 4).getDest()[(x / 2) % 4][(y / 2) % 4];
-
-                // TODO: Consider doing YCbCr -> RGB in reader instead, or pass a flag to allow readRaster reading direct YUV/YCbCr values
-                convertRec601YCbCr2RGB(yuv, rgb, 0);
-                byteRGBRaster.setDataElements(dstX, dstY, rgb);
-            }
-        }
-    }
 }
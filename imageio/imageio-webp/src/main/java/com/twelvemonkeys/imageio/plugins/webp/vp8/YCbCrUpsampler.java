@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp.vp8;
+
+/**
+ * Upsamples 4:2:0 subsampled chroma, and converts Y'CbCr to packed ARGB, one line at a time.
+ * <p>
+ * Chroma is interpolated from the four nearest chroma samples, using 9/3/3/1 weights
+ * ("fancy upsampling", as in libwebp). Color conversion uses ITU-R BT.601 coefficients,
+ * with the same fixed-point tables as {@code YCbCrConverter.convertRec601YCbCr2RGB}.
+ * </p>
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: YCbCrUpsampler.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+final class YCbCrUpsampler {
+    private static final int SCALEBITS = 16;
+    private static final int ONE_HALF = 1 << (SCALEBITS - 1);
+
+    private static final int[] Y_LUT = new int[256];
+    private static final int[] Cr_R_LUT = new int[256];
+    private static final int[] Cb_B_LUT = new int[256];
+    private static final int[] Cr_G_LUT = new int[256];
+    private static final int[] Cb_G_LUT = new int[256];
+
+    static {
+        for (int i = 0, x = -128; i < 256; i++, x++) {
+            Y_LUT[i] = ((int) (1.16438 * (1 << SCALEBITS) + 0.5) * (i - 16) + ONE_HALF) >> SCALEBITS;
+            Cr_R_LUT[i] = ((int) (1.59603 * (1 << SCALEBITS) + 0.5) * x + ONE_HALF) >> SCALEBITS;
+            Cb_B_LUT[i] = ((int) (2.01723 * (1 << SCALEBITS) + 0.5) * x + ONE_HALF) >> SCALEBITS;
+            Cr_G_LUT[i] = -(int) (0.81297 * (1 << SCALEBITS) + 0.5) * x;
+            // We also add in ONE_HALF so that need not do it in inner loop
+            Cb_G_LUT[i] = -(int) (0.39176 * (1 << SCALEBITS) + 0.5) * x + ONE_HALF;
+        }
+    }
+
+    private YCbCrUpsampler() {}
+
+    /**
+     * Upsamples and converts one line of samples.
+     * The chroma lines are the nearest and the second nearest line to the luma line,
+     * and they may be the same line, at the top and bottom of the image.
+     *
+     * @param y the luma samples.
+     * @param yOffset offset of the first luma sample.
+     * @param cb the Cb samples.
+     * @param cr the Cr samples.
+     * @param nearOffset offset of the first chroma sample of the nearest chroma line.
+     * @param farOffset offset of the first chroma sample of the second nearest chroma line.
+     * @param alpha the alpha samples, or {@code null} if the line is opaque.
+     * @param alphaOffset offset of the first alpha sample.
+     * @param argb the destination for packed ARGB values.
+     * @param width the number of pixels in the line.
+     */
+    static void upsampleLine(final byte[] y, final int yOffset, final byte[] cb, final byte[] cr,
+                             final int nearOffset, final int farOffset, final byte[] alpha, final int alphaOffset,
+                             final int[] argb, final int width) {
+        // Cb and Cr are packed into the low and high 16 bits, and interpolated in parallel
+        int topLeft = packChroma(cb, cr, nearOffset);
+        int left = packChroma(cb, cr, farOffset);
+
+        argb[0] = convert(y[yOffset], (3 * topLeft + left + 0x00020002) >> 2, alpha, alphaOffset);
+
+        for (int x = 1; x <= (width - 1) >> 1; x++) {
+            int top = packChroma(cb, cr, nearOffset + x);
+            int current = packChroma(cb, cr, farOffset + x);
+
+            // Weights (9 * near + 3 * side + 3 * side + far) / 16, computed through the diagonals
+            int avg = topLeft + top + left + current + 0x00080008;
+            int diag12 = (avg + 2 * (top + left)) >> 3;
+            int diag03 = (avg + 2 * (topLeft + current)) >> 3;
+
+            int i = 2 * x - 1;
+            argb[i] = convert(y[yOffset + i], (diag12 + topLeft) >> 1, alpha, alphaOffset + i);
+            argb[i + 1] = convert(y[yOffset + i + 1], (diag03 + top) >> 1, alpha, alphaOffset + i + 1);
+
+            topLeft = top;
+            left = current;
+        }
+
+        if ((width & 1) == 0) {
+            int i = width - 1;
+            argb[i] = convert(y[yOffset + i], (3 * topLeft + left + 0x00020002) >> 2, alpha, alphaOffset + i);
+        }
+    }
+
+    private static int packChroma(final byte[] cb, final byte[] cr, final int offset) {
+        return (cb[offset] & 0xff) | (cr[offset] & 0xff) << 16;
+    }
+
+    private static int convert(final byte luma, final int chroma, final byte[] alpha, final int alphaOffset) {
+        // Only the low 8 bits of each lane are significant, higher bits may contain shifted out bits from the other lane
+        int cb = chroma & 0xff;
+        int cr = (chroma >> 16) & 0xff;
+        int y = Y_LUT[luma & 0xff];
+
+        int r = clamp(y + Cr_R_LUT[cr]);
+        int g = clamp(y + (Cb_G_LUT[cb] + Cr_G_LUT[cr] >> SCALEBITS));
+        int b = clamp(y + Cb_B_LUT[cb]);
+        int a = alpha != null ? alpha[alphaOffset] & 0xff : 0xff;
+
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    private static int clamp(final int value) {
+        return (value & ~0xff) == 0 ? value : value < 0 ? 0 : 0xff;
+    }
+}
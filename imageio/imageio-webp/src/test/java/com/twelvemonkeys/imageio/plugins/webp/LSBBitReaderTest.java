@@ -256,6 +256,80 @@ public class LSBBitReaderTest {
 //         });
     }
 
+    @Test
+    public void testPrefetchBits() throws IOException {
+        final LSBBitReader bitReader = createBitReader(new byte[] {
+                0b00100101, 0b01000010, 0b00010000, 0b00001000,
+                0b00001000, 0b00010000, 0b01000000, 0b00000000,
+                0b00000010, 0b00100000, 0b00000000, 0b00000100,
+                0b00000000, 0b00000001, (byte) 0b10000000
+        });
+
+        assertEquals(0x08104225, bitReader.prefetchBits() & 0xffffffffL);
+        assertEquals(0x08104225, bitReader.prefetchBits() & 0xffffffffL);
+
+        for (int bits = 1; bits <= 15; bits++) {
+            assertEquals(1 << (bits - 1), bitReader.prefetchBits() & ((1 << bits) - 1));
+            bitReader.skipBits(bits);
+        }
+
+        // Past the end of stream, reads zeros
+        assertEquals(0, bitReader.prefetchBits() & 0xffffffffL);
+    }
+
+    @Test
+    public void testPrefetchBitsLarge() throws IOException {
+        // More than the internal read-ahead buffer
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        final LSBBitReader bitReader = createBitReader(data);
+
+        for (int i = 0; i < data.length; i++) {
+            // Read each byte in two parts, crossing byte boundaries in between
+            int bits = i % 2 == 0 ? 3 : 5;
+
+            assertEquals(i & 0xff, bitReader.prefetchBits() & 0xff);
+            long low = bitReader.prefetchBits() & ((1 << bits) - 1);
+            bitReader.skipBits(bits);
+            long high = bitReader.prefetchBits() & ((1 << (8 - bits)) - 1);
+            bitReader.skipBits(8 - bits);
+
+            assertEquals(i & 0xff, high << bits | low);
+        }
+    }
+
+    @Test
+    public void testPrefetchBitsThenReadBits() throws IOException {
+        ImageInputStream stream = createStream(new byte[] {
+                0b00100101, 0b01000010, 0b00010000, 0b00001000,
+                0b00001000, 0b00010000, 0b01000000, 0b00000000,
+                0b00000010, 0b00100000, 0b00000000, 0b00000100,
+                0b00000000, 0b00000001, (byte) 0b10000000
+        });
+        final LSBBitReader bitReader = new LSBBitReader(stream);
+
+        assertEquals(1, bitReader.prefetchBits() & 1);
+        bitReader.skipBits(1);
+        assertEquals(2, bitReader.prefetchBits() & 3);
+        bitReader.skipBits(2);
+        assertEquals(4, bitReader.prefetchBits() & 7);
+        bitReader.skipBits(3);
+        assertEquals(8, bitReader.prefetchBits() & 15);
+        bitReader.skipBits(4);
+
+        // Reading restores the stream position to the first not completely read byte
+        assertEquals(16, bitReader.readBits(5));
+        assertEquals(1, stream.getStreamPosition());
+        assertEquals(0b01000010, stream.readByte());
+
+        // Start reading from the third byte (10000 == 16)
+        assertEquals(16, bitReader.readBits(5));
+        assertEquals(2, stream.getStreamPosition());
+    }
+
     private static LSBBitReader createBitReader(final byte[] data) {
         ImageInputStream stream = createStream(data);
         return new LSBBitReader(stream);
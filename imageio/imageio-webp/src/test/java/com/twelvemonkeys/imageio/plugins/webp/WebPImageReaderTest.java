@@ -13,8 +13,11 @@ import java.awt.*;
 import java.awt.image.*;
 import java.io.IOException;
 import java.security.MessageDigest;
+import java.time.Duration;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.util.Arrays.asList;
 import org.junit.jupiter.api.Test;
@@ -89,6 +92,124 @@ public class WebPImageReaderTest extends ImageReaderAbstractTest<WebPImageReader
         return asList("image/webp", "image/x-webp");
     }
 
+    @Test
+    public void testReadPipelinedEqualsSequential() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            WebPImageReader reader = createReader();
+
+            for (TestData data : getTestData()) {
+                reader.setInput(data.getInputStream());
+
+                for (int i = 0; i < data.getImageCount(); i++) {
+                    BufferedImage expected = reader.read(i, null);
+
+                    WebPImageReadParam param = (WebPImageReadParam) reader.getDefaultReadParam();
+                    param.setExecutor(executor);
+                    BufferedImage actual = reader.read(i, param);
+
+                    assertImageDataEquals(String.format("Image %s index %s differs", data.getInput(), i), expected, actual);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadPipelinedRejected() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        executor.shutdown();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/webp/1.webp"))) {
+            WebPImageReader reader = createReader();
+            reader.setInput(stream);
+
+            BufferedImage expected = reader.read(0, null);
+
+            // Rejected rows are reconstructed in the calling thread
+            WebPImageReadParam param = (WebPImageReadParam) reader.getDefaultReadParam();
+            param.setExecutor(executor);
+            BufferedImage actual = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> reader.read(0, param));
+
+            assertImageDataEquals("Images differ", expected, actual);
+        }
+    }
+
+    @Test
+    public void testReadPipelinedEqualsSequentialSourceRegionSubsampled() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/webp/5.webp"))) {
+            WebPImageReader reader = createReader();
+            reader.setInput(stream);
+
+            ImageReadParam expectedParam = reader.getDefaultReadParam();
+            expectedParam.setSourceRegion(new Rectangle(13, 17, 400, 300));
+            expectedParam.setSourceSubsampling(2, 3, 0, 0);
+            BufferedImage expected = reader.read(0, expectedParam);
+
+            WebPImageReadParam param = (WebPImageReadParam) reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(13, 17, 400, 300));
+            param.setSourceSubsampling(2, 3, 0, 0);
+            param.setExecutor(executor);
+            BufferedImage actual = reader.read(0, param);
+
+            assertImageDataEquals("Images differ", expected, actual);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadLossySubsampledPixels() throws IOException {
+        WebPImageReader reader = createReader();
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource("/webp/5.webp"))) {
+            reader.setInput(stream);
+
+            ImageReadParam param = reader.getDefaultReadParam();
+            BufferedImage image = reader.read(0, param);
+
+            // Subsampling that does not align with the 16 x 16 macroblocks
+            param.setSourceSubsampling(3, 3, 0, 0);
+            BufferedImage subsampled = reader.read(0, param);
+
+            assertSubsampledImageDataEquals("Subsampled image data does not match expected", image, subsampled, param);
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void testReadLossyIntDestinationEqualsDefault() throws IOException {
+        WebPImageReader reader = createReader();
+
+        try {
+            for (String resource : asList("/webp/5.webp", "/webp/1_webp_a.webp")) {
+                try (ImageInputStream stream = ImageIO.createImageInputStream(getClassLoaderResource(resource))) {
+                    reader.setInput(stream);
+
+                    BufferedImage expected = reader.read(0, null);
+
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setDestination(new BufferedImage(expected.getWidth(), expected.getHeight(),
+                                                           expected.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB));
+                    BufferedImage actual = reader.read(0, param);
+
+                    assertImageDataEquals("Images differ for " + resource, expected, actual);
+                }
+            }
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
     @Test
     public void testReadAndApplyICCProfile() throws IOException {
         WebPImageReader reader = createReader();
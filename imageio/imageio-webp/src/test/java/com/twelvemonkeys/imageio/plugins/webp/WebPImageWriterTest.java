@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp;
+
+import com.twelvemonkeys.imageio.stream.ByteArrayImageInputStream;
+import com.twelvemonkeys.imageio.util.ImageWriterAbstractTest;
+import com.twelvemonkeys.io.FastByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WebPImageWriterTest.
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: WebPImageWriterTest.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class WebPImageWriterTest extends ImageWriterAbstractTest<WebPImageWriter> {
+    @Override
+    protected ImageWriterSpi createProvider() {
+        return new WebPImageWriterSpi();
+    }
+
+    @Override
+    protected List<? extends RenderedImage> getTestData() {
+        return Arrays.asList(
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)),
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB)),
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB_PRE)),
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_INT_BGR)),
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR)),
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_4BYTE_ABGR)),
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_GRAY)),
+                drawSomething(new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_INDEXED))
+        );
+    }
+
+    @Test
+    public void testDefaultParamIsWebP() throws IOException {
+        ImageWriter writer = createWriter();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+
+        assertEquals(WebPImageWriteParam.class, param.getClass());
+        assertArrayEquals(new String[] {"VP8L"}, param.getCompressionTypes());
+
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        assertEquals("VP8L", param.getCompressionType());
+        assertTrue(param.isCompressionLossless());
+
+        writer.dispose();
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        ImageWriter writer = createWriter();
+
+        for (RenderedImage testData : getTestData()) {
+            BufferedImage image = (BufferedImage) testData;
+            assertRGBEquals(image, writeRead(writer, image, null));
+        }
+
+        writer.dispose();
+    }
+
+    @Test
+    public void testWriteReadQuality() throws IOException {
+        ImageWriter writer = createWriter();
+
+        // One image with many colors (and alpha), one with few colors
+        BufferedImage photo = ImageIO.read(getClassLoaderResource("/webp/1_webp_a.webp"));
+        BufferedImage palette = ImageIO.read(getClassLoaderResource("/webp/animated-webp-supported.webp"));
+
+        for (float quality : new float[] {0, 0.25f, 0.5f, 1}) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+
+            assertRGBEquals(photo, writeRead(writer, photo, param));
+            assertRGBEquals(palette, writeRead(writer, palette, param));
+        }
+
+        writer.dispose();
+    }
+
+    @Test
+    public void testWriteQualityNotLarger() throws IOException {
+        ImageWriter writer = createWriter();
+
+        // Higher quality (effort) should never give a larger file
+        for (String resource : new String[] {"/webp/1_webp_a.webp", "/webp/4_webp_ll.webp", "/webp/test.webp"}) {
+            BufferedImage image = ImageIO.read(getClassLoaderResource(resource));
+            int previousLength = Integer.MAX_VALUE;
+
+            for (float quality : new float[] {0, 0.25f, 0.5f, 0.75f, 1}) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+
+                int length = write(writer, image, param).length;
+                assertTrue(length <= previousLength, String.format("%s: %d bytes at quality %s, larger than %d bytes at lower quality", resource, length, quality, previousLength));
+
+                previousLength = length;
+            }
+        }
+
+        writer.dispose();
+    }
+
+    @Test
+    public void testWriteReadOddSizes() throws IOException {
+        ImageWriter writer = createWriter();
+
+        // Includes sizes that are not multiples of the predictor tile sizes, and palette pixel packing
+        for (Dimension size : new Dimension[] {new Dimension(1, 1), new Dimension(13, 1), new Dimension(1, 13), new Dimension(31, 17)}) {
+            BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+
+            for (int y = 0; y < size.height; y++) {
+                for (int x = 0; x < size.width; x++) {
+                    image.setRGB(x, y, (x * 37 + y * 91) << 8 ^ y * 0x01020304);
+                }
+            }
+
+            assertRGBEquals(image, writeRead(writer, image, null));
+        }
+
+        writer.dispose();
+    }
+
+    @Test
+    public void testWriteSourceRegionSubsampling() throws IOException {
+        ImageWriter writer = createWriter();
+
+        BufferedImage original = ImageIO.read(getClassLoaderResource("/webp/1_webp_ll.webp"));
+
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setSourceRegion(new Rectangle(10, 20, 101, 51));
+        param.setSourceSubsampling(2, 3, 0, 0);
+
+        BufferedImage image = writeRead(writer, original, param);
+
+        assertEquals(51, image.getWidth());
+        assertEquals(17, image.getHeight());
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(original.getRGB(10 + x * 2, 20 + y * 3), image.getRGB(x, y), String.format("RGB differ at (%d, %d)", x, y));
+            }
+        }
+
+        writer.dispose();
+    }
+
+    @Test
+    public void testWriteExecutorSameResult() throws IOException {
+        ImageWriter writer = createWriter();
+
+        // Large enough to be split into multiple tasks
+        BufferedImage image = ImageIO.read(getClassLoaderResource("/webp/2_webp_ll.webp"));
+
+        WebPImageWriteParam param = (WebPImageWriteParam) writer.getDefaultWriteParam();
+        byte[] expected = write(writer, image, param);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            param.setExecutor(executor);
+            byte[] actual = write(writer, image, param);
+
+            assertArrayEquals(expected, actual);
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        writer.dispose();
+    }
+
+    @Test
+    public void testWriteExecutorRejected() throws IOException {
+        ImageWriter writer = createWriter();
+
+        // Large enough to be split into multiple tasks
+        BufferedImage image = ImageIO.read(getClassLoaderResource("/webp/2_webp_ll.webp"));
+
+        WebPImageWriteParam param = (WebPImageWriteParam) writer.getDefaultWriteParam();
+        byte[] expected = write(writer, image, param);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        executor.shutdown();
+
+        // Rejected tasks are run in the calling thread
+        param.setExecutor(executor);
+        byte[] actual = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> write(writer, image, param));
+
+        assertArrayEquals(expected, actual);
+
+        writer.dispose();
+    }
+
+    private static byte[] write(final ImageWriter writer, final BufferedImage image, final ImageWriteParam param) throws IOException {
+        FastByteArrayOutputStream buffer = new FastByteArrayOutputStream(65536);
+
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(buffer)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    private static BufferedImage writeRead(final ImageWriter writer, final BufferedImage image, final ImageWriteParam param) throws IOException {
+        byte[] data = write(writer, image, param);
+
+        ImageReader reader = new WebPImageReader(new WebPImageReaderSpi());
+
+        try (ImageInputStream stream = new ByteArrayImageInputStream(data)) {
+            reader.setInput(stream);
+
+            BufferedImage result = reader.read(0);
+            assertNotNull(result);
+
+            return result;
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    private static void assertRGBEquals(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), String.format("RGB differ at (%d, %d) for %s", x, y, expected));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp.lossless;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * TransformTest.
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: TransformTest.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class TransformTest {
+    @Test
+    public void testColorIndexingExpandsPackedInPlace() {
+        int[] colorTable = {0xff000000, 0xffff0000, 0xff00ff00, 0xff0000ff};
+
+        // 5 x 2 pixels, 2 bits per index, 4 indices per packed pixel (index in green, first pixel in low bits)
+        int[] argb = new int[5 * 2];
+        argb[0] = 0b11_10_01_00 << 8;
+        argb[1] = 0b00_00_00_01 << 8;
+        argb[2] = 0b00_01_10_11 << 8;
+        argb[3] = 0b00_00_00_10 << 8;
+
+        new ColorIndexingTransform(colorTable, 5, (byte) 2).applyInverse(argb, 2);
+
+        assertArrayEquals(new int[] {
+                0xff000000, 0xffff0000, 0xff00ff00, 0xff0000ff, 0xffff0000,
+                0xff0000ff, 0xff00ff00, 0xffff0000, 0xff000000, 0xff00ff00
+        }, argb);
+    }
+
+    @Test
+    public void testColorIndexingOutOfRangeIsTransparentBlack() {
+        // Table for 3 colors, padded to 4 entries
+        int[] colorTable = {0xff000000, 0xffff0000, 0xff00ff00, 0};
+
+        int[] argb = {0b11_10_01_00 << 8, 0, 0, 0};
+
+        new ColorIndexingTransform(colorTable, 4, (byte) 2).applyInverse(argb, 1);
+
+        assertArrayEquals(new int[] {0xff000000, 0xffff0000, 0xff00ff00, 0x00000000}, argb);
+    }
+
+    @Test
+    public void testSubtractGreenNoCarry() {
+        int[] argb = {0x80ff80ff, 0x01020304, 0xfe01ff00};
+
+        new SubtractGreenTransform(3).applyInverse(argb, 1);
+
+        assertArrayEquals(new int[] {0x807f807f, 0x01050307, 0xfe00ffff}, argb);
+    }
+
+    @Test
+    public void testPredictorBorders() {
+        // Mode data uses predictor BLACK for all blocks, only the borders are special cased
+        int[] data = {PredictorMode.BLACK << 8};
+        int[] argb = {
+                0x01010101, 0x01010101, 0x01010101,
+                0x01010101, 0x00000000, 0x00000000
+        };
+
+        new PredictorTransform(data, 3, (byte) 2).applyInverse(argb, 2);
+
+        assertArrayEquals(new int[] {
+                0x00010101, 0x01020202, 0x02030303,
+                0x01020202, 0xff000000, 0xff000000
+        }, argb);
+    }
+
+    @Test
+    public void testSubtractGreenForwardInverse() {
+        int[] expected = randomPixels(7 * 3);
+        int[] argb = Arrays.copyOf(expected, expected.length);
+
+        SubtractGreenTransform.applyForward(argb, argb.length);
+        new SubtractGreenTransform(7).applyInverse(argb, 3);
+
+        assertArrayEquals(expected, argb);
+    }
+
+    @Test
+    public void testPredictorForwardInverse() {
+        // 13 x 9 pixels, 4 x 3 blocks of 4 x 4 pixels, one block for each mode (except the last two)
+        int[] data = new int[4 * 3];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 0xff000000 | i << 8;
+        }
+
+        int[] expected = randomPixels(13 * 9);
+        int[] argb = new int[expected.length];
+
+        PredictorTransform.applyForward(expected, argb, 13, 0, 9, data, 2);
+        new PredictorTransform(data, 13, (byte) 2).applyInverse(argb, 9);
+
+        assertArrayEquals(expected, argb);
+    }
+
+    @Test
+    public void testPredictorForwardInverseAllModes() {
+        for (int mode = 0; mode < 14; mode++) {
+            int[] data = {0xff000000 | mode << 8, 0xff000000 | mode << 8};
+
+            int[] expected = randomPixels(5 * 4);
+            int[] argb = new int[expected.length];
+
+            PredictorTransform.applyForward(expected, argb, 5, 0, 4, data, 2);
+            new PredictorTransform(data, 5, (byte) 2).applyInverse(argb, 4);
+
+            assertArrayEquals(expected, argb, "Mode " + mode);
+        }
+    }
+
+    @Test
+    public void testColorForwardInverse() {
+        // 6 x 5 pixels, 2 x 2 blocks of 4 x 4 pixels
+        int[] data = {0xff000000, 0xff7f8001, 0xff12fe34, 0xff80ff7f};
+
+        int[] expected = randomPixels(6 * 5);
+        int[] argb = Arrays.copyOf(expected, expected.length);
+
+        ColorTransform.applyForward(argb, 6, 0, 5, data, 2);
+        new ColorTransform(data, 6, (byte) 2).applyInverse(argb, 5);
+
+        assertArrayEquals(expected, argb);
+    }
+
+    @Test
+    public void testColorIndexingForwardInverse() {
+        // Sorted, as signed values
+        int[] colorTable = {0xff000000, 0xffff0000, 0xffffffff, 0x00000000, 0x7f102030};
+
+        for (byte bits = 0; bits <= 3; bits++) {
+            // Only use as many colors as fits the packing
+            int colors = Math.min(colorTable.length, 1 << (8 >> bits));
+            int[] expected = new int[11 * 3];
+            Random random = new Random(bits);
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = colorTable[random.nextInt(colors)];
+            }
+
+            int[] table = Arrays.copyOf(colorTable, colors);
+            int[] packed = ColorIndexingTransform.applyForward(expected, 11, 3, table, bits);
+            int[] argb = Arrays.copyOf(packed, expected.length);
+
+            new ColorIndexingTransform(table, 11, bits).applyInverse(argb, 3);
+
+            assertArrayEquals(expected, argb, "Bits " + bits);
+        }
+    }
+
+    private static int[] randomPixels(final int length) {
+        Random random = new Random(42);
+        int[] argb = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            argb[i] = random.nextInt();
+        }
+
+        return argb;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026, Harald Kuhr
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.twelvemonkeys.imageio.plugins.webp.vp8;
+
+import org.junit.jupiter.api.Test;
+
+import static com.twelvemonkeys.imageio.color.YCbCrConverter.convertRec601YCbCr2RGB;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * YCbCrUpsamplerTest.
+ *
+ * @author <a href="mailto:harald.kuhr@gmail.com">Harald Kuhr</a>
+ * @author last modified by $Author: haraldk$
+ * @version $Id: YCbCrUpsamplerTest.java,v 1.0 17.10.2026 haraldk Exp$
+ */
+public class YCbCrUpsamplerTest {
+    @Test
+    public void testConstantChromaEqualsRec601() {
+        int[][] samples = {{0, 128, 128}, {255, 128, 128}, {16, 0, 255}, {235, 255, 0}, {81, 90, 240}, {145, 54, 34}};
+
+        for (int[] sample : samples) {
+            byte[] y = new byte[7];
+            byte[] cb = new byte[4];
+            byte[] cr = new byte[4];
+
+            for (int i = 0; i < y.length; i++) {
+                y[i] = (byte) (sample[0] + i);
+            }
+            for (int i = 0; i < cb.length; i++) {
+                cb[i] = (byte) sample[1];
+                cr[i] = (byte) sample[2];
+            }
+
+            int[] argb = new int[y.length];
+            YCbCrUpsampler.upsampleLine(y, 0, cb, cr, 0, 0, null, 0, argb, y.length);
+
+            for (int i = 0; i < y.length; i++) {
+                assertEquals(expectedARGB(0xff, y[i], cb[0], cr[0]), argb[i], "pixel " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testInterpolationWeights() {
+        // Two chroma lines, interpolated using 9/3/3/1 weights, Cr is constant
+        byte[] y = {100, 100, 100, 100};
+        byte[] cb = {0, (byte) 160, 0, 0};
+        byte[] cr = {(byte) 128, (byte) 128, (byte) 128, (byte) 128};
+
+        int[] argb = new int[4];
+        YCbCrUpsampler.upsampleLine(y, 0, cb, cr, 0, 2, null, 0, argb, 4);
+
+        // First pixel: 3/4 near, 1/4 far, last pixel (even width): 3/4 near right, 1/4 far right
+        assertEquals(expectedARGB(0xff, y[0], (byte) 0, cr[0]), argb[0]);
+        assertEquals(expectedARGB(0xff, y[1], (byte) 30, cr[0]), argb[1]);
+        assertEquals(expectedARGB(0xff, y[2], (byte) 90, cr[0]), argb[2]);
+        assertEquals(expectedARGB(0xff, y[3], (byte) 120, cr[0]), argb[3]);
+    }
+
+    @Test
+    public void testAlpha() {
+        byte[] y = {0, 50, 100, (byte) 150, (byte) 200};
+        byte[] cb = {(byte) 128, (byte) 128, (byte) 128};
+        byte[] cr = {(byte) 128, (byte) 128, (byte) 128};
+        byte[] alpha = {42, 0, 0, (byte) 255, 1, 127, (byte) 128};
+
+        int[] argb = new int[5];
+        YCbCrUpsampler.upsampleLine(y, 0, cb, cr, 0, 0, alpha, 2, argb, 5);
+
+        for (int i = 0; i < y.length; i++) {
+            assertEquals(expectedARGB(alpha[i + 2] & 0xff, y[i], cb[0], cr[0]), argb[i], "pixel " + i);
+        }
+    }
+
+    private static int expectedARGB(final int alpha, final byte y, final byte cb, final byte cr) {
+        byte[] rgb = new byte[3];
+        convertRec601YCbCr2RGB(new byte[] {y, cb, cr}, rgb, 0);
+
+        return alpha << 24 | (rgb[0] & 0xff) << 16 | (rgb[1] & 0xff) << 8 | rgb[2] & 0xff;
+    }
+}